@@ -13,6 +13,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication(
     scanBasePackages = {
       "com.location.finder.mongo",
+      "com.location.finder.snapshot",
       "com.location.finder.core",
       "com.location.finder.application"
     })
@@ -0,0 +1,126 @@
+package com.location.finder.application.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AdaptiveConcurrencyLimit bounds the number of requests in flight with a limit that adapts to the
+ * latency of the requests, in the style of an additive increase, multiplicative decrease (AIMD)
+ * congestion window. A request slower than the latency target shrinks the limit by the backoff
+ * ratio, and a request within the target grows it by one while at least half of the limit is in
+ * use, so the limit settles around the concurrency the data sources can serve within the target.
+ *
+ * <p>Like a congestion window, the limit shrinks at most once per sampling window: after a
+ * decrease, the slow requests that started before it are the ones that caused it, so they do not
+ * shrink the limit again. Without the window, a single slow period would shrink the limit once for
+ * every request in flight, down to the lowest limit.
+ *
+ * <p>The counters are atomic, so admitting and releasing a request costs a few compare-and-set
+ * operations and never blocks.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  /** The time of the last decrease before any decrease. */
+  private static final long NEVER = Long.MIN_VALUE;
+
+  /** The lowest limit, so that a slow period never stops all the requests. */
+  private final int minLimit;
+
+  /** The highest limit. */
+  private final int maxLimit;
+
+  /** The latency above which a request shrinks the limit, in nanoseconds. */
+  private final long latencyTargetNanos;
+
+  /** The ratio by which a slow request shrinks the limit. */
+  private final double backoffRatio;
+
+  /** The current limit. */
+  private final AtomicInteger limit;
+
+  /** The number of requests in flight. */
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /** The time of the last decrease of the limit, in nanoseconds of the clock of the requests. */
+  private final AtomicLong lastDecrease = new AtomicLong(NEVER);
+
+  /**
+   * Create a limit.
+   *
+   * @param initialLimit the limit before any request completed.
+   * @param minLimit the lowest limit.
+   * @param maxLimit the highest limit.
+   * @param latencyTargetNanos the latency above which a request shrinks the limit, in nanoseconds.
+   * @param backoffRatio the ratio by which a slow request shrinks the limit, between 0 and 1.
+   * @throws IllegalArgumentException if the limits are not positive and ordered, or the backoff
+   *     ratio is not between 0 and 1.
+   */
+  public AdaptiveConcurrencyLimit(
+      int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoffRatio) {
+    if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+      throw new IllegalArgumentException(
+          "The concurrency limits must be positive, and the initial limit between the min and max");
+    }
+    if (!(backoffRatio > 0 && backoffRatio < 1)) {
+      throw new IllegalArgumentException("The backoff ratio must be between 0 and 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyTargetNanos = latencyTargetNanos;
+    this.backoffRatio = backoffRatio;
+    this.limit = new AtomicInteger(initialLimit);
+  }
+
+  /**
+   * Admit a request if the limit allows it. Every admitted request must be released once.
+   *
+   * @return true if the request is admitted, false if the limit is reached.
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.get()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Release an admitted request, and adapt the limit to its latency. A slow request shrinks the
+   * limit only if it started after the last decrease.
+   *
+   * @param startNanos the time the request was admitted, in nanoseconds of a monotonic clock.
+   * @param latencyNanos the latency of the request, in nanoseconds.
+   */
+  public void release(long startNanos, long latencyNanos) {
+    int current = inFlight.getAndDecrement();
+    if (latencyNanos > latencyTargetNanos) {
+      long last = lastDecrease.get();
+      if ((last == NEVER || startNanos - last >= 0)
+          && lastDecrease.compareAndSet(last, startNanos + latencyNanos)) {
+        limit.updateAndGet(l -> Math.max(minLimit, (int) (l * backoffRatio)));
+      }
+    } else if (current * 2 >= limit.get()) {
+      limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+    }
+  }
+
+  /**
+   * Release an admitted request without adapting the limit, for a request whose latency is not a
+   * sample of the latency of the data sources.
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return limit.get();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
@@ -0,0 +1,191 @@
+package com.location.finder.application.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * AdmissionWebFilter sheds the search requests that would overload the service. Every client is
+ * limited to the rate of its token bucket, so that a single misbehaving integration cannot flood
+ * the search endpoints, and all the clients share an adaptive limit of the searches in flight, so
+ * that the latency of the admitted searches stays within the target. A client is identified by its
+ * X-API-Key header if the key is one of the configured API keys, or else by the first address of
+ * the configured client header, e.g. the X-Forwarded-For header set by a CDN, or else by its remote
+ * address. The keys are not authenticated otherwise, so an unknown key is ignored rather than given
+ * a bucket of its own, and a client cannot get fresh buckets by sending new keys.
+ *
+ * <p>The latency of a search is measured until its response is committed, which is when the handler
+ * has found a JSON array or the first locations of a stream, so the transfer of the body to a slow
+ * client does not shrink the limit. A batch runs many searches, so its latency is not a sample of
+ * the latency of a search: a batch counts as a request in flight, but does not adapt the limit.
+ *
+ * <p>A shed request is answered with 429 Too Many Requests and a Retry-After header in seconds,
+ * without reaching the resource. The shed requests are counted by reason, RATE for the bucket of
+ * the client and CONCURRENCY for the limit in flight. Only the GET and POST requests of the search
+ * endpoints are limited, the tiles and clusters are cached and cheap.
+ */
+public class AdmissionWebFilter implements WebFilter {
+
+  /** Request header of the key of the client. */
+  public static final String API_KEY_HEADER = "X-API-Key";
+
+  /** Name of the counter of the shed requests, tagged by reason. */
+  public static final String REJECTED_COUNTER = "location.admission.rejected";
+
+  /** Name of the gauge of the adaptive concurrency limit. */
+  public static final String LIMIT_GAUGE = "location.admission.limit";
+
+  /** Name of the gauge of the admitted requests in flight. */
+  public static final String IN_FLIGHT_GAUGE = "location.admission.in-flight";
+
+  /** The limited paths. */
+  private static final Set<String> SEARCH_PATHS = Set.of("/location", "/location/batch");
+
+  /** The path of the batches of searches. */
+  private static final String BATCH_PATH = "/location/batch";
+
+  /** Retry-After of a request shed by the concurrency limit, in seconds. */
+  private static final long CONCURRENCY_RETRY_AFTER = 1;
+
+  /** The limit of the requests in flight of all the clients. */
+  private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+  /** The token buckets of the clients. */
+  private final ClientRateLimiter rateLimiter;
+
+  /** Monotonic clock in nanoseconds, to time the admitted requests. */
+  private final LongSupplier clock;
+
+  /** The request header of the address of the client set by a proxy, or null. */
+  private final String clientHeader;
+
+  /** The API keys that identify a client by themselves. */
+  private final Set<String> apiKeys;
+
+  /** Counter of the requests shed by the bucket of their client. */
+  private final Counter rateRejected;
+
+  /** Counter of the requests shed by the concurrency limit. */
+  private final Counter concurrencyRejected;
+
+  /**
+   * Create the filter.
+   *
+   * @param concurrencyLimit the limit of the requests in flight of all the clients.
+   * @param rateLimiter the token buckets of the clients.
+   * @param clientHeader the request header of the address of the client set by a trusted proxy,
+   *     e.g. X-Forwarded-For behind a CDN, or null or empty to use the remote address.
+   * @param apiKeys the API keys that identify a client by themselves, the other keys are ignored.
+   * @param meterRegistry the registry of the admission metrics, whose clock times the requests.
+   */
+  public AdmissionWebFilter(
+      AdaptiveConcurrencyLimit concurrencyLimit,
+      ClientRateLimiter rateLimiter,
+      String clientHeader,
+      Collection<String> apiKeys,
+      MeterRegistry meterRegistry) {
+    this.concurrencyLimit = concurrencyLimit;
+    this.rateLimiter = rateLimiter;
+    this.clientHeader = clientHeader == null || clientHeader.isEmpty() ? null : clientHeader;
+    this.apiKeys = new HashSet<>(apiKeys);
+    this.apiKeys.remove("");
+    this.clock = meterRegistry.config().clock()::monotonicTime;
+    this.rateRejected = rejectedCounter(meterRegistry, "RATE");
+    this.concurrencyRejected = rejectedCounter(meterRegistry, "CONCURRENCY");
+    Gauge.builder(LIMIT_GAUGE, concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+        .description("Adaptive limit of the search requests in flight")
+        .register(meterRegistry);
+    Gauge.builder(IN_FLIGHT_GAUGE, concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+        .description("Admitted search requests in flight")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    ServerHttpRequest request = exchange.getRequest();
+    if (!isSearch(request)) {
+      return chain.filter(exchange);
+    }
+    long wait = rateLimiter.tryAcquire(client(request, clientHeader, apiKeys));
+    if (wait > 0) {
+      rateRejected.increment();
+      return reject(exchange.getResponse(), TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1);
+    }
+    if (!concurrencyLimit.tryAcquire()) {
+      concurrencyRejected.increment();
+      return reject(exchange.getResponse(), CONCURRENCY_RETRY_AFTER);
+    }
+    if (BATCH_PATH.equals(request.getPath().pathWithinApplication().value())) {
+      return Mono.defer(() -> chain.filter(exchange))
+          .doFinally(signal -> concurrencyLimit.release());
+    }
+    long start = clock.getAsLong();
+    AtomicLong committed = new AtomicLong(start);
+    exchange
+        .getResponse()
+        .beforeCommit(() -> Mono.fromRunnable(() -> committed.set(clock.getAsLong())));
+    return Mono.defer(() -> chain.filter(exchange))
+        .doFinally(
+            signal -> {
+              long end = exchange.getResponse().isCommitted() ? committed.get() : clock.getAsLong();
+              concurrencyLimit.release(start, end - start);
+            });
+  }
+
+  private static boolean isSearch(ServerHttpRequest request) {
+    return (request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.POST)
+        && SEARCH_PATHS.contains(request.getPath().pathWithinApplication().value());
+  }
+
+  /**
+   * The key of the client, its API key if it is a configured one, or else the first address of the
+   * client header, or else the host of its remote address. The API keys are prefixed, so that a key
+   * never shares the bucket of an address.
+   */
+  private static String client(
+      ServerHttpRequest request, String clientHeader, Set<String> apiKeys) {
+    String apiKey = request.getHeaders().getFirst(API_KEY_HEADER);
+    if (apiKey != null && apiKeys.contains(apiKey)) {
+      return API_KEY_HEADER + ":" + apiKey;
+    }
+    String forwarded = clientHeader == null ? null : request.getHeaders().getFirst(clientHeader);
+    if (forwarded != null) {
+      int comma = forwarded.indexOf(',');
+      String address = (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+      if (!address.isEmpty()) {
+        return address;
+      }
+    }
+    InetSocketAddress remoteAddress = request.getRemoteAddress();
+    return remoteAddress == null ? "" : remoteAddress.getHostString();
+  }
+
+  private static Mono<Void> reject(ServerHttpResponse response, long retryAfter) {
+    response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+    response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+    return response.setComplete();
+  }
+
+  private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder(REJECTED_COUNTER)
+        .description("Search requests shed by the admission control")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,82 @@
+package com.location.finder.application.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * ClientRateLimiter gives every client a token bucket of the given rate and burst. A bucket is
+ * stored as the single theoretical arrival time of the generic cell rate algorithm, which is
+ * equivalent to a token bucket: a request is admitted if the arrival time is at most the burst
+ * ahead of now, and pushes the arrival time one interval further. Admitting a request is a single
+ * compare-and-set on the bucket of the client, so the buckets are lock-free.
+ *
+ * <p>The buckets are kept in a bounded cache. A bucket expires once it would be full again, so the
+ * expiry never lets a client through earlier than its bucket would. But when more clients than the
+ * max are active, the least recently used buckets are evicted, and an evicted client starts again
+ * with a full bucket. The max number of clients must therefore be above the number of active
+ * clients, and the keys of the clients must not be chosen freely by the clients, or a client could
+ * get a fresh bucket with every key and evict the buckets of the other clients.
+ */
+public class ClientRateLimiter {
+
+  /** The interval between two requests at the sustained rate, in nanoseconds. */
+  private final long intervalNanos;
+
+  /** How far ahead of now the arrival time of an admitted request can be, in nanoseconds. */
+  private final long toleranceNanos;
+
+  /** Monotonic clock in nanoseconds. */
+  private final LongSupplier clock;
+
+  /** The theoretical arrival times of the clients, by client. */
+  private final Cache<String, AtomicLong> buckets;
+
+  /**
+   * Create a rate limiter.
+   *
+   * @param rate the sustained number of requests per second of a client.
+   * @param burst the number of requests a client can send at once after an idle period.
+   * @param maxClients the max number of client buckets to keep.
+   * @param clock monotonic clock in nanoseconds.
+   * @throws IllegalArgumentException if the rate or the burst is not positive.
+   */
+  public ClientRateLimiter(double rate, int burst, long maxClients, LongSupplier clock) {
+    if (!(rate > 0) || burst < 1) {
+      throw new IllegalArgumentException("The client rate and burst must be positive");
+    }
+    this.intervalNanos = Math.max(1, (long) (1e9 / rate));
+    this.toleranceNanos = intervalNanos * (burst - 1);
+    this.clock = clock;
+    this.buckets =
+        Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(Duration.ofNanos(intervalNanos * burst))
+            .build();
+  }
+
+  /**
+   * Admit a request of a client if its bucket has a token.
+   *
+   * @param client the key of the client.
+   * @return zero if the request is admitted, or else the nanoseconds until the bucket of the client
+   *     has a token again.
+   */
+  public long tryAcquire(String client) {
+    long now = clock.getAsLong();
+    AtomicLong bucket = buckets.get(client, key -> new AtomicLong(now));
+    while (true) {
+      long arrival = bucket.get();
+      long start = arrival - now > 0 ? arrival : now;
+      long wait = start - now - toleranceNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (bucket.compareAndSet(arrival, start + intervalNanos)) {
+        return 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.location.finder.application.codec;
+
+import com.location.finder.core.codec.LocationBinaryFormat;
+import com.location.finder.core.dto.LocationDTO;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+/**
+ * Encoder that writes LocationDTO streams in the compact binary format of LocationBinaryFormat.
+ * Every location is written as its own buffer, so the locations are sent as they come from location
+ * finder, the same way as a JSON array.
+ */
+public class LocationBinaryEncoder extends AbstractEncoder<LocationDTO> {
+
+  /** Media type of the binary format. */
+  public static final MediaType LOCATION_BINARY =
+      MediaType.parseMediaType(LocationBinaryFormat.MEDIA_TYPE);
+
+  /** Create an encoder of the binary format. */
+  public LocationBinaryEncoder() {
+    super(LOCATION_BINARY);
+  }
+
+  @Override
+  public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+    return LocationDTO.class.isAssignableFrom(elementType.toClass())
+        && super.canEncode(elementType, mimeType);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(
+      Publisher<? extends LocationDTO> inputStream,
+      DataBufferFactory bufferFactory,
+      ResolvableType elementType,
+      MimeType mimeType,
+      Map<String, Object> hints) {
+    return Flux.from(inputStream)
+        .map(location -> encodeValue(location, bufferFactory, elementType, mimeType, hints));
+  }
+
+  @Override
+  public DataBuffer encodeValue(
+      LocationDTO value,
+      DataBufferFactory bufferFactory,
+      ResolvableType valueType,
+      MimeType mimeType,
+      Map<String, Object> hints) {
+    return bufferFactory.wrap(LocationBinaryFormat.encode(value));
+  }
+}
@@ -11,12 +11,16 @@ import static org.springframework.web.reactive.function.server.RouterFunctions.r
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 
+import com.location.finder.application.codec.LocationBinaryEncoder;
+import com.location.finder.application.resource.LocationResource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.web.reactive.config.CorsRegistry;
 import org.springframework.web.reactive.config.EnableWebFlux;
 import org.springframework.web.reactive.config.WebFluxConfigurer;
@@ -77,6 +81,18 @@ public class GlobalWebLayerConfiguration implements WebFluxConfigurer {
         .addMapping(ROOT_PATH_PATTERN)
         .allowedOrigins(allowedOrigin)
         .allowedMethods(ALLOWED_METHODS_FOR_APP)
+        .exposedHeaders(LocationResource.DEGRADED_HEADER, HttpHeaders.ETAG)
         .maxAge(CORS_HEADER_MAX_AGE);
   }
+
+  /**
+   * Register the encoder of the compact binary format of locations, next to the default JSON
+   * codecs.
+   *
+   * @param serverCodecConfigurer Spring Boot's codec configurer.
+   */
+  @Override
+  public void configureHttpMessageCodecs(ServerCodecConfigurer serverCodecConfigurer) {
+    serverCodecConfigurer.customCodecs().register(new LocationBinaryEncoder());
+  }
 }
@@ -0,0 +1,61 @@
+package com.location.finder.application.config;
+
+import com.location.finder.application.admission.AdaptiveConcurrencyLimit;
+import com.location.finder.application.admission.AdmissionWebFilter;
+import com.location.finder.application.admission.ClientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the admission control of the search endpoints. The filter limits every client to
+ * its token bucket, and all the clients to an adaptive number of searches in flight, so that a
+ * flood of searches is shed with 429 Too Many Requests instead of raising the latency of everyone.
+ */
+@Configuration
+@ConditionalOnProperty(name = "location.finder.admission.enabled", havingValue = "true")
+public class LocationAdmissionConfiguration {
+
+  /**
+   * Create the admission filter of the search endpoints.
+   *
+   * @param meterRegistry MeterRegistry to publish the shed requests and the concurrency limit.
+   * @param initialLimit the limit of the searches in flight before any search completed.
+   * @param minLimit the lowest limit of the searches in flight.
+   * @param maxLimit the highest limit of the searches in flight.
+   * @param latencyTarget the latency above which a search shrinks the limit.
+   * @param backoffRatio the ratio by which a slow search shrinks the limit.
+   * @param clientRate the sustained number of searches per second of a client.
+   * @param clientBurst the number of searches a client can send at once after an idle period.
+   * @param maxClients the max number of client buckets to keep.
+   * @param clientHeader the header of the address of the client set by a trusted proxy, or empty.
+   * @param apiKeys the API keys that identify a client by themselves, comma separated.
+   * @return AdmissionWebFilter that sheds the searches above the limits.
+   */
+  @Bean
+  public AdmissionWebFilter admissionWebFilter(
+      MeterRegistry meterRegistry,
+      @Value("${location.finder.admission.initial-limit}") int initialLimit,
+      @Value("${location.finder.admission.min-limit}") int minLimit,
+      @Value("${location.finder.admission.max-limit}") int maxLimit,
+      @Value("${location.finder.admission.latency-target}") Duration latencyTarget,
+      @Value("${location.finder.admission.backoff-ratio}") double backoffRatio,
+      @Value("${location.finder.admission.client-rate}") double clientRate,
+      @Value("${location.finder.admission.client-burst}") int clientBurst,
+      @Value("${location.finder.admission.max-clients}") long maxClients,
+      @Value("${location.finder.admission.client-header}") String clientHeader,
+      @Value("${location.finder.admission.api-keys}") List<String> apiKeys) {
+    return new AdmissionWebFilter(
+        new AdaptiveConcurrencyLimit(
+            initialLimit, minLimit, maxLimit, latencyTarget.toNanos(), backoffRatio),
+        new ClientRateLimiter(
+            clientRate, clientBurst, maxClients, meterRegistry.config().clock()::monotonicTime),
+        clientHeader,
+        apiKeys,
+        meterRegistry);
+  }
+}
@@ -0,0 +1,60 @@
+package com.location.finder.application.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.location.finder.core.cache.CachingLocationFinder;
+import com.location.finder.core.cache.SearchKey;
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.service.LocationFinder;
+import com.location.finder.core.service.LocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import reactor.core.publisher.Flux;
+
+/**
+ * Configuration of the search result cache in front of LocationService. The cache is bounded by
+ * size and time to live, and its hit, miss and eviction counters are published to the Prometheus
+ * endpoint with the locationSearch cache name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "location.finder.cache.enabled", havingValue = "true")
+public class LocationCacheConfiguration {
+
+  /** Name of the cache in the published metrics. */
+  private static final String CACHE_NAME = "locationSearch";
+
+  /**
+   * Create the caching LocationFinder. Primary annotation makes the rest resources use the cached
+   * finder instead of the LocationService it wraps.
+   *
+   * @param locationService LocationService to run the searches on a cache miss.
+   * @param meterRegistry MeterRegistry to publish the cache statistics.
+   * @param cellSize size of a grid cell in degrees to snap search centers to.
+   * @param maximumSize max number of cached searches.
+   * @param timeToLive duration for a cached search to expire after it was written.
+   * @return LocationFinder that serves the searches from the cache.
+   */
+  @Bean
+  @Primary
+  public LocationFinder cachingLocationFinder(
+      LocationService locationService,
+      MeterRegistry meterRegistry,
+      @Value("${location.finder.cache.cell-size}") double cellSize,
+      @Value("${location.finder.cache.maximum-size}") long maximumSize,
+      @Value("${location.finder.cache.time-to-live}") Duration timeToLive) {
+    Cache<SearchKey, Flux<LocationDTO>> cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    return new CachingLocationFinder(locationService, cache, cellSize);
+  }
+}
@@ -0,0 +1,79 @@
+package com.location.finder.application.config;
+
+import com.location.finder.core.cluster.ClusterService;
+import com.location.finder.core.datasource.LocationRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuration of the server-side clusters of the map. The clusters of the configured location
+ * types are loaded in the background after startup, and the data versions of the types are checked
+ * at a fixed interval to reload the ones that were re-imported. A failed reload is logged and
+ * retried at the next interval, and the clusters of the previous reload keep being served.
+ *
+ * <p>ConditionalOnProperty annotation keeps the clusters disabled unless
+ * location.finder.cluster.enabled is set, as they hold a copy of every clustered location.
+ */
+@Configuration
+@ConditionalOnProperty(name = "location.finder.cluster.enabled", havingValue = "true")
+public class LocationClusterConfiguration {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocationClusterConfiguration.class);
+
+  /**
+   * Create the ClusterService.
+   *
+   * @param locationRepositories all the LocationRepository instances available in the Spring
+   *     context.
+   * @param types the location types to cluster.
+   * @param depth number of levels between the zoom level of a tile and the level of its clusters.
+   * @return ClusterService that serves the cluster queries.
+   */
+  @Bean
+  public ClusterService clusterService(
+      Map<String, LocationRepository> locationRepositories,
+      @Value("${location.finder.cluster.type}") List<String> types,
+      @Value("${location.finder.cluster.depth}") int depth) {
+    return new ClusterService(locationRepositories, types, depth);
+  }
+
+  /**
+   * Reload the clusters of the changed types at a fixed interval. Reloads never overlap, a reload
+   * that takes longer than the interval skips the following ticks. The reloads are stopped when the
+   * context is closed.
+   *
+   * @param clusterService the ClusterService to reload.
+   * @param refreshInterval interval between the starts of two version checks.
+   * @return Disposable of the reloads.
+   */
+  @Bean(destroyMethod = "dispose")
+  public Disposable clusterRefresh(
+      ClusterService clusterService,
+      @Value("${location.finder.cluster.refresh-interval}") Duration refreshInterval) {
+    return Flux.interval(Duration.ZERO, refreshInterval)
+        .onBackpressureDrop()
+        .concatMap(
+            tick ->
+                clusterService
+                    .refresh()
+                    .filter(changes -> changes > 0)
+                    .doOnNext(changes -> logger.info("Refreshed clusters with {} changes", changes))
+                    .onErrorResume(
+                        error -> {
+                          logger.warn("Failed to refresh clusters", error);
+                          return Mono.empty();
+                        }),
+            1)
+        .subscribe();
+  }
+}
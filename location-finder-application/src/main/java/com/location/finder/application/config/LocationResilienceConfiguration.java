@@ -0,0 +1,72 @@
+package com.location.finder.application.config;
+
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.datasource.LocationRepositoryDecorator;
+import com.location.finder.core.datasource.ResilientLocationDecorator;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the latency bound of the data sources. Every configured location type is
+ * searched with a deadline and a circuit breaker, and its failed, timed out or rejected searches
+ * are answered by its fallback location type, typically the in-process FoodTruckIndex or
+ * FoodTruckSnapshot copy of the FoodTruck collection. A type is configured as type:fallback, or as
+ * type alone to answer such searches with 503 Service Unavailable. Every search, which may search a
+ * data source many times, is bounded by the search deadline, fallback searches included.
+ */
+@Configuration
+@ConditionalOnProperty(name = "location.finder.resilience.enabled", havingValue = "true")
+public class LocationResilienceConfiguration {
+
+  /**
+   * Create the decorator that LocationService applies to its location repositories.
+   *
+   * @param locationRepositories all the LocationRepository instances available in the Spring
+   *     context.
+   * @param meterRegistry MeterRegistry to publish the fallback and breaker metrics.
+   * @param types the guarded location types, each with its optional fallback type.
+   * @param deadline max duration of a search of a guarded data source.
+   * @param failureThreshold number of consecutive failures that open the breaker of a data source.
+   * @param openDuration how long an open breaker answers the searches with the fallback.
+   * @param searchDeadline max duration of a whole search, e.g. of all the rounds of a nearest
+   *     search.
+   * @return LocationRepositoryDecorator that guards the configured location types.
+   * @throws IllegalArgumentException if a configured location type is not recognized.
+   */
+  @Bean
+  public LocationRepositoryDecorator resilientLocationRepositories(
+      Map<String, LocationRepository> locationRepositories,
+      MeterRegistry meterRegistry,
+      @Value("${location.finder.resilience.type}") List<String> types,
+      @Value("${location.finder.resilience.deadline}") Duration deadline,
+      @Value("${location.finder.resilience.failure-threshold}") int failureThreshold,
+      @Value("${location.finder.resilience.open-duration}") Duration openDuration,
+      @Value("${location.finder.resilience.search-deadline}") Duration searchDeadline) {
+    Map<String, LocationRepository> fallbacks = new HashMap<>();
+    for (String entry : types) {
+      String[] names = entry.split(":", 2);
+      String type = names[0].trim();
+      if (!locationRepositories.containsKey(type)) {
+        throw new IllegalArgumentException(String.format("Unsupported location type %s", type));
+      }
+      LocationRepository fallback = null;
+      if (names.length > 1) {
+        fallback = locationRepositories.get(names[1].trim());
+        if (fallback == null) {
+          throw new IllegalArgumentException(
+              String.format("Unsupported fallback location type %s", names[1].trim()));
+        }
+      }
+      fallbacks.put(type, fallback);
+    }
+    return new ResilientLocationDecorator(
+        fallbacks, deadline, failureThreshold, openDuration, searchDeadline, meterRegistry);
+  }
+}
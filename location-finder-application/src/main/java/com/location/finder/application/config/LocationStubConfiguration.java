@@ -0,0 +1,133 @@
+package com.location.finder.application.config;
+
+import com.location.finder.core.datasource.InMemoryLocationRepository;
+import com.location.finder.core.datasource.LocationFilter;
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
+
+/**
+ * Configuration of a stub food truck data source for load tests. The stub serves random locations
+ * spread over San Francisco from an in-process index, and can add a fixed latency to every search
+ * to stand in for a database. It is exposed as a separate LocationRepository bean, so
+ * LocationService can look it up by the FoodTruckStub location type without a MongoDB connection.
+ *
+ * <p>ConditionalOnProperty annotation keeps the stub disabled unless location.finder.stub.enabled
+ * is set, as its locations are not real.
+ */
+@Configuration
+@ConditionalOnProperty(name = "location.finder.stub.enabled", havingValue = "true")
+public class LocationStubConfiguration {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocationStubConfiguration.class);
+
+  /** Bounds of the stub locations, as min longitude, min latitude, max longitude, max latitude. */
+  private static final double[] BOUNDS = {-122.52, 37.70, -122.36, 37.82};
+
+  /** Seed of the stub locations, so that every instance serves the same locations. */
+  private static final long SEED = 42;
+
+  /** Facility types of the stub locations. */
+  private static final String[] FACILITY_TYPES = {"Truck", "Push Cart"};
+
+  /** Permit statuses of the stub locations. */
+  private static final String[] STATUSES = {"APPROVED", "REQUESTED", "EXPIRED"};
+
+  /** Food items of the stub locations. */
+  private static final String[] FOOD_ITEMS = {
+    "Tacos: Burritos", "Hot Dogs: Cold Drinks", "Coffee: Pastries", "Curry: Rice", "Ice Cream"
+  };
+
+  /**
+   * Create the stub food truck data source.
+   *
+   * @param size number of stub locations.
+   * @param latency latency added to every search.
+   * @return LocationRepository that searches the stub locations.
+   */
+  @Bean("FoodTruckStub")
+  public LocationRepository foodTruckStub(
+      @Value("${location.finder.stub.size}") int size,
+      @Value("${location.finder.stub.latency}") Duration latency) {
+    Random random = new Random(SEED);
+    Random attributes = new Random(SEED);
+    List<MapLocation> locations = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      MapLocation location = new StubLocation();
+      location.setId(Integer.toString(i));
+      location.setName(String.format("Food Truck %s", i));
+      location.setFacilityType(FACILITY_TYPES[attributes.nextInt(FACILITY_TYPES.length)]);
+      location.setStatus(STATUSES[attributes.nextInt(STATUSES.length)]);
+      location.setFoodItems(List.of(FOOD_ITEMS[attributes.nextInt(FOOD_ITEMS.length)].split(": ")));
+      LocationCoordinates coordinates = new LocationCoordinates();
+      coordinates.setType("Point");
+      coordinates.setLongitude(BOUNDS[0] + random.nextDouble() * (BOUNDS[2] - BOUNDS[0]));
+      coordinates.setLatitude(BOUNDS[1] + random.nextDouble() * (BOUNDS[3] - BOUNDS[1]));
+      location.setLocation(coordinates);
+      locations.add(location);
+    }
+    logger.info("Serving {} stub food truck locations with {} latency", size, latency);
+    return new StubLocationRepository(locations, latency);
+  }
+
+  /**
+   * An in-process location index, which delays the start of every search. The radius searches
+   * delegate to the ring search, so every kind of search is delayed exactly once.
+   */
+  private static final class StubLocationRepository extends InMemoryLocationRepository {
+
+    private final Duration latency;
+
+    private StubLocationRepository(List<MapLocation> locations, Duration latency) {
+      super(locations);
+      this.latency = latency;
+    }
+
+    @Override
+    public Flux<MapLocation> findByCoordinates(
+        double longitude, double latitude, double minDistance, double maxDistance, int limit) {
+      return delay(super.findByCoordinates(longitude, latitude, minDistance, maxDistance, limit));
+    }
+
+    @Override
+    public Flux<MapLocation> findByFilter(
+        LocationFilter filter,
+        double longitude,
+        double latitude,
+        double minDistance,
+        double maxDistance,
+        int limit) {
+      return delay(
+          super.findByFilter(filter, longitude, latitude, minDistance, maxDistance, limit));
+    }
+
+    @Override
+    public Flux<MapLocation> findWithinBox(
+        double minLongitude,
+        double minLatitude,
+        double maxLongitude,
+        double maxLatitude,
+        int limit) {
+      return delay(
+          super.findWithinBox(minLongitude, minLatitude, maxLongitude, maxLatitude, limit));
+    }
+
+    private Flux<MapLocation> delay(Flux<MapLocation> search) {
+      return latency.isZero() ? search : search.delaySubscription(latency);
+    }
+  }
+
+  /** A location of the stub data source. */
+  private static final class StubLocation extends MapLocation {}
+}
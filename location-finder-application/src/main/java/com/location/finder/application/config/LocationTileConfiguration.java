@@ -0,0 +1,53 @@
+package com.location.finder.application.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.location.finder.core.service.LocationService;
+import com.location.finder.core.tile.LocationTile;
+import com.location.finder.core.tile.TileKey;
+import com.location.finder.core.tile.TileService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the map tile cache of TileService. The cache is bounded by size and time to
+ * live, and its hit, miss and eviction counters are published to the Prometheus endpoint with the
+ * locationTile cache name.
+ */
+@Configuration
+public class LocationTileConfiguration {
+
+  /** Name of the cache in the published metrics. */
+  private static final String CACHE_NAME = "locationTile";
+
+  /**
+   * Create the TileService with its cache.
+   *
+   * @param locationService LocationService to search the box of a tile on a cache miss.
+   * @param meterRegistry MeterRegistry to publish the cache statistics.
+   * @param maxLocations max number of locations of a tile.
+   * @param maximumSize max number of cached tiles.
+   * @param timeToLive duration for a cached tile to expire after it was written.
+   * @return TileService that serves the tiles from the cache.
+   */
+  @Bean
+  public TileService tileService(
+      LocationService locationService,
+      MeterRegistry meterRegistry,
+      @Value("${location.finder.tile.max-locations}") int maxLocations,
+      @Value("${location.finder.tile.maximum-size}") long maximumSize,
+      @Value("${location.finder.tile.time-to-live}") Duration timeToLive) {
+    AsyncCache<TileKey, LocationTile> cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+    return new TileService(locationService, cache, maxLocations);
+  }
+}
@@ -10,7 +10,7 @@ public class WebConstants {
   protected static final int CORS_HEADER_MAX_AGE = 3600;
 
   /** Methods exposes by the application for cors filter. */
-  protected static final String[] ALLOWED_METHODS_FOR_APP = {"OPTIONS", "GET"};
+  protected static final String[] ALLOWED_METHODS_FOR_APP = {"OPTIONS", "GET", "POST"};
 
   /** Root path pattern of the application for static content. */
   protected static final String ROOT_PATH_PATTERN = "/**";
@@ -1,16 +1,24 @@
 package com.location.finder.application.exception;
 
+import com.location.finder.core.datasource.LocationUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
-/** Global exception handler for returning meaningful messages to API consumer. */
+/**
+ * Global exception handler for returning meaningful messages to API consumer. Validation errors are
+ * always returned as JSON, so that clients which accept only a binary response format can still
+ * read them.
+ */
 @ControllerAdvice
 public class LocationFinderExceptionHandler {
 
@@ -21,34 +29,60 @@ public class LocationFinderExceptionHandler {
    * Handle WebExchangeBindException which is thrown by the Spring validator.
    *
    * @param e exception instance.
-   * @return ValidationError instance that holds the validation details/
+   * @return ResponseEntity with the ValidationError instance that holds the validation details.
    */
   @ExceptionHandler(WebExchangeBindException.class)
-  @ResponseStatus(HttpStatus.BAD_REQUEST)
-  @ResponseBody
-  ValidationError onWebExchangeBindException(WebExchangeBindException e) {
+  ResponseEntity<ValidationError> onWebExchangeBindException(WebExchangeBindException e) {
     ValidationError error = new ValidationError();
     for (FieldError fieldError : e.getBindingResult().getFieldErrors()) {
       error
           .getViolations()
           .add(new ValidationResult(fieldError.getField(), fieldError.getDefaultMessage()));
     }
-    return error;
+    return badRequest(error);
   }
 
   /**
    * Handle IllegalArgumentException which is thrown by service implementations.
    *
    * @param e exception instance.
-   * @return ValidationError instance that holds the validation details/
+   * @return ResponseEntity with the ValidationError instance that holds the validation details.
    */
   @ExceptionHandler(IllegalArgumentException.class)
-  @ResponseStatus(HttpStatus.BAD_REQUEST)
-  @ResponseBody
-  ValidationError onIllegalArgumentException(IllegalArgumentException e) {
+  ResponseEntity<ValidationError> onIllegalArgumentException(IllegalArgumentException e) {
     ValidationError error = new ValidationError();
     error.getViolations().add(new ValidationResult(null, e.getMessage()));
-    return error;
+    return badRequest(error);
+  }
+
+  /**
+   * Handle ServerWebInputException which is thrown when a request body cannot be read.
+   *
+   * @param e exception instance.
+   * @return ResponseEntity with the ValidationError instance that holds the validation details.
+   */
+  @ExceptionHandler(ServerWebInputException.class)
+  ResponseEntity<ValidationError> onServerWebInputException(ServerWebInputException e) {
+    ValidationError error = new ValidationError();
+    error.getViolations().add(new ValidationResult(null, e.getReason()));
+    return badRequest(error);
+  }
+
+  /**
+   * Handle LocationUnavailableException which is thrown when a data source without a fallback
+   * fails, times out or has an open breaker.
+   *
+   * @param e exception instance.
+   * @return ResponseEntity with the Service Unavailable status, so that the client retries later.
+   */
+  @ExceptionHandler(LocationUnavailableException.class)
+  ResponseEntity<ValidationError> onLocationUnavailableException(LocationUnavailableException e) {
+    logger.warn(e.getMessage(), e.getCause());
+    ValidationError error = new ValidationError();
+    error.getViolations().add(new ValidationResult(null, e.getMessage()));
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(error);
   }
 
   /**
@@ -65,4 +99,8 @@ public class LocationFinderExceptionHandler {
     logger.error("Unexpected error occurred", e);
     return null;
   }
+
+  private static ResponseEntity<ValidationError> badRequest(ValidationError error) {
+    return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(error);
+  }
 }
@@ -0,0 +1,49 @@
+package com.location.finder.application.resource;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.location.finder.application.exception.ValidationError;
+import com.location.finder.core.dto.LocationDTO;
+import java.util.List;
+
+/**
+ * LocationBatchResult is the response model of a single search in a batch search. It is tagged with
+ * the index of the search criteria in the batch request, as results are published in the order
+ * their searches complete. Either the locations or the error is populated.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocationBatchResult {
+
+  /** Index of the search criteria in the batch request. */
+  private final int index;
+
+  /** Locations found by the search. */
+  private final List<LocationDTO> locations;
+
+  /** Validation issues of the search criteria. */
+  private final ValidationError error;
+
+  /**
+   * Constructor for batch result.
+   *
+   * @param index index of the search criteria in the batch request.
+   * @param locations locations found by the search.
+   * @param error validation issues of the search criteria.
+   */
+  public LocationBatchResult(int index, List<LocationDTO> locations, ValidationError error) {
+    this.index = index;
+    this.locations = locations;
+    this.error = error;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public List<LocationDTO> getLocations() {
+    return locations;
+  }
+
+  public ValidationError getError() {
+    return error;
+  }
+}
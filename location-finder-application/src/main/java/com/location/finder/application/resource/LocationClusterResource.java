@@ -0,0 +1,62 @@
+package com.location.finder.application.resource;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.location.finder.core.cluster.ClusterService;
+import com.location.finder.core.dto.LocationClusterDTO;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import reactor.core.publisher.Flux;
+
+/**
+ * LocationClusterResource exposes a rest endpoint for the clusters of a map tile.
+ *
+ * <p>A zoomed out map requests the clusters of its z/x/y tiles instead of their locations. Every
+ * cluster has the number of locations of a grid cell and their centroid, so a tile costs a few
+ * dozen cluster records however many locations it covers.
+ *
+ * <p>ConditionalOnProperty annotation exposes the endpoint only if location.finder.cluster.enabled
+ * is set, with the ClusterService.
+ */
+@Controller
+@ConditionalOnProperty(name = "location.finder.cluster.enabled", havingValue = "true")
+@RequestMapping(path = "/location/cluster")
+public class LocationClusterResource {
+
+  /** The ClusterService that finds the clusters. */
+  private final ClusterService clusterService;
+
+  /**
+   * The public constructor for the class, this constructor will be called by Spring CDI during
+   * initial bean initialization.
+   *
+   * @param clusterService the ClusterService that finds the clusters.
+   */
+  public LocationClusterResource(ClusterService clusterService) {
+    this.clusterService = clusterService;
+  }
+
+  /**
+   * This method finds the clusters within the given tile.
+   *
+   * @param zoom zoom level of the tile.
+   * @param x column of the tile, from west to east.
+   * @param y row of the tile, from north to south.
+   * @param type the clustered location types.
+   * @return Flux<LocationClusterDTO> the clusters of the tile as a JSON array.
+   */
+  @GetMapping(path = "/{zoom}/{x}/{y}", produces = APPLICATION_JSON_VALUE)
+  public @ResponseBody Flux<LocationClusterDTO> getClusters(
+      @PathVariable int zoom,
+      @PathVariable int x,
+      @PathVariable int y,
+      @RequestParam List<String> type) {
+    return clusterService.findClusters(type, zoom, x, y);
+  }
+}
@@ -1,21 +1,48 @@
 package com.location.finder.application.resource;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+import com.location.finder.application.exception.ValidationError;
+import com.location.finder.application.exception.ValidationResult;
+import com.location.finder.core.cache.SearchEtag;
+import com.location.finder.core.codec.LocationBinaryFormat;
 import com.location.finder.core.dto.LocationCriteria;
 import com.location.finder.core.dto.LocationDTO;
 import com.location.finder.core.service.LocationFinder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * LocationResource exposes a rest endpoint for searching for a location.
  *
  * <p>The location resource is a generic endpoint for searching any type of location. It returns a
- * rector stream, that pushes SSE events to client as they come from location finder.
+ * reactor stream, which is published as a JSON array by default. Clients that accept
+ * application/x-ndjson or text/event-stream receive one JSON document or SSE event per location,
+ * flushed as soon as the location comes from location finder. Clients that accept
+ * application/vnd.location-finder.binary receive the compact binary format of LocationBinaryFormat.
  *
  * <p>Controller annotation makes this class a Spring Boot controller. RequestMapping annotation
  * defines the root path for this endpoint. Validated annotation enables Spring Boot to validate
@@ -26,12 +53,27 @@ import reactor.core.publisher.Flux;
 @Validated
 public class LocationResource {
 
+  /** Response header of the searches that were answered by the fallback of a data source. */
+  public static final String DEGRADED_HEADER = "X-Location-Degraded";
+
   /**
    * MapLocation finder interface, the implementation will be injected by Spring CDI in the runtime
    * via constructor.
    */
   private final LocationFinder locationFinder;
 
+  /** Bean validator for validating the search criteria of batch searches one by one. */
+  private final Validator validator;
+
+  /** Max number of searches of a batch that run concurrently. */
+  private final int batchConcurrency;
+
+  /** Max number of searches accepted in a single batch. */
+  private final int batchMaxSize;
+
+  /** Cache-Control header of the validated search responses. */
+  private final CacheControl cacheControl;
+
   /**
    * The public constructor for the class, this constructor will be called by Spring CDI during
    * initial bean initialization. Using a constructor eliminates the need of using CDI annotations
@@ -39,9 +81,22 @@ public class LocationResource {
    *
    * @param locationFinder a LocationFinder implementation, which comes from location-finder-core
    *     package.
+   * @param validator bean validator for validating the search criteria of batch searches.
+   * @param batchConcurrency max number of searches of a batch that run concurrently.
+   * @param batchMaxSize max number of searches accepted in a single batch.
+   * @param maxAge duration for shared caches to store a validated search response.
    */
-  public LocationResource(LocationFinder locationFinder) {
+  public LocationResource(
+      LocationFinder locationFinder,
+      Validator validator,
+      @Value("${location.finder.batch.concurrency}") int batchConcurrency,
+      @Value("${location.finder.batch.max-size}") int batchMaxSize,
+      @Value("${location.finder.search.max-age}") Duration maxAge) {
     this.locationFinder = locationFinder;
+    this.validator = validator;
+    this.batchConcurrency = batchConcurrency;
+    this.batchMaxSize = batchMaxSize;
+    this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
   }
 
   /**
@@ -51,14 +106,148 @@ public class LocationResource {
    * <p>@GetMapping annotation exposes this method as an HTTP GET endpoint under the root path of
    * this rest resource.
    *
+   * <p>If some locations were found by the fallback of a data source that failed or timed out, the
+   * response has the X-Location-Degraded header. The header is written when the response is
+   * committed, so it covers the whole JSON array, but only the locations published before the first
+   * flush of a streamed response.
+   *
+   * <p>If the requested types have a data version, the JSON array has a strong ETag derived from
+   * the version, the criteria of the search that answers them and the Accept header, and the
+   * Cache-Control header of the search max age, so that shared caches can store it. The searches of
+   * a grid cell of the search cache are answered by the same search, so they share their ETag. A
+   * request with a matching If-None-Match header is answered with 304 Not Modified by Spring,
+   * without running the search.
+   *
    * @param locationCriteria LocationCriteria is an input POJO that holds all the search filters.
    *     Spring can convert the query parameters into a POJO, which makes code more readable as
    *     there are 5 parameters available.
-   * @return Flux<LocationDTO> which is a stream of locations. The stream is published as SSE events
-   *     over an HTTP connection.
+   * @param exchange the exchange, to read the Accept header and mark the response as degraded.
+   * @return Mono<ResponseEntity<Flux<LocationDTO>>> which is a stream of locations with the
+   *     validators of the response. The stream is published as a JSON array, as newline delimited
+   *     JSON, as SSE events or in the binary format, based on the Accept header.
+   */
+  @GetMapping(
+      produces = {
+        APPLICATION_JSON_VALUE,
+        APPLICATION_NDJSON_VALUE,
+        TEXT_EVENT_STREAM_VALUE,
+        LocationBinaryFormat.MEDIA_TYPE
+      })
+  public Mono<ResponseEntity<Flux<LocationDTO>>> getLocations(
+      @Valid LocationCriteria locationCriteria, ServerWebExchange exchange) {
+    AtomicBoolean degraded = new AtomicBoolean();
+    ServerHttpResponse response = exchange.getResponse();
+    response.beforeCommit(() -> Mono.fromRunnable(() -> commit(response, degraded.get())));
+    Flux<LocationDTO> locations =
+        Flux.defer(() -> locationFinder.findByCoordinates(locationCriteria))
+            .doOnNext(
+                location -> {
+                  if (location.isDegraded()) {
+                    degraded.set(true);
+                  }
+                });
+    String representation = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT);
+    return locationFinder
+        .findVersion(locationCriteria.getType())
+        .map(
+            version ->
+                ResponseEntity.ok()
+                    .eTag(
+                        SearchEtag.of(
+                            version,
+                            locationFinder.searchCriteria(locationCriteria),
+                            representation))
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(locations))
+        .defaultIfEmpty(ResponseEntity.ok().body(locations));
+  }
+
+  /**
+   * Adjust the headers of a search response when it is committed. A degraded response is marked and
+   * must not be stored, and a streamed response is not validated, as its headers are committed
+   * before it is known whether the following locations are degraded.
+   *
+   * @param response the search response.
+   * @param degraded whether some locations were found by the fallback of a data source.
    */
-  @GetMapping
-  public @ResponseBody Flux<LocationDTO> getLocations(@Valid LocationCriteria locationCriteria) {
-    return locationFinder.findByCoordinates(locationCriteria);
+  private static void commit(ServerHttpResponse response, boolean degraded) {
+    HttpHeaders headers = response.getHeaders();
+    MediaType contentType = headers.getContentType();
+    if (degraded) {
+      headers.set(DEGRADED_HEADER, Boolean.TRUE.toString());
+      headers.remove(HttpHeaders.ETAG);
+      headers.setCacheControl(CacheControl.noStore());
+    } else if (contentType != null
+        && !MediaType.APPLICATION_JSON.equalsTypeAndSubtype(contentType)) {
+      headers.remove(HttpHeaders.ETAG);
+      headers.remove(HttpHeaders.CACHE_CONTROL);
+    }
+  }
+
+  /**
+   * This method accepts many location searches in a single request, and runs them on the
+   * LocationFinder implementation with bounded concurrency.
+   *
+   * <p>Every search criteria is validated on its own, so an invalid criteria is answered with a
+   * validation error in its result instead of failing the whole batch. Results are published as
+   * soon as their search completes, tagged with the index of their criteria in the request. Like
+   * the single search, the results can be streamed as newline delimited JSON or SSE events.
+   *
+   * @param locationCriteria list of LocationCriteria, one for each search.
+   * @return Flux<LocationBatchResult> which is a stream of search results.
+   * @throws IllegalArgumentException if the batch has more searches than allowed.
+   */
+  @PostMapping(
+      path = "/batch",
+      produces = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE, TEXT_EVENT_STREAM_VALUE})
+  public @ResponseBody Flux<LocationBatchResult> getLocationsInBatch(
+      @RequestBody List<LocationCriteria> locationCriteria) {
+    if (locationCriteria.size() > batchMaxSize) {
+      throw new IllegalArgumentException(
+          String.format("A batch can have at most %s searches", batchMaxSize));
+    }
+    return Flux.range(0, locationCriteria.size())
+        .flatMap(index -> search(index, locationCriteria.get(index)), batchConcurrency);
+  }
+
+  /**
+   * Run a single search of a batch.
+   *
+   * @param index index of the search criteria in the batch request.
+   * @param locationCriteria LocationCriteria of the search.
+   * @return Mono<LocationBatchResult> with either the locations or the validation issues.
+   */
+  private Mono<LocationBatchResult> search(int index, LocationCriteria locationCriteria) {
+    if (locationCriteria == null) {
+      return Mono.just(
+          new LocationBatchResult(index, null, validationError(null, "Search must not be null")));
+    }
+    Set<ConstraintViolation<LocationCriteria>> violations = validator.validate(locationCriteria);
+    if (!violations.isEmpty()) {
+      ValidationError error = new ValidationError();
+      for (ConstraintViolation<LocationCriteria> violation : violations) {
+        error
+            .getViolations()
+            .add(
+                new ValidationResult(
+                    violation.getPropertyPath().toString(), violation.getMessage()));
+      }
+      return Mono.just(new LocationBatchResult(index, null, error));
+    }
+    return Flux.defer(() -> locationFinder.findByCoordinates(locationCriteria))
+        .collectList()
+        .map(locations -> new LocationBatchResult(index, locations, null))
+        .onErrorResume(
+            IllegalArgumentException.class,
+            e ->
+                Mono.just(
+                    new LocationBatchResult(index, null, validationError(null, e.getMessage()))));
+  }
+
+  private static ValidationError validationError(String fieldName, String message) {
+    ValidationError error = new ValidationError();
+    error.getViolations().add(new ValidationResult(fieldName, message));
+    return error;
   }
 }
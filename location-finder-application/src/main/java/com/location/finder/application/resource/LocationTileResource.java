@@ -0,0 +1,85 @@
+package com.location.finder.application.resource;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.tile.TileService;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
+
+/**
+ * LocationTileResource exposes a rest endpoint for the locations within a map tile.
+ *
+ * <p>A map shows everything in its visible box, which is covered by the z/x/y tiles of its zoom
+ * level instead of many overlapping searches around a center. Tiles are deterministic, so every
+ * response carries a strong ETag of the tile content and a Cache-Control header with the time to
+ * live of the tile cache. A request with a matching If-None-Match header is answered with 304 Not
+ * Modified by Spring, without a body.
+ *
+ * <p>Like a degraded search, a tile with locations found by the fallback of a data source has the
+ * X-Location-Degraded header, no ETag and a no-store Cache-Control header, so that neither the
+ * clients nor the shared caches keep it after the data source recovers.
+ */
+@Controller
+@RequestMapping(path = "/location/tile")
+public class LocationTileResource {
+
+  /** The TileService that finds and caches the tiles. */
+  private final TileService tileService;
+
+  /** Cache-Control header of the tile responses. */
+  private final CacheControl cacheControl;
+
+  /**
+   * The public constructor for the class, this constructor will be called by Spring CDI during
+   * initial bean initialization.
+   *
+   * @param tileService the TileService that finds and caches the tiles.
+   * @param timeToLive duration for a tile to be cached, also sent to clients as the max age.
+   */
+  public LocationTileResource(
+      TileService tileService, @Value("${location.finder.tile.time-to-live}") Duration timeToLive) {
+    this.tileService = tileService;
+    this.cacheControl = CacheControl.maxAge(timeToLive).cachePublic();
+  }
+
+  /**
+   * This method finds the locations within the given tile.
+   *
+   * @param zoom zoom level of the tile.
+   * @param x column of the tile, from west to east.
+   * @param y row of the tile, from north to south.
+   * @param type the types of the locations.
+   * @return Mono<ResponseEntity<List<LocationDTO>>> the locations as a JSON array, with the ETag
+   *     and Cache-Control headers of the tile, or the degraded headers.
+   */
+  @GetMapping(path = "/{zoom}/{x}/{y}", produces = APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<List<LocationDTO>>> getTile(
+      @PathVariable int zoom,
+      @PathVariable int x,
+      @PathVariable int y,
+      @RequestParam List<String> type) {
+    return tileService
+        .findTile(type, zoom, x, y)
+        .map(
+            tile ->
+                tile.isDegraded()
+                    ? ResponseEntity.ok()
+                        .header(LocationResource.DEGRADED_HEADER, Boolean.TRUE.toString())
+                        .cacheControl(CacheControl.noStore())
+                        .body(tile.getLocations())
+                    : ResponseEntity.ok()
+                        .eTag(tile.getEtag())
+                        .cacheControl(cacheControl)
+                        .body(tile.getLocations()));
+  }
+}
@@ -0,0 +1,241 @@
+package com.location.finder.application.admission;
+
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class AdmissionWebFilterTests {
+
+  @Test
+  void testClientsAreLimitedToTheirBucket() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AdmissionWebFilter filter =
+        new AdmissionWebFilter(
+            new AdaptiveConcurrencyLimit(10, 1, 10, TimeUnit.SECONDS.toNanos(1), 0.5),
+            new ClientRateLimiter(2, 2, 100, clock::monotonicTime),
+            null,
+            Set.of("client", "client-1", "client-2"),
+            meterRegistry);
+
+    Assertions.assertNull(search(filter, "/location", "client-1", exchange -> Mono.empty()));
+    Assertions.assertNull(search(filter, "/location/batch", "client-1", exchange -> Mono.empty()));
+    MockServerWebExchange rejected =
+        MockServerWebExchange.from(
+            MockServerHttpRequest.get("/location").header("X-API-Key", "client-1"));
+    filter.filter(rejected, exchange -> Mono.empty()).block();
+    Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+    Assertions.assertEquals("1", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+
+    // Other clients and other paths are not limited by the bucket of the client.
+    Assertions.assertNull(search(filter, "/location", "client-2", exchange -> Mono.empty()));
+    Assertions.assertNull(search(filter, "/location/tile/1/0/0", "client-1", e -> Mono.empty()));
+
+    // The bucket refills at the client rate.
+    clock.add(500, TimeUnit.MILLISECONDS);
+    Assertions.assertNull(search(filter, "/location", "client-1", exchange -> Mono.empty()));
+    Assertions.assertEquals(
+        HttpStatus.TOO_MANY_REQUESTS,
+        search(filter, "/location", "client-1", exchange -> Mono.empty()));
+    Assertions.assertEquals(
+        2,
+        meterRegistry
+            .get(AdmissionWebFilter.REJECTED_COUNTER)
+            .tag("reason", "RATE")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void testConcurrencyLimitAdaptsToLatency() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AdaptiveConcurrencyLimit limit =
+        new AdaptiveConcurrencyLimit(2, 1, 3, TimeUnit.MILLISECONDS.toNanos(100), 0.5);
+    AdmissionWebFilter filter =
+        new AdmissionWebFilter(
+            limit,
+            new ClientRateLimiter(1000, 1000, 100, clock::monotonicTime),
+            null,
+            Set.of("client", "client-1", "client-2"),
+            meterRegistry);
+
+    Sinks.Empty<Void> first = Sinks.empty();
+    Sinks.Empty<Void> second = Sinks.empty();
+    filter.filter(searchExchange(), exchange -> first.asMono()).subscribe();
+    filter.filter(searchExchange(), exchange -> second.asMono()).subscribe();
+    Assertions.assertEquals(2, limit.getInFlight());
+    Assertions.assertEquals(
+        HttpStatus.TOO_MANY_REQUESTS, search(filter, "/location", "client", e -> Mono.empty()));
+    Assertions.assertEquals(
+        1,
+        meterRegistry
+            .get(AdmissionWebFilter.REJECTED_COUNTER)
+            .tag("reason", "CONCURRENCY")
+            .counter()
+            .count());
+
+    // A fast search at full utilization grows the limit.
+    first.tryEmitEmpty();
+    Assertions.assertEquals(3, limit.getLimit());
+
+    // A slow search shrinks the limit.
+    clock.add(200, TimeUnit.MILLISECONDS);
+    second.tryEmitEmpty();
+    Assertions.assertEquals(1, limit.getLimit());
+    Assertions.assertEquals(0, limit.getInFlight());
+  }
+
+  @Test
+  void testConcurrencyLimitShrinksOncePerWindow() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AdaptiveConcurrencyLimit limit =
+        new AdaptiveConcurrencyLimit(8, 1, 8, TimeUnit.MILLISECONDS.toNanos(100), 0.5);
+    AdmissionWebFilter filter =
+        new AdmissionWebFilter(
+            limit,
+            new ClientRateLimiter(1000, 1000, 100, clock::monotonicTime),
+            null,
+            Set.of("client", "client-1", "client-2"),
+            meterRegistry);
+
+    // The slow searches of the same window shrink the limit once.
+    Sinks.Empty<Void> first = Sinks.empty();
+    Sinks.Empty<Void> second = Sinks.empty();
+    filter.filter(searchExchange(), exchange -> first.asMono()).subscribe();
+    filter.filter(searchExchange(), exchange -> second.asMono()).subscribe();
+    clock.add(200, TimeUnit.MILLISECONDS);
+    first.tryEmitEmpty();
+    second.tryEmitEmpty();
+    Assertions.assertEquals(4, limit.getLimit());
+
+    // A slow search started after the decrease shrinks it again.
+    Sinks.Empty<Void> third = Sinks.empty();
+    filter.filter(searchExchange(), exchange -> third.asMono()).subscribe();
+    clock.add(200, TimeUnit.MILLISECONDS);
+    third.tryEmitEmpty();
+    Assertions.assertEquals(2, limit.getLimit());
+  }
+
+  @Test
+  void testConcurrencyLimitSamplesHandlerLatency() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AdaptiveConcurrencyLimit limit =
+        new AdaptiveConcurrencyLimit(2, 1, 2, TimeUnit.MILLISECONDS.toNanos(100), 0.5);
+    AdmissionWebFilter filter =
+        new AdmissionWebFilter(
+            limit,
+            new ClientRateLimiter(1000, 1000, 100, clock::monotonicTime),
+            null,
+            Set.of("client", "client-1", "client-2"),
+            meterRegistry);
+
+    // A response committed within the target and transferred slowly does not shrink the limit.
+    Sinks.Empty<Void> transfer = Sinks.empty();
+    filter
+        .filter(
+            searchExchange(),
+            exchange -> exchange.getResponse().setComplete().then(transfer.asMono()))
+        .subscribe();
+    clock.add(200, TimeUnit.MILLISECONDS);
+    transfer.tryEmitEmpty();
+    Assertions.assertEquals(2, limit.getLimit());
+
+    // A slow batch is not a sample of the latency of a search.
+    Sinks.Empty<Void> batch = Sinks.empty();
+    MockServerWebExchange batchExchange =
+        MockServerWebExchange.from(
+            MockServerHttpRequest.post("/location/batch").header("X-API-Key", "client"));
+    filter.filter(batchExchange, exchange -> batch.asMono()).subscribe();
+    Assertions.assertEquals(1, limit.getInFlight());
+    clock.add(200, TimeUnit.MILLISECONDS);
+    batch.tryEmitEmpty();
+    Assertions.assertEquals(2, limit.getLimit());
+    Assertions.assertEquals(0, limit.getInFlight());
+  }
+
+  @Test
+  void testClientsAreIdentifiedByTheClientHeader() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AdmissionWebFilter filter =
+        new AdmissionWebFilter(
+            new AdaptiveConcurrencyLimit(10, 1, 10, TimeUnit.SECONDS.toNanos(1), 0.5),
+            new ClientRateLimiter(1, 1, 100, clock::monotonicTime),
+            "X-Forwarded-For",
+            Set.of(),
+            meterRegistry);
+
+    Assertions.assertNull(forwarded(filter, "203.0.113.1, 198.51.100.7"));
+    Assertions.assertEquals(
+        HttpStatus.TOO_MANY_REQUESTS, forwarded(filter, "203.0.113.1, 198.51.100.8"));
+    Assertions.assertNull(forwarded(filter, "203.0.113.2, 198.51.100.7"));
+  }
+
+  @Test
+  void testUnknownApiKeysShareTheBucketOfTheAddress() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AdmissionWebFilter filter =
+        new AdmissionWebFilter(
+            new AdaptiveConcurrencyLimit(10, 1, 10, TimeUnit.SECONDS.toNanos(1), 0.5),
+            new ClientRateLimiter(1, 1, 100, clock::monotonicTime),
+            "X-Forwarded-For",
+            Set.of("known"),
+            meterRegistry);
+
+    // Rotating unknown keys does not give the address a fresh bucket.
+    Assertions.assertNull(keyed(filter, "203.0.113.1", "rotated-1"));
+    Assertions.assertEquals(
+        HttpStatus.TOO_MANY_REQUESTS, keyed(filter, "203.0.113.1", "rotated-2"));
+    Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, keyed(filter, "203.0.113.1", null));
+
+    // A configured key has its own bucket, whatever its address.
+    Assertions.assertNull(keyed(filter, "203.0.113.1", "known"));
+    Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, keyed(filter, "203.0.113.2", "known"));
+  }
+
+  private static HttpStatus keyed(AdmissionWebFilter filter, String forwardedFor, String apiKey) {
+    MockServerHttpRequest.BaseBuilder<?> request =
+        MockServerHttpRequest.get("/location").header("X-Forwarded-For", forwardedFor);
+    if (apiKey != null) {
+      request.header("X-API-Key", apiKey);
+    }
+    MockServerWebExchange exchange = MockServerWebExchange.from(request);
+    filter.filter(exchange, e -> Mono.empty()).block();
+    return exchange.getResponse().getStatusCode();
+  }
+
+  private static HttpStatus forwarded(AdmissionWebFilter filter, String forwardedFor) {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(
+            MockServerHttpRequest.get("/location").header("X-Forwarded-For", forwardedFor));
+    filter.filter(exchange, e -> Mono.empty()).block();
+    return exchange.getResponse().getStatusCode();
+  }
+
+  private static HttpStatus search(
+      AdmissionWebFilter filter, String path, String apiKey, WebFilterChain chain) {
+    MockServerWebExchange exchange =
+        MockServerWebExchange.from(MockServerHttpRequest.get(path).header("X-API-Key", apiKey));
+    filter.filter(exchange, chain).block();
+    return exchange.getResponse().getStatusCode();
+  }
+
+  private static MockServerWebExchange searchExchange() {
+    return MockServerWebExchange.from(
+        MockServerHttpRequest.get("/location").header("X-API-Key", "client"));
+  }
+}
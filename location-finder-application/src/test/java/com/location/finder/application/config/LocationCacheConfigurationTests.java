@@ -0,0 +1,79 @@
+package com.location.finder.application.config;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.service.LocationFinder;
+import com.location.finder.core.service.LocationService;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import com.location.finder.mongo.FoodTruck;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class LocationCacheConfigurationTests {
+
+  @Test
+  void testCachedSearchStreamsLocations() {
+    LocationRepository locationRepository = mock(LocationRepository.class);
+    Sinks.Many<MapLocation> sink = Sinks.many().unicast().onBackpressureBuffer();
+    doReturn(sink.asFlux())
+        .when(locationRepository)
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    doReturn(Mono.empty()).when(locationRepository).findVersion();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LocationFinder locationFinder =
+        new LocationCacheConfiguration()
+            .cachingLocationFinder(
+                new LocationService(Map.of("FoodTruck", locationRepository), meterRegistry),
+                meterRegistry,
+                0.001,
+                100,
+                Duration.ofSeconds(30));
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLongitude(-122.414408);
+    locationCriteria.setLatitude(37.784683);
+    locationCriteria.setType(List.of("FoodTruck"));
+    locationCriteria.setNumberOfLocations(2);
+
+    List<String> names = new ArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    locationFinder
+        .findByCoordinates(locationCriteria)
+        .doOnComplete(() -> completed.set(true))
+        .subscribe(location -> names.add(location.getName()));
+
+    // The first location of a cache miss is published before the data source completes.
+    sink.tryEmitNext(foodTruck("Food Truck 1", 37.784683));
+    Assertions.assertEquals(List.of("Food Truck 1"), names);
+    Assertions.assertFalse(completed.get());
+    sink.tryEmitNext(foodTruck("Food Truck 2", 37.785683));
+    sink.tryEmitComplete();
+    Assertions.assertEquals(List.of("Food Truck 1", "Food Truck 2"), names);
+    Assertions.assertTrue(completed.get());
+  }
+
+  private static FoodTruck foodTruck(String name, double latitude) {
+    FoodTruck foodTruck = new FoodTruck();
+    foodTruck.setId(name);
+    foodTruck.setName(name);
+    LocationCoordinates coordinates = new LocationCoordinates();
+    coordinates.setType("Point");
+    coordinates.setLongitude(-122.414408);
+    coordinates.setLatitude(latitude);
+    foodTruck.setLocation(coordinates);
+    return foodTruck;
+  }
+}
@@ -13,6 +13,7 @@ import org.springframework.core.MethodParameter;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
 class ExceptionHandlerTests {
 
@@ -30,7 +31,7 @@ class ExceptionHandlerTests {
         .getFieldErrors();
 
     ValidationError validationError =
-        locationFinderExceptionHandler.onWebExchangeBindException(exception);
+        locationFinderExceptionHandler.onWebExchangeBindException(exception).getBody();
     assertThat(validationError.getViolations().size(), equalTo(1));
     assertThat(
         validationError.getViolations().get(0).getMessage(), equalTo("Should be less than 180"));
@@ -43,14 +44,32 @@ class ExceptionHandlerTests {
         new LocationFinderExceptionHandler();
 
     ValidationError validationError =
-        locationFinderExceptionHandler.onIllegalArgumentException(
-            new IllegalArgumentException("Search type is not supported"));
+        locationFinderExceptionHandler
+            .onIllegalArgumentException(
+                new IllegalArgumentException("Search type is not supported"))
+            .getBody();
     assertThat(validationError.getViolations().size(), equalTo(1));
     assertThat(
         validationError.getViolations().get(0).getMessage(),
         equalTo("Search type is not supported"));
   }
 
+  @Test
+  void testServerWebInputException() {
+
+    LocationFinderExceptionHandler locationFinderExceptionHandler =
+        new LocationFinderExceptionHandler();
+
+    ValidationError validationError =
+        locationFinderExceptionHandler
+            .onServerWebInputException(new ServerWebInputException("Failed to read HTTP message"))
+            .getBody();
+    assertThat(validationError.getViolations().size(), equalTo(1));
+    assertThat(
+        validationError.getViolations().get(0).getMessage(),
+        equalTo("Failed to read HTTP message"));
+  }
+
   @Test
   void testUnknownException() {
 
@@ -0,0 +1,61 @@
+package com.location.finder.application.resource;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+import com.location.finder.core.cluster.ClusterService;
+import com.location.finder.core.dto.LocationClusterDTO;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+@WebFluxTest(controllers = LocationClusterResource.class)
+class LocationClusterResourceTests {
+
+  @Autowired private WebTestClient webTestClient;
+
+  @MockBean private ClusterService clusterService;
+
+  @Test
+  void testGetClusters() {
+    LocationClusterDTO cluster = new LocationClusterDTO();
+    cluster.setLongitude(-122.414408);
+    cluster.setLatitude(37.784683);
+    cluster.setCount(42);
+    doReturn(Flux.just(cluster)).when(clusterService).findClusters(List.of("FoodTruck"), 7, 20, 49);
+
+    webTestClient
+        .get()
+        .uri("/location/cluster/7/20/49?type=FoodTruck")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_JSON)
+        .expectBody()
+        .json("[{\"latitude\":37.784683,\"longitude\":-122.414408,\"count\":42}]");
+  }
+
+  @Test
+  void testGetClustersError() {
+    doThrow(new IllegalArgumentException("Location Type FoodCart is not clustered"))
+        .when(clusterService)
+        .findClusters(anyList(), anyInt(), anyInt(), anyInt());
+
+    webTestClient
+        .get()
+        .uri("/location/cluster/7/20/49?type=FoodCart")
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .json("{\"violations\":[{\"message\":\"Location Type FoodCart is not clustered\"}]}");
+  }
+}
@@ -1,18 +1,30 @@
 package com.location.finder.application.resource;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 
+import com.location.finder.core.codec.LocationBinaryFormat;
 import com.location.finder.core.dto.LocationCriteria;
 import com.location.finder.core.dto.LocationDTO;
 import com.location.finder.core.service.LocationFinder;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @WebFluxTest(controllers = LocationResource.class)
 class LocationResourceTests {
@@ -21,6 +33,12 @@ class LocationResourceTests {
 
   @MockBean private LocationFinder locationFinder;
 
+  @BeforeEach
+  void withoutVersion() {
+    doReturn(Mono.empty()).when(locationFinder).findVersion(any());
+    doAnswer(invocation -> invocation.getArgument(0)).when(locationFinder).searchCriteria(any());
+  }
+
   @Test
   void testGetLocations() {
 
@@ -44,4 +62,251 @@ class LocationResourceTests {
         .expectBody()
         .json("[{\"name\":\"Food Truck 1\",\"latitude\":37.784683,\"longitude\":-122.414408}]");
   }
+
+  @Test
+  void testGetLocationsWithVersion() {
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    AtomicInteger searches = new AtomicInteger();
+    doReturn(Mono.just("FoodTruck=7")).when(locationFinder).findVersion(List.of("FoodTruck"));
+    doReturn(
+            Flux.defer(() -> Flux.just(locationDTO).doOnSubscribe(s -> searches.incrementAndGet())))
+        .when(locationFinder)
+        .findByCoordinates(any(LocationCriteria.class));
+    String uri = "/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck";
+
+    String etag =
+        webTestClient
+            .get()
+            .uri(uri)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("Cache-Control", "max-age=60, public")
+            .expectHeader()
+            .valueEquals("Vary", "Accept")
+            .returnResult(String.class)
+            .getResponseHeaders()
+            .getETag();
+    Assertions.assertNotNull(etag);
+    Assertions.assertEquals(1, searches.get());
+
+    webTestClient
+        .get()
+        .uri(uri)
+        .accept(MediaType.APPLICATION_JSON)
+        .header("If-None-Match", etag)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(HttpStatus.NOT_MODIFIED)
+        .expectBody()
+        .isEmpty();
+    Assertions.assertEquals(1, searches.get());
+
+    // Another representation or another version has another tag.
+    webTestClient
+        .get()
+        .uri(uri)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .header("If-None-Match", etag)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .doesNotExist("ETag");
+    doReturn(Mono.just("FoodTruck=8")).when(locationFinder).findVersion(List.of("FoodTruck"));
+    webTestClient
+        .get()
+        .uri(uri)
+        .accept(MediaType.APPLICATION_JSON)
+        .header("If-None-Match", etag)
+        .exchange()
+        .expectStatus()
+        .isOk();
+    Assertions.assertEquals(3, searches.get());
+  }
+
+  @Test
+  void testGetDegradedLocations() {
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    locationDTO.setDegraded(true);
+    doReturn(Mono.just("FoodTruck=7")).when(locationFinder).findVersion(List.of("FoodTruck"));
+    doReturn(Flux.just(locationDTO))
+        .when(locationFinder)
+        .findByCoordinates(any(LocationCriteria.class));
+
+    webTestClient
+        .get()
+        .uri("/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(LocationResource.DEGRADED_HEADER, "true")
+        .expectHeader()
+        .valueEquals("Cache-Control", "no-store")
+        .expectHeader()
+        .doesNotExist("ETag")
+        .expectBody()
+        .json("[{\"name\":\"Food Truck 1\"}]");
+  }
+
+  @Test
+  void testGetLocationsAsNdjson() {
+
+    LocationDTO first = new LocationDTO();
+    first.setName("Food Truck 1");
+    LocationDTO second = new LocationDTO();
+    second.setName("Food Truck 2");
+    doReturn(Flux.just(first, second))
+        .when(locationFinder)
+        .findByCoordinates(any(LocationCriteria.class));
+
+    webTestClient
+        .get()
+        .uri("/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck")
+        .accept(MediaType.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .expectBody(String.class)
+        .value(
+            body ->
+                Assertions.assertEquals(
+                    List.of("Food Truck 1", "Food Truck 2"),
+                    body.lines()
+                        .map(line -> line.replaceAll(".*\"name\":\"([^\"]*)\".*", "$1"))
+                        .collect(Collectors.toList())));
+  }
+
+  @Test
+  void testGetLocationsAsEventStream() {
+
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    doReturn(Flux.just(locationDTO))
+        .when(locationFinder)
+        .findByCoordinates(any(LocationCriteria.class));
+
+    List<LocationDTO> locations =
+        webTestClient
+            .get()
+            .uri("/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+            .returnResult(LocationDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+    Assertions.assertEquals(1, locations.size());
+    Assertions.assertEquals("Food Truck 1", locations.get(0).getName());
+  }
+
+  @Test
+  void testGetLocationsAsBinary() {
+
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    locationDTO.setLongitude(-122.414408);
+    locationDTO.setLatitude(37.784683);
+    doReturn(Flux.just(locationDTO, locationDTO))
+        .when(locationFinder)
+        .findByCoordinates(any(LocationCriteria.class));
+
+    byte[] body =
+        webTestClient
+            .get()
+            .uri("/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck")
+            .accept(MediaType.parseMediaType(LocationBinaryFormat.MEDIA_TYPE))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(LocationBinaryFormat.MEDIA_TYPE)
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+    List<LocationDTO> locations = LocationBinaryFormat.decode(ByteBuffer.wrap(body));
+    Assertions.assertEquals(2, locations.size());
+    Assertions.assertEquals("Food Truck 1", locations.get(0).getName());
+    Assertions.assertEquals(-122.414408, locations.get(0).getLongitude(), 1e-5);
+    Assertions.assertEquals(37.784683, locations.get(0).getLatitude(), 1e-5);
+  }
+
+  @Test
+  void testGetLocationsAsBinaryError() {
+
+    webTestClient
+        .get()
+        .uri(
+            "/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck&numberOfLocations=50")
+        .accept(MediaType.parseMediaType(LocationBinaryFormat.MEDIA_TYPE))
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_JSON);
+  }
+
+  @Test
+  void testGetLocationsManyTypes() {
+
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    doReturn(Flux.just(locationDTO))
+        .when(locationFinder)
+        .findByCoordinates(
+            argThat(criteria -> List.of("FoodTruck", "FoodHall").equals(criteria.getType())));
+
+    webTestClient
+        .get()
+        .uri("/location?longitude=-122.414408&latitude=37.784683&type=FoodTruck,FoodHall")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .json("[{\"name\":\"Food Truck 1\"}]");
+  }
+
+  @Test
+  void testGetLocationsInBatch() {
+
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    locationDTO.setLongitude(-122.414408);
+    locationDTO.setLatitude(37.784683);
+
+    doReturn(Flux.just(locationDTO))
+        .when(locationFinder)
+        .findByCoordinates(argThat(criteria -> List.of("FoodTruck").equals(criteria.getType())));
+    doThrow(new IllegalArgumentException("Location Type FoodHall is not supported"))
+        .when(locationFinder)
+        .findByCoordinates(argThat(criteria -> List.of("FoodHall").equals(criteria.getType())));
+
+    webTestClient
+        .post()
+        .uri("/location/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(
+            "[{\"longitude\":-122.414408,\"latitude\":37.784683,\"type\":\"FoodTruck\"},"
+                + "{\"longitude\":-122.414408,\"latitude\":37.784683,\"type\":\"FoodTruck\",\"numberOfLocations\":50},"
+                + "{\"longitude\":-122.414408,\"latitude\":37.784683,\"type\":\"FoodHall\"}]")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .json(
+            "[{\"index\":0,\"locations\":[{\"name\":\"Food Truck 1\"}]},"
+                + "{\"index\":1,\"error\":{\"violations\":[{\"fieldName\":\"numberOfLocations\"}]}},"
+                + "{\"index\":2,\"error\":{\"violations\":[{\"message\":\"Location Type FoodHall is not supported\"}]}}]");
+  }
 }
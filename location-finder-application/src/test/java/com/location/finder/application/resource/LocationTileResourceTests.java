@@ -0,0 +1,103 @@
+package com.location.finder.application.resource;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.tile.LocationTile;
+import com.location.finder.core.tile.TileService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(controllers = LocationTileResource.class)
+class LocationTileResourceTests {
+
+  @Autowired private WebTestClient webTestClient;
+
+  @MockBean private TileService tileService;
+
+  @Test
+  void testGetTile() {
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    locationDTO.setLongitude(-122.414408);
+    locationDTO.setLatitude(37.784683);
+    LocationTile tile = LocationTile.of(List.of(locationDTO));
+    doReturn(Mono.just(tile)).when(tileService).findTile(List.of("FoodTruck"), 12, 655, 1583);
+
+    webTestClient
+        .get()
+        .uri("/location/tile/12/655/1583?type=FoodTruck")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_JSON)
+        .expectHeader()
+        .valueEquals("ETag", "\"" + tile.getEtag() + "\"")
+        .expectHeader()
+        .valueEquals("Cache-Control", "max-age=60, public")
+        .expectBody()
+        .json("[{\"name\":\"Food Truck 1\",\"latitude\":37.784683,\"longitude\":-122.414408}]");
+
+    webTestClient
+        .get()
+        .uri("/location/tile/12/655/1583?type=FoodTruck")
+        .header("If-None-Match", "\"" + tile.getEtag() + "\"")
+        .exchange()
+        .expectStatus()
+        .isEqualTo(HttpStatus.NOT_MODIFIED)
+        .expectBody()
+        .isEmpty();
+  }
+
+  @Test
+  void testGetDegradedTile() {
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    locationDTO.setLongitude(-122.414408);
+    locationDTO.setLatitude(37.784683);
+    locationDTO.setDegraded(true);
+    doReturn(Mono.just(LocationTile.of(List.of(locationDTO))))
+        .when(tileService)
+        .findTile(List.of("FoodTruck"), 12, 655, 1583);
+
+    webTestClient
+        .get()
+        .uri("/location/tile/12/655/1583?type=FoodTruck")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(LocationResource.DEGRADED_HEADER, "true")
+        .expectHeader()
+        .valueEquals("Cache-Control", "no-store")
+        .expectHeader()
+        .doesNotExist("ETag");
+  }
+
+  @Test
+  void testGetTileError() {
+    doThrow(new IllegalArgumentException("Tile 2/4/0 does not exist"))
+        .when(tileService)
+        .findTile(anyList(), anyInt(), anyInt(), anyInt());
+
+    webTestClient
+        .get()
+        .uri("/location/tile/2/4/0?type=FoodTruck")
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody()
+        .json("{\"violations\":[{\"message\":\"Tile 2/4/0 does not exist\"}]}");
+  }
+}
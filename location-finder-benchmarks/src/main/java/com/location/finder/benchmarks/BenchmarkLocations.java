@@ -0,0 +1,65 @@
+package com.location.finder.benchmarks;
+
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Fixtures shared by the benchmarks. The locations are spread over downtown San Francisco. */
+public final class BenchmarkLocations {
+
+  /** Longitude of the default search center. */
+  public static final double CENTER_LONGITUDE = -122.414408;
+
+  /** Latitude of the default search center. */
+  public static final double CENTER_LATITUDE = 37.784683;
+
+  /** Private constructor to prevent instantiation. */
+  private BenchmarkLocations() {}
+
+  /**
+   * Create random locations around the default search center.
+   *
+   * @param count number of locations to create.
+   * @return list of locations.
+   */
+  public static List<MapLocation> mapLocations(int count) {
+    Random random = new Random(42);
+    List<MapLocation> locations = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      MapLocation mapLocation = new BenchmarkLocation();
+      mapLocation.setId(Integer.toString(i));
+      mapLocation.setName(String.format("Food Truck %s", i));
+      LocationCoordinates locationCoordinates = new LocationCoordinates();
+      locationCoordinates.setType("Point");
+      locationCoordinates.setLongitude(CENTER_LONGITUDE + (random.nextDouble() - 0.5) * 0.1);
+      locationCoordinates.setLatitude(CENTER_LATITUDE + (random.nextDouble() - 0.5) * 0.1);
+      mapLocation.setLocation(locationCoordinates);
+      locations.add(mapLocation);
+    }
+    return locations;
+  }
+
+  /**
+   * Create random LocationDTO instances around the default search center.
+   *
+   * @param count number of locations to create.
+   * @return list of LocationDTO.
+   */
+  public static List<LocationDTO> locationDTOs(int count) {
+    List<LocationDTO> locations = new ArrayList<>(count);
+    for (MapLocation mapLocation : mapLocations(count)) {
+      LocationDTO locationDTO = new LocationDTO();
+      locationDTO.setName(mapLocation.getName());
+      locationDTO.setLongitude(mapLocation.getLocation().getLongitude());
+      locationDTO.setLatitude(mapLocation.getLocation().getLatitude());
+      locations.add(locationDTO);
+    }
+    return locations;
+  }
+
+  /** A datasource independent MapLocation model. */
+  public static class BenchmarkLocation extends MapLocation {}
+}
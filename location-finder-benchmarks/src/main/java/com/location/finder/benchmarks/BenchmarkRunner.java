@@ -0,0 +1,42 @@
+package com.location.finder.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entrypoint of the benchmarks jar. It accepts the standard JMH command line options, but writes
+ * the results as JSON to jmh-result.json by default, so that the results of different commits can
+ * be compared with each other.
+ */
+public class BenchmarkRunner {
+
+  /** Default file name of the benchmark results. */
+  private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  /** Private constructor to prevent instantiation. */
+  private BenchmarkRunner() {}
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args JMH command line options.
+   * @throws CommandLineOptionException if the command line options are not valid.
+   * @throws RunnerException if the benchmarks cannot be run.
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+    if (!commandLineOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!commandLineOptions.getResult().hasValue()) {
+      options.result(DEFAULT_RESULT_FILE);
+    }
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,68 @@
+package com.location.finder.benchmarks;
+
+import com.location.finder.core.dto.LocationCriteria;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of the bean validation of LocationCriteria for valid and invalid criteria. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CriteriaValidationBenchmark {
+
+  private ValidatorFactory validatorFactory;
+
+  private Validator validator;
+
+  private LocationCriteria validCriteria;
+
+  private LocationCriteria invalidCriteria;
+
+  @Setup
+  public void setup() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    validator = validatorFactory.getValidator();
+    validCriteria = new LocationCriteria();
+    validCriteria.setLongitude(BenchmarkLocations.CENTER_LONGITUDE);
+    validCriteria.setLatitude(BenchmarkLocations.CENTER_LATITUDE);
+    validCriteria.setType(List.of("FoodTruck"));
+    invalidCriteria = new LocationCriteria();
+    invalidCriteria.setLongitude(-200);
+    invalidCriteria.setLatitude(BenchmarkLocations.CENTER_LATITUDE);
+    invalidCriteria.setNumberOfLocations(50);
+  }
+
+  @TearDown
+  public void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<LocationCriteria>> validCriteria() {
+    return validator.validate(validCriteria);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<LocationCriteria>> invalidCriteria() {
+    return validator.validate(invalidCriteria);
+  }
+}
@@ -0,0 +1,110 @@
+package com.location.finder.benchmarks;
+
+import static com.mongodb.MongoClientSettings.getDefaultCodecRegistry;
+
+import com.location.finder.mongo.FoodTruck;
+import com.location.finder.mongo.MapLocationCodec;
+import com.location.finder.mongo.ReactiveMongoConfiguration;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Benchmarks of reading a food truck document from its BSON bytes, as the driver receives it. The
+ * boxed path decodes a Document and unboxes the GeoJSON coordinates list, the converter path is
+ * what a derived Spring Data query does, and the codec path is what the search repository does. Run
+ * with {@code -prof gc} to compare the allocation per read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocationDecodingBenchmark {
+
+  private final DecoderContext decoderContext = DecoderContext.builder().build();
+
+  private byte[] bytes;
+
+  private DocumentCodec documentCodec;
+
+  private MappingMongoConverter mappingMongoConverter;
+
+  private MapLocationCodec<FoodTruck> mapLocationCodec;
+
+  @Setup
+  public void setup() {
+    Document document =
+        new Document("_id", "1569152")
+            .append("name", "Food Truck 1")
+            .append(
+                "location",
+                new Document("type", "Point")
+                    .append("coordinates", List.of(-122.414408, 37.784683)));
+    BsonDocument bsonDocument = document.toBsonDocument(Document.class, getDefaultCodecRegistry());
+    RawBsonDocument rawBsonDocument = RawBsonDocument.parse(bsonDocument.toJson());
+    ByteBuffer buffer = rawBsonDocument.getByteBuffer().asNIO();
+    bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    documentCodec = new DocumentCodec();
+    mappingMongoConverter = mappingMongoConverter();
+    mapLocationCodec = new MapLocationCodec<>(FoodTruck.class, FoodTruck::new);
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public double boxedCoordinates() {
+    Document document = documentCodec.decode(reader(), decoderContext);
+    List<Double> coordinates =
+        (List<Double>) document.get("location", Document.class).get("coordinates");
+    return coordinates.get(0) + coordinates.get(1);
+  }
+
+  @Benchmark
+  public FoodTruck mappingConverter() {
+    return mappingMongoConverter.read(
+        FoodTruck.class, documentCodec.decode(reader(), decoderContext));
+  }
+
+  @Benchmark
+  public FoodTruck mapLocationCodec() {
+    return mapLocationCodec.decode(reader(), decoderContext);
+  }
+
+  private BsonBinaryReader reader() {
+    return new BsonBinaryReader(ByteBuffer.wrap(bytes));
+  }
+
+  private static MappingMongoConverter mappingMongoConverter() {
+    MongoCustomConversions conversions = ReactiveMongoConfiguration.customConversions();
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+}
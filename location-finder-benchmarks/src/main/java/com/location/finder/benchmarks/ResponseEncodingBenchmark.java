@@ -0,0 +1,73 @@
+package com.location.finder.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.location.finder.core.codec.LocationBinaryFormat;
+import com.location.finder.core.dto.LocationDTO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the encoding of LocationDTO streams, as a single JSON array, as one JSON document
+ * per location and in the compact binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseEncodingBenchmark {
+
+  /** Number of locations in the response. */
+  @Param({"5", "20"})
+  private int numberOfLocations;
+
+  private List<LocationDTO> locations;
+
+  private ObjectWriter objectWriter;
+
+  @Setup
+  public void setup() {
+    locations = BenchmarkLocations.locationDTOs(numberOfLocations);
+    objectWriter = new ObjectMapper().writer();
+  }
+
+  @Benchmark
+  public byte[] jsonArray() throws JsonProcessingException {
+    return objectWriter.writeValueAsBytes(locations);
+  }
+
+  @Benchmark
+  public byte[] jsonPerElement() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (LocationDTO location : locations) {
+      outputStream.write(objectWriter.writeValueAsBytes(location));
+      outputStream.write('\n');
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] binary() {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    for (LocationDTO location : locations) {
+      outputStream.writeBytes(LocationBinaryFormat.encode(location));
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,36 @@
+package com.location.finder.benchmarks;
+
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.model.MapLocation;
+import java.util.List;
+import reactor.core.publisher.Flux;
+
+/**
+ * A LocationRepository that returns a fixed list of locations for every search, so that the
+ * benchmarks measure the cost of the service layer without any datasource.
+ */
+public class StubLocationRepository implements LocationRepository {
+
+  /** Locations returned by every search. */
+  private final MapLocation[] locations;
+
+  /**
+   * Create a stub repository.
+   *
+   * @param locations locations returned by every search.
+   */
+  public StubLocationRepository(List<MapLocation> locations) {
+    this.locations = locations.toArray(new MapLocation[0]);
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance) {
+    return Flux.fromArray(locations);
+  }
+
+  @Override
+  public Flux<MapLocation> findAllLocations() {
+    return Flux.fromArray(locations);
+  }
+}
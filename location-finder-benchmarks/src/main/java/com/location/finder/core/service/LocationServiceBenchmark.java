@@ -0,0 +1,67 @@
+package com.location.finder.core.service;
+
+import com.location.finder.benchmarks.BenchmarkLocations;
+import com.location.finder.benchmarks.StubLocationRepository;
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.model.MapLocation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the LocationService search path against a stub LocationRepository. The benchmark
+ * lives in the package of LocationService to measure the package-private model mapping as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocationServiceBenchmark {
+
+  /** Number of locations requested per search. */
+  @Param({"5", "20"})
+  private int numberOfLocations;
+
+  private LocationService locationService;
+
+  private LocationCriteria locationCriteria;
+
+  private MapLocation mapLocation;
+
+  @Setup
+  public void setup() {
+    List<MapLocation> locations = BenchmarkLocations.mapLocations(100);
+    locationService =
+        new LocationService(Map.of("FoodTruck", new StubLocationRepository(locations)));
+    locationCriteria = new LocationCriteria();
+    locationCriteria.setLongitude(BenchmarkLocations.CENTER_LONGITUDE);
+    locationCriteria.setLatitude(BenchmarkLocations.CENTER_LATITUDE);
+    locationCriteria.setNumberOfLocations(numberOfLocations);
+    locationCriteria.setType(List.of("FoodTruck"));
+    mapLocation = locations.get(0);
+  }
+
+  @Benchmark
+  public List<LocationDTO> findByCoordinates() {
+    return locationService.findByCoordinates(locationCriteria).collectList().block();
+  }
+
+  @Benchmark
+  public LocationDTO mapModelToDomainObject() {
+    return locationService.mapModelToDomainObject(mapLocation);
+  }
+}
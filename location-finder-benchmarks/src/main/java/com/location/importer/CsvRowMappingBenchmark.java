@@ -0,0 +1,64 @@
+package com.location.importer;
+
+import com.location.finder.mongo.FoodTruck;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Benchmark of the CSV row parsing of the importer, over the rows of the bundled food truck CSV.
+ * The benchmark lives in the package of CSVToGeoJSONConverter to measure the package-private row
+ * mapping.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvRowMappingBenchmark {
+
+  private static final String CSV_FILE = "Mobile_Food_Facility_Permit.csv";
+
+  private CSVToGeoJSONConverter converter;
+
+  private String[][] rows;
+
+  private int next;
+
+  @Setup
+  public void setup() throws IOException, CsvException {
+    ClassPathResource resource = new ClassPathResource(CSV_FILE);
+    converter =
+        new CSVToGeoJSONConverter(
+            resource, null, null, null, null, null, ImportMode.BULK, 1000, 1, "");
+    try (CSVReader reader =
+        new CSVReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+      reader.skip(1);
+      List<String[]> all = reader.readAll();
+      rows = all.toArray(new String[0][]);
+    }
+  }
+
+  @Benchmark
+  public FoodTruck mapToLocation() {
+    String[] row = rows[next];
+    next = next + 1 == rows.length ? 0 : next + 1;
+    return converter.mapToLocation(row);
+  }
+}
@@ -0,0 +1,127 @@
+package com.location.finder.core.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.service.LocationFinder;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * CachingLocationFinder is a LocationFinder decorator that keeps the already mapped results of
+ * recent searches. Searches are keyed by type, radius, number of locations and the search center
+ * snapped to a grid, so clustered traffic from the same few blocks is answered from the cache
+ * without querying the datasource.
+ *
+ * <p>The cache holds the replayed stream of a search as soon as it starts, so concurrent identical
+ * searches also share a single datasource query, and the searches of a miss receive every location
+ * as soon as it is found rather than after the last one, which keeps the streamed responses
+ * streaming. A search that completed is replayed from memory. Failed searches are not cached, and
+ * neither are degraded searches that were answered by the fallback of a data source, so the next
+ * search retries the data source. The searches are also keyed by the version of the data, if the
+ * delegate has one, so that a new version is never answered with the results of the previous one.
+ *
+ * <p>A cache miss is searched from the center of the grid cell rather than the center of the
+ * request, so the result of a key does not depend on which search of the cell came first. The
+ * validators of a response are derived from these snapped criteria, see {@link #searchCriteria}, so
+ * every search of a cell has the same strong validator and the same locations.
+ *
+ * <p>The cached locations are shared by all the searches of a key, so every search receives copies
+ * of them, and a search that changes its locations, e.g. their cursor, cannot change the locations
+ * of the other searches.
+ */
+public class CachingLocationFinder implements LocationFinder {
+
+  /** The LocationFinder that runs the search on a cache miss. */
+  private final LocationFinder delegate;
+
+  /** The cache of search results, eviction is configured by the creator of the cache. */
+  private final Cache<SearchKey, Flux<LocationDTO>> cache;
+
+  /** Size of a grid cell in degrees to snap search centers to. */
+  private final double cellSize;
+
+  /**
+   * Create a caching LocationFinder.
+   *
+   * @param delegate the LocationFinder that runs the search on a cache miss.
+   * @param cache the cache of search results.
+   * @param cellSize size of a grid cell in degrees to snap search centers to.
+   */
+  public CachingLocationFinder(
+      LocationFinder delegate, Cache<SearchKey, Flux<LocationDTO>> cache, double cellSize) {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * Return the cached result of the search or run the search with the delegate. The result of a
+   * cache miss is computed from the center of the grid cell of the key, and served to the following
+   * searches in the same grid cell.
+   *
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @return Flux<LocationDTO> a stream of the cached locations.
+   * @throws IllegalArgumentException if the delegate rejects the criteria.
+   */
+  @Override
+  public Flux<LocationDTO> findByCoordinates(LocationCriteria locationCriteria) {
+    return delegate
+        .findVersion(locationCriteria.getType())
+        .map(version -> SearchKey.of(locationCriteria, cellSize, version))
+        .defaultIfEmpty(SearchKey.of(locationCriteria, cellSize))
+        .flatMapMany(searchKey -> find(searchKey, locationCriteria));
+  }
+
+  /**
+   * Find the version of the data with the delegate.
+   *
+   * @param type the requested location types.
+   * @return Mono<String> the version of the data, or empty if any of the types has no version.
+   */
+  @Override
+  public Mono<String> findVersion(List<String> type) {
+    return delegate.findVersion(type);
+  }
+
+  /**
+   * Find the criteria of the search of the grid cell of the criteria, as they are searched by the
+   * delegate.
+   *
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @return LocationCriteria of the search that answers them.
+   */
+  @Override
+  public LocationCriteria searchCriteria(LocationCriteria locationCriteria) {
+    return delegate.searchCriteria(SearchKey.snap(locationCriteria, cellSize));
+  }
+
+  private Flux<LocationDTO> find(SearchKey searchKey, LocationCriteria locationCriteria) {
+    return cache
+        .get(searchKey, key -> search(key, SearchKey.snap(locationCriteria, cellSize)))
+        .map(LocationDTO::copy);
+  }
+
+  /**
+   * Start the search of a cache miss. The search runs once for all of its subscribers and to its
+   * end even if they cancel, so that a cancelled subscriber cannot cancel the cached search. The
+   * search is removed from the cache as soon as it fails or publishes a degraded location.
+   */
+  private Flux<LocationDTO> search(SearchKey searchKey, LocationCriteria locationCriteria) {
+    AtomicReference<Flux<LocationDTO>> result = new AtomicReference<>();
+    result.set(
+        delegate
+            .findByCoordinates(locationCriteria)
+            .doOnNext(
+                location -> {
+                  if (location.isDegraded()) {
+                    cache.asMap().remove(searchKey, result.get());
+                  }
+                })
+            .doOnError(error -> cache.asMap().remove(searchKey, result.get()))
+            .cache());
+    return result.get();
+  }
+}
@@ -0,0 +1,97 @@
+package com.location.finder.core.cache;
+
+import com.location.finder.core.dto.LocationCriteria;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SearchEtag computes the entity tag of a search response from the version of the data and the
+ * normalized search criteria. The same search of the same version always returns the same
+ * locations, so the tag can be used as a strong validator without reading the locations, and a
+ * conditional search can be answered without querying the data sources. The filter values are
+ * sorted, as their order does not change the result, and the representation of the response is part
+ * of the tag, so that the representations of a search have different tags.
+ */
+public final class SearchEtag {
+
+  /** Number of digest bytes kept in the entity tag. */
+  private static final int ETAG_BYTES = 16;
+
+  /** Separator of the fields of the digest, which never appears in a query value. */
+  private static final char SEPARATOR = 0;
+
+  /** End of the values of a list field, which never appears in a query value either. */
+  private static final char LIST_END = 1;
+
+  /** Private constructor to prevent instantiation. */
+  private SearchEtag() {}
+
+  /**
+   * Compute the entity tag of a search response.
+   *
+   * @param version the version of the data of the searched types.
+   * @param locationCriteria LocationCriteria of the search.
+   * @param representation the representation of the response, e.g. the Accept header.
+   * @return the entity tag, without quotes.
+   */
+  public static String of(
+      String version, LocationCriteria locationCriteria, String representation) {
+    StringBuilder value = new StringBuilder();
+    append(value, version);
+    append(value, locationCriteria.getType());
+    append(value, Double.toString(locationCriteria.getLongitude()));
+    append(value, Double.toString(locationCriteria.getLatitude()));
+    append(value, Double.toString(locationCriteria.getRadius()));
+    append(value, Integer.toString(locationCriteria.getNumberOfLocations()));
+    append(value, Boolean.toString(locationCriteria.isNearest()));
+    append(value, locationCriteria.getName());
+    append(value, sorted(locationCriteria.getFacilityType()));
+    append(value, sorted(locationCriteria.getStatus()));
+    append(value, sorted(locationCriteria.getFoodItem()));
+    append(value, locationCriteria.getAfter());
+    append(value, representation);
+    byte[] hash =
+        Arrays.copyOf(
+            sha256().digest(value.toString().getBytes(StandardCharsets.UTF_8)), ETAG_BYTES);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+  }
+
+  private static void append(StringBuilder value, String field) {
+    if (field != null) {
+      value.append(field);
+    }
+    value.append(SEPARATOR);
+  }
+
+  private static void append(StringBuilder value, List<String> field) {
+    if (field != null) {
+      for (String element : field) {
+        append(value, element);
+      }
+    }
+    value.append(LIST_END);
+  }
+
+  private static List<String> sorted(List<String> values) {
+    if (values == null) {
+      return null;
+    }
+    List<String> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.location.finder.core.cache;
+
+import com.location.finder.core.dto.LocationCriteria;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * SearchKey identifies a location search for caching purposes. The center of the search is snapped
+ * to a grid of the given cell size, so that searches from nearby centers share the same key and
+ * therefore the same result.
+ */
+public final class SearchKey {
+
+  /** The types of the searched locations. */
+  private final List<String> type;
+
+  /** The search radius in miles. */
+  private final double radius;
+
+  /** Number of locations requested. */
+  private final int numberOfLocations;
+
+  /** Whether the search ignores the radius to find the nearest locations. */
+  private final boolean nearest;
+
+  /** The prefix of the names of the searched locations, or null. */
+  private final String name;
+
+  /** The facility types of the searched locations, or null. */
+  private final List<String> facilityType;
+
+  /** The permit statuses of the searched locations, or null. */
+  private final List<String> status;
+
+  /** The food items of the searched locations, or null. */
+  private final List<String> foodItem;
+
+  /** The continuation token of the previous page, or null for the first page. */
+  private final String after;
+
+  /** Longitude cell of the search center. */
+  private final long longitudeCell;
+
+  /** Latitude cell of the search center. */
+  private final long latitudeCell;
+
+  /** The version of the data of the searched types, or null. */
+  private final String version;
+
+  private SearchKey(
+      List<String> type,
+      double radius,
+      int numberOfLocations,
+      boolean nearest,
+      String name,
+      List<String> facilityType,
+      List<String> status,
+      List<String> foodItem,
+      String after,
+      long longitudeCell,
+      long latitudeCell,
+      String version) {
+    this.type = type;
+    this.radius = radius;
+    this.numberOfLocations = numberOfLocations;
+    this.nearest = nearest;
+    this.name = name;
+    this.facilityType = facilityType;
+    this.status = status;
+    this.foodItem = foodItem;
+    this.after = after;
+    this.longitudeCell = longitudeCell;
+    this.latitudeCell = latitudeCell;
+    this.version = version;
+  }
+
+  /**
+   * Create a key for the given search criteria.
+   *
+   * @param locationCriteria LocationCriteria of the search.
+   * @param cellSize size of a grid cell in degrees. If the value is not positive, the exact center
+   *     is used.
+   * @return SearchKey of the criteria.
+   */
+  public static SearchKey of(LocationCriteria locationCriteria, double cellSize) {
+    return of(locationCriteria, cellSize, null);
+  }
+
+  /**
+   * Create a key for the given search criteria and version of the data, so that the searches of a
+   * previous version are not found with the key.
+   *
+   * @param locationCriteria LocationCriteria of the search.
+   * @param cellSize size of a grid cell in degrees. If the value is not positive, the exact center
+   *     is used.
+   * @param version the version of the data of the searched types, or null if there is none.
+   * @return SearchKey of the criteria and the version.
+   */
+  public static SearchKey of(LocationCriteria locationCriteria, double cellSize, String version) {
+    return new SearchKey(
+        locationCriteria.getType(),
+        locationCriteria.getRadius(),
+        locationCriteria.getNumberOfLocations(),
+        locationCriteria.isNearest(),
+        locationCriteria.getName(),
+        locationCriteria.getFacilityType(),
+        locationCriteria.getStatus(),
+        locationCriteria.getFoodItem(),
+        locationCriteria.getAfter(),
+        snap(locationCriteria.getLongitude(), cellSize),
+        snap(locationCriteria.getLatitude(), cellSize),
+        version);
+  }
+
+  /**
+   * Create a copy of the criteria with the center moved to the center of its grid cell. The
+   * searches of the criteria of a cell all run from the same center, so their result only depends
+   * on the key of the cell.
+   *
+   * @param locationCriteria LocationCriteria of the search.
+   * @param cellSize size of a grid cell in degrees. If the value is not positive, the criteria are
+   *     returned as they are.
+   * @return LocationCriteria of the search of the cell.
+   */
+  public static LocationCriteria snap(LocationCriteria locationCriteria, double cellSize) {
+    if (!(cellSize > 0)) {
+      return locationCriteria;
+    }
+    LocationCriteria snapped = new LocationCriteria();
+    snapped.setType(locationCriteria.getType());
+    snapped.setLongitude(center(locationCriteria.getLongitude(), cellSize, 180));
+    snapped.setLatitude(center(locationCriteria.getLatitude(), cellSize, 90));
+    snapped.setRadius((int) locationCriteria.getRadius());
+    snapped.setNumberOfLocations(locationCriteria.getNumberOfLocations());
+    snapped.setNearest(locationCriteria.isNearest());
+    snapped.setName(locationCriteria.getName());
+    snapped.setFacilityType(locationCriteria.getFacilityType());
+    snapped.setStatus(locationCriteria.getStatus());
+    snapped.setFoodItem(locationCriteria.getFoodItem());
+    snapped.setAfter(locationCriteria.getAfter());
+    return snapped;
+  }
+
+  /** The center of the grid cell of a coordinate, within the range of the coordinate. */
+  private static double center(double value, double cellSize, double max) {
+    double center = (Math.floor(value / cellSize) + 0.5) * cellSize;
+    return Math.max(-max, Math.min(max, center));
+  }
+
+  private static long snap(double value, double cellSize) {
+    return cellSize > 0 ? (long) Math.floor(value / cellSize) : Double.doubleToLongBits(value);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SearchKey that = (SearchKey) o;
+    return Double.compare(that.radius, radius) == 0
+        && numberOfLocations == that.numberOfLocations
+        && nearest == that.nearest
+        && Objects.equals(name, that.name)
+        && Objects.equals(facilityType, that.facilityType)
+        && Objects.equals(status, that.status)
+        && Objects.equals(foodItem, that.foodItem)
+        && Objects.equals(after, that.after)
+        && longitudeCell == that.longitudeCell
+        && latitudeCell == that.latitudeCell
+        && Objects.equals(version, that.version)
+        && Objects.equals(type, that.type);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        type,
+        radius,
+        numberOfLocations,
+        nearest,
+        name,
+        facilityType,
+        status,
+        foodItem,
+        after,
+        longitudeCell,
+        latitudeCell,
+        version);
+  }
+}
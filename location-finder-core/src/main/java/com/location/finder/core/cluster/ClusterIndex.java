@@ -0,0 +1,208 @@
+package com.location.finder.core.cluster;
+
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ClusterIndex keeps hierarchical grid clusters over the locations of a single type. The cells of
+ * level n are the web map tiles of zoom level n, so every cell is split into four cells of the next
+ * level. Every cell keeps the number of its locations and the sums of their coordinates, from which
+ * the centroid of the cluster is computed.
+ *
+ * <p>The index is updated incrementally. {@link #refresh(Collection)} compares the new copy of the
+ * locations with the previous one by id, and only the added, removed and moved locations update the
+ * cells of their path from level 0 to MAX_LEVEL. A re-import that changes a few locations therefore
+ * updates a few cells, instead of rebuilding every level.
+ */
+public class ClusterIndex {
+
+  /** The deepest level of the index, where a cell is about 150 meters wide. */
+  public static final int MAX_LEVEL = 18;
+
+  /** The highest latitude of the Web Mercator projection. */
+  private static final double MAX_LATITUDE = 85.05112878;
+
+  /** The cells of every level, keyed by their column and row. */
+  private final Map<Long, Cell>[] levels;
+
+  /** The coordinates of the indexed locations, as longitude and latitude by id. */
+  private Map<String, double[]> points = new HashMap<>();
+
+  /** Lock that keeps the queries from reading the cells during a refresh. */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Create an empty index. */
+  @SuppressWarnings("unchecked")
+  public ClusterIndex() {
+    this.levels = new Map[MAX_LEVEL + 1];
+    for (int level = 0; level <= MAX_LEVEL; level++) {
+      levels[level] = new HashMap<>();
+    }
+  }
+
+  /**
+   * Replace the indexed locations with a new copy, and update only the cells of the locations that
+   * were added, removed or moved. Locations without an id or coordinates are skipped.
+   *
+   * @param locations the new copy of the locations.
+   * @return number of locations that were added, removed or moved.
+   */
+  public int refresh(Collection<? extends MapLocation> locations) {
+    Map<String, double[]> next = new HashMap<>(locations.size() * 2);
+    for (MapLocation location : locations) {
+      LocationCoordinates coordinates = location.getLocation();
+      if (location.getId() != null && coordinates != null) {
+        next.put(
+            location.getId(), new double[] {coordinates.getLongitude(), coordinates.getLatitude()});
+      }
+    }
+    lock.writeLock().lock();
+    try {
+      int changes = 0;
+      for (Map.Entry<String, double[]> point : points.entrySet()) {
+        double[] moved = next.get(point.getKey());
+        if (moved == null || !Arrays.equals(moved, point.getValue())) {
+          update(point.getValue(), -1);
+          changes++;
+        }
+      }
+      for (Map.Entry<String, double[]> point : next.entrySet()) {
+        double[] previous = points.get(point.getKey());
+        if (previous == null || !Arrays.equals(previous, point.getValue())) {
+          update(point.getValue(), 1);
+          if (previous == null) {
+            changes++;
+          }
+        }
+      }
+      points = next;
+      return changes;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Number of indexed locations.
+   *
+   * @return number of locations.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return points.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Add the clusters of the given level within the given cell of a lower level to the given
+   * accumulator. Levels deeper than MAX_LEVEL are answered with the cell of MAX_LEVEL that covers
+   * the given cell.
+   *
+   * @param zoom level of the cell to find the clusters within.
+   * @param x column of the cell.
+   * @param y row of the cell.
+   * @param level level of the clusters, at least zoom.
+   * @param clusters accumulator of the clusters, by the column and row of their cell.
+   */
+  void collect(int zoom, int x, int y, int level, Map<Long, Cell> clusters) {
+    lock.readLock().lock();
+    try {
+      if (zoom > MAX_LEVEL) {
+        int shift = zoom - MAX_LEVEL;
+        add(clusters, MAX_LEVEL, x >> shift, y >> shift);
+        return;
+      }
+      int depth = Math.min(level, MAX_LEVEL) - zoom;
+      int size = 1 << depth;
+      for (int row = y << depth; row < (y << depth) + size; row++) {
+        for (int column = x << depth; column < (x << depth) + size; column++) {
+          add(clusters, zoom + depth, column, row);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(Map<Long, Cell> clusters, int level, int column, int row) {
+    Cell cell = levels[level].get(key(column, row));
+    if (cell != null) {
+      clusters.computeIfAbsent(key(column, row), k -> new Cell()).add(cell);
+    }
+  }
+
+  /**
+   * Add or remove a location to the cells of its path from level 0 to MAX_LEVEL.
+   *
+   * @param point longitude and latitude of the location.
+   * @param sign 1 to add the location, -1 to remove it.
+   */
+  private void update(double[] point, int sign) {
+    double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, point[1]));
+    double scale = 1L << MAX_LEVEL;
+    int column = clamp((int) Math.floor((point[0] + 180.0) / 360.0 * scale));
+    double sin = Math.sin(Math.toRadians(latitude));
+    int row =
+        clamp((int) Math.floor((0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * scale));
+    for (int level = MAX_LEVEL; level >= 0; level--) {
+      int shift = MAX_LEVEL - level;
+      long key = key(column >> shift, row >> shift);
+      Cell cell = levels[level].computeIfAbsent(key, k -> new Cell());
+      cell.update(point[0], point[1], sign);
+      if (cell.count == 0) {
+        levels[level].remove(key);
+      }
+    }
+  }
+
+  private static int clamp(int index) {
+    return Math.max(0, Math.min((1 << MAX_LEVEL) - 1, index));
+  }
+
+  private static long key(int column, int row) {
+    return ((long) column << 32) | (row & 0xFFFFFFFFL);
+  }
+
+  /** The number of locations of a cell and the sums of their coordinates. */
+  static final class Cell {
+
+    private long count;
+
+    private double longitudeSum;
+
+    private double latitudeSum;
+
+    private void update(double longitude, double latitude, int sign) {
+      count += sign;
+      longitudeSum += sign * longitude;
+      latitudeSum += sign * latitude;
+    }
+
+    private void add(Cell cell) {
+      count += cell.count;
+      longitudeSum += cell.longitudeSum;
+      latitudeSum += cell.latitudeSum;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    double getLongitude() {
+      return longitudeSum / count;
+    }
+
+    double getLatitude() {
+      return latitudeSum / count;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.location.finder.core.cluster;
+
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.dto.LocationClusterDTO;
+import com.location.finder.core.tile.TileKey;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ClusterService answers cluster queries from a ClusterIndex for every clustered location type. The
+ * clusters of a map tile are the cells a few levels below the zoom level of the tile, so a zoomed
+ * out view costs at most 4^depth cluster records, whatever the number of locations.
+ *
+ * <p>The indexes are loaded from the location repositories by {@link #refresh()}, which should be
+ * called periodically to pick up a re-import of a collection. A type whose data version did not
+ * change since its last load is not loaded again, and only the changed locations update the
+ * clusters. A type without a version is loaded by every refresh. Until the first refresh completes,
+ * a clustered type has no clusters.
+ */
+public class ClusterService {
+
+  /** The location repositories to load the clustered types from, by type. */
+  private final Map<String, LocationRepository> locationRepositories;
+
+  /** The cluster indexes of the clustered types, by type. */
+  private final Map<String, ClusterIndex> indexes = new LinkedHashMap<>();
+
+  /** The data versions of the last loads of the clustered types that have a version, by type. */
+  private final Map<String, String> versions = new ConcurrentHashMap<>();
+
+  /** Number of levels between the zoom level of a tile and the level of its clusters. */
+  private final int depth;
+
+  /**
+   * Create a ClusterService.
+   *
+   * @param locationRepositories all the location repositories, by type.
+   * @param types the location types to cluster.
+   * @param depth number of levels between the zoom level of a tile and the level of its clusters.
+   * @throws IllegalArgumentException if any of the types has no location repository.
+   */
+  public ClusterService(
+      Map<String, LocationRepository> locationRepositories, List<String> types, int depth) {
+    for (String type : types) {
+      if (!locationRepositories.containsKey(type)) {
+        throw new IllegalArgumentException(
+            String.format("Location Type %s is not supported", type));
+      }
+      indexes.put(type, new ClusterIndex());
+    }
+    this.locationRepositories = locationRepositories;
+    this.depth = depth;
+  }
+
+  /**
+   * Load all locations of every clustered type whose data version changed, and update their
+   * clusters with the changes since the previous refresh. The types are loaded one after the other,
+   * so a refresh holds a single copy of a collection at a time.
+   *
+   * @return Mono<Integer> the number of locations that were added, removed or moved.
+   */
+  public Mono<Integer> refresh() {
+    return Flux.fromIterable(indexes.entrySet())
+        .concatMap(entry -> refresh(entry.getKey(), entry.getValue()))
+        .reduce(0, Integer::sum);
+  }
+
+  /**
+   * Load all locations of a clustered type unless its data version is the one of its last load. The
+   * version is read before the locations, so a change during the load is loaded again by the next
+   * refresh.
+   *
+   * @param type the clustered location type.
+   * @param index the cluster index of the type.
+   * @return Mono<Integer> the number of locations that were added, removed or moved.
+   */
+  private Mono<Integer> refresh(String type, ClusterIndex index) {
+    LocationRepository repository = locationRepositories.get(type);
+    return repository
+        .findVersion()
+        .defaultIfEmpty("")
+        .flatMap(
+            version -> {
+              if (!version.isEmpty() && version.equals(versions.get(type))) {
+                return Mono.just(0);
+              }
+              return repository
+                  .findAllLocations()
+                  .collectList()
+                  .map(
+                      locations -> {
+                        int changes = index.refresh(locations);
+                        versions.put(type, version);
+                        return changes;
+                      });
+            });
+  }
+
+  /**
+   * Find the clusters within the given map tile. The clusters of many types are merged by their
+   * cell.
+   *
+   * @param type the clustered location types.
+   * @param zoom zoom level of the tile.
+   * @param x column of the tile.
+   * @param y row of the tile.
+   * @return Flux<LocationClusterDTO> the clusters of the tile, ordered by the column and row of
+   *     their cells.
+   * @throws IllegalArgumentException if the tile does not exist, or any of the types is not
+   *     clustered.
+   */
+  public Flux<LocationClusterDTO> findClusters(List<String> type, int zoom, int x, int y) {
+    TileKey tile = TileKey.of(type, zoom, x, y);
+    List<ClusterIndex> clustered = new ArrayList<>(tile.getType().size());
+    for (String name : tile.getType()) {
+      ClusterIndex index = indexes.get(name);
+      if (index == null) {
+        throw new IllegalArgumentException(
+            String.format("Location Type %s is not clustered", name));
+      }
+      clustered.add(index);
+    }
+    return Flux.defer(
+        () -> {
+          Map<Long, ClusterIndex.Cell> cells = new TreeMap<>();
+          for (ClusterIndex index : clustered) {
+            index.collect(zoom, x, y, zoom + depth, cells);
+          }
+          List<LocationClusterDTO> clusters = new ArrayList<>(cells.size());
+          for (ClusterIndex.Cell cell : cells.values()) {
+            LocationClusterDTO cluster = new LocationClusterDTO();
+            cluster.setLatitude(cell.getLatitude());
+            cluster.setLongitude(cell.getLongitude());
+            cluster.setCount(cell.getCount());
+            clusters.add(cluster);
+          }
+          return Flux.fromIterable(clusters);
+        });
+  }
+}
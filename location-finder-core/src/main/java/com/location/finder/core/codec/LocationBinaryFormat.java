@@ -0,0 +1,81 @@
+package com.location.finder.core.codec;
+
+import com.location.finder.core.dto.LocationDTO;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LocationBinaryFormat is a compact, fixed-layout encoding of LocationDTO for clients that pay for
+ * every byte, e.g. mobile clients. Every location is a record of its latitude and longitude as
+ * big-endian float32 values, followed by the length of its UTF-8 encoded name as an unsigned 16 bit
+ * integer and the name itself. Records are self delimiting, so a list of locations is the plain
+ * concatenation of their records and can be read while it is being received.
+ *
+ * <p>A float32 coordinate keeps about 7 significant digits, which is less than a meter on the
+ * surface of the earth. A missing name is encoded as an empty name.
+ */
+public final class LocationBinaryFormat {
+
+  /** Media type of the format. */
+  public static final String MEDIA_TYPE = "application/vnd.location-finder.binary";
+
+  /** Size of a record without the name, two float32 coordinates and an unsigned 16 bit length. */
+  public static final int RECORD_HEADER_SIZE = 2 * Float.BYTES + Short.BYTES;
+
+  /** Max length of an encoded name in bytes. */
+  public static final int MAX_NAME_LENGTH = 0xFFFF;
+
+  private LocationBinaryFormat() {}
+
+  /**
+   * Encode a location as a record.
+   *
+   * @param location LocationDTO to encode.
+   * @return the record of the location.
+   * @throws IllegalArgumentException if the encoded name is longer than MAX_NAME_LENGTH.
+   */
+  public static byte[] encode(LocationDTO location) {
+    byte[] name =
+        location.getName() == null
+            ? new byte[0]
+            : location.getName().getBytes(StandardCharsets.UTF_8);
+    if (name.length > MAX_NAME_LENGTH) {
+      throw new IllegalArgumentException(
+          String.format("Name of a location can be at most %s bytes", MAX_NAME_LENGTH));
+    }
+    return ByteBuffer.allocate(RECORD_HEADER_SIZE + name.length)
+        .putFloat((float) location.getLatitude())
+        .putFloat((float) location.getLongitude())
+        .putShort((short) name.length)
+        .put(name)
+        .array();
+  }
+
+  /**
+   * Decode all the records of a buffer.
+   *
+   * @param buffer buffer positioned at the first record.
+   * @return list of the decoded locations.
+   * @throws IllegalArgumentException if the last record of the buffer is incomplete.
+   */
+  public static List<LocationDTO> decode(ByteBuffer buffer) {
+    List<LocationDTO> locations = new ArrayList<>();
+    try {
+      while (buffer.hasRemaining()) {
+        LocationDTO location = new LocationDTO();
+        location.setLatitude(buffer.getFloat());
+        location.setLongitude(buffer.getFloat());
+        byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(name);
+        location.setName(new String(name, StandardCharsets.UTF_8));
+        locations.add(location);
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Incomplete location record", e);
+    }
+    return locations;
+  }
+}
@@ -0,0 +1,115 @@
+package com.location.finder.core.datasource;
+
+import java.util.function.LongSupplier;
+
+/**
+ * CircuitBreaker stops calling a failing data source for a while. The breaker is closed while the
+ * calls succeed, and opens after the given number of consecutive failures. An open breaker rejects
+ * the calls until the open duration has passed, then lets a single trial call through. The breaker
+ * closes if the trial succeeds, and opens again if it fails.
+ *
+ * <p>The state is guarded by the lock of the instance, which is only held to update a few fields.
+ */
+final class CircuitBreaker {
+
+  /** The states of a breaker. */
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  /** Number of consecutive failures that open the breaker. */
+  private final int failureThreshold;
+
+  /** How long an open breaker rejects the calls, in nanoseconds. */
+  private final long openNanos;
+
+  /** Monotonic clock in nanoseconds. */
+  private final LongSupplier clock;
+
+  private State state = State.CLOSED;
+
+  /** Number of consecutive failures of a closed breaker. */
+  private int failures;
+
+  /** Time at which the breaker opened, in nanoseconds of the clock. */
+  private long openedAt;
+
+  /** Whether the trial call of a half open breaker is in flight. */
+  private boolean trial;
+
+  /**
+   * Create a closed breaker.
+   *
+   * @param failureThreshold number of consecutive failures that open the breaker.
+   * @param openNanos how long an open breaker rejects the calls, in nanoseconds.
+   * @param clock monotonic clock in nanoseconds.
+   */
+  CircuitBreaker(int failureThreshold, long openNanos, LongSupplier clock) {
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openNanos;
+    this.clock = clock;
+  }
+
+  /**
+   * Ask for the permission to make a call. Every permitted call must be ended with exactly one of
+   * {@link #onSuccess()}, {@link #onFailure()} or {@link #onCancel()}.
+   *
+   * @return true if the call can be made, false if the breaker rejects it.
+   */
+  synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (clock.getAsLong() - openedAt < openNanos) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        trial = true;
+        return true;
+      default:
+        if (trial) {
+          return false;
+        }
+        trial = true;
+        return true;
+    }
+  }
+
+  /** End a call that succeeded. A call that started before the breaker opened is ignored. */
+  synchronized void onSuccess() {
+    if (state != State.OPEN) {
+      state = State.CLOSED;
+      failures = 0;
+      trial = false;
+    }
+  }
+
+  /** End a call that failed. */
+  synchronized void onFailure() {
+    if (state == State.OPEN) {
+      return;
+    }
+    trial = false;
+    if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = clock.getAsLong();
+      failures = 0;
+    }
+  }
+
+  /**
+   * End a call that was cancelled, which lets the next call be the trial of a half open breaker.
+   */
+  synchronized void onCancel() {
+    if (state == State.HALF_OPEN) {
+      trial = false;
+    }
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+}
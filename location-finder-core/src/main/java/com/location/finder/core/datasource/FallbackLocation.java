@@ -0,0 +1,26 @@
+package com.location.finder.core.datasource;
+
+import com.location.finder.model.MapLocation;
+
+/**
+ * FallbackLocation is a copy of a location that was found by the fallback data source of a
+ * ResilientLocationRepository, so that the search results can be marked as degraded. The location
+ * is copied, as the fallback may share its locations between searches.
+ */
+public final class FallbackLocation extends MapLocation {
+
+  /**
+   * Copy a location of a fallback data source.
+   *
+   * @param location the location to copy.
+   */
+  public FallbackLocation(MapLocation location) {
+    setId(location.getId());
+    setName(location.getName());
+    setLocation(location.getLocation());
+    setFacilityType(location.getFacilityType());
+    setStatus(location.getStatus());
+    setFoodItems(location.getFoodItems());
+    setDistance(location.getDistance());
+  }
+}
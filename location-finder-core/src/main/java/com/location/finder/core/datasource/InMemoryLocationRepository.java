@@ -0,0 +1,243 @@
+package com.location.finder.core.datasource;
+
+import com.location.finder.core.index.AttributeIndex;
+import com.location.finder.core.index.GeoMath;
+import com.location.finder.core.index.KdTree;
+import com.location.finder.core.index.PointSet;
+import com.location.finder.core.index.PrefixIndex;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+
+/**
+ * InMemoryLocationRepository is a LocationRepository implementation that keeps a copy of a location
+ * collection in the process and answers searches from a KdTree over primitive coordinate arrays. It
+ * returns the same distance ordered results as a spherical MongoDB query with the same radius,
+ * without a network round trip. The names are indexed by a PrefixIndex, and the facility types,
+ * statuses and food items by AttributeIndexes, so a filtered search only measures the distance of
+ * the matching locations when there are few of them.
+ *
+ * <p>The data can be replaced at any time with {@link #refresh(Collection)}. Searches that are
+ * already running keep using the copy they started with.
+ */
+public class InMemoryLocationRepository implements LocationRepository {
+
+  /** The current copy of the locations and the index over them. */
+  private volatile Snapshot snapshot;
+
+  /**
+   * Create a repository and index the given locations.
+   *
+   * @param locations the locations to serve searches from.
+   */
+  public InMemoryLocationRepository(Collection<? extends MapLocation> locations) {
+    refresh(locations);
+  }
+
+  /**
+   * Replace the served locations with a new copy. Locations without coordinates are skipped, as
+   * they can never match a search.
+   *
+   * @param locations the locations to serve searches from.
+   */
+  public void refresh(Collection<? extends MapLocation> locations) {
+    this.snapshot = new Snapshot(locations);
+  }
+
+  /**
+   * Number of locations served by this repository.
+   *
+   * @return number of indexed locations.
+   */
+  public int size() {
+    return snapshot.size();
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance) {
+    return findByCoordinates(longitude, latitude, maxDistance, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Search the closest locations with the KdTree, which stops as soon as the limit is reached
+   * within the search radius.
+   */
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit) {
+    return findByCoordinates(longitude, latitude, 0, maxDistance, limit);
+  }
+
+  /** Search the closest locations of the ring with the KdTree. */
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit) {
+    return Flux.defer(
+        () -> {
+          Snapshot current = snapshot;
+          int capacity = Math.min(limit, current.size());
+          int[] indexes = new int[capacity];
+          double[] distances = new double[capacity];
+          int count =
+              current.tree.nearest(
+                  longitude, latitude, minDistance, maxDistance, capacity, indexes, distances);
+          return Flux.range(0, count).map(i -> current.locations[indexes[i]]);
+        });
+  }
+
+  /**
+   * Search the closest matching locations of the ring, with the candidate set of the name and
+   * attribute indexes.
+   */
+  @Override
+  public Flux<MapLocation> findByFilter(
+      LocationFilter filter,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit) {
+    return Flux.defer(
+        () -> {
+          Snapshot current = snapshot;
+          int capacity = Math.min(limit, current.size());
+          int[] indexes = new int[capacity];
+          double[] distances = new double[capacity];
+          int count =
+              current.tree.nearest(
+                  longitude,
+                  latitude,
+                  minDistance,
+                  maxDistance,
+                  capacity,
+                  current.candidates(filter),
+                  indexes,
+                  distances);
+          return Flux.range(0, count).map(i -> current.locations[indexes[i]]);
+        });
+  }
+
+  @Override
+  public Flux<MapLocation> findAllLocations() {
+    return Flux.defer(() -> Flux.fromArray(snapshot.locations));
+  }
+
+  /** An immutable copy of the locations, laid out in KdTree order. */
+  private static final class Snapshot implements PointSet {
+
+    private final MapLocation[] locations;
+
+    private final double[] x;
+
+    private final double[] y;
+
+    private final double[] z;
+
+    private final KdTree tree;
+
+    private final PrefixIndex names;
+
+    private final AttributeIndex facilityTypes;
+
+    private final AttributeIndex statuses;
+
+    private final AttributeIndex foodItems;
+
+    private Snapshot(Collection<? extends MapLocation> all) {
+      List<MapLocation> located = new ArrayList<>(all.size());
+      for (MapLocation location : all) {
+        if (location.getLocation() != null) {
+          located.add(location);
+        }
+      }
+      int size = located.size();
+      double[] longitudes = new double[size];
+      double[] latitudes = new double[size];
+      for (int i = 0; i < size; i++) {
+        LocationCoordinates coordinates = located.get(i).getLocation();
+        longitudes[i] = coordinates.getLongitude();
+        latitudes[i] = coordinates.getLatitude();
+      }
+      int[] order = KdTree.layout(longitudes, latitudes);
+      this.locations = new MapLocation[size];
+      this.x = new double[size];
+      this.y = new double[size];
+      this.z = new double[size];
+      for (int i = 0; i < size; i++) {
+        int source = order[i];
+        locations[i] = located.get(source);
+        x[i] = GeoMath.x(longitudes[source], latitudes[source]);
+        y[i] = GeoMath.y(longitudes[source], latitudes[source]);
+        z[i] = GeoMath.z(latitudes[source]);
+      }
+      this.tree = new KdTree(this);
+      String[] names = new String[size];
+      for (int i = 0; i < size; i++) {
+        names[i] = locations[i].getName();
+      }
+      this.names = new PrefixIndex(names);
+      this.facilityTypes = attributeIndex(location -> singleton(location.getFacilityType()));
+      this.statuses = attributeIndex(location -> singleton(location.getStatus()));
+      this.foodItems = attributeIndex(MapLocation::getFoodItems);
+    }
+
+    private AttributeIndex attributeIndex(Function<MapLocation, List<String>> attribute) {
+      List<List<String>> values = new ArrayList<>(locations.length);
+      for (MapLocation location : locations) {
+        values.add(attribute.apply(location));
+      }
+      return new AttributeIndex(values);
+    }
+
+    private static List<String> singleton(String value) {
+      return value == null ? null : Collections.singletonList(value);
+    }
+
+    /** The positions of the locations that match every given filter. */
+    private BitSet candidates(LocationFilter filter) {
+      BitSet candidates = filter.getName() == null ? null : names.find(filter.getName());
+      candidates = and(candidates, facilityTypes, filter.getFacilityType());
+      candidates = and(candidates, statuses, filter.getStatus());
+      candidates = and(candidates, foodItems, filter.getFoodItem());
+      return candidates == null ? new BitSet() : candidates;
+    }
+
+    private static BitSet and(BitSet candidates, AttributeIndex index, List<String> filter) {
+      if (filter.isEmpty()) {
+        return candidates;
+      }
+      BitSet matches = index.find(filter);
+      if (candidates != null) {
+        matches.and(candidates);
+      }
+      return matches;
+    }
+
+    @Override
+    public int size() {
+      return locations.length;
+    }
+
+    @Override
+    public double x(int index) {
+      return x[index];
+    }
+
+    @Override
+    public double y(int index) {
+      return y[index];
+    }
+
+    @Override
+    public double z(int index) {
+      return z[index];
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.location.finder.core.datasource;
+
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.index.AttributeIndex;
+import com.location.finder.core.index.PrefixIndex;
+import com.location.finder.model.MapLocation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * LocationFilter is the filter of a search on the name and the attributes of the locations. Every
+ * given filter must match a location. The name prefix matches the start of any word of the name,
+ * see {@link PrefixIndex}, and an attribute filter matches if any of its values matches, see {@link
+ * AttributeIndex}. Both ignore case and accents.
+ */
+public final class LocationFilter {
+
+  /** The prefix of the names, or null. */
+  private final String name;
+
+  /** The prefix of the names normalized for matching, or null. */
+  private final String normalizedName;
+
+  /** The facility types, any of them matches. Empty if not filtered. */
+  private final List<String> facilityType;
+
+  /** The permit statuses, any of them matches. Empty if not filtered. */
+  private final List<String> status;
+
+  /** The food items, any of them matches. Empty if not filtered. */
+  private final List<String> foodItem;
+
+  private LocationFilter(
+      String name, List<String> facilityType, List<String> status, List<String> foodItem) {
+    this.name = name;
+    this.normalizedName = name == null ? null : PrefixIndex.normalize(name);
+    this.facilityType = facilityType;
+    this.status = status;
+    this.foodItem = foodItem;
+  }
+
+  /**
+   * Create the filter of the given search criteria. Blank attribute values are ignored.
+   *
+   * @param locationCriteria LocationCriteria of the search.
+   * @return the filter of the criteria, or null if the criteria do not filter the locations.
+   */
+  public static LocationFilter of(LocationCriteria locationCriteria) {
+    LocationFilter filter =
+        new LocationFilter(
+            locationCriteria.getName(),
+            values(locationCriteria.getFacilityType()),
+            values(locationCriteria.getStatus()),
+            values(locationCriteria.getFoodItem()));
+    return filter.name == null
+            && filter.facilityType.isEmpty()
+            && filter.status.isEmpty()
+            && filter.foodItem.isEmpty()
+        ? null
+        : filter;
+  }
+
+  private static List<String> values(List<String> values) {
+    if (values == null) {
+      return Collections.emptyList();
+    }
+    List<String> nonBlank = new ArrayList<>(values.size());
+    for (String value : values) {
+      if (value != null && !value.isBlank()) {
+        nonBlank.add(value);
+      }
+    }
+    return nonBlank;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public List<String> getFacilityType() {
+    return facilityType;
+  }
+
+  public List<String> getStatus() {
+    return status;
+  }
+
+  public List<String> getFoodItem() {
+    return foodItem;
+  }
+
+  /**
+   * Whether the location matches the filter. Data sources without an index of the names and the
+   * attributes use it to filter the locations of a distance search.
+   *
+   * @param location the location to test.
+   * @return true if the location matches every given filter.
+   */
+  public boolean matches(MapLocation location) {
+    return (name == null || PrefixIndex.matches(location.getName(), normalizedName))
+        && (facilityType.isEmpty()
+            || AttributeIndex.matches(singleton(location.getFacilityType()), facilityType))
+        && (status.isEmpty() || AttributeIndex.matches(singleton(location.getStatus()), status))
+        && (foodItem.isEmpty() || AttributeIndex.matches(location.getFoodItems(), foodItem));
+  }
+
+  private static List<String> singleton(String value) {
+    return value == null ? null : Collections.singletonList(value);
+  }
+}
@@ -1,7 +1,9 @@
 package com.location.finder.core.datasource;
 
+import com.location.finder.core.index.GeoMath;
 import com.location.finder.model.MapLocation;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * LocationRepository is a base interface for all datasource's, that can search a particular type of
@@ -25,4 +27,132 @@ public interface LocationRepository {
    * @return Flux<MapLocation> a stream of locations ordered by distance.
    */
   Flux<MapLocation> findByCoordinates(double longitude, double latitude, double maxDistance);
+
+  /**
+   * This method finds at most the given number of closest locations based on given center
+   * coordinates. Datasource implementations should override this method to pass the limit to the
+   * datasource, so that it does not need to find and send more locations than the caller takes. The
+   * default implementation takes the first n items from the unlimited search.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of at most limit locations ordered by distance.
+   */
+  default Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit) {
+    return findByCoordinates(longitude, latitude, maxDistance).take(limit);
+  }
+
+  /**
+   * This method finds at most the given number of closest locations in a ring around the given
+   * center coordinates. It is used to expand a search, so that the locations of the previous radius
+   * are not fetched again. Datasource implementations should override this method to pass the min
+   * distance to the datasource. The default implementation skips the closer locations of the
+   * unlimited search.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters, inclusive.
+   * @param maxDistance The max distance to search from center, in meters, inclusive.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of at most limit locations ordered by distance.
+   */
+  default Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit) {
+    return findByCoordinates(longitude, latitude, maxDistance)
+        .filter(
+            location ->
+                (Double.isNaN(location.getDistance())
+                        ? GeoMath.distance(
+                            longitude,
+                            latitude,
+                            location.getLocation().getLongitude(),
+                            location.getLocation().getLatitude())
+                        : location.getDistance())
+                    >= minDistance)
+        .take(limit);
+  }
+
+  /**
+   * This method finds at most the given number of closest locations in a ring around the given
+   * center coordinates, which match the given filter of names and attributes. Datasource
+   * implementations should override this method to look up the filter in an index, so that a
+   * selective filter makes the search cheaper. The default implementation filters the locations of
+   * the ring search.
+   *
+   * @param filter The filter of the names and the attributes of the locations.
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters, inclusive.
+   * @param maxDistance The max distance to search from center, in meters, inclusive.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of at most limit locations ordered by distance.
+   */
+  default Flux<MapLocation> findByFilter(
+      LocationFilter filter,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit) {
+    return findByCoordinates(longitude, latitude, minDistance, maxDistance, Integer.MAX_VALUE)
+        .filter(filter::matches)
+        .take(limit);
+  }
+
+  /**
+   * This method finds at most the given number of locations within a longitude and latitude box,
+   * edges included. The locations are not ordered by distance, but the same box must return the
+   * same locations in the same order as long as the datasource does not change, so that responses
+   * of the box can be cached and validated. Datasource implementations should override this method
+   * to search the box at the datasource. The default implementation filters the stream of all
+   * locations.
+   *
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of at most limit locations within the box.
+   */
+  default Flux<MapLocation> findWithinBox(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, int limit) {
+    return findAllLocations()
+        .filter(
+            location -> {
+              if (location.getLocation() == null) {
+                return false;
+              }
+              double longitude = location.getLocation().getLongitude();
+              double latitude = location.getLocation().getLatitude();
+              return longitude >= minLongitude
+                  && longitude <= maxLongitude
+                  && latitude >= minLatitude
+                  && latitude <= maxLatitude;
+            })
+        .take(limit);
+  }
+
+  /**
+   * This method streams every location of the datasource. It is used by in-process indexes to load
+   * a copy of the datasource, so the order of the stream is not significant.
+   *
+   * @return Flux<MapLocation> a stream of all locations.
+   */
+  Flux<MapLocation> findAllLocations();
+
+  /**
+   * This method finds the version of the data of the datasource, which changes whenever its
+   * locations may have changed. It is used to validate the cached responses of the searches, and it
+   * is called on every search request, so datasource implementations should only override this
+   * method if they can tell the version without a query, e.g. from a cached generation counter. The
+   * default implementation has no version, so the searches of the datasource are not validated.
+   *
+   * @return Mono<String> the version of the data, or empty if the datasource has no version.
+   */
+  default Mono<String> findVersion() {
+    return Mono.empty();
+  }
 }
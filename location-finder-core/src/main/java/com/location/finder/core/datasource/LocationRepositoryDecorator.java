@@ -0,0 +1,34 @@
+package com.location.finder.core.datasource;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * LocationRepositoryDecorator wraps the data sources that LocationService searches, e.g. to bound
+ * their latency with a ResilientLocationRepository. It is applied once to every data source when
+ * the service is created, and to every search of the service, which may search a data source many
+ * times.
+ */
+@FunctionalInterface
+public interface LocationRepositoryDecorator {
+
+  /**
+   * Wrap a data source.
+   *
+   * @param type the location type of the data source, which is its bean name.
+   * @param repository the data source to wrap.
+   * @return the wrapped data source, or the given one to leave it as is.
+   */
+  LocationRepository decorate(String type, LocationRepository repository);
+
+  /**
+   * Wrap a whole search of the data sources, e.g. every round of a nearest search and the search of
+   * the next page.
+   *
+   * @param search the locations of the search.
+   * @param <T> the type of the locations.
+   * @return the wrapped search, or the given one to leave it as is.
+   */
+  default <T> Flux<T> decorateSearch(Flux<T> search) {
+    return search;
+  }
+}
@@ -0,0 +1,18 @@
+package com.location.finder.core.datasource;
+
+/**
+ * LocationUnavailableException is thrown when a data source can not answer a search in time and has
+ * no fallback, so the search should be retried later.
+ */
+public class LocationUnavailableException extends RuntimeException {
+
+  /**
+   * Create the exception.
+   *
+   * @param message the description of the unavailable data source.
+   * @param cause the failure of the data source, or null if its breaker is open.
+   */
+  public LocationUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,109 @@
+package com.location.finder.core.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ResilientLocationDecorator guards the data sources of the configured location types with a
+ * ResilientLocationRepository, which bounds every search of a data source and answers the failed
+ * ones with the fallback of the type. A search of the service may search a data source many times,
+ * e.g. every round of a nearest search, so the whole search is bounded by the search deadline too,
+ * fallback searches included. A search that does not complete within the search deadline fails with
+ * a LocationUnavailableException.
+ */
+public class ResilientLocationDecorator implements LocationRepositoryDecorator {
+
+  /** The fallback data source of every guarded location type, or null to fail its searches. */
+  private final Map<String, LocationRepository> fallbacks;
+
+  /** Max duration of a search of a guarded data source, until its first and next locations. */
+  private final Duration deadline;
+
+  /** Number of consecutive failures that open the breaker of a data source. */
+  private final int failureThreshold;
+
+  /** How long an open breaker answers the searches with the fallback. */
+  private final Duration openDuration;
+
+  /** Max duration of a whole search of the service. */
+  private final Duration searchDeadline;
+
+  /** The registry of the fallback and breaker metrics. */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Create the decorator.
+   *
+   * @param fallbacks the fallback data source of every guarded location type, or null to fail its
+   *     searches.
+   * @param deadline max duration of a search of a guarded data source, until its first and next
+   *     locations.
+   * @param failureThreshold number of consecutive failures that open the breaker of a data source.
+   * @param openDuration how long an open breaker answers the searches with the fallback.
+   * @param searchDeadline max duration of a whole search of the service.
+   * @param meterRegistry the registry of the fallback and breaker metrics.
+   * @throws IllegalArgumentException if the search deadline is not positive.
+   */
+  public ResilientLocationDecorator(
+      Map<String, LocationRepository> fallbacks,
+      Duration deadline,
+      int failureThreshold,
+      Duration openDuration,
+      Duration searchDeadline,
+      MeterRegistry meterRegistry) {
+    if (searchDeadline.isZero() || searchDeadline.isNegative()) {
+      throw new IllegalArgumentException("The search deadline must be positive");
+    }
+    this.fallbacks = new HashMap<>(fallbacks);
+    this.deadline = deadline;
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.searchDeadline = searchDeadline;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public LocationRepository decorate(String type, LocationRepository repository) {
+    if (!fallbacks.containsKey(type)) {
+      return repository;
+    }
+    return new ResilientLocationRepository(
+        type,
+        repository,
+        fallbacks.get(type),
+        deadline,
+        failureThreshold,
+        openDuration,
+        meterRegistry);
+  }
+
+  /**
+   * Bound a whole search by the search deadline. The search keeps streaming, every location only
+   * has to be published before the deadline of the whole search.
+   *
+   * @param search the locations of the search.
+   * @param <T> the type of the locations.
+   * @return the search that fails with a LocationUnavailableException at the search deadline.
+   */
+  @Override
+  public <T> Flux<T> decorateSearch(Flux<T> search) {
+    return Flux.defer(
+        () -> {
+          long end = System.nanoTime() + searchDeadline.toNanos();
+          return search
+              .timeout(
+                  Mono.delay(searchDeadline),
+                  location -> Mono.delay(Duration.ofNanos(Math.max(0, end - System.nanoTime()))))
+              .onErrorMap(
+                  TimeoutException.class,
+                  error ->
+                      new LocationUnavailableException(
+                          "The search did not complete within its deadline", error));
+        });
+  }
+}
@@ -0,0 +1,278 @@
+package com.location.finder.core.datasource;
+
+import com.location.finder.model.MapLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ResilientLocationRepository bounds the latency of the searches of a data source. The primary data
+ * source must publish the first location of a search, and every following one, within the deadline,
+ * and the failed or timed out searches are counted by a circuit breaker, which stops calling the
+ * primary data source for a while after consecutive failures. A search that fails, times out or is
+ * rejected by the open breaker is run on the fallback data source instead, typically an in-process
+ * copy of the primary one, and its locations are published as FallbackLocation instances so that
+ * the response can be marked as degraded. The fallback search is bounded by the same deadline.
+ * Without a fallback, or if the fallback times out, such a search fails with a
+ * LocationUnavailableException.
+ *
+ * <p>The locations of the primary search are published as they are found, so the guarded types keep
+ * streaming. If the primary search fails after it published some locations, the fallback search
+ * skips these locations and publishes the following ones. The deadline bounds a single search of
+ * the data source: a nearest search that expands its radius searches the data source many times, so
+ * the whole search is bounded by the search deadline of ResilientLocationDecorator. An
+ * IllegalArgumentException is a rejected request rather than a failure of the data source, so it is
+ * published as is.
+ *
+ * <p>The listing of all locations loads the in-process copies and is not on the path of a request,
+ * so it is not guarded. The version of the data is not counted by the breaker either, but it is
+ * bounded by the deadline, and there is no version while the breaker is open, so that the degraded
+ * responses are never validated.
+ */
+public class ResilientLocationRepository implements LocationRepository {
+
+  /** Name of the counter of the searches run on the fallback, tagged by type and reason. */
+  public static final String FALLBACK_COUNTER = "location.repository.fallback";
+
+  /** Name of the gauge of the state of the breaker, 0 closed, 1 open and 2 half open. */
+  public static final String BREAKER_GAUGE = "location.repository.breaker";
+
+  /** The location type of the data source, as a metric tag. */
+  private final String type;
+
+  /** The guarded data source. */
+  private final LocationRepository primary;
+
+  /** The data source of the degraded searches, or null to fail them. */
+  private final LocationRepository fallback;
+
+  /** Max duration of a search of the primary data source. */
+  private final Duration deadline;
+
+  /** The breaker of the primary data source. */
+  private final CircuitBreaker breaker;
+
+  /** Counter of the searches run on the fallback because the breaker is open. */
+  private final Counter opened;
+
+  /** Counter of the searches run on the fallback because the primary search timed out. */
+  private final Counter timedOut;
+
+  /** Counter of the searches run on the fallback because the primary search failed. */
+  private final Counter failed;
+
+  /**
+   * Guard a data source.
+   *
+   * @param type the location type of the data source, as a metric tag.
+   * @param primary the guarded data source.
+   * @param fallback the data source of the degraded searches, or null to fail them.
+   * @param deadline max duration of a search of the primary data source.
+   * @param failureThreshold number of consecutive failures that open the breaker.
+   * @param openDuration how long an open breaker rejects the searches before a trial search.
+   * @param meterRegistry the registry of the fallback metrics, whose clock times the breaker.
+   * @throws IllegalArgumentException if the deadline or the open duration is not positive, or the
+   *     failure threshold is less than 1.
+   */
+  public ResilientLocationRepository(
+      String type,
+      LocationRepository primary,
+      LocationRepository fallback,
+      Duration deadline,
+      int failureThreshold,
+      Duration openDuration,
+      MeterRegistry meterRegistry) {
+    if (deadline.isZero() || deadline.isNegative()) {
+      throw new IllegalArgumentException("The search deadline must be positive");
+    }
+    if (failureThreshold < 1 || openDuration.isZero() || openDuration.isNegative()) {
+      throw new IllegalArgumentException(
+          "The breaker failure threshold and open duration must be positive");
+    }
+    this.type = type;
+    this.primary = primary;
+    this.fallback = fallback;
+    this.deadline = deadline;
+    this.breaker =
+        new CircuitBreaker(
+            failureThreshold,
+            openDuration.toNanos(),
+            meterRegistry.config().clock()::monotonicTime);
+    this.opened = fallbackCounter(meterRegistry, type, "OPEN");
+    this.timedOut = fallbackCounter(meterRegistry, type, "TIMEOUT");
+    this.failed = fallbackCounter(meterRegistry, type, "ERROR");
+    Gauge.builder(BREAKER_GAUGE, breaker, b -> b.getState().ordinal())
+        .description("State of the breaker of a data source, 0 closed, 1 open and 2 half open")
+        .tag("type", type)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance) {
+    return guard(repository -> repository.findByCoordinates(longitude, latitude, maxDistance));
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit) {
+    return guard(
+        repository -> repository.findByCoordinates(longitude, latitude, maxDistance, limit));
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit) {
+    return guard(
+        repository ->
+            repository.findByCoordinates(longitude, latitude, minDistance, maxDistance, limit));
+  }
+
+  @Override
+  public Flux<MapLocation> findByFilter(
+      LocationFilter filter,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit) {
+    return guard(
+        repository ->
+            repository.findByFilter(filter, longitude, latitude, minDistance, maxDistance, limit));
+  }
+
+  @Override
+  public Flux<MapLocation> findWithinBox(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, int limit) {
+    return guard(
+        repository ->
+            repository.findWithinBox(minLongitude, minLatitude, maxLongitude, maxLatitude, limit));
+  }
+
+  @Override
+  public Flux<MapLocation> findAllLocations() {
+    return primary.findAllLocations();
+  }
+
+  @Override
+  public Mono<String> findVersion() {
+    if (breaker.getState() == CircuitBreaker.State.OPEN) {
+      return Mono.empty();
+    }
+    return primary
+        .findVersion()
+        .timeout(deadline, Mono.empty())
+        .onErrorResume(error -> Mono.empty());
+  }
+
+  CircuitBreaker.State getState() {
+    return breaker.getState();
+  }
+
+  /**
+   * Register the counter of the searches run on the fallback for a reason.
+   *
+   * @param meterRegistry the registry of the fallback metrics.
+   * @param type the location type of the data source, as a metric tag.
+   * @param reason why the primary data source was not used, as a metric tag.
+   * @return Counter of the searches run on the fallback for the reason.
+   */
+  private static Counter fallbackCounter(MeterRegistry meterRegistry, String type, String reason) {
+    return Counter.builder(FALLBACK_COUNTER)
+        .description("Searches that were run on the fallback of a data source")
+        .tag("type", type)
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Run a search on the primary data source within the deadline, or on the fallback if the breaker
+   * is open or the search fails. Every permitted search ends the permit of the breaker exactly
+   * once, as a success, a failure, or a cancellation if the subscriber cancels before the search
+   * ends. The locations that the primary search published before it failed are not published again
+   * by the fallback.
+   *
+   * @param search the search to run on a data source.
+   * @return Flux<MapLocation> the locations of the primary or the fallback search.
+   */
+  private Flux<MapLocation> guard(Function<LocationRepository, Flux<MapLocation>> search) {
+    return Flux.defer(
+        () -> {
+          if (!breaker.tryAcquire()) {
+            return fallback(search, opened, null, Collections.emptySet());
+          }
+          Set<String> published = new HashSet<>();
+          return within(search.apply(primary))
+              .doOnNext(location -> published.add(location.getId()))
+              .doOnComplete(breaker::onSuccess)
+              .doOnCancel(breaker::onCancel)
+              .onErrorResume(
+                  error -> {
+                    if (error instanceof IllegalArgumentException) {
+                      breaker.onCancel();
+                      return Flux.error(error);
+                    }
+                    breaker.onFailure();
+                    return fallback(
+                        search,
+                        error instanceof TimeoutException ? timedOut : failed,
+                        error,
+                        published);
+                  });
+        });
+  }
+
+  /**
+   * Run a search on the fallback data source within the deadline, and mark its locations as
+   * degraded.
+   *
+   * @param search the search to run on a data source.
+   * @param reason the counter of why the primary data source was not used.
+   * @param cause the failure of the primary search, or null if the breaker is open.
+   * @param published the ids of the locations that the primary search already published.
+   * @return Flux<MapLocation> the locations of the fallback search.
+   */
+  private Flux<MapLocation> fallback(
+      Function<LocationRepository, Flux<MapLocation>> search,
+      Counter reason,
+      Throwable cause,
+      Set<String> published) {
+    reason.increment();
+    if (fallback == null) {
+      return Flux.error(unavailable(cause));
+    }
+    return within(search.apply(fallback))
+        .filter(location -> !published.contains(location.getId()))
+        .<MapLocation>map(FallbackLocation::new)
+        .onErrorMap(TimeoutException.class, this::unavailable);
+  }
+
+  /**
+   * Bound the first location of a search, and every following one, by the deadline.
+   *
+   * @param search the search of a data source.
+   * @return Flux<MapLocation> the search that fails with a TimeoutException if a location is late.
+   */
+  private Flux<MapLocation> within(Flux<MapLocation> search) {
+    return search.timeout(Mono.delay(deadline), location -> Mono.delay(deadline));
+  }
+
+  /**
+   * Create the error of a search that neither the primary nor the fallback data source answered.
+   *
+   * @param cause the failure of the last search, or null if the breaker is open.
+   * @return LocationUnavailableException of the location type.
+   */
+  private LocationUnavailableException unavailable(Throwable cause) {
+    return new LocationUnavailableException(
+        String.format("The %s locations are temporarily unavailable", type), cause);
+  }
+}
@@ -0,0 +1,42 @@
+package com.location.finder.core.dto;
+
+/**
+ * LocationClusterDTO is the response model of the cluster query. A cluster stands for all the
+ * locations of a grid cell, with their number and their centroid, so a zoomed out map can draw a
+ * single marker for them instead of downloading every location.
+ */
+public class LocationClusterDTO {
+
+  /** Latitude of the centroid of the locations of the cluster. */
+  private double latitude;
+
+  /** Longitude of the centroid of the locations of the cluster. */
+  private double longitude;
+
+  /** Number of locations of the cluster. */
+  private long count;
+
+  public double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(double latitude) {
+    this.latitude = latitude;
+  }
+
+  public double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(double longitude) {
+    this.longitude = longitude;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+}
@@ -1,9 +1,13 @@
 package com.location.finder.core.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.List;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 /**
  * LocationCriteria is a POJO class to represent all the parameters that location search can take.
@@ -35,14 +39,69 @@ public class LocationCriteria {
   private int radius = 5;
 
   /**
-   * The type of locations to search, the type value will be mapped to a particular data source for
-   * searching for a specific type of locations. For example, FoodTruck is implemented by default,
-   * and it will map to a specific MongoDB db data source, which implements LocationRepository
-   * interface. The data type could have been an Enum, but it would be less dynamic.
+   * Whether to find the nearest locations regardless of the radius. The search starts from a small
+   * radius and expands it until the requested number of locations is found or the max radius of the
+   * service is reached, so a search in a sparse area still finds the locations beyond the radius
+   * limit.
+   */
+  private boolean nearest;
+
+  /**
+   * The prefix of the names of the locations to search for, e.g. the text typed in an autocomplete
+   * box. The prefix matches the start of any word of a name, ignoring case and accents. If it is
+   * not given, the locations are not filtered by name.
+   */
+  @Size(max = 100)
+  private String name;
+
+  /**
+   * The facility types of the locations to search for, e.g. Truck or Push Cart. A location matches
+   * if any of the values matches, and a value matches if the facility type has all the words of the
+   * value, ignoring case and accents. Many values can be given as a comma separated value or by
+   * repeating the parameter. If it is not given, the locations are not filtered by facility type.
+   */
+  @Size(max = 10)
+  @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+  private List<String> facilityType;
+
+  /**
+   * The permit statuses of the locations to search for, e.g. APPROVED. The values match the same
+   * way as the facility types.
+   */
+  @Size(max = 10)
+  @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+  private List<String> status;
+
+  /**
+   * The food items of the locations to search for, e.g. tacos. A location matches if its food items
+   * have all the words of any of the values, so "hot dogs,burritos" finds the locations that sell
+   * either of them.
+   */
+  @Size(max = 10)
+  @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+  private List<String> foodItem;
+
+  /**
+   * The continuation token of the previous page, to find the locations after its last location. The
+   * token is given by the cursor of the last location of a full page, and the other criteria must
+   * be the same as the criteria of that page.
+   */
+  private String after;
+
+  /**
+   * The types of locations to search, each type value will be mapped to a particular data source
+   * for searching for a specific type of locations. For example, FoodTruck is implemented by
+   * default, and it will map to a specific MongoDB db data source, which implements
+   * LocationRepository interface. The data type could have been an Enum, but it would be less
+   * dynamic.
    *
-   * <p>The value is mandatory and must be provided via query parameter.
+   * <p>The value is mandatory and must be provided via query parameter. Many types can be given as
+   * a comma separated value or by repeating the parameter, and a single JSON string is accepted as
+   * a single type.
    */
-  @NotBlank private String type;
+  @NotEmpty
+  @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+  private List<@NotBlank String> type;
 
   public double getLongitude() {
     return longitude;
@@ -76,11 +135,59 @@ public class LocationCriteria {
     this.radius = radius;
   }
 
-  public String getType() {
+  public boolean isNearest() {
+    return nearest;
+  }
+
+  public void setNearest(boolean nearest) {
+    this.nearest = nearest;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public List<String> getFacilityType() {
+    return facilityType;
+  }
+
+  public void setFacilityType(List<String> facilityType) {
+    this.facilityType = facilityType;
+  }
+
+  public List<String> getStatus() {
+    return status;
+  }
+
+  public void setStatus(List<String> status) {
+    this.status = status;
+  }
+
+  public List<String> getFoodItem() {
+    return foodItem;
+  }
+
+  public void setFoodItem(List<String> foodItem) {
+    this.foodItem = foodItem;
+  }
+
+  public String getAfter() {
+    return after;
+  }
+
+  public void setAfter(String after) {
+    this.after = after;
+  }
+
+  public List<String> getType() {
     return type;
   }
 
-  public void setType(String type) {
+  public void setType(List<String> type) {
     this.type = type;
   }
 }
@@ -1,5 +1,8 @@
 package com.location.finder.core.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * LocationDTO is the response model of the location search operation. This is an independent POJO
  * that is being converted from the data model. This POJO has two main purposes, one is to avoid
@@ -17,6 +20,20 @@ public class LocationDTO {
   /** Longitude of the location. The value can vary between -180 and 180. */
   private double longitude;
 
+  /**
+   * The continuation token to find the locations after this one. Only the last location of a full
+   * page has a cursor, as there are no more locations after a page with fewer locations than
+   * requested.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String cursor;
+
+  /**
+   * Whether the location was found by the fallback of a data source that failed or timed out, so it
+   * may be stale. It is published in a response header rather than in the body.
+   */
+  @JsonIgnore private boolean degraded;
+
   public double getLatitude() {
     return latitude;
   }
@@ -33,6 +50,22 @@ public class LocationDTO {
     this.longitude = longitude;
   }
 
+  public String getCursor() {
+    return cursor;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
+  public boolean isDegraded() {
+    return degraded;
+  }
+
+  public void setDegraded(boolean degraded) {
+    this.degraded = degraded;
+  }
+
   public String getName() {
     return name;
   }
@@ -40,4 +73,19 @@ public class LocationDTO {
   public void setName(String name) {
     this.name = name;
   }
+
+  /**
+   * Copy the location, e.g. to hand a cached location to a search without sharing the instance.
+   *
+   * @return LocationDTO a new location with the same fields.
+   */
+  public LocationDTO copy() {
+    LocationDTO copy = new LocationDTO();
+    copy.name = name;
+    copy.latitude = latitude;
+    copy.longitude = longitude;
+    copy.cursor = cursor;
+    copy.degraded = degraded;
+    return copy;
+  }
 }
@@ -0,0 +1,122 @@
+package com.location.finder.core.index;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * AttributeIndex is a bitmap index of a text attribute of a set of points, e.g. the status or the
+ * food items of the locations. Every word of the attribute values has a bitmap of the positions of
+ * the points that have it, so a filter is answered by combining a few bitmaps instead of reading
+ * the attribute of every point. The words are normalized by {@link PrefixIndex#normalize(String)},
+ * so the matching ignores case and accents.
+ *
+ * <p>A filter value matches a point if the attribute values of the point have all the words of the
+ * filter value, e.g. "hot dogs" matches "Hot Dogs: Drinks". A filter of many values matches a point
+ * if any of its values matches.
+ *
+ * <p>An AttributeIndex instance is immutable and can be shared between threads.
+ */
+public final class AttributeIndex {
+
+  /** Number of indexed points. */
+  private final int size;
+
+  /** The positions of the points of every word. */
+  private final Map<String, BitSet> bitmaps = new HashMap<>();
+
+  /**
+   * Index the attribute values of a set of points.
+   *
+   * @param values the attribute values of the points, by position. Null values are not indexed.
+   */
+  public AttributeIndex(List<? extends Collection<String>> values) {
+    this.size = values.size();
+    for (int i = 0; i < size; i++) {
+      if (values.get(i) == null) {
+        continue;
+      }
+      for (String value : values.get(i)) {
+        for (String word : words(value)) {
+          bitmaps.computeIfAbsent(word, w -> new BitSet(size)).set(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Split a value into its normalized words.
+   *
+   * @param value the value to split, or null.
+   * @return the words of the value.
+   */
+  public static Set<String> words(String value) {
+    Set<String> words = new HashSet<>();
+    if (value != null) {
+      for (String word : PrefixIndex.normalize(value).split("[^\\p{L}\\p{N}]+")) {
+        if (!word.isEmpty()) {
+          words.add(word);
+        }
+      }
+    }
+    return words;
+  }
+
+  /**
+   * Whether the attribute values of a point match the filter values, the same way as the index
+   * does.
+   *
+   * @param values the attribute values of a point, or null.
+   * @param filter the filter values.
+   * @return true if any of the filter values matches the attribute values.
+   */
+  public static boolean matches(Collection<String> values, Collection<String> filter) {
+    if (values == null) {
+      return false;
+    }
+    Set<String> words = new HashSet<>();
+    for (String value : values) {
+      words.addAll(words(value));
+    }
+    for (String value : filter) {
+      Set<String> required = words(value);
+      if (!required.isEmpty() && words.containsAll(required)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Find the points whose attribute values match the filter values.
+   *
+   * @param filter the filter values.
+   * @return the positions of the matching points.
+   */
+  public BitSet find(Collection<String> filter) {
+    BitSet matches = new BitSet(size);
+    for (String value : filter) {
+      BitSet match = null;
+      for (String word : words(value)) {
+        BitSet bitmap = bitmaps.get(word);
+        if (bitmap == null) {
+          match = null;
+          break;
+        }
+        if (match == null) {
+          match = (BitSet) bitmap.clone();
+        } else {
+          match.and(bitmap);
+        }
+      }
+      if (match != null) {
+        matches.or(match);
+      }
+    }
+    return matches;
+  }
+}
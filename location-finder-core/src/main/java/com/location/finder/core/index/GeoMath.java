@@ -0,0 +1,96 @@
+package com.location.finder.core.index;
+
+/**
+ * Spherical geometry helpers for the in-process location indexes. The distances follow the same
+ * spherical model MongoDB uses for GeoJSON $nearSphere queries, so an in-process search returns the
+ * same locations as the database for the same radius.
+ */
+public final class GeoMath {
+
+  /** Radius of the earth in meters, the same value MongoDB uses for spherical distances. */
+  public static final double EARTH_RADIUS_METERS = 6378100;
+
+  /** Private constructor to prevent instantiation. */
+  private GeoMath() {}
+
+  /**
+   * Calculate the great circle distance between two coordinates with the haversine formula.
+   *
+   * @param longitude1 longitude of the first coordinate.
+   * @param latitude1 latitude of the first coordinate.
+   * @param longitude2 longitude of the second coordinate.
+   * @param latitude2 latitude of the second coordinate.
+   * @return distance in meters.
+   */
+  public static double distance(
+      double longitude1, double latitude1, double longitude2, double latitude2) {
+    double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+    double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+    double a =
+        sinLatitude * sinLatitude
+            + Math.cos(Math.toRadians(latitude1))
+                * Math.cos(Math.toRadians(latitude2))
+                * sinLongitude
+                * sinLongitude;
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+
+  /**
+   * X component of the unit vector of a coordinate on the sphere.
+   *
+   * @param longitude longitude in degrees.
+   * @param latitude latitude in degrees.
+   * @return x component of the unit vector.
+   */
+  public static double x(double longitude, double latitude) {
+    return Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(longitude));
+  }
+
+  /**
+   * Y component of the unit vector of a coordinate on the sphere.
+   *
+   * @param longitude longitude in degrees.
+   * @param latitude latitude in degrees.
+   * @return y component of the unit vector.
+   */
+  public static double y(double longitude, double latitude) {
+    return Math.cos(Math.toRadians(latitude)) * Math.sin(Math.toRadians(longitude));
+  }
+
+  /**
+   * Z component of the unit vector of a coordinate on the sphere.
+   *
+   * @param latitude latitude in degrees.
+   * @return z component of the unit vector.
+   */
+  public static double z(double latitude) {
+    return Math.sin(Math.toRadians(latitude));
+  }
+
+  /**
+   * Convert a surface distance into the squared length of the chord between two unit vectors. The
+   * chord length grows monotonically with the surface distance, so indexes can compare chords
+   * without calling trigonometric functions per point.
+   *
+   * @param meters surface distance in meters.
+   * @return squared chord length on the unit sphere.
+   */
+  public static double metersToSquaredChord(double meters) {
+    double angle = meters / EARTH_RADIUS_METERS;
+    if (angle >= Math.PI) {
+      return 4;
+    }
+    double chord = 2 * Math.sin(angle / 2);
+    return chord * chord;
+  }
+
+  /**
+   * Convert the squared chord length between two unit vectors into a surface distance.
+   *
+   * @param squaredChord squared chord length on the unit sphere.
+   * @return surface distance in meters.
+   */
+  public static double squaredChordToMeters(double squaredChord) {
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(squaredChord) / 2));
+  }
+}
@@ -0,0 +1,179 @@
+package com.location.finder.core.index;
+
+/**
+ * Geohash helpers for partitioning locations by area. A geohash of n characters names a cell of a
+ * grid that halves the longitude and the latitude ranges in turn, five bits per character, so the
+ * geohash of a cell is a prefix of the geohashes of all the cells and points within it.
+ */
+public final class Geohash {
+
+  /** The geohash alphabet, the digits and the letters without a, i, l and o. */
+  private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+  /** Max number of characters of a geohash, finer cells are below the precision of doubles. */
+  public static final int MAX_PRECISION = 12;
+
+  /** Private constructor to prevent instantiation. */
+  private Geohash() {}
+
+  /**
+   * Encode a coordinate as the geohash of the cell that contains it.
+   *
+   * @param longitude longitude in degrees.
+   * @param latitude latitude in degrees.
+   * @param precision number of characters of the geohash, from 1 to MAX_PRECISION.
+   * @return geohash of the cell of the coordinate.
+   */
+  public static String encode(double longitude, double latitude, int precision) {
+    if (precision < 1 || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException(
+          String.format("Geohash precision must be between 1 and %d", MAX_PRECISION));
+    }
+    double minLongitude = -180;
+    double maxLongitude = 180;
+    double minLatitude = -90;
+    double maxLatitude = 90;
+    StringBuilder geohash = new StringBuilder(precision);
+    boolean even = true;
+    int bits = 0;
+    int value = 0;
+    while (geohash.length() < precision) {
+      if (even) {
+        double middle = (minLongitude + maxLongitude) / 2;
+        if (longitude >= middle) {
+          value = value << 1 | 1;
+          minLongitude = middle;
+        } else {
+          value <<= 1;
+          maxLongitude = middle;
+        }
+      } else {
+        double middle = (minLatitude + maxLatitude) / 2;
+        if (latitude >= middle) {
+          value = value << 1 | 1;
+          minLatitude = middle;
+        } else {
+          value <<= 1;
+          maxLatitude = middle;
+        }
+      }
+      even = !even;
+      if (++bits == 5) {
+        geohash.append(BASE32.charAt(value));
+        bits = 0;
+        value = 0;
+      }
+    }
+    return geohash.toString();
+  }
+
+  /**
+   * Whether the value is a geohash of the given number of characters.
+   *
+   * @param value the value to test.
+   * @param precision the number of characters of the geohash.
+   * @return true if the value has the given length and only characters of the geohash alphabet.
+   */
+  public static boolean isGeohash(String value, int precision) {
+    if (value.length() != precision) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (BASE32.indexOf(value.charAt(i)) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decode the bounds of the cell of a geohash.
+   *
+   * @param geohash the geohash of a cell.
+   * @return the bounds of the cell, as min longitude, min latitude, max longitude, max latitude.
+   */
+  public static double[] bounds(String geohash) {
+    double[] bounds = {-180, -90, 180, 90};
+    boolean even = true;
+    for (int i = 0; i < geohash.length(); i++) {
+      int value = BASE32.indexOf(geohash.charAt(i));
+      if (value < 0) {
+        throw new IllegalArgumentException(String.format("Invalid geohash %s", geohash));
+      }
+      for (int bit = 4; bit >= 0; bit--) {
+        int axis = even ? 0 : 1;
+        double middle = (bounds[axis] + bounds[axis + 2]) / 2;
+        if ((value >> bit & 1) == 1) {
+          bounds[axis] = middle;
+        } else {
+          bounds[axis + 2] = middle;
+        }
+        even = !even;
+      }
+    }
+    return bounds;
+  }
+
+  /**
+   * Whether the cell of a geohash may have a point within the given distance of a center. The cell
+   * is compared with the longitude and latitude bounding box of the circle, so the test never
+   * misses a cell that intersects the circle, but it may accept a cell near the corners of the box.
+   *
+   * @param geohash the geohash of a cell.
+   * @param longitude longitude of the center in degrees.
+   * @param latitude latitude of the center in degrees.
+   * @param distance radius of the circle in meters.
+   * @return true if the cell intersects the bounding box of the circle.
+   */
+  public static boolean intersects(
+      String geohash, double longitude, double latitude, double distance) {
+    double[] bounds = bounds(geohash);
+    double angle = distance / GeoMath.EARTH_RADIUS_METERS;
+    double latitudeRange = Math.toDegrees(angle);
+    if (latitude + latitudeRange < bounds[1] || latitude - latitudeRange > bounds[3]) {
+      return false;
+    }
+    if (latitude + latitudeRange >= 90
+        || latitude - latitudeRange <= -90
+        || (longitude >= bounds[0] && longitude <= bounds[2])) {
+      return true;
+    }
+    double sinRange = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+    if (sinRange >= 1) {
+      return true;
+    }
+    double longitudeRange = Math.toDegrees(Math.asin(sinRange));
+    return Math.min(
+            longitudeDifference(longitude, bounds[0]), longitudeDifference(longitude, bounds[2]))
+        <= longitudeRange;
+  }
+
+  /**
+   * Whether the cell of a geohash intersects a longitude and latitude box.
+   *
+   * @param geohash the geohash of a cell.
+   * @param minLongitude the longitude of the west edge of the box.
+   * @param minLatitude the latitude of the south edge of the box.
+   * @param maxLongitude the longitude of the east edge of the box.
+   * @param maxLatitude the latitude of the north edge of the box.
+   * @return true if the cell and the box intersect.
+   */
+  public static boolean intersects(
+      String geohash,
+      double minLongitude,
+      double minLatitude,
+      double maxLongitude,
+      double maxLatitude) {
+    double[] bounds = bounds(geohash);
+    return bounds[0] <= maxLongitude
+        && bounds[2] >= minLongitude
+        && bounds[1] <= maxLatitude
+        && bounds[3] >= minLatitude;
+  }
+
+  /** The difference of two longitudes in degrees, across the antimeridian if that is shorter. */
+  private static double longitudeDifference(double longitude1, double longitude2) {
+    double difference = Math.abs(longitude1 - longitude2) % 360;
+    return difference > 180 ? 360 - difference : difference;
+  }
+}
@@ -0,0 +1,314 @@
+package com.location.finder.core.index;
+
+import java.util.BitSet;
+
+/**
+ * KdTree is an implicit, array based 3-d tree over the unit vectors of locations. The tree does not
+ * allocate nodes; instead the points are reordered once so that the median of every range is the
+ * root of that range, splitting on x, y and z axes in turn. Searching with chord distances on the
+ * unit sphere gives exact great circle ordering without any trigonometry per visited point.
+ *
+ * <p>A KdTree instance is immutable and can be shared between threads.
+ */
+public final class KdTree {
+
+  /** Number of dimensions of the tree. */
+  private static final int DIMENSIONS = 3;
+
+  /**
+   * A candidate set is searched with the tree if it has more than one in this many points.
+   * Measuring every candidate is faster for the smaller sets of selective filters.
+   */
+  private static final int SCAN_RATIO = 8;
+
+  /** The points, laid out in tree order. */
+  private final PointSet points;
+
+  /**
+   * Create a tree over points which are already laid out in tree order.
+   *
+   * @param points points in the order returned by {@link #layout(double[], double[])}.
+   */
+  public KdTree(PointSet points) {
+    this.points = points;
+  }
+
+  /**
+   * Calculate the tree order of the given coordinates. The returned array holds, for every position
+   * of the tree, the index of the coordinate that belongs to that position.
+   *
+   * @param longitudes longitudes of the locations.
+   * @param latitudes latitudes of the locations.
+   * @return tree order of the locations.
+   */
+  public static int[] layout(double[] longitudes, double[] latitudes) {
+    int size = longitudes.length;
+    double[][] coordinates = new double[DIMENSIONS][size];
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      coordinates[0][i] = GeoMath.x(longitudes[i], latitudes[i]);
+      coordinates[1][i] = GeoMath.y(longitudes[i], latitudes[i]);
+      coordinates[2][i] = GeoMath.z(latitudes[i]);
+      order[i] = i;
+    }
+    build(order, coordinates, 0, size, 0);
+    return order;
+  }
+
+  /**
+   * Find the closest points to the given center, ordered by distance.
+   *
+   * @param longitude longitude of the center.
+   * @param latitude latitude of the center.
+   * @param maxDistance max distance from the center in meters, inclusive.
+   * @param limit max number of points to find.
+   * @param indexes output array for the positions of the found points, must hold at least {@code
+   *     min(limit, size)} items.
+   * @param distances output array for the distances of the found points in meters, must hold at
+   *     least {@code min(limit, size)} items.
+   * @return number of points written to the output arrays.
+   */
+  public int nearest(
+      double longitude,
+      double latitude,
+      double maxDistance,
+      int limit,
+      int[] indexes,
+      double[] distances) {
+    return nearest(longitude, latitude, 0, maxDistance, limit, indexes, distances);
+  }
+
+  /**
+   * Find the closest points to the given center that are not closer than the given min distance,
+   * ordered by distance.
+   *
+   * @param longitude longitude of the center.
+   * @param latitude latitude of the center.
+   * @param minDistance min distance from the center in meters, inclusive.
+   * @param maxDistance max distance from the center in meters, inclusive.
+   * @param limit max number of points to find.
+   * @param indexes output array for the positions of the found points, must hold at least {@code
+   *     min(limit, size)} items.
+   * @param distances output array for the distances of the found points in meters, must hold at
+   *     least {@code min(limit, size)} items.
+   * @return number of points written to the output arrays.
+   */
+  public int nearest(
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit,
+      int[] indexes,
+      double[] distances) {
+    return nearest(longitude, latitude, minDistance, maxDistance, limit, null, indexes, distances);
+  }
+
+  /**
+   * Find the closest points of the given candidate set to the given center that are not closer than
+   * the given min distance, ordered by distance. A small candidate set is searched by measuring the
+   * distance of every candidate, so a selective filter makes a search cheaper. A large candidate
+   * set is searched with the tree, which stops as soon as the closest candidates are found.
+   *
+   * @param longitude longitude of the center.
+   * @param latitude latitude of the center.
+   * @param minDistance min distance from the center in meters, inclusive.
+   * @param maxDistance max distance from the center in meters, inclusive.
+   * @param limit max number of points to find.
+   * @param candidates the positions of the candidate points, or null to search all points.
+   * @param indexes output array for the positions of the found points, must hold at least {@code
+   *     min(limit, size)} items.
+   * @param distances output array for the distances of the found points in meters, must hold at
+   *     least {@code min(limit, size)} items.
+   * @return number of points written to the output arrays.
+   */
+  public int nearest(
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit,
+      BitSet candidates,
+      int[] indexes,
+      double[] distances) {
+    int capacity = Math.min(limit, points.size());
+    if (capacity <= 0) {
+      return 0;
+    }
+    if (candidates != null && (long) candidates.cardinality() * SCAN_RATIO <= points.size()) {
+      return scan(
+          longitude, latitude, minDistance, maxDistance, candidates, capacity, indexes, distances);
+    }
+    Search search =
+        new Search(
+            GeoMath.x(longitude, latitude),
+            GeoMath.y(longitude, latitude),
+            GeoMath.z(latitude),
+            GeoMath.metersToSquaredChord(minDistance),
+            GeoMath.metersToSquaredChord(maxDistance),
+            candidates,
+            new NearestHeap(capacity, indexes, distances));
+    search.visit(0, points.size(), 0);
+    return search.heap.drain();
+  }
+
+  /** Measure the distance of every candidate, and keep the closest ones. */
+  private int scan(
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      BitSet candidates,
+      int capacity,
+      int[] indexes,
+      double[] distances) {
+    double x = GeoMath.x(longitude, latitude);
+    double y = GeoMath.y(longitude, latitude);
+    double z = GeoMath.z(latitude);
+    double minSquaredChord = GeoMath.metersToSquaredChord(minDistance);
+    double maxSquaredChord = GeoMath.metersToSquaredChord(maxDistance);
+    NearestHeap heap = new NearestHeap(capacity, indexes, distances);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      double dx = x - points.x(i);
+      double dy = y - points.y(i);
+      double dz = z - points.z(i);
+      double squaredChord = dx * dx + dy * dy + dz * dz;
+      if (squaredChord <= heap.bound(maxSquaredChord) && squaredChord >= minSquaredChord) {
+        heap.offer(i, squaredChord);
+      }
+    }
+    return heap.drain();
+  }
+
+  /**
+   * Recursively arrange the given range so that its median on the given axis sits in the middle.
+   *
+   * @param order tree order being built.
+   * @param coordinates unit vector components, indexed by axis and original position.
+   * @param from start of the range, inclusive.
+   * @param to end of the range, exclusive.
+   * @param axis the axis to split on.
+   */
+  private static void build(int[] order, double[][] coordinates, int from, int to, int axis) {
+    if (to - from <= 1) {
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    select(order, coordinates[axis], from, to - 1, middle);
+    int nextAxis = (axis + 1) % DIMENSIONS;
+    build(order, coordinates, from, middle, nextAxis);
+    build(order, coordinates, middle + 1, to, nextAxis);
+  }
+
+  /**
+   * Partially sort the range so that the k-th item is in its sorted position, with smaller values
+   * before it and larger values after it.
+   *
+   * @param order tree order being built.
+   * @param values values on the split axis, indexed by original position.
+   * @param left start of the range, inclusive.
+   * @param right end of the range, inclusive.
+   * @param k position to select.
+   */
+  private static void select(int[] order, double[] values, int left, int right, int k) {
+    while (right > left) {
+      int middle = (left + right) >>> 1;
+      if (values[order[middle]] < values[order[left]]) {
+        swap(order, middle, left);
+      }
+      if (values[order[right]] < values[order[left]]) {
+        swap(order, right, left);
+      }
+      if (values[order[right]] < values[order[middle]]) {
+        swap(order, right, middle);
+      }
+      double pivot = values[order[middle]];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[order[i]] < pivot) {
+          i++;
+        }
+        while (values[order[j]] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(order, i, j);
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private static void swap(int[] order, int i, int j) {
+    int temp = order[i];
+    order[i] = order[j];
+    order[j] = temp;
+  }
+
+  /** State of a single search. */
+  private final class Search {
+
+    private final double[] center;
+
+    private final double minSquaredChord;
+
+    private final double maxSquaredChord;
+
+    private final BitSet candidates;
+
+    private final NearestHeap heap;
+
+    private Search(
+        double x,
+        double y,
+        double z,
+        double minSquaredChord,
+        double maxSquaredChord,
+        BitSet candidates,
+        NearestHeap heap) {
+      this.center = new double[] {x, y, z};
+      this.minSquaredChord = minSquaredChord;
+      this.maxSquaredChord = maxSquaredChord;
+      this.candidates = candidates;
+      this.heap = heap;
+    }
+
+    private void visit(int from, int to, int axis) {
+      if (from >= to) {
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      double dx = center[0] - points.x(middle);
+      double dy = center[1] - points.y(middle);
+      double dz = center[2] - points.z(middle);
+      double squaredChord = dx * dx + dy * dy + dz * dz;
+      if (squaredChord <= maxSquaredChord
+          && squaredChord >= minSquaredChord
+          && (candidates == null || candidates.get(middle))) {
+        heap.offer(middle, squaredChord);
+      }
+      double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+      int nextAxis = (axis + 1) % DIMENSIONS;
+      if (delta < 0) {
+        visit(from, middle, nextAxis);
+        if (delta * delta <= heap.bound(maxSquaredChord)) {
+          visit(middle + 1, to, nextAxis);
+        }
+      } else {
+        visit(middle + 1, to, nextAxis);
+        if (delta * delta <= heap.bound(maxSquaredChord)) {
+          visit(from, middle, nextAxis);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.location.finder.core.index;
+
+/**
+ * NearestHeap keeps the closest candidates of a search in a bounded max-heap on primitive arrays,
+ * so a search does not allocate per visited point. The heap is stored in the output arrays of the
+ * search, and is sorted in place when the search is drained.
+ */
+final class NearestHeap {
+
+  private final int capacity;
+
+  private final int[] indexes;
+
+  private final double[] squaredChords;
+
+  private int size;
+
+  /**
+   * Create an empty heap.
+   *
+   * @param capacity max number of candidates to keep.
+   * @param indexes storage of the positions of the candidates, at least capacity long.
+   * @param squaredChords storage of the squared chords of the candidates, at least capacity long.
+   */
+  NearestHeap(int capacity, int[] indexes, double[] squaredChords) {
+    this.capacity = capacity;
+    this.indexes = indexes;
+    this.squaredChords = squaredChords;
+  }
+
+  /**
+   * The squared chord a candidate must not exceed to enter the heap.
+   *
+   * @param maxSquaredChord the squared chord of the search radius.
+   * @return the squared chord of the farthest candidate if the heap is full, the given max
+   *     otherwise.
+   */
+  double bound(double maxSquaredChord) {
+    return size == capacity ? squaredChords[0] : maxSquaredChord;
+  }
+
+  /**
+   * Offer a candidate, which is kept if the heap is not full or it is closer than the farthest
+   * candidate.
+   *
+   * @param index position of the candidate.
+   * @param squaredChord squared chord of the candidate to the search center.
+   */
+  void offer(int index, double squaredChord) {
+    if (size < capacity) {
+      int child = size++;
+      while (child > 0) {
+        int parent = (child - 1) >>> 1;
+        if (squaredChords[parent] >= squaredChord) {
+          break;
+        }
+        indexes[child] = indexes[parent];
+        squaredChords[child] = squaredChords[parent];
+        child = parent;
+      }
+      indexes[child] = index;
+      squaredChords[child] = squaredChord;
+    } else if (squaredChord < squaredChords[0]) {
+      siftDown(index, squaredChord, size);
+    }
+  }
+
+  private void siftDown(int index, double squaredChord, int heapSize) {
+    int parent = 0;
+    while (true) {
+      int child = 2 * parent + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && squaredChords[child + 1] > squaredChords[child]) {
+        child++;
+      }
+      if (squaredChords[child] <= squaredChord) {
+        break;
+      }
+      indexes[parent] = indexes[child];
+      squaredChords[parent] = squaredChords[child];
+      parent = child;
+    }
+    indexes[parent] = index;
+    squaredChords[parent] = squaredChord;
+  }
+
+  /**
+   * Sort the heap in place into ascending distance order and convert chords into meters.
+   *
+   * @return number of found points.
+   */
+  int drain() {
+    for (int last = size - 1; last > 0; last--) {
+      int index = indexes[0];
+      double squaredChord = squaredChords[0];
+      siftDown(indexes[last], squaredChords[last], last);
+      indexes[last] = index;
+      squaredChords[last] = squaredChord;
+    }
+    for (int i = 0; i < size; i++) {
+      squaredChords[i] = GeoMath.squaredChordToMeters(squaredChords[i]);
+    }
+    return size;
+  }
+}
@@ -0,0 +1,40 @@
+package com.location.finder.core.index;
+
+/**
+ * PointSet gives a KdTree access to the unit vectors of the indexed locations. The points must be
+ * laid out in the order returned by {@link KdTree#layout(double[], double[])}. Keeping the storage
+ * behind this interface lets the same search run over heap arrays or off-heap buffers.
+ */
+public interface PointSet {
+
+  /**
+   * Number of points in the set.
+   *
+   * @return number of points.
+   */
+  int size();
+
+  /**
+   * X component of the unit vector of a point.
+   *
+   * @param index position of the point in the set.
+   * @return x component.
+   */
+  double x(int index);
+
+  /**
+   * Y component of the unit vector of a point.
+   *
+   * @param index position of the point in the set.
+   * @return y component.
+   */
+  double y(int index);
+
+  /**
+   * Z component of the unit vector of a point.
+   *
+   * @param index position of the point in the set.
+   * @return z component.
+   */
+  double z(int index);
+}
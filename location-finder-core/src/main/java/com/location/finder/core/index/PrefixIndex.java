@@ -0,0 +1,157 @@
+package com.location.finder.core.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PrefixIndex is a sorted array index of the names of a set of points, for searches that combine a
+ * name prefix with a distance range, e.g. an autocomplete box of a map. A name is indexed once for
+ * every word it has, from the start of that word to the end of the name, so a prefix matches the
+ * start of any word of a name. Names and prefixes are normalized by {@link #normalize(String)}, so
+ * the matching ignores case and accents.
+ *
+ * <p>A prefix is looked up by binary search, and its matches are returned as a candidate set for
+ * {@link KdTree#nearest(double, double, double, double, int, BitSet, int[], double[])}.
+ *
+ * <p>A PrefixIndex instance is immutable and can be shared between threads.
+ */
+public final class PrefixIndex {
+
+  /** Number of indexed points. */
+  private final int size;
+
+  /** The normalized names from the start of every word, sorted. */
+  private final String[] keys;
+
+  /** Positions of the points of the keys. */
+  private final int[] positions;
+
+  /**
+   * Index the names of a set of points.
+   *
+   * @param names the names of the points, by position. A null name is not indexed.
+   */
+  public PrefixIndex(String[] names) {
+    this.size = names.length;
+    List<Entry> entries = new ArrayList<>(names.length);
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] == null) {
+        continue;
+      }
+      String name = normalize(names[i]);
+      for (int start = 0; start < name.length(); start++) {
+        if (isWordStart(name, start)) {
+          entries.add(new Entry(name.substring(start), i));
+        }
+      }
+    }
+    Entry[] sorted = entries.toArray(new Entry[0]);
+    Arrays.sort(sorted, (a, b) -> a.key.compareTo(b.key));
+    this.keys = new String[sorted.length];
+    this.positions = new int[sorted.length];
+    for (int i = 0; i < sorted.length; i++) {
+      keys[i] = sorted[i].key;
+      positions[i] = sorted[i].position;
+    }
+  }
+
+  /**
+   * Normalize a name or a prefix: accents are removed and letters are lower cased.
+   *
+   * @param value the value to normalize.
+   * @return the normalized value.
+   */
+  public static String normalize(String value) {
+    return Normalizer.normalize(value, Normalizer.Form.NFD)
+        .replaceAll("\\p{M}", "")
+        .toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Whether the start of a word of the name matches the prefix, the same way as the index does.
+   *
+   * @param name the name of a location, or null.
+   * @param normalizedPrefix the prefix, normalized by {@link #normalize(String)}.
+   * @return true if the name matches the prefix.
+   */
+  public static boolean matches(String name, String normalizedPrefix) {
+    if (name == null) {
+      return false;
+    }
+    String normalized = normalize(name);
+    for (int start = 0; start < normalized.length(); start++) {
+      if (isWordStart(normalized, start) && normalized.startsWith(normalizedPrefix, start)) {
+        return true;
+      }
+    }
+    return normalizedPrefix.isEmpty();
+  }
+
+  /**
+   * Find the points whose name matches the given prefix.
+   *
+   * @param prefix prefix of the start of a word of the names.
+   * @return the positions of the matching points.
+   */
+  public BitSet find(String prefix) {
+    String normalized = normalize(prefix);
+    int from = lowerBound(normalized);
+    int to = upperBound(normalized, from);
+    BitSet matches = new BitSet(size);
+    for (int i = from; i < to; i++) {
+      matches.set(positions[i]);
+    }
+    return matches;
+  }
+
+  /** The first key that is not less than the prefix. */
+  private int lowerBound(String prefix) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle].compareTo(prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** The first key from the given lower bound that does not start with the prefix. */
+  private int upperBound(String prefix, int from) {
+    int low = from;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle].startsWith(prefix)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static boolean isWordStart(String name, int index) {
+    return Character.isLetterOrDigit(name.charAt(index))
+        && (index == 0 || !Character.isLetterOrDigit(name.charAt(index - 1)));
+  }
+
+  private static final class Entry {
+
+    private final String key;
+
+    private final int position;
+
+    private Entry(String key, int position) {
+      this.key = key;
+      this.position = position;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.location.finder.core.service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * LocationCursor is the continuation token of a page of locations. It holds the center the page was
+ * searched from, the distance of the last location of the page, and the ids of the locations of the
+ * page at exactly that distance. The next page resumes the search of the data sources from that
+ * center at that distance, and skips only the locations with those ids, so a deep page costs the
+ * same as the first page.
+ *
+ * <p>The center is part of the cursor, as a page may have been searched from another center than
+ * the one of the request, e.g. a page served from the cache of a nearby center. The distance is
+ * only meaningful from the center it was measured from.
+ *
+ * <p>The token is the distance, the longitude and the latitude as float64 values, followed by every
+ * id as an unsigned 16 bit length and its UTF-8 bytes, encoded as URL-safe base64 without padding.
+ * Clients must treat the token as opaque.
+ */
+final class LocationCursor {
+
+  /** Distance of the last location of the page to the search center, in meters. */
+  private final double distance;
+
+  /** Longitude of the center the page was searched from. */
+  private final double longitude;
+
+  /** Latitude of the center the page was searched from. */
+  private final double latitude;
+
+  /** Ids of the locations of the page at the distance of the cursor. */
+  private final List<String> ids;
+
+  LocationCursor(double distance, double longitude, double latitude, List<String> ids) {
+    this.distance = distance;
+    this.longitude = longitude;
+    this.latitude = latitude;
+    this.ids = ids;
+  }
+
+  double getDistance() {
+    return distance;
+  }
+
+  double getLongitude() {
+    return longitude;
+  }
+
+  double getLatitude() {
+    return latitude;
+  }
+
+  List<String> getIds() {
+    return ids;
+  }
+
+  /**
+   * Whether the location at the given distance was returned by the pages before this cursor.
+   *
+   * @param id the id of the location.
+   * @param distance the distance of the location to the search center, in meters.
+   * @return true if the location must be skipped.
+   */
+  boolean isReturned(String id, double distance) {
+    return distance <= this.distance && ids.contains(id);
+  }
+
+  /**
+   * Encode the cursor as a token.
+   *
+   * @return the token of the cursor.
+   */
+  String encode() {
+    List<byte[]> encoded = new ArrayList<>(ids.size());
+    int size = 3 * Double.BYTES;
+    for (String id : ids) {
+      byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+      encoded.add(bytes);
+      size += Short.BYTES + bytes.length;
+    }
+    ByteBuffer buffer =
+        ByteBuffer.allocate(size).putDouble(distance).putDouble(longitude).putDouble(latitude);
+    for (byte[] bytes : encoded) {
+      buffer.putShort((short) bytes.length).put(bytes);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  /**
+   * Decode a token.
+   *
+   * @param token the token of a cursor, or null for the first page.
+   * @return the cursor of the token, or null if there is no token.
+   * @throws IllegalArgumentException if the token is not a valid cursor.
+   */
+  static LocationCursor decode(String token) {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    double distance;
+    double longitude;
+    double latitude;
+    List<String> ids = new ArrayList<>();
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+      distance = buffer.getDouble();
+      longitude = buffer.getDouble();
+      latitude = buffer.getDouble();
+      while (buffer.hasRemaining()) {
+        byte[] id = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(id);
+        ids.add(new String(id, StandardCharsets.UTF_8));
+      }
+    } catch (IllegalArgumentException | BufferUnderflowException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+    if (!(distance >= 0) || !(Math.abs(longitude) <= 180) || !(Math.abs(latitude) <= 90)) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+    return new LocationCursor(distance, longitude, latitude, ids);
+  }
+}
@@ -2,7 +2,9 @@ package com.location.finder.core.service;
 
 import com.location.finder.core.dto.LocationCriteria;
 import com.location.finder.core.dto.LocationDTO;
+import java.util.List;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * LocationFinder is an interface to define core search operation spec. This interface should be
@@ -18,4 +20,29 @@ public interface LocationFinder {
    * @return Flux<LocationDTO> a stream of LocationDTO POJO, which has all the locations published.
    */
   Flux<LocationDTO> findByCoordinates(LocationCriteria locationCriteria);
+
+  /**
+   * Find the version of the data of the given location types, which changes whenever the result of
+   * a search of these types may change. It is used to validate the cached responses of the
+   * searches. The default implementation has no version.
+   *
+   * @param type the requested location types.
+   * @return Mono<String> the version of the data, or empty if any of the types has no version.
+   */
+  default Mono<String> findVersion(List<String> type) {
+    return Mono.empty();
+  }
+
+  /**
+   * Find the criteria of the search that answers the given criteria, e.g. with the center snapped
+   * to the grid of a cache. The criteria with the same search criteria have the same response for a
+   * version of the data, so the validators of a response are derived from its search criteria. The
+   * default implementation searches the given criteria.
+   *
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @return LocationCriteria of the search that answers them.
+   */
+  default LocationCriteria searchCriteria(LocationCriteria locationCriteria) {
+    return locationCriteria;
+  }
 }
@@ -1,13 +1,46 @@
 package com.location.finder.core.service;
 
+import com.location.finder.core.cache.SearchKey;
+import com.location.finder.core.datasource.FallbackLocation;
+import com.location.finder.core.datasource.LocationFilter;
 import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.datasource.LocationRepositoryDecorator;
 import com.location.finder.core.dto.LocationCriteria;
 import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.index.GeoMath;
+import com.location.finder.model.LocationCoordinates;
 import com.location.finder.model.MapLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 /**
  * LocationService is a particular implementation of LocationFinder interface, which uses all the
@@ -16,6 +49,31 @@ import reactor.core.publisher.Flux;
  * <p>LocationService uses the MapLocation data model provided by location-finder-data-model
  * artifact which follows the GeoJSON spec. But eventually makes the necessary conversions to
  * publish a LocationDTO stream.
+ *
+ * <p>The searches are measured with Micrometer. The search timers, the number of locations and the
+ * underfilled searches are tagged by the requested location types, and the data source timers by
+ * the type of the data source. Unsupported types are counted without a tag, as the value comes from
+ * the user. The meters of a type are registered by its first search and kept, so that a search only
+ * records its measurements.
+ *
+ * <p>Concurrent identical searches can be coalesced, so that a burst of the same search runs a
+ * single data source query. Coalescing is meant for deployments without the search cache, which
+ * shares the query of a search by itself. The first search of a key starts the query, and the
+ * searches that arrive while it is in flight subscribe to the same stream and receive the locations
+ * that were already published. The query is cancelled only when all of its subscribers cancel. A
+ * completed query is forgotten, so coalescing never serves stale results.
+ *
+ * <p>A nearest search has no radius. It searches a small radius first, and expands the radius
+ * geometrically until the requested number of locations is found or the max radius is reached.
+ * Every expansion only searches the ring beyond the previous radius, so the locations already found
+ * are not fetched again.
+ *
+ * <p>The last location of a full page carries a cursor to find the next page. The cursor holds the
+ * center of the search and the distance of the location, so the next page resumes the search of the
+ * data sources from that center at that distance instead of finding and skipping the locations of
+ * the previous pages. The following pages are searched from the center of the cursor rather than
+ * the center of their request, so that a page served from the search of a nearby center, e.g. from
+ * the cache, is continued without skipping or repeating the locations at its boundary.
  */
 @Service
 public class LocationService implements LocationFinder {
@@ -26,6 +84,54 @@ public class LocationService implements LocationFinder {
    */
   private static final double KM_PER_MILE = 1609.34;
 
+  /**
+   * Relative tolerance of the distance of a cursor. A data source may convert the distance to its
+   * own metric and back, so the next page starts slightly before the distance of the cursor to find
+   * the locations at the same distance again. The locations of the cursor are skipped anyway.
+   */
+  private static final double CURSOR_TOLERANCE = 1e-9;
+
+  /** Latency buckets of the search timers, in addition to the percentile histogram. */
+  private static final Duration[] SERVICE_LEVEL_OBJECTIVES = {
+    Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500)
+  };
+
+  /** Name of the search timer, tagged by location type and outcome. */
+  static final String SEARCH_TIMER = "location.search";
+
+  /** Name of the timer of the first location of a search, tagged by location type. */
+  static final String FIRST_LOCATION_TIMER = "location.search.first";
+
+  /** Name of the distribution of the number of locations per search, tagged by location type. */
+  static final String RESULTS_SUMMARY = "location.search.results";
+
+  /**
+   * Name of the counter of searches that completed with fewer locations than requested, tagged by
+   * location type.
+   */
+  static final String UNDERFILLED_COUNTER = "location.search.underfilled";
+
+  /** Name of the counter of searches rejected because of an unsupported location type. */
+  static final String UNSUPPORTED_COUNTER = "location.search.unsupported";
+
+  /** Name of the timer of the searches of a single repository, tagged by location type. */
+  static final String REPOSITORY_TIMER = "location.repository.search";
+
+  /**
+   * Name of the counter of coalesced searches, tagged by location type and role. A LEADER search
+   * started a data source query, and a FOLLOWER search joined the query of a leader.
+   */
+  static final String COALESCING_COUNTER = "location.search.coalescing";
+
+  /** Name of the gauge of the data source queries that are shared by coalesced searches. */
+  static final String IN_FLIGHT_GAUGE = "location.search.in-flight";
+
+  /**
+   * Name of the distribution of the number of radius expansion rounds per nearest search, tagged by
+   * location type.
+   */
+  static final String EXPANSIONS_SUMMARY = "location.search.expansions";
+
   /**
    * The map of all available location repositories. The key will be the bean name and value is the
    * instance of the implementation. Each implementation is responsible for searching for a
@@ -33,6 +139,119 @@ public class LocationService implements LocationFinder {
    */
   private final Map<String, LocationRepository> locationRepositories;
 
+  /** The decorator of the location repositories and of the searches. */
+  private final LocationRepositoryDecorator decorator;
+
+  /** The registry of the search metrics. */
+  private final MeterRegistry meterRegistry;
+
+  /** Counter of searches rejected because of an unsupported location type. */
+  private final Counter unsupported;
+
+  /** Whether concurrent identical searches share a single data source query. */
+  private final boolean coalescing;
+
+  /**
+   * Size of a grid cell in degrees to snap search centers to for coalescing. If the value is not
+   * positive, only searches with the exact same center are coalesced.
+   */
+  private final double coalescingCellSize;
+
+  /** Radius of the first round of a nearest search, in meters. */
+  private final double nearestInitialRadius;
+
+  /** Radius at which a nearest search stops expanding, in meters. */
+  private final double nearestMaxRadius;
+
+  /** Factor by which a nearest search expands its radius every round. */
+  private final double nearestGrowthFactor;
+
+  /** The meters of the searches, by the location types of the search. */
+  private final ConcurrentMap<String, SearchMeters> searchMeters = new ConcurrentHashMap<>();
+
+  /** The meters of the data source searches, by the location type of the data source. */
+  private final ConcurrentMap<String, RepositoryMeters> repositoryMeters =
+      new ConcurrentHashMap<>();
+
+  /** The searches in flight, by their coalescing key. */
+  private final ConcurrentMap<SearchKey, Flux<LocationDTO>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * The constructor of LocationService that records the search metrics to the global Micrometer
+   * registry.
+   *
+   * @param locationRepositories All the LocationRepository instances available in the Spring
+   *     context.
+   */
+  public LocationService(Map<String, LocationRepository> locationRepositories) {
+    this(locationRepositories, Metrics.globalRegistry);
+  }
+
+  /**
+   * The constructor of LocationService that does not coalesce searches.
+   *
+   * @param locationRepositories All the LocationRepository instances available in the Spring
+   *     context.
+   * @param meterRegistry the registry of the search metrics.
+   */
+  public LocationService(
+      Map<String, LocationRepository> locationRepositories, MeterRegistry meterRegistry) {
+    this(locationRepositories, meterRegistry, false, 0);
+  }
+
+  /**
+   * The constructor of LocationService with the default expansion of nearest searches, from 1 mile
+   * to 50 miles doubling the radius every round.
+   *
+   * @param locationRepositories All the LocationRepository instances available in the Spring
+   *     context.
+   * @param meterRegistry the registry of the search metrics.
+   * @param coalescing whether concurrent identical searches share a single data source query.
+   * @param coalescingCellSize size of a grid cell in degrees to snap search centers to for
+   *     coalescing. If the value is not positive, only the exact same centers are coalesced.
+   */
+  public LocationService(
+      Map<String, LocationRepository> locationRepositories,
+      MeterRegistry meterRegistry,
+      boolean coalescing,
+      double coalescingCellSize) {
+    this(locationRepositories, meterRegistry, coalescing, coalescingCellSize, 1, 50, 2);
+  }
+
+  /**
+   * The constructor of LocationService that searches the given location repositories as they are.
+   *
+   * @param locationRepositories All the LocationRepository instances available in the Spring
+   *     context.
+   * @param meterRegistry the registry of the search metrics.
+   * @param coalescing whether concurrent identical searches share a single data source query.
+   * @param coalescingCellSize size of a grid cell in degrees to snap search centers to for
+   *     coalescing. If the value is not positive, only the exact same centers are coalesced.
+   * @param nearestInitialRadius radius of the first round of a nearest search, in miles.
+   * @param nearestMaxRadius radius at which a nearest search stops expanding, in miles.
+   * @param nearestGrowthFactor factor by which a nearest search expands its radius every round.
+   * @throws IllegalArgumentException if the radiuses are not positive, or the growth factor is not
+   *     greater than 1.
+   */
+  public LocationService(
+      Map<String, LocationRepository> locationRepositories,
+      MeterRegistry meterRegistry,
+      boolean coalescing,
+      double coalescingCellSize,
+      double nearestInitialRadius,
+      double nearestMaxRadius,
+      double nearestGrowthFactor) {
+    this(
+        locationRepositories,
+        meterRegistry,
+        coalescing,
+        coalescingCellSize,
+        nearestInitialRadius,
+        nearestMaxRadius,
+        nearestGrowthFactor,
+        Optional.empty());
+  }
+
   /**
    * The public constructor of LocationService implementation, and it takes all the location
    * repositories available in the Spring Context. This constructor takes all the beans as Map, to
@@ -41,9 +260,51 @@ public class LocationService implements LocationFinder {
    *
    * @param locationRepositories All the LocationRepository instances available in the Spring
    *     context.
+   * @param meterRegistry the registry of the search metrics.
+   * @param coalescing whether concurrent identical searches share a single data source query.
+   * @param coalescingCellSize size of a grid cell in degrees to snap search centers to for
+   *     coalescing. If the value is not positive, only the exact same centers are coalesced.
+   * @param nearestInitialRadius radius of the first round of a nearest search, in miles.
+   * @param nearestMaxRadius radius at which a nearest search stops expanding, in miles.
+   * @param nearestGrowthFactor factor by which a nearest search expands its radius every round.
+   * @param decorator the decorator that wraps every location repository and every search, if any.
+   * @throws IllegalArgumentException if the radiuses are not positive, or the growth factor is not
+   *     greater than 1.
    */
-  public LocationService(Map<String, LocationRepository> locationRepositories) {
-    this.locationRepositories = locationRepositories;
+  @Autowired
+  public LocationService(
+      Map<String, LocationRepository> locationRepositories,
+      MeterRegistry meterRegistry,
+      @Value("${location.finder.coalescing.enabled}") boolean coalescing,
+      @Value("${location.finder.coalescing.cell-size}") double coalescingCellSize,
+      @Value("${location.finder.nearest.initial-radius}") double nearestInitialRadius,
+      @Value("${location.finder.nearest.max-radius}") double nearestMaxRadius,
+      @Value("${location.finder.nearest.growth-factor}") double nearestGrowthFactor,
+      Optional<LocationRepositoryDecorator> decorator) {
+    if (!(nearestInitialRadius > 0) || !(nearestMaxRadius > 0)) {
+      throw new IllegalArgumentException("The nearest search radiuses must be positive");
+    }
+    if (!(nearestGrowthFactor > 1)) {
+      throw new IllegalArgumentException("The nearest search growth factor must be greater than 1");
+    }
+    this.locationRepositories = new LinkedHashMap<>(locationRepositories);
+    this.decorator = decorator.orElse((type, repository) -> repository);
+    this.locationRepositories.replaceAll(this.decorator::decorate);
+    this.meterRegistry = meterRegistry;
+    this.coalescing = coalescing;
+    this.coalescingCellSize = coalescingCellSize;
+    this.nearestInitialRadius = nearestInitialRadius * KM_PER_MILE;
+    this.nearestMaxRadius = nearestMaxRadius * KM_PER_MILE;
+    this.nearestGrowthFactor = nearestGrowthFactor;
+    this.unsupported =
+        Counter.builder(UNSUPPORTED_COUNTER)
+            .description("Searches rejected because of an unsupported location type")
+            .register(meterRegistry);
+    if (coalescing) {
+      Gauge.builder(IN_FLIGHT_GAUGE, inFlight, Map::size)
+          .description("Data source queries shared by coalesced searches")
+          .register(meterRegistry);
+    }
   }
 
   /**
@@ -51,40 +312,684 @@ public class LocationService implements LocationFinder {
    * data source based on given location type and starts a stream from the data source instance. The
    * stream is also stopped by this method based on requested number of locations.
    *
+   * <p>If many location types are requested, the data sources of all types are queried in parallel
+   * and their streams are merged by distance to the center. As every data source publishes its
+   * locations ordered by distance, the merge can publish a location as soon as every data source
+   * has published its next closest location. Stopping the merged stream cancels all data source
+   * streams.
+   *
    * <p>Since this is a stream, all the operations are being executed asynchronously without
    * blocking the main thread. Please note that, we define the behaviour or flow by returning a
    * Flux.
    *
    * @param locationCriteria LocationCriteria provided by the user to perform the search.
    * @return Flux<LocationDTO> that is converted from a MapLocation data model.
-   * @throws IllegalArgumentException if the requested location type is not recognized.
+   * @throws IllegalArgumentException if any of the requested location types is not recognized, or
+   *     the continuation token is not valid.
    */
   @Override
   public Flux<LocationDTO> findByCoordinates(LocationCriteria locationCriteria) {
-    return Optional.ofNullable(locationRepositories.get(locationCriteria.getType()))
-        .orElseThrow(
-            () ->
-                new IllegalArgumentException(
-                    String.format("Location Type %s is not supported", locationCriteria.getType())))
-        .findByCoordinates(
-            locationCriteria.getLongitude(),
-            locationCriteria.getLatitude(),
-            locationCriteria.getRadius() * KM_PER_MILE)
-        .take(locationCriteria.getNumberOfLocations())
+    Map<String, LocationRepository> repositories = new LinkedHashMap<>();
+    for (String type : locationCriteria.getType()) {
+      repositories.put(
+          type,
+          Optional.ofNullable(locationRepositories.get(type)).orElseThrow(() -> unsupported(type)));
+    }
+    LocationCursor cursor = LocationCursor.decode(locationCriteria.getAfter());
+    String type = String.join(",", new TreeSet<>(repositories.keySet()));
+    SearchMeters meters =
+        searchMeters.computeIfAbsent(type, t -> new SearchMeters(meterRegistry, t, coalescing));
+    LocationCriteria searchCriteria = searchCriteria(locationCriteria);
+    return measure(
+        coalesce(
+            meters,
+            locationCriteria,
+            () -> decorator.decorateSearch(search(repositories, searchCriteria, cursor))),
+        meters,
+        locationCriteria.getNumberOfLocations());
+  }
+
+  /**
+   * Find the criteria of the search that answers the given criteria. With coalescing, the searches
+   * run from the center of their cell of the coalescing grid.
+   *
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @return LocationCriteria of the search that answers them.
+   */
+  @Override
+  public LocationCriteria searchCriteria(LocationCriteria locationCriteria) {
+    return coalescing ? SearchKey.snap(locationCriteria, coalescingCellSize) : locationCriteria;
+  }
+
+  /**
+   * Find the version of the data of the requested location types, which is made of the versions of
+   * their data sources. There is no version if any of the types is not recognized or its data
+   * source has no version, so that the searches of these types are never validated with a partial
+   * version.
+   *
+   * @param type the requested location types.
+   * @return Mono<String> the version of the data, or empty if any of the types has no version.
+   */
+  @Override
+  public Mono<String> findVersion(List<String> type) {
+    return Flux.fromIterable(type)
+        .concatMap(
+            name ->
+                Optional.ofNullable(locationRepositories.get(name))
+                    .map(LocationRepository::findVersion)
+                    .orElse(Mono.empty())
+                    .map(version -> name + "=" + version)
+                    .defaultIfEmpty(""))
+        .collectList()
+        .filter(versions -> !versions.contains(""))
+        .map(versions -> String.join(",", versions));
+  }
+
+  /**
+   * Find at most the given number of locations of the requested types within a longitude and
+   * latitude box. The data sources are searched one after the other in the given order of the
+   * types, so the same box always returns the same locations in the same order.
+   *
+   * @param type the requested location types.
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @param limit The max number of locations to return.
+   * @return Flux<LocationDTO> a stream of the locations within the box.
+   * @throws IllegalArgumentException if any of the requested location types is not recognized.
+   */
+  public Flux<LocationDTO> findWithinBox(
+      List<String> type,
+      double minLongitude,
+      double minLatitude,
+      double maxLongitude,
+      double maxLatitude,
+      int limit) {
+    List<LocationRepository> repositories = new ArrayList<>(type.size());
+    for (String name : type) {
+      repositories.add(
+          Optional.ofNullable(locationRepositories.get(name)).orElseThrow(() -> unsupported(name)));
+    }
+    return Flux.fromIterable(repositories)
+        .concatMap(
+            repository ->
+                repository.findWithinBox(
+                    minLongitude, minLatitude, maxLongitude, maxLatitude, limit))
+        .take(limit)
         .map(this::mapModelToDomainObject);
   }
 
   /**
-   * Map a mapLocation model to a LocationDTO POJO.
+   * Search the data sources of the requested location types, and merge their streams by distance if
+   * there are many. The last location of a full page is given the cursor of the next page.
+   *
+   * @param repositories the data sources of the requested location types.
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @return Flux<LocationDTO> a stream of locations ordered by distance.
+   */
+  private Flux<LocationDTO> search(
+      Map<String, LocationRepository> repositories,
+      LocationCriteria locationCriteria,
+      LocationCursor cursor) {
+    double longitude = longitude(locationCriteria, cursor);
+    double latitude = latitude(locationCriteria, cursor);
+    Flux<RankedLocation> locations;
+    if (repositories.size() == 1) {
+      Map.Entry<String, LocationRepository> repository = repositories.entrySet().iterator().next();
+      locations =
+          search(repository.getKey(), repository.getValue(), locationCriteria, cursor)
+              .map(location -> new RankedLocation(location, longitude, latitude));
+    } else {
+      @SuppressWarnings("unchecked")
+      Flux<RankedLocation>[] searches = new Flux[repositories.size()];
+      int i = 0;
+      for (Map.Entry<String, LocationRepository> repository : repositories.entrySet()) {
+        searches[i++] =
+            search(repository.getKey(), repository.getValue(), locationCriteria, cursor)
+                .map(location -> new RankedLocation(location, longitude, latitude));
+      }
+      locations =
+          Flux.mergeComparing(
+                  locationCriteria.getNumberOfLocations(),
+                  Comparator.comparingDouble(RankedLocation::getDistance),
+                  searches)
+              .take(locationCriteria.getNumberOfLocations());
+    }
+    return Flux.defer(
+        () -> {
+          Page page =
+              new Page(locationCriteria.getNumberOfLocations(), longitude, latitude, cursor);
+          return locations.map(
+              ranked -> {
+                LocationDTO locationDTO = mapModelToDomainObject(ranked.getLocation());
+                locationDTO.setCursor(page.next(ranked));
+                return locationDTO;
+              });
+        });
+  }
+
+  /**
+   * Share the search with the identical searches in flight. The search is keyed by its criteria,
+   * with the center snapped to the coalescing grid, and the first search of a key runs from the
+   * center of its cell, so that the result does not depend on which search came first. The first
+   * search of a key is started and registered until it completes, fails or is cancelled by all of
+   * its subscribers. The searches with the same key join it, and receive the locations already
+   * published before the following ones.
+   *
+   * @param meters the meters of the location types of the search.
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @param search the search to run if there is no identical search in flight.
+   * @return Flux<LocationDTO> the shared search.
+   */
+  private Flux<LocationDTO> coalesce(
+      SearchMeters meters, LocationCriteria locationCriteria, Supplier<Flux<LocationDTO>> search) {
+    if (!coalescing) {
+      return search.get();
+    }
+    return Flux.defer(
+        () -> {
+          SearchKey key = SearchKey.of(locationCriteria, coalescingCellSize);
+          boolean[] leader = {false};
+          Flux<LocationDTO> shared =
+              inFlight.computeIfAbsent(
+                  key,
+                  k -> {
+                    leader[0] = true;
+                    return share(k, search.get());
+                  });
+          (leader[0] ? meters.leader : meters.follower).increment();
+          return shared;
+        });
+  }
+
+  /**
+   * Create the shared stream of a search, which is removed from the searches in flight when the
+   * search ends. Only the stream itself is removed, as a late subscriber of an ended search can
+   * restart it after a new search of the same key was registered.
+   */
+  private Flux<LocationDTO> share(SearchKey key, Flux<LocationDTO> search) {
+    AtomicReference<Flux<LocationDTO>> shared = new AtomicReference<>();
+    shared.set(search.doFinally(signal -> inFlight.remove(key, shared.get())).replay().refCount());
+    return shared.get();
+  }
+
+  private IllegalArgumentException unsupported(String type) {
+    unsupported.increment();
+    return new IllegalArgumentException(String.format("Location Type %s is not supported", type));
+  }
+
+  /**
+   * Start a search on a single data source, limited to the requested number of locations. The limit
+   * is passed to the data source, so that it can stop the search at the datasource. The latency of
+   * the data source is recorded when its search completes, fails or is cancelled. A nearest search
+   * expands its radius instead of using the requested one.
+   *
+   * @param type the location type of the data source.
+   * @param repository the data source to search.
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @return Flux<MapLocation> a stream of locations ordered by distance.
+   */
+  private Flux<MapLocation> search(
+      String type,
+      LocationRepository repository,
+      LocationCriteria locationCriteria,
+      LocationCursor cursor) {
+    return Flux.defer(
+        () -> {
+          long start = meterRegistry.config().clock().monotonicTime();
+          Flux<MapLocation> locations =
+              locationCriteria.isNearest()
+                  ? expand(type, repository, locationCriteria, cursor)
+                  : find(
+                      repository,
+                      locationCriteria,
+                      cursor,
+                      0,
+                      locationCriteria.getRadius() * KM_PER_MILE,
+                      locationCriteria.getNumberOfLocations());
+          Map<String, Timer> latency = repositoryMeters(type).latency;
+          return locations
+              .take(locationCriteria.getNumberOfLocations())
+              .transform(
+                  onEnd(
+                      signal ->
+                          latency
+                              .get(outcome(signal))
+                              .record(elapsed(start), TimeUnit.NANOSECONDS)));
+        });
+  }
+
+  /**
+   * Find at most the given number of locations of a single data source within a ring around the
+   * search center. If there is a cursor, the ring starts at the distance of the cursor, and the
+   * locations of the previous pages at that distance are skipped.
+   *
+   * @param repository the data source to search.
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @param minDistance the min distance to search from center, in meters.
+   * @param maxDistance the max distance to search from center, in meters.
+   * @param limit the max number of locations to return.
+   * @return Flux<MapLocation> a stream of locations ordered by distance.
+   */
+  private Flux<MapLocation> find(
+      LocationRepository repository,
+      LocationCriteria locationCriteria,
+      LocationCursor cursor,
+      double minDistance,
+      double maxDistance,
+      int limit) {
+    double longitude = longitude(locationCriteria, cursor);
+    double latitude = latitude(locationCriteria, cursor);
+    if (cursor == null) {
+      return find(
+          repository, locationCriteria, longitude, latitude, minDistance, maxDistance, limit);
+    }
+    return find(
+            repository,
+            locationCriteria,
+            longitude,
+            latitude,
+            minDistance > cursor.getDistance()
+                ? minDistance
+                : cursor.getDistance() * (1 - CURSOR_TOLERANCE),
+            maxDistance,
+            limit + cursor.getIds().size())
+        .filter(
+            location ->
+                !cursor.isReturned(location.getId(), distance(location, longitude, latitude)))
+        .take(limit);
+  }
+
+  /**
+   * Find at most the given number of locations of a single data source within a ring around the
+   * given center, which match the requested name prefix and attributes if there are any.
+   */
+  private static Flux<MapLocation> find(
+      LocationRepository repository,
+      LocationCriteria locationCriteria,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit) {
+    LocationFilter filter = LocationFilter.of(locationCriteria);
+    if (filter != null) {
+      return repository.findByFilter(filter, longitude, latitude, minDistance, maxDistance, limit);
+    }
+    return minDistance > 0
+        ? repository.findByCoordinates(longitude, latitude, minDistance, maxDistance, limit)
+        : repository.findByCoordinates(longitude, latitude, maxDistance, limit);
+  }
+
+  /**
+   * Search a single data source with an expanding radius. The first round searches the initial
+   * radius, and every following round searches the ring between the previous radius and the
+   * previous radius times the growth factor, for the locations that are still missing. The rounds
+   * run one after the other, so the locations are still ordered by distance. The number of rounds
+   * is recorded when the search ends.
+   *
+   * @param type the location type of the data source.
+   * @param repository the data source to search.
+   * @param locationCriteria LocationCriteria provided by the user to perform the search.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @return Flux<MapLocation> a stream of locations ordered by distance.
+   */
+  private Flux<MapLocation> expand(
+      String type,
+      LocationRepository repository,
+      LocationCriteria locationCriteria,
+      LocationCursor cursor) {
+    return Flux.defer(
+        () -> {
+          Expansion expansion = new Expansion(locationCriteria.getNumberOfLocations());
+          double start = cursor == null ? 0 : cursor.getDistance();
+          return expand(
+                  repository,
+                  locationCriteria,
+                  cursor,
+                  expansion,
+                  start,
+                  Math.min(
+                      Math.max(nearestInitialRadius, start * nearestGrowthFactor),
+                      nearestMaxRadius))
+              .transform(
+                  onEnd(signal -> repositoryMeters(type).expansions.record(expansion.rounds)));
+        });
+  }
+
+  private Flux<MapLocation> expand(
+      LocationRepository repository,
+      LocationCriteria locationCriteria,
+      LocationCursor cursor,
+      Expansion expansion,
+      double minDistance,
+      double maxDistance) {
+    expansion.rounds++;
+    return find(repository, locationCriteria, cursor, minDistance, maxDistance, expansion.missing())
+        .filter(expansion::add)
+        .concatWith(
+            Flux.defer(
+                () ->
+                    expansion.missing() > 0 && maxDistance < nearestMaxRadius
+                        ? expand(
+                            repository,
+                            locationCriteria,
+                            cursor,
+                            expansion,
+                            maxDistance,
+                            Math.min(maxDistance * nearestGrowthFactor, nearestMaxRadius))
+                        : Flux.empty()));
+  }
+
+  /**
+   * Record the metrics of a search: the time to the first location, the time to complete, the
+   * number of locations and whether the search returned fewer locations than requested.
+   *
+   * @param search the search to measure.
+   * @param meters the meters of the location types of the search.
+   * @param numberOfLocations the requested number of locations.
+   * @return Flux<LocationDTO> the measured search.
+   */
+  private Flux<LocationDTO> measure(
+      Flux<LocationDTO> search, SearchMeters meters, int numberOfLocations) {
+    return Flux.defer(
+        () -> {
+          long start = meterRegistry.config().clock().monotonicTime();
+          AtomicInteger count = new AtomicInteger();
+          return search
+              .doOnNext(
+                  location -> {
+                    if (count.incrementAndGet() == 1) {
+                      meters.firstLocation.record(elapsed(start), TimeUnit.NANOSECONDS);
+                    }
+                  })
+              .transform(
+                  onEnd(
+                      signal -> {
+                        meters
+                            .latency
+                            .get(outcome(signal))
+                            .record(elapsed(start), TimeUnit.NANOSECONDS);
+                        if (signal == SignalType.ON_COMPLETE) {
+                          meters.results.record(count.get());
+                          if (count.get() < numberOfLocations) {
+                            meters.underfilled.increment();
+                          }
+                        }
+                      }));
+        });
+  }
+
+  private RepositoryMeters repositoryMeters(String type) {
+    return repositoryMeters.computeIfAbsent(type, t -> new RepositoryMeters(meterRegistry, t));
+  }
+
+  /**
+   * Run the given callback when a stream completes, fails or is cancelled. Unlike doFinally, the
+   * callback runs before the signal reaches the subscriber, so the subscriber's work is not
+   * measured.
+   */
+  private static <T> Function<Flux<T>, Flux<T>> onEnd(Consumer<SignalType> callback) {
+    return flux ->
+        flux.doOnComplete(() -> callback.accept(SignalType.ON_COMPLETE))
+            .doOnError(error -> callback.accept(SignalType.ON_ERROR))
+            .doOnCancel(() -> callback.accept(SignalType.CANCEL));
+  }
+
+  /**
+   * Register a latency timer. The timers publish a percentile histogram and the service level
+   * objective buckets, so that p99 can be aggregated across instances and alerted on.
+   */
+  private static Timer latencyTimer(
+      MeterRegistry meterRegistry, String name, String type, String outcome) {
+    Timer.Builder builder =
+        Timer.builder(name)
+            .tag("type", type)
+            .publishPercentileHistogram()
+            .serviceLevelObjectives(SERVICE_LEVEL_OBJECTIVES)
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(10));
+    if (outcome != null) {
+      builder.tag("outcome", outcome);
+    }
+    return builder.register(meterRegistry);
+  }
+
+  /** Register the latency timers of every outcome, by outcome. */
+  private static Map<String, Timer> latencyTimers(
+      MeterRegistry meterRegistry, String name, String type) {
+    Map<String, Timer> timers = new HashMap<>();
+    for (SignalType signal :
+        List.of(SignalType.ON_COMPLETE, SignalType.ON_ERROR, SignalType.CANCEL)) {
+      timers.put(outcome(signal), latencyTimer(meterRegistry, name, type, outcome(signal)));
+    }
+    return timers;
+  }
+
+  private long elapsed(long start) {
+    return meterRegistry.config().clock().monotonicTime() - start;
+  }
+
+  private static String outcome(SignalType signal) {
+    switch (signal) {
+      case ON_COMPLETE:
+        return "SUCCESS";
+      case ON_ERROR:
+        return "ERROR";
+      default:
+        return "CANCELLED";
+    }
+  }
+
+  /** The longitude of the center of a search, the one of the cursor for the following pages. */
+  private static double longitude(LocationCriteria locationCriteria, LocationCursor cursor) {
+    return cursor == null ? locationCriteria.getLongitude() : cursor.getLongitude();
+  }
+
+  /** The latitude of the center of a search, the one of the cursor for the following pages. */
+  private static double latitude(LocationCriteria locationCriteria, LocationCursor cursor) {
+    return cursor == null ? locationCriteria.getLatitude() : cursor.getLatitude();
+  }
+
+  /**
+   * The distance of a location to the search center. The distance computed by the data source is
+   * used if available, as the data source compares it to the min and max distance of a search.
+   */
+  private static double distance(MapLocation location, double longitude, double latitude) {
+    if (!Double.isNaN(location.getDistance())) {
+      return location.getDistance();
+    }
+    LocationCoordinates coordinates = location.getLocation();
+    return GeoMath.distance(
+        longitude, latitude, coordinates.getLongitude(), coordinates.getLatitude());
+  }
+
+  /**
+   * Map a mapLocation model to a LocationDTO POJO. The method is package-private to be measured by
+   * the benchmarks.
    *
    * @param mapLocation mapLocation model to be converted.
    * @return LocationDTO instance converted from MapLocation model.
    */
-  private LocationDTO mapModelToDomainObject(MapLocation mapLocation) {
+  LocationDTO mapModelToDomainObject(MapLocation mapLocation) {
     LocationDTO locationDTO = new LocationDTO();
     locationDTO.setName(mapLocation.getName());
-    locationDTO.setLatitude(mapLocation.getLocation().getCoordinates().get(1));
-    locationDTO.setLongitude(mapLocation.getLocation().getCoordinates().get(0));
+    locationDTO.setLatitude(mapLocation.getLocation().getLatitude());
+    locationDTO.setLongitude(mapLocation.getLocation().getLongitude());
+    locationDTO.setDegraded(mapLocation instanceof FallbackLocation);
     return locationDTO;
   }
+
+  /** The meters of the searches of a set of location types. */
+  private static final class SearchMeters {
+
+    private final Map<String, Timer> latency;
+
+    private final Timer firstLocation;
+
+    private final DistributionSummary results;
+
+    private final Counter underfilled;
+
+    private final Counter leader;
+
+    private final Counter follower;
+
+    private SearchMeters(MeterRegistry meterRegistry, String type, boolean coalescing) {
+      this.latency = latencyTimers(meterRegistry, SEARCH_TIMER, type);
+      this.firstLocation = latencyTimer(meterRegistry, FIRST_LOCATION_TIMER, type, null);
+      this.results =
+          DistributionSummary.builder(RESULTS_SUMMARY)
+              .description("Number of locations returned by a search")
+              .tag("type", type)
+              .publishPercentileHistogram()
+              .minimumExpectedValue(1.0)
+              .maximumExpectedValue(20.0)
+              .register(meterRegistry);
+      this.underfilled =
+          Counter.builder(UNDERFILLED_COUNTER)
+              .description("Searches that returned fewer locations than requested")
+              .tag("type", type)
+              .register(meterRegistry);
+      this.leader = coalescing ? coalescingCounter(meterRegistry, type, "LEADER") : null;
+      this.follower = coalescing ? coalescingCounter(meterRegistry, type, "FOLLOWER") : null;
+    }
+
+    private static Counter coalescingCounter(
+        MeterRegistry meterRegistry, String type, String role) {
+      return Counter.builder(COALESCING_COUNTER)
+          .description("Searches that started or joined a data source query")
+          .tag("type", type)
+          .tag("role", role)
+          .register(meterRegistry);
+    }
+  }
+
+  /** The meters of the searches of the data source of a location type. */
+  private static final class RepositoryMeters {
+
+    private final Map<String, Timer> latency;
+
+    private final DistributionSummary expansions;
+
+    private RepositoryMeters(MeterRegistry meterRegistry, String type) {
+      this.latency = latencyTimers(meterRegistry, REPOSITORY_TIMER, type);
+      this.expansions =
+          DistributionSummary.builder(EXPANSIONS_SUMMARY)
+              .description("Number of radius expansion rounds of a nearest search")
+              .tag("type", type)
+              .minimumExpectedValue(1.0)
+              .maximumExpectedValue(16.0)
+              .register(meterRegistry);
+    }
+  }
+
+  /**
+   * The state of an expanding search. As the rings of consecutive rounds share their boundary, a
+   * location on the boundary is found twice, and only its first occurrence is kept.
+   */
+  private static final class Expansion {
+
+    private final int numberOfLocations;
+
+    private final Set<String> ids = new HashSet<>();
+
+    private int found;
+
+    private int rounds;
+
+    private Expansion(int numberOfLocations) {
+      this.numberOfLocations = numberOfLocations;
+    }
+
+    private int missing() {
+      return numberOfLocations - found;
+    }
+
+    private boolean add(MapLocation location) {
+      if (location.getId() != null && !ids.add(location.getId())) {
+        return false;
+      }
+      found++;
+      return true;
+    }
+  }
+
+  /**
+   * The state of a page, to create the cursor of its last location. The cursor holds the ids of all
+   * the locations at the distance of the last location, including the ones of the previous pages if
+   * they are at the same distance, so that the next page does not return them again.
+   */
+  private static final class Page {
+
+    private final int numberOfLocations;
+
+    private final double longitude;
+
+    private final double latitude;
+
+    private final List<String> ids = new ArrayList<>();
+
+    private double distance = Double.NaN;
+
+    private int count;
+
+    private Page(int numberOfLocations, double longitude, double latitude, LocationCursor cursor) {
+      this.numberOfLocations = numberOfLocations;
+      this.longitude = longitude;
+      this.latitude = latitude;
+      if (cursor != null) {
+        this.distance = cursor.getDistance();
+        this.ids.addAll(cursor.getIds());
+      }
+    }
+
+    /**
+     * Add the next location of the page.
+     *
+     * @param location the next location.
+     * @return the token of the cursor if the location is the last one of a full page, null
+     *     otherwise.
+     */
+    private String next(RankedLocation location) {
+      if (Double.compare(location.getDistance(), distance) != 0) {
+        distance = location.getDistance();
+        ids.clear();
+      }
+      if (location.getLocation().getId() != null) {
+        ids.add(location.getLocation().getId());
+      }
+      return ++count == numberOfLocations
+          ? new LocationCursor(distance, longitude, latitude, ids).encode()
+          : null;
+    }
+  }
+
+  /**
+   * A location together with its distance to the search center, for merging searches. The distance
+   * computed by the data source is used if available.
+   */
+  private static final class RankedLocation {
+
+    private final MapLocation location;
+
+    private final double distance;
+
+    private RankedLocation(MapLocation location, double longitude, double latitude) {
+      this.location = location;
+      this.distance = distance(location, longitude, latitude);
+    }
+
+    private MapLocation getLocation() {
+      return location;
+    }
+
+    private double getDistance() {
+      return distance;
+    }
+  }
 }
@@ -0,0 +1,86 @@
+package com.location.finder.core.tile;
+
+import com.location.finder.core.dto.LocationDTO;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * LocationTile is the immutable content of a map tile, together with its entity tag. The entity tag
+ * is a digest of the names and coordinates of the locations in their order, so it changes if and
+ * only if the content of the tile changes, and it can be used as a strong validator of the tile.
+ *
+ * <p>A tile with locations found by the fallback of a data source is degraded. Its content is not
+ * the one of the data source, so it must neither be cached nor validated.
+ */
+public final class LocationTile {
+
+  /** Number of digest bytes kept in the entity tag. */
+  private static final int ETAG_BYTES = 16;
+
+  /** The locations within the tile. */
+  private final List<LocationDTO> locations;
+
+  /** The entity tag of the tile, without quotes. */
+  private final String etag;
+
+  /** Whether some locations were found by the fallback of a data source. */
+  private final boolean degraded;
+
+  private LocationTile(List<LocationDTO> locations, String etag, boolean degraded) {
+    this.locations = locations;
+    this.etag = etag;
+    this.degraded = degraded;
+  }
+
+  /**
+   * Create a tile and compute its entity tag.
+   *
+   * @param locations the locations within the tile, in their stable order.
+   * @return LocationTile of the locations.
+   */
+  public static LocationTile of(List<LocationDTO> locations) {
+    MessageDigest digest = sha256();
+    ByteBuffer coordinates = ByteBuffer.allocate(2 * Double.BYTES);
+    boolean degraded = false;
+    for (LocationDTO location : locations) {
+      degraded |= location.isDegraded();
+      if (location.getName() != null) {
+        digest.update(location.getName().getBytes(StandardCharsets.UTF_8));
+      }
+      digest.update((byte) 0);
+      coordinates.clear();
+      coordinates.putDouble(location.getLatitude()).putDouble(location.getLongitude());
+      digest.update(coordinates.array());
+    }
+    byte[] hash = Arrays.copyOf(digest.digest(), ETAG_BYTES);
+    return new LocationTile(
+        List.copyOf(locations),
+        Base64.getUrlEncoder().withoutPadding().encodeToString(hash),
+        degraded);
+  }
+
+  public List<LocationDTO> getLocations() {
+    return locations;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public boolean isDegraded() {
+    return degraded;
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+    }
+  }
+}
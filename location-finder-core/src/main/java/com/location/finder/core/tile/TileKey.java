@@ -0,0 +1,119 @@
+package com.location.finder.core.tile;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * TileKey identifies a map tile of the requested location types. Tiles use the z/x/y scheme of web
+ * map tiles: at zoom level z the Web Mercator projection of the world is split into 2^z by 2^z
+ * tiles, numbered from the north west corner. The location types are sorted, so that the same tile
+ * of the same types has the same key in whatever order the types were requested.
+ */
+public final class TileKey {
+
+  /** The highest supported zoom level, where a tile is about 10 meters wide. */
+  public static final int MAX_ZOOM = 22;
+
+  /** The types of the locations of the tile, sorted. */
+  private final List<String> type;
+
+  /** Zoom level of the tile. */
+  private final int zoom;
+
+  /** Column of the tile, from west to east. */
+  private final int x;
+
+  /** Row of the tile, from north to south. */
+  private final int y;
+
+  private TileKey(List<String> type, int zoom, int x, int y) {
+    this.type = type;
+    this.zoom = zoom;
+    this.x = x;
+    this.y = y;
+  }
+
+  /**
+   * Create a key for the given tile.
+   *
+   * @param type the types of the locations of the tile.
+   * @param zoom zoom level of the tile, between 0 and MAX_ZOOM.
+   * @param x column of the tile, between 0 and 2^zoom - 1.
+   * @param y row of the tile, between 0 and 2^zoom - 1.
+   * @return TileKey of the tile.
+   * @throws IllegalArgumentException if the tile does not exist.
+   */
+  public static TileKey of(List<String> type, int zoom, int x, int y) {
+    if (zoom < 0 || zoom > MAX_ZOOM) {
+      throw new IllegalArgumentException(
+          String.format("Zoom level must be between 0 and %s", MAX_ZOOM));
+    }
+    int tiles = 1 << zoom;
+    if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+      throw new IllegalArgumentException(String.format("Tile %s/%s/%s does not exist", zoom, x, y));
+    }
+    return new TileKey(List.copyOf(new TreeSet<>(type)), zoom, x, y);
+  }
+
+  public List<String> getType() {
+    return type;
+  }
+
+  public int getZoom() {
+    return zoom;
+  }
+
+  public int getX() {
+    return x;
+  }
+
+  public int getY() {
+    return y;
+  }
+
+  /** Longitude of the west edge of the tile. */
+  public double getMinLongitude() {
+    return longitude(x);
+  }
+
+  /** Latitude of the south edge of the tile. */
+  public double getMinLatitude() {
+    return latitude(y + 1);
+  }
+
+  /** Longitude of the east edge of the tile. */
+  public double getMaxLongitude() {
+    return longitude(x + 1);
+  }
+
+  /** Latitude of the north edge of the tile. */
+  public double getMaxLatitude() {
+    return latitude(y);
+  }
+
+  private double longitude(int column) {
+    return (double) column / (1 << zoom) * 360.0 - 180.0;
+  }
+
+  private double latitude(int row) {
+    return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * row / (1 << zoom)))));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TileKey that = (TileKey) o;
+    return zoom == that.zoom && x == that.x && y == that.y && type.equals(that.type);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(type, zoom, x, y);
+  }
+}
@@ -0,0 +1,84 @@
+package com.location.finder.core.tile;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.location.finder.core.service.LocationService;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import reactor.core.publisher.Mono;
+
+/**
+ * TileService finds the locations within map tiles. A tile is a deterministic box, so unlike the
+ * searches around a center, every viewer of the same area requests exactly the same tiles. The
+ * tiles are kept in an in-process cache with their entity tags, so a popular tile is searched once
+ * per time to live, and its entity tag is not computed again for every request.
+ *
+ * <p>Like CachingLocationFinder, the cache holds the pending tile as soon as its search starts, so
+ * concurrent requests of the same tile share a single datasource query. Failed searches and
+ * degraded tiles, found by the fallback of a data source, are not cached. The requests that joined
+ * a degraded tile while it was pending receive it, and the next request searches the tile again.
+ */
+public class TileService {
+
+  /** The LocationService that searches the box of a tile on a cache miss. */
+  private final LocationService locationService;
+
+  /** The cache of tiles, eviction is configured by the creator of the cache. */
+  private final AsyncCache<TileKey, LocationTile> cache;
+
+  /** Max number of locations of a tile. */
+  private final int maxLocations;
+
+  /**
+   * Create a TileService.
+   *
+   * @param locationService the LocationService that searches the box of a tile on a cache miss.
+   * @param cache the cache of tiles.
+   * @param maxLocations max number of locations of a tile. The locations of a tile with more
+   *     locations are cut at this number, so clients should zoom in to see all of them.
+   */
+  public TileService(
+      LocationService locationService, AsyncCache<TileKey, LocationTile> cache, int maxLocations) {
+    this.locationService = locationService;
+    this.cache = cache;
+    this.maxLocations = maxLocations;
+  }
+
+  /**
+   * Return the cached tile or search the box of the tile.
+   *
+   * @param type the types of the locations of the tile.
+   * @param zoom zoom level of the tile.
+   * @param x column of the tile.
+   * @param y row of the tile.
+   * @return Mono<LocationTile> the locations within the tile and its entity tag.
+   * @throws IllegalArgumentException if the tile does not exist, or any of the location types is
+   *     not recognized.
+   */
+  public Mono<LocationTile> findTile(List<String> type, int zoom, int x, int y) {
+    TileKey tileKey = TileKey.of(type, zoom, x, y);
+    CompletableFuture<LocationTile> result =
+        cache.get(
+            tileKey,
+            (key, executor) ->
+                locationService
+                    .findWithinBox(
+                        key.getType(),
+                        key.getMinLongitude(),
+                        key.getMinLatitude(),
+                        key.getMaxLongitude(),
+                        key.getMaxLatitude(),
+                        maxLocations)
+                    .collectList()
+                    .map(LocationTile::of)
+                    .toFuture());
+    result.thenAccept(
+        tile -> {
+          if (tile.isDegraded()) {
+            cache.asMap().remove(tileKey, result);
+          }
+        });
+    // A dependent future, so that a cancelled subscriber cannot cancel the cached computation.
+    return Mono.fromFuture(result.thenApply(Function.identity()));
+  }
+}
@@ -0,0 +1,269 @@
+package com.location.finder.core.cache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.location.finder.core.datasource.InMemoryLocationRepository;
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.service.LocationFinder;
+import com.location.finder.core.service.LocationService;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class CachingLocationFinderTests {
+
+  @Test
+  void testFindByCoordinatesSameCell() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    doReturn(Flux.just(locationDTO)).when(locationFinder).findByCoordinates(any());
+    doReturn(Mono.empty()).when(locationFinder).findVersion(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    StepVerifier.create(cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)))
+        .expectNextMatches(next -> next.getName().equals("Food Truck 1"))
+        .expectComplete()
+        .verify();
+    StepVerifier.create(cachingLocationFinder.findByCoordinates(criteria(-122.414102, 37.784311)))
+        .expectNextMatches(next -> next.getName().equals("Food Truck 1"))
+        .expectComplete()
+        .verify();
+    verify(locationFinder, times(1)).findByCoordinates(any());
+
+    StepVerifier.create(cachingLocationFinder.findByCoordinates(criteria(-122.424408, 37.784683)))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify();
+    verify(locationFinder, times(2)).findByCoordinates(any());
+  }
+
+  @Test
+  void testFindByCoordinatesCopiesCachedLocations() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    locationDTO.setCursor("cursor");
+    doReturn(Flux.just(locationDTO)).when(locationFinder).findByCoordinates(any());
+    doReturn(Mono.empty()).when(locationFinder).findVersion(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    // A search that changes its locations does not change the ones of the next search.
+    LocationDTO first =
+        cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockFirst();
+    Assertions.assertNotSame(locationDTO, first);
+    first.setCursor(null);
+    first.setName("Changed");
+    LocationDTO second =
+        cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockFirst();
+    Assertions.assertNotSame(first, second);
+    Assertions.assertEquals("Food Truck 1", second.getName());
+    Assertions.assertEquals("cursor", second.getCursor());
+    verify(locationFinder, times(1)).findByCoordinates(any());
+  }
+
+  @Test
+  void testFindByCoordinatesError() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    doThrow(new IllegalArgumentException("Location Type FoodHall is not supported"))
+        .when(locationFinder)
+        .findByCoordinates(any());
+    doReturn(Mono.empty()).when(locationFinder).findVersion(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    StepVerifier.create(cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)))
+        .expectErrorMatches(
+            error ->
+                error instanceof IllegalArgumentException
+                    && "Location Type FoodHall is not supported".equals(error.getMessage()))
+        .verify();
+  }
+
+  @Test
+  void testFindByCoordinatesKeyedByVersion() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName("Food Truck 1");
+    doReturn(Flux.just(locationDTO)).when(locationFinder).findByCoordinates(any());
+    AtomicReference<String> version = new AtomicReference<>("FoodTruck=1");
+    doAnswer(invocation -> Mono.just(version.get())).when(locationFinder).findVersion(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockLast();
+    cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockLast();
+    verify(locationFinder, times(1)).findByCoordinates(any());
+    version.set("FoodTruck=2");
+    cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockLast();
+    verify(locationFinder, times(2)).findByCoordinates(any());
+  }
+
+  @Test
+  void testFindByCoordinatesStreamsMiss() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    Sinks.Many<LocationDTO> sink = Sinks.many().unicast().onBackpressureBuffer();
+    doReturn(sink.asFlux()).when(locationFinder).findByCoordinates(any());
+    doReturn(Mono.empty()).when(locationFinder).findVersion(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    List<String> miss = new ArrayList<>();
+    List<String> concurrent = new ArrayList<>();
+    cachingLocationFinder
+        .findByCoordinates(criteria(-122.414408, 37.784683))
+        .subscribe(location -> miss.add(location.getName()));
+    sink.tryEmitNext(location("Food Truck 1"));
+    Assertions.assertEquals(List.of("Food Truck 1"), miss);
+
+    // A concurrent search joins the miss and receives the locations already found first.
+    cachingLocationFinder
+        .findByCoordinates(criteria(-122.414408, 37.784683))
+        .subscribe(location -> concurrent.add(location.getName()));
+    Assertions.assertEquals(List.of("Food Truck 1"), concurrent);
+    sink.tryEmitNext(location("Food Truck 2"));
+    sink.tryEmitComplete();
+    Assertions.assertEquals(List.of("Food Truck 1", "Food Truck 2"), miss);
+    Assertions.assertEquals(List.of("Food Truck 1", "Food Truck 2"), concurrent);
+
+    StepVerifier.create(cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)))
+        .expectNextCount(2)
+        .expectComplete()
+        .verify();
+    verify(locationFinder, times(1)).findByCoordinates(any());
+  }
+
+  @Test
+  void testFindByCoordinatesDegradedNotCached() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    LocationDTO degraded = location("Food Truck 1");
+    degraded.setDegraded(true);
+    doReturn(Flux.just(degraded)).when(locationFinder).findByCoordinates(any());
+    doReturn(Mono.empty()).when(locationFinder).findVersion(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockLast();
+    cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockLast();
+    verify(locationFinder, times(2)).findByCoordinates(any());
+  }
+
+  @Test
+  void testFindByCoordinatesPagesOfCell() {
+    // Both centers are in the same cell, but the trucks are not in the same order from both.
+    InMemoryLocationRepository locationRepository =
+        new InMemoryLocationRepository(
+            List.of(
+                location("Truck 1", -122.4144, 37.7842),
+                location("Truck 2", -122.4150, 37.7850),
+                location("Truck 3", -122.4130, 37.7841),
+                location("Truck 4", -122.4160, 37.7860),
+                location("Truck 5", -122.4144, 37.7830),
+                location("Truck 6", -122.4170, 37.7849)));
+    LocationService locationService = new LocationService(Map.of("FoodTruck", locationRepository));
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationService, Caffeine.newBuilder().build(), 0.001);
+
+    // The first page of the second center is the cached one of the first center, both are searched
+    // from the center of the cell, and so are their following pages.
+    cachingLocationFinder.findByCoordinates(criteria(-122.4141, 37.7841, 2)).blockLast();
+    List<String> fromSecond = pages(cachingLocationFinder, -122.4149, 37.7849);
+    Assertions.assertEquals(6, new HashSet<>(fromSecond).size());
+    Assertions.assertEquals(pages(locationService, -122.4145, 37.7845), fromSecond);
+    Assertions.assertEquals(pages(cachingLocationFinder, -122.4141, 37.7841), fromSecond);
+    Assertions.assertNotEquals(pages(locationService, -122.4149, 37.7849), fromSecond);
+  }
+
+  @Test
+  void testFindByCoordinatesVersionedCellSharesEntryAndEtag() {
+    LocationFinder locationFinder = mock(LocationFinder.class);
+    doReturn(Flux.just(location("Food Truck 1"))).when(locationFinder).findByCoordinates(any());
+    doReturn(Mono.just("FoodTruck=1")).when(locationFinder).findVersion(any());
+    doAnswer(invocation -> invocation.getArgument(0)).when(locationFinder).searchCriteria(any());
+    CachingLocationFinder cachingLocationFinder =
+        new CachingLocationFinder(locationFinder, Caffeine.newBuilder().build(), 0.001);
+
+    cachingLocationFinder.findByCoordinates(criteria(-122.414408, 37.784683)).blockLast();
+    cachingLocationFinder.findByCoordinates(criteria(-122.414102, 37.784311)).blockLast();
+
+    verify(locationFinder, times(1)).findByCoordinates(any());
+    Assertions.assertEquals(
+        SearchEtag.of(
+            "FoodTruck=1",
+            cachingLocationFinder.searchCriteria(criteria(-122.414408, 37.784683)),
+            "application/json"),
+        SearchEtag.of(
+            "FoodTruck=1",
+            cachingLocationFinder.searchCriteria(criteria(-122.414102, 37.784311)),
+            "application/json"));
+  }
+
+  /** Find all the pages of 2 locations around a center, and return the names of the locations. */
+  private static List<String> pages(
+      LocationFinder locationFinder, double longitude, double latitude) {
+    LocationCriteria locationCriteria = criteria(longitude, latitude, 2);
+    List<String> names = new ArrayList<>();
+    do {
+      List<LocationDTO> page =
+          locationFinder.findByCoordinates(locationCriteria).collectList().block();
+      page.forEach(locationDTO -> names.add(locationDTO.getName()));
+      locationCriteria.setAfter(page.isEmpty() ? null : page.get(page.size() - 1).getCursor());
+    } while (locationCriteria.getAfter() != null);
+    return names;
+  }
+
+  private static MapLocation location(String name, double longitude, double latitude) {
+    MapLocation mapLocation = new TestLocation();
+    mapLocation.setId(name);
+    mapLocation.setName(name);
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(longitude);
+    locationCoordinates.setLatitude(latitude);
+    mapLocation.setLocation(locationCoordinates);
+    return mapLocation;
+  }
+
+  private static LocationDTO location(String name) {
+    LocationDTO locationDTO = new LocationDTO();
+    locationDTO.setName(name);
+    return locationDTO;
+  }
+
+  private static LocationCriteria criteria(double longitude, double latitude) {
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLongitude(longitude);
+    locationCriteria.setLatitude(latitude);
+    locationCriteria.setType(List.of("FoodTruck"));
+    return locationCriteria;
+  }
+
+  private static LocationCriteria criteria(
+      double longitude, double latitude, int numberOfLocations) {
+    LocationCriteria locationCriteria = criteria(longitude, latitude);
+    locationCriteria.setNumberOfLocations(numberOfLocations);
+    return locationCriteria;
+  }
+
+  static class TestLocation extends MapLocation {}
+}
@@ -0,0 +1,141 @@
+package com.location.finder.core.cluster;
+
+import com.location.finder.core.datasource.InMemoryLocationRepository;
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.dto.LocationClusterDTO;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ClusterServiceTests {
+
+  @Test
+  void testFindClusters() {
+    InMemoryLocationRepository foodTrucks =
+        new InMemoryLocationRepository(
+            List.of(
+                location("1", -122.414408, 37.784683),
+                location("2", -122.414508, 37.784783),
+                location("3", -122.2711, 37.8044)));
+    InMemoryLocationRepository foodHalls =
+        new InMemoryLocationRepository(List.of(location("4", -122.414608, 37.784883)));
+    ClusterService clusterService =
+        new ClusterService(
+            Map.of("FoodTruck", foodTrucks, "FoodHall", foodHalls),
+            List.of("FoodTruck", "FoodHall"),
+            3);
+    Assertions.assertEquals(4, clusterService.refresh().block());
+
+    List<LocationClusterDTO> world =
+        clusterService.findClusters(List.of("FoodTruck"), 0, 0, 0).collectList().block();
+    Assertions.assertEquals(1, world.size());
+    Assertions.assertEquals(3, world.get(0).getCount());
+    Assertions.assertEquals(
+        (-122.414408 - 122.414508 - 122.2711) / 3, world.get(0).getLongitude(), 1e-9);
+
+    // San Francisco and Oakland are in different cells 3 levels below zoom level 7.
+    List<LocationClusterDTO> bay =
+        clusterService
+            .findClusters(List.of("FoodTruck", "FoodHall"), 7, 20, 49)
+            .collectList()
+            .block();
+    Assertions.assertEquals(2, bay.size());
+    Assertions.assertEquals(3, bay.get(0).getCount());
+    Assertions.assertEquals(1, bay.get(1).getCount());
+
+    IllegalArgumentException exception =
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> clusterService.findClusters(List.of("FoodCart"), 0, 0, 0));
+    Assertions.assertEquals("Location Type FoodCart is not clustered", exception.getMessage());
+  }
+
+  @Test
+  void testRefreshIncrementally() {
+    InMemoryLocationRepository foodTrucks =
+        new InMemoryLocationRepository(
+            List.of(
+                location("1", -122.414408, 37.784683),
+                location("2", -122.414508, 37.784783),
+                location("3", -122.2711, 37.8044)));
+    ClusterService clusterService =
+        new ClusterService(Map.of("FoodTruck", foodTrucks), List.of("FoodTruck"), 3);
+    Assertions.assertEquals(3, clusterService.refresh().block());
+    Assertions.assertEquals(0, clusterService.refresh().block());
+
+    foodTrucks.refresh(
+        List.of(
+            location("1", -122.414408, 37.784683),
+            location("3", -122.414308, 37.784583),
+            location("5", -122.2711, 37.8044)));
+    Assertions.assertEquals(3, clusterService.refresh().block());
+
+    List<LocationClusterDTO> bay =
+        clusterService.findClusters(List.of("FoodTruck"), 7, 20, 49).collectList().block();
+    Assertions.assertEquals(2, bay.size());
+    Assertions.assertEquals(2, bay.get(0).getCount());
+    Assertions.assertEquals((37.784683 + 37.784583) / 2, bay.get(0).getLatitude(), 1e-9);
+    Assertions.assertEquals(1, bay.get(1).getCount());
+  }
+
+  @Test
+  void testRefreshOnlyChangedVersions() {
+    InMemoryLocationRepository foodTrucks =
+        new InMemoryLocationRepository(List.of(location("1", -122.414408, 37.784683)));
+    AtomicReference<String> version = new AtomicReference<>("1");
+    AtomicInteger loads = new AtomicInteger();
+    LocationRepository versioned =
+        new LocationRepository() {
+          @Override
+          public Flux<MapLocation> findByCoordinates(
+              double longitude, double latitude, double maxDistance) {
+            return foodTrucks.findByCoordinates(longitude, latitude, maxDistance);
+          }
+
+          @Override
+          public Flux<MapLocation> findAllLocations() {
+            loads.incrementAndGet();
+            return foodTrucks.findAllLocations();
+          }
+
+          @Override
+          public Mono<String> findVersion() {
+            return Mono.just(version.get());
+          }
+        };
+    ClusterService clusterService =
+        new ClusterService(Map.of("FoodTruck", versioned), List.of("FoodTruck"), 3);
+    Assertions.assertEquals(1, clusterService.refresh().block());
+    Assertions.assertEquals(0, clusterService.refresh().block());
+    Assertions.assertEquals(1, loads.get());
+
+    foodTrucks.refresh(
+        List.of(location("1", -122.414408, 37.784683), location("2", -122.2711, 37.8044)));
+    version.set("2");
+    Assertions.assertEquals(1, clusterService.refresh().block());
+    Assertions.assertEquals(2, loads.get());
+    Assertions.assertEquals(
+        2, clusterService.findClusters(List.of("FoodTruck"), 0, 0, 0).blockFirst().getCount());
+  }
+
+  private static MapLocation location(String id, double longitude, double latitude) {
+    MapLocation mapLocation = new TestLocation();
+    mapLocation.setId(id);
+    mapLocation.setName(String.format("Location %s", id));
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(longitude);
+    locationCoordinates.setLatitude(latitude);
+    mapLocation.setLocation(locationCoordinates);
+    return mapLocation;
+  }
+
+  static class TestLocation extends MapLocation {}
+}
@@ -0,0 +1,46 @@
+package com.location.finder.core.codec;
+
+import com.location.finder.core.dto.LocationDTO;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LocationBinaryFormatTests {
+
+  @Test
+  void testEncodeDecode() {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    outputStream.writeBytes(
+        LocationBinaryFormat.encode(location("Café Truck", -122.414408, 37.784683)));
+    outputStream.writeBytes(LocationBinaryFormat.encode(location(null, -122.398, 37.791)));
+    byte[] bytes = outputStream.toByteArray();
+
+    Assertions.assertEquals(2 * LocationBinaryFormat.RECORD_HEADER_SIZE + 11, bytes.length);
+    List<LocationDTO> locations = LocationBinaryFormat.decode(ByteBuffer.wrap(bytes));
+    Assertions.assertEquals(2, locations.size());
+    Assertions.assertEquals("Café Truck", locations.get(0).getName());
+    Assertions.assertEquals(-122.414408, locations.get(0).getLongitude(), 1e-5);
+    Assertions.assertEquals(37.784683, locations.get(0).getLatitude(), 1e-5);
+    Assertions.assertEquals("", locations.get(1).getName());
+    Assertions.assertEquals(-122.398, locations.get(1).getLongitude(), 1e-5);
+  }
+
+  @Test
+  void testDecodeIncompleteRecord() {
+    byte[] bytes = LocationBinaryFormat.encode(location("Food Truck 1", -122.414408, 37.784683));
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> LocationBinaryFormat.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 1)));
+  }
+
+  private static LocationDTO location(String name, double longitude, double latitude) {
+    LocationDTO location = new LocationDTO();
+    location.setName(name);
+    location.setLongitude(longitude);
+    location.setLatitude(latitude);
+    return location;
+  }
+}
@@ -0,0 +1,293 @@
+package com.location.finder.core.datasource;
+
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.index.GeoMath;
+import com.location.finder.core.index.PrefixIndex;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class InMemoryLocationRepositoryTests {
+
+  @Test
+  void testFindByCoordinatesMatchesBruteForce() {
+    Random random = new Random(42);
+    List<MapLocation> locations = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      locations.add(
+          location(
+              Integer.toString(i),
+              -122.52 + random.nextDouble() * 0.17,
+              37.70 + random.nextDouble() * 0.12));
+    }
+    InMemoryLocationRepository repository = new InMemoryLocationRepository(locations);
+
+    for (int query = 0; query < 50; query++) {
+      double longitude = -122.52 + random.nextDouble() * 0.17;
+      double latitude = 37.70 + random.nextDouble() * 0.12;
+      double maxDistance = 200 + random.nextDouble() * 3000;
+      List<String> expected =
+          locations.stream()
+              .filter(l -> distance(l, longitude, latitude) <= maxDistance)
+              .sorted(Comparator.comparingDouble(l -> distance(l, longitude, latitude)))
+              .map(MapLocation::getId)
+              .collect(Collectors.toList());
+      List<String> actual =
+          repository
+              .findByCoordinates(longitude, latitude, maxDistance)
+              .map(MapLocation::getId)
+              .collectList()
+              .block();
+      Assertions.assertEquals(expected, actual);
+      List<String> limited =
+          repository
+              .findByCoordinates(longitude, latitude, maxDistance, 5)
+              .map(MapLocation::getId)
+              .collectList()
+              .block();
+      Assertions.assertEquals(expected.subList(0, Math.min(5, expected.size())), limited);
+      double minDistance = maxDistance / 2;
+      List<String> ring =
+          repository
+              .findByCoordinates(longitude, latitude, minDistance, maxDistance, 5)
+              .map(MapLocation::getId)
+              .collectList()
+              .block();
+      Assertions.assertEquals(
+          expected.stream()
+              .filter(
+                  id ->
+                      distance(locations.get(Integer.parseInt(id)), longitude, latitude)
+                          >= minDistance)
+              .limit(5)
+              .collect(Collectors.toList()),
+          ring);
+    }
+  }
+
+  @Test
+  void testFindByNameMatchesBruteForce() {
+    String[] words = {"Bombay", "Street", "Food", "Bomb", "Tacos", "Bowl", "Curry", "Bay"};
+    Random random = new Random(42);
+    List<MapLocation> locations = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      MapLocation location =
+          location(
+              Integer.toString(i),
+              -122.52 + random.nextDouble() * 0.17,
+              37.70 + random.nextDouble() * 0.12);
+      location.setName(
+          String.format(
+              "%s %s %s",
+              words[random.nextInt(words.length)],
+              words[random.nextInt(words.length)],
+              words[random.nextInt(4)]));
+      locations.add(location);
+    }
+    locations.get(0).setName("Crème Brûlée Cart");
+    InMemoryLocationRepository repository = new InMemoryLocationRepository(locations);
+
+    String[] prefixes = {
+      "b", "bo", "bom", "bombay s", "ta", "CURRY", "street f", "x", "cre", "bru"
+    };
+    for (String prefix : prefixes) {
+      double longitude = -122.52 + random.nextDouble() * 0.17;
+      double latitude = 37.70 + random.nextDouble() * 0.12;
+      double maxDistance = 1000 + random.nextDouble() * 5000;
+      List<String> expected =
+          locations.stream()
+              .filter(l -> PrefixIndex.matches(l.getName(), PrefixIndex.normalize(prefix)))
+              .filter(l -> distance(l, longitude, latitude) <= maxDistance)
+              .sorted(Comparator.comparingDouble(l -> distance(l, longitude, latitude)))
+              .map(MapLocation::getId)
+              .limit(5)
+              .collect(Collectors.toList());
+      List<String> actual =
+          repository
+              .findByFilter(
+                  filter(prefix, null, null, null), longitude, latitude, 0, maxDistance, 5)
+              .map(MapLocation::getId)
+              .collectList()
+              .block();
+      Assertions.assertEquals(expected, actual, prefix);
+    }
+
+    StepVerifier.create(
+            repository.findByFilter(
+                filter("brulee", null, null, null),
+                locations.get(0).getLocation().getLongitude(),
+                locations.get(0).getLocation().getLatitude(),
+                0,
+                1,
+                5))
+        .expectNextMatches(next -> next.getName().equals("Crème Brûlée Cart"))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void testFindByFilterMatchesDefaultFilter() {
+    String[] facilityTypes = {"Truck", "Push Cart", null};
+    String[] statuses = {"APPROVED", "REQUESTED", "EXPIRED", "SUSPEND"};
+    String[] foodItems = {"Tacos", "Burritos", "Hot Dogs", "Cold Drinks", "Crème Brûlée", "Coffee"};
+    Random random = new Random(42);
+    List<MapLocation> locations = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      MapLocation location =
+          location(
+              Integer.toString(i),
+              -122.52 + random.nextDouble() * 0.17,
+              37.70 + random.nextDouble() * 0.12);
+      location.setFacilityType(facilityTypes[random.nextInt(facilityTypes.length)]);
+      location.setStatus(statuses[random.nextInt(i % 10 == 0 ? statuses.length : 2)]);
+      if (random.nextInt(5) > 0) {
+        List<String> items = new ArrayList<>();
+        for (int item = random.nextInt(3); item >= 0; item--) {
+          items.add(foodItems[random.nextInt(foodItems.length)]);
+        }
+        location.setFoodItems(items);
+      }
+      locations.add(location);
+    }
+    InMemoryLocationRepository repository = new InMemoryLocationRepository(locations);
+    LocationRepository unindexed =
+        new LocationRepository() {
+          @Override
+          public Flux<MapLocation> findByCoordinates(
+              double longitude, double latitude, double maxDistance) {
+            return repository.findByCoordinates(longitude, latitude, maxDistance);
+          }
+
+          @Override
+          public Flux<MapLocation> findByCoordinates(
+              double longitude, double latitude, double maxDistance, int limit) {
+            return repository.findByCoordinates(longitude, latitude, maxDistance, limit);
+          }
+
+          @Override
+          public Flux<MapLocation> findByCoordinates(
+              double longitude,
+              double latitude,
+              double minDistance,
+              double maxDistance,
+              int limit) {
+            return repository.findByCoordinates(
+                longitude, latitude, minDistance, maxDistance, limit);
+          }
+
+          @Override
+          public Flux<MapLocation> findAllLocations() {
+            return repository.findAllLocations();
+          }
+        };
+
+    List<LocationFilter> filters =
+        List.of(
+            filter(null, null, List.of("approved"), null),
+            filter(null, null, List.of("expired", "suspend"), null),
+            filter(null, List.of("cart"), null, List.of("hot dogs")),
+            filter(null, List.of("TRUCK"), List.of("APPROVED"), List.of("tacos", "creme brulee")),
+            filter("location 1", null, null, List.of("drinks")),
+            filter(null, null, null, List.of("dogs hot")),
+            filter(null, null, List.of("unknown"), null),
+            filter(null, null, null, List.of("hot pizza")));
+    for (LocationFilter filter : filters) {
+      for (int query = 0; query < 10; query++) {
+        double longitude = -122.52 + random.nextDouble() * 0.17;
+        double latitude = 37.70 + random.nextDouble() * 0.12;
+        double minDistance = random.nextDouble() * 1000;
+        double maxDistance = minDistance + random.nextDouble() * 5000;
+        List<String> expected =
+            unindexed
+                .findByFilter(filter, longitude, latitude, minDistance, maxDistance, 5)
+                .map(MapLocation::getId)
+                .collectList()
+                .block();
+        List<String> actual =
+            repository
+                .findByFilter(filter, longitude, latitude, minDistance, maxDistance, 5)
+                .map(MapLocation::getId)
+                .collectList()
+                .block();
+        Assertions.assertEquals(expected, actual);
+      }
+    }
+
+    MapLocation first = locations.get(0);
+    first.setFoodItems(List.of("Crème Brûlée: Coffee"));
+    repository.refresh(locations);
+    StepVerifier.create(
+            repository.findByFilter(
+                filter(null, null, null, List.of("creme brulee", "noodles")),
+                first.getLocation().getLongitude(),
+                first.getLocation().getLatitude(),
+                0,
+                1,
+                5))
+        .expectNextMatches(next -> next.getId().equals("0"))
+        .expectComplete()
+        .verify();
+    Assertions.assertNull(filter(null, List.of(" "), null, null));
+  }
+
+  @Test
+  void testFindByCoordinatesOutsideRadius() {
+    InMemoryLocationRepository repository =
+        new InMemoryLocationRepository(List.of(location("1", -122.414408, 37.784683)));
+    StepVerifier.create(repository.findByCoordinates(-118.243683, 34.052235, 8046.7))
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void testRefresh() {
+    InMemoryLocationRepository repository =
+        new InMemoryLocationRepository(List.of(location("1", -122.414408, 37.784683)));
+    repository.refresh(
+        List.of(location("2", -122.414408, 37.784683), location("3", -122.41594, 37.80588)));
+    StepVerifier.create(repository.findByCoordinates(-122.414408, 37.784683, 8046.7))
+        .expectNextMatches(next -> next.getId().equals("2"))
+        .expectNextMatches(next -> next.getId().equals("3"))
+        .expectComplete()
+        .verify();
+    Assertions.assertEquals(2, repository.size());
+  }
+
+  private static double distance(MapLocation location, double longitude, double latitude) {
+    LocationCoordinates coordinates = location.getLocation();
+    return GeoMath.distance(
+        longitude, latitude, coordinates.getLongitude(), coordinates.getLatitude());
+  }
+
+  private static LocationFilter filter(
+      String name, List<String> facilityType, List<String> status, List<String> foodItem) {
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setName(name);
+    locationCriteria.setFacilityType(facilityType);
+    locationCriteria.setStatus(status);
+    locationCriteria.setFoodItem(foodItem);
+    return LocationFilter.of(locationCriteria);
+  }
+
+  private static MapLocation location(String id, double longitude, double latitude) {
+    MapLocation mapLocation = new TestLocation();
+    mapLocation.setId(id);
+    mapLocation.setName(String.format("Location %s", id));
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(longitude);
+    locationCoordinates.setLatitude(latitude);
+    mapLocation.setLocation(locationCoordinates);
+    return mapLocation;
+  }
+
+  static class TestLocation extends MapLocation {}
+}
@@ -0,0 +1,253 @@
+package com.location.finder.core.datasource;
+
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ResilientLocationRepositoryTests {
+
+  @Test
+  void testTimedOutSearchesOpenTheBreakerAndUseTheFallback() {
+    MockClock clock = new MockClock();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    AtomicInteger calls = new AtomicInteger();
+    AtomicReference<Flux<MapLocation>> result = new AtomicReference<>(Flux.never());
+    LocationRepository primary =
+        stub(
+            () -> {
+              calls.incrementAndGet();
+              return result.get();
+            });
+    LocationRepository fallback = stub(() -> Flux.just(location("fallback")));
+    ResilientLocationRepository repository =
+        new ResilientLocationRepository(
+            "FoodTruck",
+            primary,
+            fallback,
+            Duration.ofMillis(20),
+            2,
+            Duration.ofSeconds(10),
+            meterRegistry);
+
+    for (int i = 0; i < 2; i++) {
+      List<MapLocation> locations =
+          repository.findByCoordinates(0, 0, 1000, 10).collectList().block();
+      Assertions.assertEquals(1, locations.size());
+      Assertions.assertTrue(locations.get(0) instanceof FallbackLocation);
+      Assertions.assertEquals("fallback", locations.get(0).getId());
+    }
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, repository.getState());
+    Assertions.assertEquals(
+        2,
+        meterRegistry
+            .get(ResilientLocationRepository.FALLBACK_COUNTER)
+            .tag("reason", "TIMEOUT")
+            .counter()
+            .count());
+
+    // The open breaker answers with the fallback without calling the primary data source.
+    StepVerifier.create(repository.findByCoordinates(0, 0, 0, 1000, 10))
+        .expectNextMatches(location -> location instanceof FallbackLocation)
+        .verifyComplete();
+    Assertions.assertEquals(2, calls.get());
+    Assertions.assertEquals(
+        1,
+        meterRegistry
+            .get(ResilientLocationRepository.FALLBACK_COUNTER)
+            .tag("reason", "OPEN")
+            .counter()
+            .count());
+
+    // After the open duration, a successful trial search closes the breaker.
+    clock.add(10, TimeUnit.SECONDS);
+    result.set(Flux.just(location("primary")));
+    StepVerifier.create(repository.findByCoordinates(0, 0, 1000, 10))
+        .expectNextMatches(
+            location ->
+                !(location instanceof FallbackLocation) && "primary".equals(location.getId()))
+        .verifyComplete();
+    Assertions.assertEquals(3, calls.get());
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, repository.getState());
+  }
+
+  @Test
+  void testFailedSearchWithoutFallback() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AtomicReference<Flux<MapLocation>> result =
+        new AtomicReference<>(Flux.error(new IllegalArgumentException("Invalid search")));
+    ResilientLocationRepository repository =
+        new ResilientLocationRepository(
+            "FoodTruck",
+            stub(result::get),
+            null,
+            Duration.ofSeconds(1),
+            1,
+            Duration.ofSeconds(10),
+            meterRegistry);
+
+    // A rejected search is not a failure of the data source.
+    StepVerifier.create(repository.findByCoordinates(0, 0, 1000, 10))
+        .verifyError(IllegalArgumentException.class);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, repository.getState());
+
+    result.set(Flux.error(new IllegalStateException("Connection refused")));
+    StepVerifier.create(repository.findByCoordinates(0, 0, 1000, 10))
+        .verifyError(LocationUnavailableException.class);
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, repository.getState());
+    StepVerifier.create(repository.findByCoordinates(0, 0, 1000, 10))
+        .verifyError(LocationUnavailableException.class);
+    Assertions.assertEquals(
+        1,
+        meterRegistry
+            .get(ResilientLocationRepository.FALLBACK_COUNTER)
+            .tag("reason", "ERROR")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void testFailedStreamContinuesOnTheFallback() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LocationRepository primary =
+        stub(() -> Flux.concat(Flux.just(location("first")), Flux.never()));
+    LocationRepository fallback = stub(() -> Flux.just(location("first"), location("second")));
+    ResilientLocationRepository repository =
+        new ResilientLocationRepository(
+            "FoodTruck",
+            primary,
+            fallback,
+            Duration.ofMillis(50),
+            5,
+            Duration.ofSeconds(10),
+            meterRegistry);
+
+    // The primary location is published as soon as it is found, and not again by the fallback.
+    StepVerifier.create(repository.findByCoordinates(0, 0, 1000, 10))
+        .expectNextMatches(
+            location -> !(location instanceof FallbackLocation) && "first".equals(location.getId()))
+        .expectNextMatches(
+            location -> location instanceof FallbackLocation && "second".equals(location.getId()))
+        .verifyComplete();
+    Assertions.assertEquals(
+        1,
+        meterRegistry
+            .get(ResilientLocationRepository.FALLBACK_COUNTER)
+            .tag("reason", "TIMEOUT")
+            .counter()
+            .count());
+    Assertions.assertEquals(
+        0,
+        meterRegistry
+            .get(ResilientLocationRepository.FALLBACK_COUNTER)
+            .tag("reason", "ERROR")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void testTimedOutFallback() {
+    ResilientLocationRepository repository =
+        new ResilientLocationRepository(
+            "FoodTruck",
+            stub(() -> Flux.error(new IllegalStateException("Connection refused"))),
+            stub(Flux::never),
+            Duration.ofMillis(20),
+            5,
+            Duration.ofSeconds(10),
+            new SimpleMeterRegistry());
+
+    StepVerifier.create(repository.findByCoordinates(0, 0, 1000, 10))
+        .verifyError(LocationUnavailableException.class);
+  }
+
+  @Test
+  void testWholeSearchIsBoundedByTheSearchDeadline() {
+    LocationRepository guarded = stub(Flux::empty);
+    LocationRepository other = stub(Flux::empty);
+    ResilientLocationDecorator decorator =
+        new ResilientLocationDecorator(
+            Collections.singletonMap("FoodTruck", null),
+            Duration.ofSeconds(1),
+            5,
+            Duration.ofSeconds(10),
+            Duration.ofMillis(100),
+            new SimpleMeterRegistry());
+    Assertions.assertTrue(
+        decorator.decorate("FoodTruck", guarded) instanceof ResilientLocationRepository);
+    Assertions.assertSame(other, decorator.decorate("Other", other));
+
+    // Every location arrives within the deadline of a data source, but the whole search does not.
+    StepVerifier.create(
+            decorator.decorateSearch(
+                Flux.interval(Duration.ofMillis(40)).map(i -> location(String.valueOf(i)))))
+        .expectNextCount(2)
+        .verifyError(LocationUnavailableException.class);
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new ResilientLocationDecorator(
+                Collections.emptyMap(),
+                Duration.ofSeconds(1),
+                5,
+                Duration.ofSeconds(10),
+                Duration.ZERO,
+                new SimpleMeterRegistry()));
+  }
+
+  @Test
+  void testCancelledTrialLetsTheNextSearchThrough() {
+    MockClock clock = new MockClock();
+    CircuitBreaker breaker = new CircuitBreaker(1, 100, clock::monotonicTime);
+    Assertions.assertTrue(breaker.tryAcquire());
+    breaker.onFailure();
+    Assertions.assertFalse(breaker.tryAcquire());
+    clock.add(100, TimeUnit.NANOSECONDS);
+    Assertions.assertTrue(breaker.tryAcquire());
+    Assertions.assertFalse(breaker.tryAcquire());
+    breaker.onCancel();
+    Assertions.assertTrue(breaker.tryAcquire());
+    breaker.onFailure();
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  private static LocationRepository stub(Supplier<Flux<MapLocation>> search) {
+    return new LocationRepository() {
+      @Override
+      public Flux<MapLocation> findByCoordinates(
+          double longitude, double latitude, double maxDistance) {
+        return Flux.defer(search);
+      }
+
+      @Override
+      public Flux<MapLocation> findAllLocations() {
+        return Flux.defer(search);
+      }
+    };
+  }
+
+  private static MapLocation location(String id) {
+    MapLocation location = new InMemoryLocationRepositoryTests.TestLocation();
+    location.setId(id);
+    location.setName(id);
+    LocationCoordinates coordinates = new LocationCoordinates();
+    coordinates.setType("Point");
+    coordinates.setLongitude(0);
+    coordinates.setLatitude(0);
+    location.setLocation(coordinates);
+    location.setDistance(0);
+    return location;
+  }
+}
@@ -1,19 +1,29 @@
 package com.location.finder.core.service;
 
+import static org.mockito.AdditionalMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import com.location.finder.core.datasource.InMemoryLocationRepository;
 import com.location.finder.core.datasource.LocationRepository;
 import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.dto.LocationDTO;
 import com.location.finder.model.LocationCoordinates;
 import com.location.finder.model.MapLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 class LocationServiceTests {
@@ -28,18 +38,19 @@ class LocationServiceTests {
       mapLocation.setName(String.format("Location %s", i));
       LocationCoordinates locationCoordinates = new LocationCoordinates();
       locationCoordinates.setType("Point");
-      locationCoordinates.setCoordinates(List.of(122.414408, 37.784683));
+      locationCoordinates.setLongitude(122.414408);
+      locationCoordinates.setLatitude(37.784683);
       mapLocation.setLocation(locationCoordinates);
       mockLocations.add(mapLocation);
     }
     doReturn(Flux.fromIterable(mockLocations))
         .when(locationRepository)
-        .findByCoordinates(anyDouble(), anyDouble(), anyDouble());
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
     LocationService locationService = new LocationService(Map.of("FoodTruck", locationRepository));
     LocationCriteria locationCriteria = new LocationCriteria();
     locationCriteria.setLatitude(37.784683);
     locationCriteria.setLongitude(-122.414408);
-    locationCriteria.setType("FoodTruck");
+    locationCriteria.setType(List.of("FoodTruck"));
     StepVerifier.create(locationService.findByCoordinates(locationCriteria))
         .expectNextMatches(next -> next.getName().equals("Location 0"))
         .expectNextMatches(next -> next.getName().equals("Location 1"))
@@ -49,12 +60,46 @@ class LocationServiceTests {
         .expectComplete();
   }
 
+  @Test
+  void testFindByCoordinatesManyTypes() {
+    LocationRepository foodTrucks = mock(LocationRepository.class);
+    LocationRepository foodHalls = mock(LocationRepository.class);
+    doReturn(
+            Flux.just(
+                location("Truck 1", -122.414408, 37.784683),
+                location("Truck 2", -122.414408, 37.794683),
+                location("Truck 3", -122.414408, 37.804683)))
+        .when(foodTrucks)
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    doReturn(
+            Flux.just(
+                location("Hall 1", -122.414408, 37.789683),
+                location("Hall 2", -122.414408, 37.799683),
+                location("Hall 3", -122.414408, 37.809683)))
+        .when(foodHalls)
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    LocationService locationService =
+        new LocationService(Map.of("FoodTruck", foodTrucks, "FoodHall", foodHalls));
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLatitude(37.784683);
+    locationCriteria.setLongitude(-122.414408);
+    locationCriteria.setNumberOfLocations(4);
+    locationCriteria.setType(List.of("FoodTruck", "FoodHall"));
+    StepVerifier.create(locationService.findByCoordinates(locationCriteria))
+        .expectNextMatches(next -> next.getName().equals("Truck 1"))
+        .expectNextMatches(next -> next.getName().equals("Hall 1"))
+        .expectNextMatches(next -> next.getName().equals("Truck 2"))
+        .expectNextMatches(next -> next.getName().equals("Hall 2"))
+        .expectComplete()
+        .verify();
+  }
+
   @Test
   void testFindByCoordinatesError() {
     LocationRepository locationRepository = mock(LocationRepository.class);
     LocationService locationService = new LocationService(Map.of("FoodTruck", locationRepository));
     LocationCriteria locationCriteria = new LocationCriteria();
-    locationCriteria.setType("FoodHall");
+    locationCriteria.setType(List.of("FoodHall"));
 
     IllegalArgumentException exception =
         Assertions.assertThrows(
@@ -64,5 +109,301 @@ class LocationServiceTests {
     Assertions.assertEquals("Location Type FoodHall is not supported", exception.getMessage());
   }
 
+  @Test
+  void testFindByCoordinatesMetrics() {
+    LocationRepository locationRepository = mock(LocationRepository.class);
+    doReturn(Flux.just(location("Truck 1", -122.414408, 37.784683)))
+        .when(locationRepository)
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LocationService locationService =
+        new LocationService(Map.of("FoodTruck", locationRepository), meterRegistry);
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setType(List.of("FoodTruck"));
+
+    StepVerifier.create(locationService.findByCoordinates(locationCriteria))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify();
+    // The meters are registered by the first search only.
+    int meters = meterRegistry.getMeters().size();
+    StepVerifier.create(locationService.findByCoordinates(locationCriteria))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify();
+    Assertions.assertEquals(meters, meterRegistry.getMeters().size());
+    locationCriteria.setType(List.of("FoodHall"));
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> locationService.findByCoordinates(locationCriteria));
+
+    Assertions.assertEquals(
+        2,
+        meterRegistry
+            .get(LocationService.SEARCH_TIMER)
+            .tags("type", "FoodTruck", "outcome", "SUCCESS")
+            .timer()
+            .count());
+    Assertions.assertEquals(
+        2,
+        meterRegistry
+            .get(LocationService.FIRST_LOCATION_TIMER)
+            .tag("type", "FoodTruck")
+            .timer()
+            .count());
+    Assertions.assertEquals(
+        2,
+        meterRegistry
+            .get(LocationService.REPOSITORY_TIMER)
+            .tags("type", "FoodTruck", "outcome", "SUCCESS")
+            .timer()
+            .count());
+    Assertions.assertEquals(
+        2.0, meterRegistry.get(LocationService.RESULTS_SUMMARY).summary().totalAmount());
+    Assertions.assertEquals(
+        2.0, meterRegistry.get(LocationService.UNDERFILLED_COUNTER).counter().count());
+    Assertions.assertEquals(
+        1.0, meterRegistry.get(LocationService.UNSUPPORTED_COUNTER).counter().count());
+  }
+
+  @Test
+  void testFindByCoordinatesCoalescingFromCellCenter() {
+    LocationRepository locationRepository = mock(LocationRepository.class);
+    doReturn(Flux.never())
+        .when(locationRepository)
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    doReturn(Mono.just("1")).when(locationRepository).findVersion();
+    LocationService locationService =
+        new LocationService(
+            Map.of("FoodTruck", locationRepository), new SimpleMeterRegistry(), true, 0.001);
+
+    // The centers are in the same cell, the search runs once from the center of the cell.
+    for (double longitude : new double[] {-122.414408, -122.414102}) {
+      LocationCriteria locationCriteria = new LocationCriteria();
+      locationCriteria.setLatitude(37.784683);
+      locationCriteria.setLongitude(longitude);
+      locationCriteria.setType(List.of("FoodTruck"));
+      locationService.findByCoordinates(locationCriteria).subscribe();
+    }
+
+    verify(locationRepository, times(1))
+        .findByCoordinates(eq(-122.4145, 1e-9), eq(37.7845, 1e-9), anyDouble(), anyInt());
+  }
+
+  @Test
+  void testFindByCoordinatesCoalescing() {
+    LocationRepository locationRepository = mock(LocationRepository.class);
+    Sinks.Many<MapLocation> sink = Sinks.many().unicast().onBackpressureBuffer();
+    doReturn(sink.asFlux(), Flux.just(location("Truck 3", -122.414408, 37.804683)))
+        .when(locationRepository)
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LocationService locationService =
+        new LocationService(Map.of("FoodTruck", locationRepository), meterRegistry, true, 0);
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLatitude(37.784683);
+    locationCriteria.setLongitude(-122.414408);
+    locationCriteria.setType(List.of("FoodTruck"));
+
+    List<String> leader = new LinkedList<>();
+    List<String> follower = new LinkedList<>();
+    locationService
+        .findByCoordinates(locationCriteria)
+        .subscribe(location -> leader.add(location.getName()));
+    sink.tryEmitNext(location("Truck 1", -122.414408, 37.784683));
+    locationService
+        .findByCoordinates(locationCriteria)
+        .subscribe(location -> follower.add(location.getName()));
+    sink.tryEmitNext(location("Truck 2", -122.414408, 37.794683));
+    sink.tryEmitComplete();
+
+    Assertions.assertEquals(List.of("Truck 1", "Truck 2"), leader);
+    Assertions.assertEquals(List.of("Truck 1", "Truck 2"), follower);
+    verify(locationRepository, times(1))
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+
+    StepVerifier.create(locationService.findByCoordinates(locationCriteria))
+        .expectNextMatches(next -> next.getName().equals("Truck 3"))
+        .expectComplete()
+        .verify();
+    verify(locationRepository, times(2))
+        .findByCoordinates(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    Assertions.assertEquals(
+        2.0,
+        meterRegistry
+            .get(LocationService.COALESCING_COUNTER)
+            .tags("type", "FoodTruck", "role", "LEADER")
+            .counter()
+            .count());
+    Assertions.assertEquals(
+        1.0,
+        meterRegistry
+            .get(LocationService.COALESCING_COUNTER)
+            .tags("type", "FoodTruck", "role", "FOLLOWER")
+            .counter()
+            .count());
+    Assertions.assertEquals(
+        0.0, meterRegistry.get(LocationService.IN_FLIGHT_GAUGE).gauge().value());
+  }
+
+  @Test
+  void testFindByCoordinatesNearest() {
+    InMemoryLocationRepository locationRepository =
+        new InMemoryLocationRepository(
+            List.of(
+                location("Truck 1", -122.414408, 37.784683),
+                location("Truck 2", -122.414408, 37.791683),
+                location("Truck 3", -122.414408, 37.924683)));
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LocationService locationService =
+        new LocationService(
+            Map.of("FoodTruck", locationRepository), meterRegistry, false, 0, 1, 50, 2);
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLatitude(37.784683);
+    locationCriteria.setLongitude(-122.414408);
+    locationCriteria.setType(List.of("FoodTruck"));
+    locationCriteria.setNumberOfLocations(3);
+    locationCriteria.setNearest(true);
+
+    // Truck 3 is about 10 miles away, so it is found by the fifth round with a radius of 16 miles.
+    StepVerifier.create(locationService.findByCoordinates(locationCriteria))
+        .expectNextMatches(next -> next.getName().equals("Truck 1"))
+        .expectNextMatches(next -> next.getName().equals("Truck 2"))
+        .expectNextMatches(next -> next.getName().equals("Truck 3"))
+        .expectComplete()
+        .verify();
+
+    // The search stops expanding at the max radius of 50 miles.
+    locationCriteria.setNumberOfLocations(4);
+    StepVerifier.create(locationService.findByCoordinates(locationCriteria))
+        .expectNextCount(3)
+        .expectComplete()
+        .verify();
+
+    Assertions.assertEquals(
+        5.0 + 7.0,
+        meterRegistry
+            .get(LocationService.EXPANSIONS_SUMMARY)
+            .tags("type", "FoodTruck")
+            .summary()
+            .totalAmount());
+    Assertions.assertEquals(
+        7.0,
+        meterRegistry
+            .get(LocationService.EXPANSIONS_SUMMARY)
+            .tags("type", "FoodTruck")
+            .summary()
+            .max());
+  }
+
+  @Test
+  void testFindByCoordinatesPages() {
+    // Trucks 2 and 3, and Trucks 5 and 6 are at the same distance, Trucks 2 and 3 end up on
+    // different pages.
+    InMemoryLocationRepository locationRepository =
+        new InMemoryLocationRepository(
+            List.of(
+                location("Truck 1", -122.414408, 37.784683),
+                location("Truck 2", -122.414408, 37.785683),
+                location("Truck 3", -122.414408, 37.785683),
+                location("Truck 4", -122.414408, 37.786683),
+                location("Truck 5", -122.414408, 37.787683),
+                location("Truck 6", -122.414408, 37.787683),
+                location("Truck 7", -122.414408, 37.788683)));
+    LocationService locationService = new LocationService(Map.of("FoodTruck", locationRepository));
+    for (boolean nearest : new boolean[] {false, true}) {
+      LocationCriteria locationCriteria = new LocationCriteria();
+      locationCriteria.setLatitude(37.784683);
+      locationCriteria.setLongitude(-122.414408);
+      locationCriteria.setType(List.of("FoodTruck"));
+      locationCriteria.setNumberOfLocations(2);
+      locationCriteria.setNearest(nearest);
+
+      List<String> names = new LinkedList<>();
+      int pages = 0;
+      do {
+        List<LocationDTO> page =
+            locationService.findByCoordinates(locationCriteria).collectList().block();
+        pages++;
+        for (int i = 0; i < page.size(); i++) {
+          names.add(page.get(i).getName());
+          Assertions.assertEquals(i == 1, page.get(i).getCursor() != null);
+        }
+        locationCriteria.setAfter(page.isEmpty() ? null : page.get(page.size() - 1).getCursor());
+      } while (locationCriteria.getAfter() != null);
+
+      Assertions.assertEquals(4, pages);
+      Assertions.assertEquals(7, new HashSet<>(names).size());
+      Assertions.assertEquals("Truck 1", names.get(0));
+      Assertions.assertEquals("Truck 4", names.get(3));
+      Assertions.assertEquals("Truck 7", names.get(6));
+    }
+
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLatitude(37.784683);
+    locationCriteria.setLongitude(-122.414408);
+    locationCriteria.setType(List.of("FoodTruck"));
+    locationCriteria.setAfter("not a cursor");
+    IllegalArgumentException exception =
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> locationService.findByCoordinates(locationCriteria));
+    Assertions.assertEquals("Invalid cursor", exception.getMessage());
+  }
+
+  @Test
+  void testFindByCoordinatesPageOfAnotherCenter() {
+    // The trucks are not in the same order from both centers.
+    InMemoryLocationRepository locationRepository =
+        new InMemoryLocationRepository(
+            List.of(
+                location("Truck 1", -122.4144, 37.7842),
+                location("Truck 2", -122.4150, 37.7850),
+                location("Truck 3", -122.4130, 37.7841),
+                location("Truck 4", -122.4160, 37.7860),
+                location("Truck 5", -122.4144, 37.7830),
+                location("Truck 6", -122.4170, 37.7849)));
+    LocationService locationService = new LocationService(Map.of("FoodTruck", locationRepository));
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setLongitude(-122.4141);
+    locationCriteria.setLatitude(37.7841);
+    locationCriteria.setType(List.of("FoodTruck"));
+    locationCriteria.setNumberOfLocations(6);
+    List<String> expected =
+        locationService
+            .findByCoordinates(locationCriteria)
+            .map(LocationDTO::getName)
+            .collectList()
+            .block();
+
+    // The following page of a page served to another center continues the page.
+    locationCriteria.setNumberOfLocations(3);
+    List<LocationDTO> first =
+        locationService.findByCoordinates(locationCriteria).collectList().block();
+    locationCriteria.setLongitude(-122.4149);
+    locationCriteria.setLatitude(37.7849);
+    locationCriteria.setAfter(first.get(2).getCursor());
+    List<String> names = new LinkedList<>();
+    first.forEach(locationDTO -> names.add(locationDTO.getName()));
+    locationService
+        .findByCoordinates(locationCriteria)
+        .map(LocationDTO::getName)
+        .toIterable()
+        .forEach(names::add);
+
+    Assertions.assertEquals(expected, names);
+  }
+
+  private static MapLocation location(String name, double longitude, double latitude) {
+    MapLocation mapLocation = new TestLocation();
+    mapLocation.setId(name);
+    mapLocation.setName(name);
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(longitude);
+    locationCoordinates.setLatitude(latitude);
+    mapLocation.setLocation(locationCoordinates);
+    return mapLocation;
+  }
+
   static class TestLocation extends MapLocation {}
 }
@@ -0,0 +1,134 @@
+package com.location.finder.core.tile;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.location.finder.core.datasource.FallbackLocation;
+import com.location.finder.core.datasource.InMemoryLocationRepository;
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.dto.LocationDTO;
+import com.location.finder.core.service.LocationService;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class TileServiceTests {
+
+  @Test
+  void testTileBounds() {
+    TileKey world = TileKey.of(List.of("FoodTruck"), 0, 0, 0);
+    Assertions.assertEquals(-180.0, world.getMinLongitude(), 1e-9);
+    Assertions.assertEquals(180.0, world.getMaxLongitude(), 1e-9);
+    Assertions.assertEquals(85.0511, world.getMaxLatitude(), 1e-4);
+    Assertions.assertEquals(-85.0511, world.getMinLatitude(), 1e-4);
+
+    // The tile of downtown San Francisco at zoom level 12.
+    TileKey tile = TileKey.of(List.of("FoodTruck"), 12, 655, 1583);
+    Assertions.assertTrue(tile.getMinLongitude() < -122.414408);
+    Assertions.assertTrue(tile.getMaxLongitude() > -122.414408);
+    Assertions.assertTrue(tile.getMinLatitude() < 37.784683);
+    Assertions.assertTrue(tile.getMaxLatitude() > 37.784683);
+
+    Assertions.assertEquals(
+        TileKey.of(List.of("FoodTruck", "FoodHall"), 12, 655, 1583),
+        TileKey.of(List.of("FoodHall", "FoodTruck"), 12, 655, 1583));
+    IllegalArgumentException exception =
+        Assertions.assertThrows(
+            IllegalArgumentException.class, () -> TileKey.of(List.of("FoodTruck"), 2, 4, 0));
+    Assertions.assertEquals("Tile 2/4/0 does not exist", exception.getMessage());
+  }
+
+  @Test
+  void testFindTile() {
+    LocationRepository foodTrucks =
+        new InMemoryLocationRepository(
+            List.of(
+                location("Truck 1", -122.414408, 37.784683),
+                location("Truck 2", -122.4194, 37.7749),
+                location("Truck 3", -122.2711, 37.8044)));
+    TileService tileService =
+        new TileService(
+            new LocationService(Map.of("FoodTruck", foodTrucks)),
+            Caffeine.newBuilder().buildAsync(),
+            500);
+
+    LocationTile tile = tileService.findTile(List.of("FoodTruck"), 12, 655, 1583).block();
+
+    Assertions.assertEquals(
+        List.of("Truck 1", "Truck 2"),
+        tile.getLocations().stream()
+            .map(LocationDTO::getName)
+            .sorted()
+            .collect(Collectors.toList()));
+    Assertions.assertEquals(
+        LocationTile.of(tile.getLocations()).getEtag(),
+        tileService.findTile(List.of("FoodTruck"), 12, 655, 1583).block().getEtag());
+    Assertions.assertNotEquals(
+        tile.getEtag(),
+        tileService.findTile(List.of("FoodTruck"), 12, 656, 1583).block().getEtag());
+  }
+
+  @Test
+  void testFindTileCached() {
+    LocationRepository locationRepository = mock(LocationRepository.class);
+    doReturn(Flux.just(location("Truck 1", -122.414408, 37.784683)))
+        .when(locationRepository)
+        .findWithinBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+    TileService tileService =
+        new TileService(
+            new LocationService(Map.of("FoodTruck", locationRepository)),
+            Caffeine.newBuilder().buildAsync(),
+            500);
+
+    LocationTile first = tileService.findTile(List.of("FoodTruck"), 12, 655, 1583).block();
+    LocationTile second = tileService.findTile(List.of("FoodTruck"), 12, 655, 1583).block();
+
+    Assertions.assertSame(first, second);
+    verify(locationRepository, times(1))
+        .findWithinBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+  }
+
+  @Test
+  void testFindTileDegradedNotCached() {
+    LocationRepository locationRepository = mock(LocationRepository.class);
+    doReturn(Flux.just(new FallbackLocation(location("Truck 1", -122.414408, 37.784683))))
+        .when(locationRepository)
+        .findWithinBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+    TileService tileService =
+        new TileService(
+            new LocationService(Map.of("FoodTruck", locationRepository)),
+            Caffeine.newBuilder().buildAsync(),
+            500);
+
+    LocationTile first = tileService.findTile(List.of("FoodTruck"), 12, 655, 1583).block();
+    tileService.findTile(List.of("FoodTruck"), 12, 655, 1583).block();
+
+    Assertions.assertTrue(first.isDegraded());
+    verify(locationRepository, times(2))
+        .findWithinBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+  }
+
+  private static MapLocation location(String name, double longitude, double latitude) {
+    MapLocation mapLocation = new TestLocation();
+    mapLocation.setId(name);
+    mapLocation.setName(name);
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(longitude);
+    locationCoordinates.setLatitude(latitude);
+    mapLocation.setLocation(locationCoordinates);
+    return mapLocation;
+  }
+
+  static class TestLocation extends MapLocation {}
+}
@@ -1,17 +1,20 @@
 package com.location.finder.model;
 
-import java.util.List;
-
-/** The representation of a location as a java POJO. */
+/**
+ * The representation of a location as a java POJO. The coordinates are kept as primitive values to
+ * avoid allocating a list of boxed numbers for every location. Datasource implementations are
+ * responsible for storing them as a GeoJSON coordinates array, where the item at index 0 is the
+ * longitude and the item at index 1 is the latitude as per spec.
+ *
+ * @link https://geojson.org
+ */
 public class LocationCoordinates {
 
-  /**
-   * The longitude and latitude of the location. So, the item at index 0 will be the longitude and
-   * item at index 1 will be the latitude as per spec.
-   *
-   * @link https://geojson.org
-   */
-  private List<Double> coordinates;
+  /** The longitude of the location. */
+  private double longitude;
+
+  /** The latitude of the location. */
+  private double latitude;
 
   /**
    * Type of the location based on GeoJSON spec, possible values are. Point, LineString, Polygon,
@@ -21,12 +24,20 @@ public class LocationCoordinates {
    */
   private String type;
 
-  public List<Double> getCoordinates() {
-    return coordinates;
+  public double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(double longitude) {
+    this.longitude = longitude;
+  }
+
+  public double getLatitude() {
+    return latitude;
   }
 
-  public void setCoordinates(List<Double> coordinates) {
-    this.coordinates = coordinates;
+  public void setLatitude(double latitude) {
+    this.latitude = latitude;
   }
 
   public String getType() {
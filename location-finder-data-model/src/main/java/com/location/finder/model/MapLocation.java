@@ -1,5 +1,6 @@
 package com.location.finder.model;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -23,6 +24,21 @@ public abstract class MapLocation {
   /** Name of the location. */
   private String name;
 
+  /** Type of the facility at the location, e.g. Truck or Push Cart. */
+  private String facilityType;
+
+  /** Status of the permit of the location, e.g. APPROVED or EXPIRED. */
+  private String status;
+
+  /** The food items sold at the location. */
+  private List<String> foodItems;
+
+  /**
+   * Distance of the location to the center of a search in meters, if the datasource computes it
+   * while searching. The value is not a part of the stored location, and it is NaN if unknown.
+   */
+  private transient double distance = Double.NaN;
+
   public String getId() {
     return id;
   }
@@ -47,6 +63,38 @@ public abstract class MapLocation {
     this.name = name;
   }
 
+  public String getFacilityType() {
+    return facilityType;
+  }
+
+  public void setFacilityType(String facilityType) {
+    this.facilityType = facilityType;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public List<String> getFoodItems() {
+    return foodItems;
+  }
+
+  public void setFoodItems(List<String> foodItems) {
+    this.foodItems = foodItems;
+  }
+
+  public double getDistance() {
+    return distance;
+  }
+
+  public void setDistance(double distance) {
+    this.distance = distance;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -0,0 +1,18 @@
+package com.location.finder.loadgen;
+
+import java.util.Random;
+
+/**
+ * CenterDistribution is the spatial distribution of the search centers of a load test. A
+ * distribution must be repeatable, so every center is drawn from the given random source.
+ */
+public interface CenterDistribution {
+
+  /**
+   * Draw the next search center.
+   *
+   * @param random source of randomness of the load test.
+   * @return the center as longitude and latitude.
+   */
+  double[] next(Random random);
+}
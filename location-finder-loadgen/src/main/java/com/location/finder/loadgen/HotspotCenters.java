@@ -0,0 +1,113 @@
+package com.location.finder.loadgen;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Search centers clustered around hotspots, like the traffic of a city where most searches come
+ * from a few busy blocks. The hotspots are picked from the given points, e.g. the food truck
+ * permits, and their popularity follows a Zipf distribution, so the first hotspot gets the most
+ * searches. Every center is drawn around its hotspot with a normal distribution.
+ */
+public class HotspotCenters implements CenterDistribution {
+
+  /** Hotspots as longitude and latitude. */
+  private final double[][] hotspots;
+
+  /** Cumulative popularity of the hotspots, the last value is 1. */
+  private final double[] cumulative;
+
+  /** Standard deviation of the centers around their hotspot in degrees. */
+  private final double spread;
+
+  /**
+   * Create a hotspot distribution.
+   *
+   * @param points points to pick the hotspots from, as longitude and latitude.
+   * @param count number of hotspots.
+   * @param spread standard deviation of the centers around their hotspot in degrees.
+   * @param skew Zipf exponent of the popularity of the hotspots.
+   * @param random source of randomness to pick the hotspots.
+   * @throws IllegalArgumentException if there are no points or hotspots.
+   */
+  public HotspotCenters(
+      List<double[]> points, int count, double spread, double skew, Random random) {
+    if (points.isEmpty() || count <= 0) {
+      throw new IllegalArgumentException("Hotspots need at least one point");
+    }
+    List<double[]> shuffled = new ArrayList<>(points);
+    Collections.shuffle(shuffled, random);
+    this.hotspots = shuffled.subList(0, Math.min(count, shuffled.size())).toArray(double[][]::new);
+    this.cumulative = new double[hotspots.length];
+    double total = 0;
+    for (int i = 0; i < hotspots.length; i++) {
+      total += 1 / Math.pow(i + 1, skew);
+      cumulative[i] = total;
+    }
+    for (int i = 0; i < cumulative.length; i++) {
+      cumulative[i] /= total;
+    }
+    this.spread = spread;
+  }
+
+  @Override
+  public double[] next(Random random) {
+    int index = Arrays.binarySearch(cumulative, random.nextDouble());
+    double[] hotspot = hotspots[Math.min(index < 0 ? -index - 1 : index, hotspots.length - 1)];
+    return new double[] {
+      hotspot[0] + random.nextGaussian() * spread, hotspot[1] + random.nextGaussian() * spread
+    };
+  }
+
+  /**
+   * Read the coordinates of the food truck permits from a CSV export. The Latitude and Longitude
+   * columns are looked up by name, and the permits without coordinates are skipped.
+   *
+   * @param file the CSV file with a header row.
+   * @return points as longitude and latitude.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file has no Latitude or Longitude column.
+   */
+  public static List<double[]> readCsv(Path file) throws IOException {
+    try (CSVReader reader = new CSVReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+      String[] header = reader.readNext();
+      List<String> columns = header == null ? List.of() : Arrays.asList(header);
+      int latitude = columns.indexOf("Latitude");
+      int longitude = columns.indexOf("Longitude");
+      if (latitude < 0 || longitude < 0) {
+        throw new IllegalArgumentException(
+            String.format("%s has no Latitude and Longitude columns", file));
+      }
+      List<double[]> points = new ArrayList<>();
+      for (String[] row : reader) {
+        double[] point = parse(row, longitude, latitude);
+        if (point != null) {
+          points.add(point);
+        }
+      }
+      return points;
+    } catch (CsvValidationException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static double[] parse(String[] row, int longitude, int latitude) {
+    try {
+      double[] point = {
+        Double.parseDouble(row[longitude].trim()), Double.parseDouble(row[latitude].trim())
+      };
+      return point[0] == 0 && point[1] == 0 ? null : point;
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.location.finder.loadgen;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Entrypoint of the load generator jar. It drives the location search endpoint of a running
+ * instance at a fixed arrival rate, and prints the latency percentiles of every second and of the
+ * whole load test. The instance can serve the FoodTruckStub type from an in-process stub data
+ * source, so that a single instance can be load tested without MongoDB.
+ */
+public class LoadGenerator {
+
+  /** Private constructor to prevent instantiation. */
+  private LoadGenerator() {}
+
+  /**
+   * Run a load test.
+   *
+   * @param args options of the load test in the --name=value form.
+   * @throws IOException if the CSV file or the histogram log cannot be accessed.
+   */
+  public static void main(String[] args) throws IOException {
+    LoadGeneratorOptions options;
+    try {
+      options = LoadGeneratorOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(LoadGeneratorOptions.usage());
+      System.exit(1);
+      return;
+    }
+    new OpenLoopLoadGenerator(options, centers(options), System.out).run().print(System.out);
+  }
+
+  /**
+   * Create the spatial distribution of the search centers. The hotspots are picked from the food
+   * truck permits of the CSV file if it is given, or from uniform points within the bounds.
+   *
+   * @param options options of the load test.
+   * @return CenterDistribution of the search centers.
+   * @throws IOException if the CSV file cannot be read.
+   */
+  static CenterDistribution centers(LoadGeneratorOptions options) throws IOException {
+    if ("uniform".equals(options.getDistribution())) {
+      return new UniformCenters(options.getBounds());
+    }
+    if (!"hotspot".equals(options.getDistribution())) {
+      throw new IllegalArgumentException(
+          String.format("Distribution %s is not supported", options.getDistribution()));
+    }
+    Random random = new Random(options.getSeed());
+    Path csv = options.getCsv();
+    List<double[]> points;
+    if (csv != null) {
+      points = HotspotCenters.readCsv(csv);
+    } else {
+      UniformCenters uniform = new UniformCenters(options.getBounds());
+      points = new ArrayList<>();
+      for (int i = 0; i < options.getHotspots(); i++) {
+        points.add(uniform.next(random));
+      }
+    }
+    return new HotspotCenters(
+        points, options.getHotspots(), options.getSpread(), options.getSkew(), random);
+  }
+}
@@ -0,0 +1,184 @@
+package com.location.finder.loadgen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test, parsed from command line arguments in the --name=value form. Every option
+ * has a default, so a load test can be started against a local instance without any arguments.
+ */
+public class LoadGeneratorOptions {
+
+  /** Default values of the options, which also define the accepted option names. */
+  private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+  static {
+    DEFAULTS.put("url", "http://localhost:8080");
+    DEFAULTS.put("type", "FoodTruck");
+    DEFAULTS.put("rate", "100");
+    DEFAULTS.put("duration", "30");
+    DEFAULTS.put("warmup", "5");
+    DEFAULTS.put("number-of-locations", "5");
+    DEFAULTS.put("radius", "5");
+    DEFAULTS.put("accept", "application/json");
+    DEFAULTS.put("connections", "256");
+    DEFAULTS.put("timeout", "10");
+    DEFAULTS.put("distribution", "hotspot");
+    DEFAULTS.put("bounds", "-122.52,37.70,-122.36,37.82");
+    DEFAULTS.put("csv", "");
+    DEFAULTS.put("hotspots", "20");
+    DEFAULTS.put("spread", "0.002");
+    DEFAULTS.put("skew", "1.0");
+    DEFAULTS.put("seed", "42");
+    DEFAULTS.put("histogram-log", "");
+  }
+
+  private final Map<String, String> values;
+
+  private LoadGeneratorOptions(Map<String, String> values) {
+    this.values = values;
+  }
+
+  /**
+   * Parse the command line arguments.
+   *
+   * @param args command line arguments in the --name=value form.
+   * @return LoadGeneratorOptions with the defaults of the missing options.
+   * @throws IllegalArgumentException if an argument is malformed or unknown.
+   */
+  public static LoadGeneratorOptions parse(String... args) {
+    Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException(
+            String.format("Argument %s is not in the --name=value form", arg));
+      }
+      String name = arg.substring(2, separator);
+      if (!DEFAULTS.containsKey(name)) {
+        throw new IllegalArgumentException(String.format("Option %s is not supported", name));
+      }
+      values.put(name, arg.substring(separator + 1));
+    }
+    LoadGeneratorOptions options = new LoadGeneratorOptions(values);
+    if (options.getRate() <= 0 || options.getDuration().isZero()) {
+      throw new IllegalArgumentException("Rate and duration must be positive");
+    }
+    if (options.getBounds().length != 4) {
+      throw new IllegalArgumentException(
+          "Bounds must be min longitude, min latitude, max longitude and max latitude");
+    }
+    return options;
+  }
+
+  /**
+   * Describe the accepted options with their default values.
+   *
+   * @return usage text of the options.
+   */
+  public static String usage() {
+    StringBuilder usage = new StringBuilder("Options:");
+    DEFAULTS.forEach(
+        (name, value) -> usage.append(System.lineSeparator()).append("  --" + name + "=" + value));
+    return usage.toString();
+  }
+
+  /** Base URL of the location finder instance. */
+  public String getUrl() {
+    return values.get("url");
+  }
+
+  /** Location types of the searches, comma separated. */
+  public String getType() {
+    return values.get("type");
+  }
+
+  /** Fixed arrival rate of the searches per second. */
+  public double getRate() {
+    return Double.parseDouble(values.get("rate"));
+  }
+
+  /** Duration of the measured part of the load test. */
+  public Duration getDuration() {
+    return Duration.ofSeconds(Long.parseLong(values.get("duration")));
+  }
+
+  /** Duration of the warmup, whose latencies are not recorded. */
+  public Duration getWarmup() {
+    return Duration.ofSeconds(Long.parseLong(values.get("warmup")));
+  }
+
+  /** Number of locations requested by every search. */
+  public int getNumberOfLocations() {
+    return Integer.parseInt(values.get("number-of-locations"));
+  }
+
+  /** Radius of every search in miles. */
+  public int getRadius() {
+    return Integer.parseInt(values.get("radius"));
+  }
+
+  /** Accept header of the searches. */
+  public String getAccept() {
+    return values.get("accept");
+  }
+
+  /** Max number of open connections. */
+  public int getConnections() {
+    return Integer.parseInt(values.get("connections"));
+  }
+
+  /** Time for a search to respond before it is counted as an error. */
+  public Duration getTimeout() {
+    return Duration.ofSeconds(Long.parseLong(values.get("timeout")));
+  }
+
+  /** Spatial distribution of the search centers, either hotspot or uniform. */
+  public String getDistribution() {
+    return values.get("distribution");
+  }
+
+  /** Bounds of the search centers, as min longitude, min latitude, max longitude, max latitude. */
+  public double[] getBounds() {
+    String[] bounds = values.get("bounds").split(",");
+    double[] parsed = new double[bounds.length];
+    for (int i = 0; i < bounds.length; i++) {
+      parsed[i] = Double.parseDouble(bounds[i].trim());
+    }
+    return parsed;
+  }
+
+  /**
+   * CSV file of the food truck permits to pick the hotspots from, or null to pick within bounds.
+   */
+  public Path getCsv() {
+    return values.get("csv").isBlank() ? null : Path.of(values.get("csv"));
+  }
+
+  /** Number of hotspots of the hotspot distribution. */
+  public int getHotspots() {
+    return Integer.parseInt(values.get("hotspots"));
+  }
+
+  /** Standard deviation of the search centers around their hotspot in degrees. */
+  public double getSpread() {
+    return Double.parseDouble(values.get("spread"));
+  }
+
+  /** Zipf exponent of the popularity of the hotspots, 0 makes all hotspots equally popular. */
+  public double getSkew() {
+    return Double.parseDouble(values.get("skew"));
+  }
+
+  /** Seed of the random search centers, so that load tests can be repeated. */
+  public long getSeed() {
+    return Long.parseLong(values.get("seed"));
+  }
+
+  /** File to write the interval histograms to in the HdrHistogram log format, or null. */
+  public Path getHistogramLog() {
+    return values.get("histogram-log").isBlank() ? null : Path.of(values.get("histogram-log"));
+  }
+}
@@ -0,0 +1,112 @@
+package com.location.finder.loadgen;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * LoadReport holds the latencies and errors of the measured part of a load test. The latencies are
+ * recorded in microseconds and printed in milliseconds. The latencies of the failed and unfinished
+ * searches are part of the distributions.
+ */
+public class LoadReport {
+
+  /** Percentiles printed in the summary. */
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+  /** Latencies from the scheduled send time of the searches, including the failed ones. */
+  private final Histogram responseTime;
+
+  /** Latencies from the actual send time of the searches. */
+  private final Histogram serviceTime;
+
+  /** Number of searches sent, including the warmup. */
+  private final long sent;
+
+  /** Number of searches that did not complete before the load test ended. */
+  private final long unfinished;
+
+  /** Number of failed searches, by HTTP status or exception type. */
+  private final Map<String, Long> errors;
+
+  /** Duration of the measured part of the load test. */
+  private final Duration duration;
+
+  /**
+   * Create a report.
+   *
+   * @param responseTime latencies from the scheduled send time of the searches.
+   * @param serviceTime latencies from the actual send time of the searches.
+   * @param sent number of searches sent, including the warmup.
+   * @param unfinished number of searches that did not complete before the load test ended.
+   * @param errors number of failed searches, by HTTP status or exception type.
+   * @param duration duration of the measured part of the load test.
+   */
+  public LoadReport(
+      Histogram responseTime,
+      Histogram serviceTime,
+      long sent,
+      long unfinished,
+      Map<String, Long> errors,
+      Duration duration) {
+    this.responseTime = responseTime;
+    this.serviceTime = serviceTime;
+    this.sent = sent;
+    this.unfinished = unfinished;
+    this.errors = errors;
+    this.duration = duration;
+  }
+
+  public Histogram getResponseTime() {
+    return responseTime;
+  }
+
+  public Histogram getServiceTime() {
+    return serviceTime;
+  }
+
+  public long getSent() {
+    return sent;
+  }
+
+  public long getUnfinished() {
+    return unfinished;
+  }
+
+  public Map<String, Long> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Print the summary and the full percentile distribution of the response times.
+   *
+   * @param out stream to print the report to.
+   */
+  public void print(PrintStream out) {
+    out.println();
+    out.printf(
+        "Sent %d searches, %d measured searches completed at %.1f/s, %d unfinished%n",
+        sent,
+        responseTime.getTotalCount(),
+        responseTime.getTotalCount() / (duration.toMillis() / 1000.0),
+        unfinished);
+    errors.forEach((error, count) -> out.printf("  %d errors of %s%n", count, error));
+    printPercentiles(out, "Response time", responseTime);
+    printPercentiles(out, "Service time ", serviceTime);
+    out.println();
+    out.println("Response time distribution in milliseconds:");
+    responseTime.outputPercentileDistribution(out, 1000.0);
+  }
+
+  private static void printPercentiles(PrintStream out, String name, Histogram histogram) {
+    StringBuilder line = new StringBuilder(name);
+    for (double percentile : PERCENTILES) {
+      line.append(
+          String.format(
+              "  p%s %.2fms", percentile, histogram.getValueAtPercentile(percentile) / 1000.0));
+    }
+    line.append(String.format("  max %.2fms", histogram.getMaxValue() / 1000.0));
+    out.println(line);
+  }
+}
@@ -0,0 +1,277 @@
+package com.location.finder.loadgen;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * OpenLoopLoadGenerator sends searches at a fixed arrival rate, whether or not the previous
+ * searches have completed. The latency of a search is measured from the time it was scheduled to be
+ * sent, not from the time it was actually sent, so a stalled server or client cannot hide the
+ * searches that should have been sent during the stall. This avoids the coordinated omission of
+ * closed-loop load tests, where a slow response delays the next request and the slowest periods are
+ * under-sampled.
+ *
+ * <p>The time from the actual send is recorded as the service time, so that the queueing delay can
+ * be told apart from the time the server spends on a search. The latencies of the warmup are not
+ * part of the report, but they are printed in the interval lines.
+ *
+ * <p>Failed and timed out searches are recorded at the time they failed, and the searches still in
+ * flight at the end are recorded at the time the load test gave up on them, so that the slowest
+ * searches of a saturated server are not dropped from the percentiles.
+ */
+public class OpenLoopLoadGenerator {
+
+  /** Significant decimal digits of the latency histograms. */
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  /** Options of the load test. */
+  private final LoadGeneratorOptions options;
+
+  /** Spatial distribution of the search centers. */
+  private final CenterDistribution centers;
+
+  /** Stream to print the interval lines to. */
+  private final PrintStream out;
+
+  /** Latencies of every search from its scheduled time, for the interval lines. */
+  private final Recorder intervalRecorder = new Recorder(SIGNIFICANT_DIGITS);
+
+  /** Latencies of the measured searches from their scheduled time, in microseconds. */
+  private final Histogram responseTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+  /** Latencies of the measured searches from their actual send time, in microseconds. */
+  private final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+  /** Number of searches that have been sent. */
+  private final AtomicLong sent = new AtomicLong();
+
+  /** Number of searches that have completed, successfully or not. */
+  private final AtomicLong completed = new AtomicLong();
+
+  /** Number of failed searches, by HTTP status or exception type. */
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+  /** The searches in flight, by their sequence number. */
+  private final Map<Long, Search> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Create a load generator.
+   *
+   * @param options options of the load test.
+   * @param centers spatial distribution of the search centers.
+   * @param out stream to print the interval lines to.
+   */
+  public OpenLoopLoadGenerator(
+      LoadGeneratorOptions options, CenterDistribution centers, PrintStream out) {
+    this.options = options;
+    this.centers = centers;
+    this.out = out;
+  }
+
+  /**
+   * Run the load test. Searches are sent from the calling thread at their scheduled times, and
+   * their responses are handled on the event loop of the HTTP client. The method returns when all
+   * searches have completed or timed out.
+   *
+   * @return LoadReport of the measured searches.
+   * @throws IOException if the histogram log cannot be written.
+   */
+  public LoadReport run() throws IOException {
+    ConnectionProvider connectionProvider =
+        ConnectionProvider.builder("loadgen")
+            .maxConnections(options.getConnections())
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(options.getTimeout())
+            .build();
+    HttpClient httpClient =
+        HttpClient.create(connectionProvider)
+            .baseUrl(options.getUrl())
+            .responseTimeout(options.getTimeout())
+            .headers(headers -> headers.set(HttpHeaderNames.ACCEPT, options.getAccept()));
+    ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+    HistogramLogWriter logWriter =
+        options.getHistogramLog() == null
+            ? null
+            : new HistogramLogWriter(Files.newOutputStream(options.getHistogramLog()));
+    long start = System.nanoTime();
+    long measureFrom = start + options.getWarmup().toNanos();
+    long end = measureFrom + options.getDuration().toNanos();
+    if (logWriter != null) {
+      long startTime = System.currentTimeMillis();
+      logWriter.setBaseTime(startTime);
+      logWriter.outputLogFormatVersion();
+      logWriter.outputStartTime(startTime);
+      logWriter.outputLegend();
+    }
+    out.printf(
+        "Sending %.1f searches/s to %s for %ss after a %ss warmup%n",
+        options.getRate(),
+        options.getUrl(),
+        options.getDuration().toSeconds(),
+        options.getWarmup().toSeconds());
+    reporter.scheduleAtFixedRate(
+        () -> report(start, measureFrom, logWriter), 1, 1, TimeUnit.SECONDS);
+    try {
+      Random random = new Random(options.getSeed());
+      double interval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+      for (long i = 0; ; i++) {
+        long scheduled = start + (long) (i * interval);
+        if (scheduled >= end) {
+          break;
+        }
+        long now;
+        while ((now = System.nanoTime()) < scheduled) {
+          LockSupport.parkNanos(scheduled - now);
+        }
+        send(httpClient, centers.next(random), scheduled, scheduled >= measureFrom);
+      }
+      long deadline = System.nanoTime() + options.getTimeout().toNanos() * 2;
+      while (completed.get() < sent.get() && System.nanoTime() < deadline) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+      }
+      long now = System.nanoTime();
+      inFlight.forEach(
+          (id, search) -> {
+            if (inFlight.remove(id, search)) {
+              record(search, now);
+            }
+          });
+    } finally {
+      reporter.shutdownNow();
+      connectionProvider.dispose();
+    }
+    report(start, measureFrom, logWriter);
+    if (logWriter != null) {
+      logWriter.close();
+    }
+    Map<String, Long> errorCounts = new TreeMap<>();
+    errors.forEach((error, count) -> errorCounts.put(error, count.sum()));
+    return new LoadReport(
+        responseTime.copy(),
+        serviceTime.copy(),
+        sent.get(),
+        sent.get() - completed.get(),
+        errorCounts,
+        options.getDuration());
+  }
+
+  /**
+   * Send a single search and record its latency when it completes or fails.
+   *
+   * @param httpClient client of the location finder instance.
+   * @param center center of the search, as longitude and latitude.
+   * @param scheduled the time the search was scheduled to be sent.
+   * @param measured whether the search is part of the report.
+   */
+  private void send(HttpClient httpClient, double[] center, long scheduled, boolean measured) {
+    long id = sent.incrementAndGet();
+    inFlight.put(id, new Search(scheduled, System.nanoTime(), measured));
+    String uri =
+        String.format(
+            "/location?longitude=%s&latitude=%s&type=%s&numberOfLocations=%s&radius=%s",
+            center[0],
+            center[1],
+            options.getType(),
+            options.getNumberOfLocations(),
+            options.getRadius());
+    httpClient
+        .get()
+        .uri(uri)
+        .responseSingle(
+            (response, body) -> body.asByteArray().then(Mono.just(response.status().code())))
+        .subscribe(
+            status -> complete(id, status >= 200 && status < 300 ? null : "HTTP " + status),
+            error -> complete(id, error.getClass().getSimpleName()));
+  }
+
+  /**
+   * Record the latency of a search that completed or failed, unless it was already recorded as
+   * unfinished at the end of the load test.
+   *
+   * @param id sequence number of the search.
+   * @param error the HTTP status or exception type of a failed search, null if it succeeded.
+   */
+  private void complete(long id, String error) {
+    Search search = inFlight.remove(id);
+    if (search == null) {
+      return;
+    }
+    record(search, System.nanoTime());
+    if (error != null) {
+      errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+    }
+    completed.incrementAndGet();
+  }
+
+  private void record(Search search, long now) {
+    long latency = TimeUnit.NANOSECONDS.toMicros(now - search.scheduled);
+    intervalRecorder.recordValue(latency);
+    if (search.measured) {
+      responseTime.recordValue(latency);
+      serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - search.sendTime));
+    }
+  }
+
+  /**
+   * Print the latencies of the last interval, and write them to the histogram log.
+   *
+   * @param start start time of the load test.
+   * @param measureFrom end time of the warmup.
+   * @param logWriter writer of the histogram log, or null.
+   */
+  private synchronized void report(long start, long measureFrom, HistogramLogWriter logWriter) {
+    Histogram interval = intervalRecorder.getIntervalHistogram();
+    long now = System.nanoTime();
+    out.printf(
+        "%6.1fs %s %8d completed  p50 %8.2fms  p99 %8.2fms  p99.9 %8.2fms  max %8.2fms  %d in flight%n",
+        (now - start) / 1e9,
+        now < measureFrom ? "warmup " : "measure",
+        interval.getTotalCount(),
+        interval.getValueAtPercentile(50) / 1000.0,
+        interval.getValueAtPercentile(99) / 1000.0,
+        interval.getValueAtPercentile(99.9) / 1000.0,
+        interval.getMaxValue() / 1000.0,
+        sent.get() - completed.get());
+    if (logWriter != null) {
+      logWriter.outputIntervalHistogram(interval);
+    }
+  }
+
+  /** A search in flight. */
+  private static final class Search {
+
+    /** The time the search was scheduled to be sent. */
+    private final long scheduled;
+
+    /** The time the search was actually sent. */
+    private final long sendTime;
+
+    /** Whether the search is part of the report. */
+    private final boolean measured;
+
+    private Search(long scheduled, long sendTime, boolean measured) {
+      this.scheduled = scheduled;
+      this.sendTime = sendTime;
+      this.measured = measured;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.location.finder.loadgen;
+
+import java.util.Random;
+
+/** Search centers spread uniformly over a bounding box. */
+public class UniformCenters implements CenterDistribution {
+
+  /** Bounds of the centers, as min longitude, min latitude, max longitude, max latitude. */
+  private final double[] bounds;
+
+  /**
+   * Create a uniform distribution.
+   *
+   * @param bounds bounds of the centers, as min longitude, min latitude, max longitude, max
+   *     latitude.
+   */
+  public UniformCenters(double[] bounds) {
+    this.bounds = bounds.clone();
+  }
+
+  @Override
+  public double[] next(Random random) {
+    return new double[] {
+      bounds[0] + random.nextDouble() * (bounds[2] - bounds[0]),
+      bounds[1] + random.nextDouble() * (bounds[3] - bounds[1])
+    };
+  }
+}
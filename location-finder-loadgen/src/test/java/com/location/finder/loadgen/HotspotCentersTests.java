@@ -0,0 +1,37 @@
+package com.location.finder.loadgen;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HotspotCentersTests {
+
+  @TempDir Path directory;
+
+  @Test
+  void testReadCsvAndDraw() throws Exception {
+    Path csv = directory.resolve("permits.csv");
+    Files.writeString(
+        csv,
+        "locationid,Applicant,Latitude,Longitude\n"
+            + "1,\"Truck, One\",37.784683,-122.414408\n"
+            + "2,Truck Two,0,0\n"
+            + "3,Truck Three,,\n");
+
+    List<double[]> points = HotspotCenters.readCsv(csv);
+    Assertions.assertEquals(1, points.size());
+    Assertions.assertArrayEquals(new double[] {-122.414408, 37.784683}, points.get(0));
+
+    Random random = new Random(42);
+    HotspotCenters centers = new HotspotCenters(points, 20, 0.001, 1.0, random);
+    for (int i = 0; i < 1000; i++) {
+      double[] center = centers.next(random);
+      Assertions.assertEquals(-122.414408, center[0], 0.01);
+      Assertions.assertEquals(37.784683, center[1], 0.01);
+    }
+  }
+}
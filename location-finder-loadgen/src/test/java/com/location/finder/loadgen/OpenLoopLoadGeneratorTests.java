@@ -0,0 +1,105 @@
+package com.location.finder.loadgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class OpenLoopLoadGeneratorTests {
+
+  @Test
+  void testRun() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    DisposableServer server =
+        HttpServer.create()
+            .port(0)
+            .route(
+                routes ->
+                    routes.get(
+                        "/location",
+                        (request, response) -> {
+                          requests.incrementAndGet();
+                          return response.sendString(Mono.just("[]"));
+                        }))
+            .bindNow();
+    try {
+      LoadGeneratorOptions options =
+          LoadGeneratorOptions.parse(
+              "--url=http://localhost:" + server.port(),
+              "--rate=100",
+              "--duration=1",
+              "--warmup=1",
+              "--distribution=uniform");
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      LoadReport report =
+          new OpenLoopLoadGenerator(
+                  options, LoadGenerator.centers(options), new PrintStream(output, true))
+              .run();
+
+      Assertions.assertEquals(200, report.getSent());
+      Assertions.assertEquals(200, requests.get());
+      Assertions.assertEquals(100, report.getResponseTime().getTotalCount());
+      Assertions.assertEquals(100, report.getServiceTime().getTotalCount());
+      Assertions.assertEquals(0, report.getUnfinished());
+      Assertions.assertTrue(report.getErrors().isEmpty());
+      report.print(new PrintStream(output, true));
+      Assertions.assertTrue(output.toString().contains("Response time distribution"));
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void testRunRecordsFailures() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    DisposableServer server =
+        HttpServer.create()
+            .port(0)
+            .route(
+                routes ->
+                    routes.get(
+                        "/location",
+                        (request, response) ->
+                            requests.incrementAndGet() % 2 == 0
+                                ? response.status(503).send()
+                                : response.sendString(Mono.never())))
+            .bindNow();
+    try {
+      LoadGeneratorOptions options =
+          LoadGeneratorOptions.parse(
+              "--url=http://localhost:" + server.port(),
+              "--rate=10",
+              "--duration=1",
+              "--warmup=0",
+              "--timeout=1",
+              "--distribution=uniform");
+      LoadReport report =
+          new OpenLoopLoadGenerator(
+                  options,
+                  LoadGenerator.centers(options),
+                  new PrintStream(new ByteArrayOutputStream(), true))
+              .run();
+
+      // The failed and timed out searches are part of the latencies, at their timeout.
+      Assertions.assertEquals(10, report.getSent());
+      Assertions.assertEquals(10, report.getResponseTime().getTotalCount());
+      Assertions.assertEquals(5L, report.getErrors().get("HTTP 503"));
+      Assertions.assertEquals(5, report.getErrors().values().stream().mapToLong(c -> c).sum() - 5);
+      Assertions.assertTrue(report.getResponseTime().getMaxValue() >= 1_000_000);
+    } finally {
+      server.disposeNow();
+    }
+  }
+
+  @Test
+  void testParseUnknownOption() {
+    IllegalArgumentException exception =
+        Assertions.assertThrows(
+            IllegalArgumentException.class, () -> LoadGeneratorOptions.parse("--rps=100"));
+    Assertions.assertEquals("Option rps is not supported", exception.getMessage());
+  }
+}
@@ -9,4 +9,19 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * <p>Document annotation marks this class as a model and populates collection name.
  */
 @Document("food-trucks")
-public class FoodTruck extends MapLocation {}
+public class FoodTruck extends MapLocation {
+
+  /**
+   * Hash of the source data of the location. Importers compare it with the hash of the incoming
+   * data to write only the changed locations.
+   */
+  private String hash;
+
+  public String getHash() {
+    return hash;
+  }
+
+  public void setHash(String hash) {
+    this.hash = hash;
+  }
+}
@@ -0,0 +1,30 @@
+package com.location.finder.mongo;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+
+/** A MapLocationCodec for food truck documents, that also reads and writes the source hash. */
+public class FoodTruckCodec extends MapLocationCodec<FoodTruck> {
+
+  /** Create a codec for food truck documents. */
+  public FoodTruckCodec() {
+    super(FoodTruck.class, FoodTruck::new);
+  }
+
+  @Override
+  protected boolean decodeField(String name, BsonReader reader, FoodTruck foodTruck) {
+    if ("hash".equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+      foodTruck.setHash(reader.readString());
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  protected void encodeFields(BsonWriter writer, FoodTruck foodTruck) {
+    if (foodTruck.getHash() != null) {
+      writer.writeString("hash", foodTruck.getHash());
+    }
+  }
+}
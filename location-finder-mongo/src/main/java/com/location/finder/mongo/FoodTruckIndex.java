@@ -0,0 +1,77 @@
+package com.location.finder.mongo;
+
+import com.location.finder.core.datasource.InMemoryLocationRepository;
+import com.location.finder.model.MapLocation;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * FoodTruckIndex is the in-process copy of the food truck locations. When it is enabled, the
+ * FoodTruck searches are answered from its KdTree instead of a $geoNear aggregation, see {@link
+ * FoodTruckSearchRepositoryImpl}, and it is also served as the FoodTruckIndex location type, e.g.
+ * as the fallback of the FoodTruck type, as it answers without the database.
+ *
+ * <p>The copy is loaded in the background by the first search, and reloaded when a search sees a
+ * new data version, see {@link FoodTruckVersion}, so an import is served at most one version
+ * refresh interval after it completes. The searches keep using the previous copy while the new one
+ * loads, and the database answers them until the first copy is loaded. A failed load is logged and
+ * retried by the next search.
+ *
+ * <p>ConditionalOnProperty annotation keeps the index disabled unless location.finder.index.enabled
+ * is set, as the copy holds every location in memory.
+ */
+@Component("FoodTruckIndex")
+@ConditionalOnProperty(name = "location.finder.index.enabled", havingValue = "true")
+public class FoodTruckIndex extends InMemoryLocationRepository {
+
+  private static final Logger logger = LoggerFactory.getLogger(FoodTruckIndex.class);
+
+  /** The data version of the loaded copy, or null until the first copy is loaded. */
+  private volatile String version;
+
+  /** Whether a copy is being loaded. */
+  private final AtomicBoolean loading = new AtomicBoolean();
+
+  /** The public constructor to be called by Spring CDI context, with an empty copy. */
+  public FoodTruckIndex() {
+    super(Collections.emptyList());
+  }
+
+  /**
+   * Check the loaded copy against the current data version, and start loading a new copy in the
+   * background if it is outdated and no copy is being loaded.
+   *
+   * @param current the current data version of the food truck locations.
+   * @param locations the stream of all food truck locations to load a new copy from.
+   * @return whether a copy is loaded, of the current or of a previous version.
+   */
+  public boolean update(String current, Flux<MapLocation> locations) {
+    if (!current.equals(version) && loading.compareAndSet(false, true)) {
+      locations
+          .collectList()
+          .doFinally(signal -> loading.set(false))
+          .subscribe(
+              copy -> {
+                refresh(copy);
+                version = current;
+                logger.info("Indexed {} food truck locations of version {}", size(), current);
+              },
+              error -> logger.warn("Failed to index the food truck locations", error));
+    }
+    return isLoaded();
+  }
+
+  /**
+   * Whether a copy is loaded.
+   *
+   * @return whether a copy is loaded, of any version.
+   */
+  public boolean isLoaded() {
+    return version != null;
+  }
+}
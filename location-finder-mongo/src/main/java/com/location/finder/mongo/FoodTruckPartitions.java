@@ -0,0 +1,151 @@
+package com.location.finder.mongo;
+
+import com.location.finder.core.index.Geohash;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * FoodTruckPartitions maps food truck locations to the collections that store them. With a zero
+ * precision, every location is stored in the food-trucks collection. With a positive precision,
+ * every location is stored in the food-trucks-{geohash} collection of the geohash of its
+ * coordinates with that many characters. Every partition has its own smaller 2dsphere index and
+ * write lock, and a search only reads the partitions whose cell intersects its area.
+ *
+ * <p>The partitions are listed from the database and the list is cached for the refresh interval,
+ * so the partitions created by an import are searched after at most one interval. Collections of
+ * another precision are ignored, so changing the precision requires an import.
+ */
+@Component
+public class FoodTruckPartitions {
+
+  /** Name of the food truck collection, and the prefix of the names of its partitions. */
+  public static final String COLLECTION = "food-trucks";
+
+  /** Prefix of the names of the partition collections. */
+  private static final String PARTITION_PREFIX = COLLECTION + "-";
+
+  /** Reactive MongoDB template to list the partition collections. */
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  /** Number of characters of the geohash of a partition, zero if the collection is not split. */
+  private final int precision;
+
+  /** The cached names of the partition collections. */
+  private final Mono<List<String>> partitions;
+
+  /**
+   * The public constructor to be called by Spring CDI context.
+   *
+   * @param reactiveMongoTemplate Reactive MongoDB template to list the partition collections.
+   * @param precision Number of characters of the geohash of a partition, zero to keep every
+   *     location in a single collection.
+   * @param refreshInterval How long the list of the partition collections is cached.
+   */
+  public FoodTruckPartitions(
+      ReactiveMongoTemplate reactiveMongoTemplate,
+      @Value("${location.finder.partition.precision}") int precision,
+      @Value("${location.finder.partition.refresh-interval}") Duration refreshInterval) {
+    if (precision < 0 || precision > Geohash.MAX_PRECISION) {
+      throw new IllegalArgumentException(
+          String.format("Partition precision must be between 0 and %d", Geohash.MAX_PRECISION));
+    }
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.precision = precision;
+    this.partitions =
+        Mono.defer(this::list)
+            .cache(names -> refreshInterval, error -> Duration.ZERO, () -> refreshInterval);
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * The collection that stores the given location.
+   *
+   * @param location the location to store.
+   * @return the name of the collection of the location.
+   */
+  public String collection(MapLocation location) {
+    LocationCoordinates coordinates = location.getLocation();
+    if (precision == 0 || coordinates == null) {
+      return COLLECTION;
+    }
+    return PARTITION_PREFIX
+        + Geohash.encode(coordinates.getLongitude(), coordinates.getLatitude(), precision);
+  }
+
+  /**
+   * List the collections of the food truck locations from the database, without the cache. The
+   * importer uses it to find the partitions it has just written.
+   *
+   * @return Mono<List<String>> the names of the collections.
+   */
+  public Mono<List<String>> list() {
+    if (precision == 0) {
+      return Mono.just(List.of(COLLECTION));
+    }
+    return reactiveMongoTemplate
+        .getCollectionNames()
+        .filter(
+            name ->
+                name.startsWith(PARTITION_PREFIX)
+                    && Geohash.isGeohash(name.substring(PARTITION_PREFIX.length()), precision))
+        .sort()
+        .collectList();
+  }
+
+  /**
+   * The cached collections of all the food truck locations.
+   *
+   * @return Mono<List<String>> the names of the collections.
+   */
+  public Mono<List<String>> collections() {
+    return partitions;
+  }
+
+  /**
+   * The cached collections that may have a location within the given distance of a center.
+   *
+   * @param longitude The longitude of the center.
+   * @param latitude The latitude of the center.
+   * @param maxDistance The max distance from the center, in meters.
+   * @return Mono<List<String>> the names of the collections.
+   */
+  public Mono<List<String>> collections(double longitude, double latitude, double maxDistance) {
+    return collections(geohash -> Geohash.intersects(geohash, longitude, latitude, maxDistance));
+  }
+
+  /**
+   * The cached collections that may have a location within a longitude and latitude box.
+   *
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @return Mono<List<String>> the names of the collections.
+   */
+  public Mono<List<String>> collections(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+    return collections(
+        geohash ->
+            Geohash.intersects(geohash, minLongitude, minLatitude, maxLongitude, maxLatitude));
+  }
+
+  private Mono<List<String>> collections(Predicate<String> intersects) {
+    if (precision == 0) {
+      return partitions;
+    }
+    return partitions
+        .flatMapIterable(names -> names)
+        .filter(name -> intersects.test(name.substring(PARTITION_PREFIX.length())))
+        .collectList();
+  }
+}
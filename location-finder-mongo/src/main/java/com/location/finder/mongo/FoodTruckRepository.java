@@ -1,39 +1,109 @@
 package com.location.finder.mongo;
 
+import com.location.finder.core.datasource.LocationFilter;
 import com.location.finder.core.datasource.LocationRepository;
 import com.location.finder.model.MapLocation;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * FoodTruckRepository is a reactive MongoDB repository that implements the LocationRepository. The
  * implementation of this interface is generated by Spring Data in runtime. So, beans that are
  * injecting the interface will receive an implementation. This repository will only return
- * FoodTruck locations as FoodTruck data is a separate collection in the MongoDB.
+ * FoodTruck locations as FoodTruck data is a separate collection in the MongoDB. The geospatial
+ * search is provided by the FoodTruckSearchRepository fragment.
  *
  * <p>Repository annotation marks this interface as a repository declaration and provides a
  * user-friendly bean name so that it becomes easier to lookup.
  */
 @Repository("FoodTruck")
 public interface FoodTruckRepository
-    extends ReactiveMongoRepository<FoodTruck, String>, LocationRepository {
+    extends ReactiveMongoRepository<FoodTruck, String>,
+        FoodTruckSearchRepository,
+        LocationRepository {
 
   /**
-   * This method defines the query to be executed on MongoDB server reactively. It uses a
-   * parameterized query for preventing injection attacks. The generated implementation will use the
-   * method arguments in order to set query parameters.
+   * This method passes the limit to the search fragment instead of taking the first n items of an
+   * unlimited search.
    *
    * @param longitude The longitude of the center location to search for other locations.
    * @param latitude The latitude of the center location to search for other locations.
-   * @param maxDistance The max distance to search from center, in kilometers.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
    * @return Flux<MapLocation> a stream of food truck locations.
    */
   @Override
-  @Query(
-      "{ location: "
-          + "{ $nearSphere: { $geometry: { type: \"Point\", coordinates: [ ?0, ?1 ] }, $maxDistance: ?2 } } "
-          + "}")
-  Flux<MapLocation> findByCoordinates(double longitude, double latitude, double maxDistance);
+  Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit);
+
+  /**
+   * This method passes the ring to the search fragment instead of skipping the closer locations of
+   * an unlimited search.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  @Override
+  Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit);
+
+  /**
+   * This method passes the filter to the search fragment, which matches it in the $geoNear query,
+   * instead of filtering the locations of an unlimited ring search.
+   *
+   * @param filter The filter of the names and the attributes of the locations.
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  @Override
+  Flux<MapLocation> findByFilter(
+      LocationFilter filter,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit);
+
+  /**
+   * This method passes the box to the search fragment instead of filtering all food truck
+   * locations.
+   *
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  @Override
+  Flux<MapLocation> findWithinBox(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, int limit);
+
+  /**
+   * This method streams the food truck locations of every partition of the collection, instead of
+   * only the locations of the collection of the FoodTruck document.
+   *
+   * @return Flux<MapLocation> a stream of all food truck locations.
+   */
+  @Override
+  Flux<MapLocation> findAllLocations();
+
+  /**
+   * This method passes the version lookup to the search fragment, which reads the cached generation
+   * of the food truck locations.
+   *
+   * @return Mono<String> the version of the food truck locations, or empty without a generation.
+   */
+  @Override
+  Mono<String> findVersion();
 }
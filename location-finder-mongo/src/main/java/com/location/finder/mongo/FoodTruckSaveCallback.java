@@ -0,0 +1,22 @@
+package com.location.finder.mongo;
+
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * A callback that keeps the search distance of a food truck out of the stored document. The
+ * distance is a transient value of the MapLocation data model, which does not depend on Spring Data
+ * and therefore cannot mark the field as transient for the MappingMongoConverter.
+ */
+@Component
+public class FoodTruckSaveCallback implements ReactiveBeforeSaveCallback<FoodTruck> {
+
+  @Override
+  public Publisher<FoodTruck> onBeforeSave(FoodTruck entity, Document document, String collection) {
+    document.remove("distance");
+    return Mono.just(entity);
+  }
+}
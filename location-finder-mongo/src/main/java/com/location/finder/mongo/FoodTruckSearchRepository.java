@@ -0,0 +1,99 @@
+package com.location.finder.mongo;
+
+import com.location.finder.core.datasource.LocationFilter;
+import com.location.finder.model.MapLocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A repository fragment for the geospatial search of food truck locations. The search is the hot
+ * path of the application, so it is implemented by hand instead of being derived by Spring Data.
+ */
+public interface FoodTruckSearchRepository {
+
+  /**
+   * Search food truck locations around the given center, ordered by distance.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  Flux<MapLocation> findByCoordinates(double longitude, double latitude, double maxDistance);
+
+  /**
+   * Search at most the given number of food truck locations around the given center, ordered by
+   * distance.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit);
+
+  /**
+   * Search at most the given number of food truck locations in a ring around the given center,
+   * ordered by distance.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit);
+
+  /**
+   * Search at most the given number of food truck locations in a ring around the given center,
+   * which match the given filter of names and attributes, ordered by distance.
+   *
+   * @param filter The filter of the names and the attributes of the locations.
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  Flux<MapLocation> findByFilter(
+      LocationFilter filter,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit);
+
+  /**
+   * Search at most the given number of food truck locations within a longitude and latitude box, in
+   * a stable order.
+   *
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations.
+   */
+  Flux<MapLocation> findWithinBox(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, int limit);
+
+  /**
+   * Stream all food truck locations.
+   *
+   * @return Flux<MapLocation> a stream of all food truck locations.
+   */
+  Flux<MapLocation> findAllLocations();
+
+  /**
+   * This method finds the cached generation of the food truck locations, see {@link
+   * FoodTruckVersion}.
+   *
+   * @return Mono<String> the version of the food truck locations, or empty without a generation.
+   */
+  Mono<String> findVersion();
+}
@@ -0,0 +1,585 @@
+package com.location.finder.mongo;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+import com.location.finder.core.datasource.LocationFilter;
+import com.location.finder.core.index.AttributeIndex;
+import com.location.finder.core.index.PrefixIndex;
+import com.location.finder.model.MapLocation;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.bson.BsonRegularExpression;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The implementation of FoodTruckSearchRepository that is picked up by Spring Data by its name.
+ * Matching documents are decoded with FoodTruckCodec directly from the wire, which skips the
+ * intermediate document and the conversion service of the MappingMongoConverter.
+ *
+ * <p>The search runs as a $geoNear aggregation. The server sorts the locations by distance, stops
+ * after the requested number of locations and sends only the fields of the data model together with
+ * the computed distance. The filter of the names and the attributes of a search is matched by the
+ * server too, in the query of the $geoNear stage, so the limit applies to the matching locations.
+ *
+ * <p>The box search runs as a $geoWithin query, sorted by id so that the same box returns the same
+ * locations in the same order. The polygons of the query cover the box and select the candidates
+ * with the 2dsphere index, and the exact longitude and latitude ranges of the box are matched by
+ * the server, so a box has the same locations as in the in-memory data sources at every zoom level.
+ *
+ * <p>If the locations are split into partitions, see {@link FoodTruckPartitions}, a search runs on
+ * every partition that intersects its area, and the partial results are merged by distance, or by
+ * id for a box, before the limit is applied.
+ *
+ * <p>If the {@link FoodTruckIndex} is enabled, the searches by distance are answered from its
+ * in-process copy instead, which is reloaded when the data version changes, and only the box
+ * searches, the listing of all locations and the searches before the first copy is loaded read the
+ * database.
+ */
+public class FoodTruckSearchRepositoryImpl implements FoodTruckSearchRepository {
+
+  /** Codec to decode food truck documents. */
+  private static final FoodTruckCodec CODEC = new FoodTruckCodec();
+
+  /** The fields sent by the server for every location, the ones of the data model. */
+  private static final Document PROJECTION =
+      new Document("name", 1)
+          .append("location", 1)
+          .append("facilityType", 1)
+          .append("status", 1)
+          .append("foodItems", 1)
+          .append("distance", 1);
+
+  /** The fields sent by the server for every location of a box search. */
+  private static final Document BOX_PROJECTION = new Document("name", 1).append("location", 1);
+
+  /**
+   * Max longitude span of a polygon of a box search, so that every polygon is smaller than a
+   * hemisphere and its interior is the box.
+   */
+  private static final double MAX_POLYGON_WIDTH = 90;
+
+  /** Max longitude span of an edge of a polygon along a parallel of the box. */
+  private static final double MAX_EDGE_WIDTH = 1;
+
+  /** The stable order of a box search. */
+  private static final Document BOX_SORT = new Document("_id", 1);
+
+  /** A character that is a part of a word of a name or an attribute value. */
+  private static final String WORD_CHARACTER = "[\\p{L}\\p{N}]";
+
+  /**
+   * The characters of every letter, by the letter normalized by {@link PrefixIndex#normalize}, e.g.
+   * "eEèéêëÈÉÊË..." for "e". Only the letters of the Basic Multilingual Plane that more than one
+   * character is normalized to are kept, the other characters only match themselves.
+   */
+  private static final Map<Character, String> FOLDED_LETTERS = foldedLetters();
+
+  /** The order of the locations of the partitions of a search. */
+  private static final Comparator<MapLocation> DISTANCE =
+      Comparator.comparingDouble(MapLocation::getDistance);
+
+  /** The order of the locations of the partitions of a box search. */
+  private static final Comparator<MapLocation> ID = Comparator.comparing(MapLocation::getId);
+
+  /** Reactive MongoDB template to access the food truck collection. */
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  /** The partitions of the food truck collection. */
+  private final FoodTruckPartitions partitions;
+
+  /** The data version of the food truck locations. */
+  private final FoodTruckVersion version;
+
+  /** The in-process copy of the food truck locations, or null if it is disabled. */
+  private final FoodTruckIndex index;
+
+  /**
+   * The public constructor to be called by Spring CDI context.
+   *
+   * @param reactiveMongoTemplate Reactive MongoDB template to access the food truck collection.
+   * @param partitions The partitions of the food truck collection.
+   * @param version The data version of the food truck locations.
+   * @param index The in-process copy of the food truck locations, if it is enabled.
+   */
+  public FoodTruckSearchRepositoryImpl(
+      ReactiveMongoTemplate reactiveMongoTemplate,
+      FoodTruckPartitions partitions,
+      FoodTruckVersion version,
+      Optional<FoodTruckIndex> index) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.partitions = partitions;
+    this.version = version;
+    this.index = index.orElse(null);
+  }
+
+  @Override
+  public Mono<String> findVersion() {
+    return version.current();
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance) {
+    return findByCoordinates(longitude, latitude, maxDistance, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit) {
+    return findByCoordinates(longitude, latitude, 0, maxDistance, limit);
+  }
+
+  /**
+   * Run a $geoNear aggregation on the food truck collection. The coordinates and the distances are
+   * passed as values of the pipeline documents, so they cannot be used for injection attacks. The
+   * limit is sent both as a $limit stage and as the cursor batch size, so that the result is sent
+   * in a single batch. A min distance is sent as the minDistance of the stage, so the locations
+   * closer than the ring of an expanded search are neither read nor sent again.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations with their distance to the center.
+   */
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit) {
+    return indexed(
+        copy -> copy.findByCoordinates(longitude, latitude, minDistance, maxDistance, limit),
+        () -> geoNear(longitude, latitude, minDistance, maxDistance, limit, null));
+  }
+
+  /**
+   * Run a $geoNear aggregation with the filter of the names and the attributes as the query of the
+   * stage, see {@link #filterQuery}. The query is the only match of the filter, so the server stops
+   * after the requested number of matching locations and every one of them is published.
+   *
+   * @param filter The filter of the names and the attributes of the locations.
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of matching food truck locations ordered by distance.
+   */
+  @Override
+  public Flux<MapLocation> findByFilter(
+      LocationFilter filter,
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit) {
+    return indexed(
+        copy -> copy.findByFilter(filter, longitude, latitude, minDistance, maxDistance, limit),
+        () -> {
+          Document query = filterQuery(filter);
+          if (query == null) {
+            return Flux.empty();
+          }
+          return geoNear(longitude, latitude, minDistance, maxDistance, limit, query);
+        });
+  }
+
+  /**
+   * Run a search on the in-process copy of the locations if it is enabled and loaded, or on the
+   * database otherwise. Every search checks the copy against the cached data version, which starts
+   * loading a new copy in the background if the data changed. If the version can not be read, the
+   * loaded copy keeps answering.
+   *
+   * @param indexed the search of the in-process copy.
+   * @param database the search of the database.
+   * @return Flux<MapLocation> the locations of the search.
+   */
+  private Flux<MapLocation> indexed(
+      Function<FoodTruckIndex, Flux<MapLocation>> indexed, Supplier<Flux<MapLocation>> database) {
+    if (index == null) {
+      return database.get();
+    }
+    return version
+        .current()
+        .defaultIfEmpty("")
+        .map(current -> index.update(current, findAllLocations()))
+        .onErrorResume(error -> Mono.fromSupplier(index::isLoaded))
+        .flatMapMany(loaded -> loaded ? indexed.apply(index) : database.get());
+  }
+
+  /** Run a $geoNear aggregation on the partitions of the ring, see {@link #pipeline}. */
+  private Flux<MapLocation> geoNear(
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit,
+      Document query) {
+    List<Document> pipeline = pipeline(longitude, latitude, minDistance, maxDistance, limit, query);
+    boolean limited = limit < Integer.MAX_VALUE;
+    return search(
+        partitions.collections(longitude, latitude, maxDistance),
+        collection -> collection.aggregate(pipeline).batchSize(limited ? limit : 0),
+        DISTANCE,
+        limit);
+  }
+
+  /**
+   * Create the $geoNear pipeline of a ring. The method is package-private to be tested without a
+   * server.
+   *
+   * @param longitude The longitude of the center location to search for other locations.
+   * @param latitude The latitude of the center location to search for other locations.
+   * @param minDistance The min distance to search from center, in meters.
+   * @param maxDistance The max distance to search from center, in meters.
+   * @param limit The max number of locations to return, Integer.MAX_VALUE for no limit.
+   * @param query The query of the locations, or null to match all of them.
+   * @return List<Document> the stages of the pipeline.
+   */
+  static List<Document> pipeline(
+      double longitude,
+      double latitude,
+      double minDistance,
+      double maxDistance,
+      int limit,
+      Document query) {
+    Document geoNear =
+        new Document(
+                "near",
+                new Document("type", "Point").append("coordinates", List.of(longitude, latitude)))
+            .append("distanceField", "distance")
+            .append("maxDistance", maxDistance)
+            .append("spherical", true)
+            .append("key", "location");
+    if (minDistance > 0) {
+      geoNear.append("minDistance", minDistance);
+    }
+    if (query != null) {
+      geoNear.append("query", query);
+    }
+    List<Document> pipeline = new ArrayList<>(3);
+    pipeline.add(new Document("$geoNear", geoNear));
+    if (limit < Integer.MAX_VALUE) {
+      pipeline.add(new Document("$limit", limit));
+    }
+    pipeline.add(new Document("$project", PROJECTION));
+    return pipeline;
+  }
+
+  /**
+   * Create the query of the locations that match a filter of names and attributes, the same way as
+   * {@link LocationFilter#matches}. The values are sent as regular expressions, built from the
+   * normalized filter values:
+   *
+   * <ul>
+   *   <li>The name prefix matches at the start of a word of the name.
+   *   <li>A word of an attribute value matches a whole word of the attribute, and a value matches
+   *       if the attribute has all of its words. An attribute matches if any of its values matches.
+   *   <li>Every letter matches its upper case and its accented characters, so the query ignores
+   *       case and accents like the filter.
+   * </ul>
+   *
+   * <p>The other characters are escaped, so the filter values cannot be used for injection attacks.
+   * The method is package-private to be tested without a server.
+   *
+   * @param filter The filter of the names and the attributes of the locations.
+   * @return Document the query of the filter, or null if no location can match it.
+   */
+  static Document filterQuery(LocationFilter filter) {
+    List<Document> clauses = new ArrayList<>(4);
+    if (filter.getName() != null) {
+      String prefix = PrefixIndex.normalize(filter.getName());
+      if (!prefix.isEmpty()) {
+        clauses.add(
+            new Document(
+                "name",
+                new BsonRegularExpression("(?<!" + WORD_CHARACTER + ")" + pattern(prefix))));
+      }
+    }
+    Map<String, List<String>> attributes = new LinkedHashMap<>();
+    attributes.put("facilityType", filter.getFacilityType());
+    attributes.put("status", filter.getStatus());
+    attributes.put("foodItems", filter.getFoodItem());
+    for (Map.Entry<String, List<String>> attribute : attributes.entrySet()) {
+      if (attribute.getValue().isEmpty()) {
+        continue;
+      }
+      Document clause = attributeQuery(attribute.getKey(), attribute.getValue());
+      if (clause == null) {
+        return null;
+      }
+      clauses.add(clause);
+    }
+    if (clauses.size() == 1) {
+      return clauses.get(0);
+    }
+    return clauses.isEmpty() ? new Document() : new Document("$and", clauses);
+  }
+
+  /**
+   * Create the query of an attribute that matches any of the filter values.
+   *
+   * @param field the field of the attribute.
+   * @param values the filter values.
+   * @return Document the query of the attribute, or null if none of the values has a word.
+   */
+  private static Document attributeQuery(String field, List<String> values) {
+    List<Document> any = new ArrayList<>(values.size());
+    for (String value : values) {
+      Set<String> words = AttributeIndex.words(value);
+      if (words.isEmpty()) {
+        continue;
+      }
+      List<Document> all = new ArrayList<>(words.size());
+      for (String word : new TreeSet<>(words)) {
+        all.add(
+            new Document(
+                field,
+                new BsonRegularExpression(
+                    "(?<!" + WORD_CHARACTER + ")" + pattern(word) + "(?!" + WORD_CHARACTER + ")")));
+      }
+      any.add(all.size() == 1 ? all.get(0) : new Document("$and", all));
+    }
+    if (any.isEmpty()) {
+      return null;
+    }
+    return any.size() == 1 ? any.get(0) : new Document("$or", any);
+  }
+
+  /**
+   * Create the regular expression of a normalized value. Letters match their folded characters,
+   * ASCII letters and digits match themselves and the other characters are escaped by their code
+   * point.
+   */
+  private static String pattern(String normalized) {
+    StringBuilder pattern = new StringBuilder();
+    normalized
+        .codePoints()
+        .forEach(
+            codePoint -> {
+              String folded =
+                  codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT
+                      ? FOLDED_LETTERS.get((char) codePoint)
+                      : null;
+              if (folded != null) {
+                pattern.append('[').append(folded).append(']');
+              } else if (codePoint < 128 && Character.isLetterOrDigit(codePoint)) {
+                pattern.appendCodePoint(codePoint);
+              } else {
+                pattern.append("\\x{").append(Integer.toHexString(codePoint)).append('}');
+              }
+            });
+    return pattern.toString();
+  }
+
+  /** Group the letters of the Basic Multilingual Plane by their normalized letter. */
+  private static Map<Character, String> foldedLetters() {
+    Map<Character, StringBuilder> letters = new HashMap<>();
+    for (char c = 0; c < Character.MAX_VALUE; c++) {
+      if (!Character.isLetter(c) || Character.isSurrogate(c)) {
+        continue;
+      }
+      String normalized = PrefixIndex.normalize(String.valueOf(c));
+      if (normalized.length() == 1) {
+        letters.computeIfAbsent(normalized.charAt(0), l -> new StringBuilder()).append(c);
+      }
+    }
+    Map<Character, String> folded = new HashMap<>();
+    letters.forEach(
+        (letter, characters) -> {
+          if (characters.length() > 1) {
+            folded.put(letter, characters.toString());
+          }
+        });
+    return folded;
+  }
+
+  /**
+   * Run a $geoWithin query on the food truck collection. Like the $geoNear search, the values are
+   * passed as documents and the limit is used as the batch size. See {@link #boxFilter} for the
+   * query of the box.
+   *
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> a stream of food truck locations ordered by id.
+   */
+  @Override
+  public Flux<MapLocation> findWithinBox(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, int limit) {
+    Document filter = boxFilter(minLongitude, minLatitude, maxLongitude, maxLatitude);
+    return search(
+        partitions.collections(minLongitude, minLatitude, maxLongitude, maxLatitude),
+        collection ->
+            collection
+                .find(filter)
+                .projection(BOX_PROJECTION)
+                .sort(BOX_SORT)
+                .limit(limit)
+                .batchSize(limit),
+        ID,
+        limit);
+  }
+
+  /**
+   * Create the query of the locations within a longitude and latitude box, edges included. The box
+   * is sent as GeoJSON polygons instead of a legacy $box, as only the $geometry form of $geoWithin
+   * can use the 2dsphere index of the location field. The edges of a polygon are geodesics, which
+   * bow towards the pole from the parallels of the box, so the polygons are built to cover the box:
+   *
+   * <ul>
+   *   <li>A box wider than 90 degrees is split into polygons of at most 90 degrees, as a polygon
+   *       must be smaller than a hemisphere and its edges shorter than 180 degrees.
+   *   <li>The parallel edges have a vertex at least every degree of longitude, so they bow by at
+   *       most a few hundred meters.
+   *   <li>An edge that bows into the box, the one closer to the equator, is moved away from the box
+   *       by twice its bow.
+   * </ul>
+   *
+   * <p>The polygons only select the candidates, the longitude and latitude ranges of the box decide
+   * which locations are within it. The method is package-private to be tested without a server.
+   *
+   * @param minLongitude The longitude of the west edge of the box.
+   * @param minLatitude The latitude of the south edge of the box.
+   * @param maxLongitude The longitude of the east edge of the box.
+   * @param maxLatitude The latitude of the north edge of the box.
+   * @return Document the filter of the locations within the box.
+   */
+  static Document boxFilter(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+    Document filter =
+        new Document(
+                "location.coordinates.0",
+                new Document("$gte", minLongitude).append("$lte", maxLongitude))
+            .append(
+                "location.coordinates.1",
+                new Document("$gte", minLatitude).append("$lte", maxLatitude));
+    int pieces = Math.max(1, (int) Math.ceil((maxLongitude - minLongitude) / MAX_POLYGON_WIDTH));
+    List<Document> within = new ArrayList<>(pieces);
+    for (int i = 0; i < pieces; i++) {
+      double west = minLongitude + (maxLongitude - minLongitude) * i / pieces;
+      double east =
+          i == pieces - 1
+              ? maxLongitude
+              : minLongitude + (maxLongitude - minLongitude) * (i + 1) / pieces;
+      within.add(
+          new Document(
+              "$geoWithin",
+              new Document("$geometry", polygon(west, minLatitude, east, maxLatitude))));
+    }
+    if (pieces == 1) {
+      return filter.append("location", within.get(0));
+    }
+    List<Document> any = new ArrayList<>(pieces);
+    for (Document piece : within) {
+      any.add(new Document("location", piece));
+    }
+    return filter.append("$or", any);
+  }
+
+  /** Create a GeoJSON polygon that covers a box narrower than a hemisphere. */
+  private static Document polygon(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+    int steps = Math.max(1, (int) Math.ceil((maxLongitude - minLongitude) / MAX_EDGE_WIDTH));
+    double step = (maxLongitude - minLongitude) / steps;
+    double south = minLatitude > 0 ? minLatitude - 2 * bow(minLatitude, step) : minLatitude;
+    double north = maxLatitude < 0 ? maxLatitude + 2 * bow(-maxLatitude, step) : maxLatitude;
+    List<List<Double>> ring = new ArrayList<>(2 * steps + 3);
+    for (int i = 0; i <= steps; i++) {
+      ring.add(List.of(i == steps ? maxLongitude : minLongitude + i * step, south));
+    }
+    for (int i = steps; i >= 0; i--) {
+      ring.add(List.of(i == steps ? maxLongitude : minLongitude + i * step, north));
+    }
+    ring.add(ring.get(0));
+    return new Document("type", "Polygon").append("coordinates", List.of(ring));
+  }
+
+  /**
+   * The max distance in degrees of latitude between a parallel and the geodesic between two of its
+   * points, which is reached at the middle of the geodesic.
+   *
+   * @param latitude the latitude of the parallel, in the northern hemisphere.
+   * @param width the longitude span of the geodesic.
+   * @return the bow of the geodesic towards the pole.
+   */
+  private static double bow(double latitude, double width) {
+    double vertex =
+        Math.atan(Math.tan(Math.toRadians(latitude)) / Math.cos(Math.toRadians(width / 2)));
+    return Math.toDegrees(vertex) - latitude;
+  }
+
+  /**
+   * Stream the food truck locations of every partition, one partition after the other.
+   *
+   * @return Flux<MapLocation> a stream of all food truck locations.
+   */
+  @Override
+  public Flux<MapLocation> findAllLocations() {
+    return partitions
+        .collections()
+        .flatMapMany(
+            names ->
+                Flux.fromIterable(names)
+                    .concatMap(name -> collection(name).flatMapMany(MongoCollection::find)))
+        .cast(MapLocation.class);
+  }
+
+  /**
+   * Run a query on the given partitions, and merge their ordered results.
+   *
+   * @param names the names of the partition collections to query.
+   * @param query the query of a partition, which returns the locations in the given order.
+   * @param order the order of the locations of every partition.
+   * @param limit The max number of locations to return.
+   * @return Flux<MapLocation> the merged stream of the locations of the partitions.
+   */
+  private Flux<MapLocation> search(
+      Mono<List<String>> names,
+      Function<MongoCollection<FoodTruck>, Publisher<FoodTruck>> query,
+      Comparator<MapLocation> order,
+      int limit) {
+    return names
+        .flatMapMany(
+            collections -> {
+              if (collections.size() == 1) {
+                return collection(collections.get(0)).flatMapMany(query);
+              }
+              @SuppressWarnings("unchecked")
+              Flux<MapLocation>[] searches = new Flux[collections.size()];
+              for (int i = 0; i < searches.length; i++) {
+                searches[i] =
+                    collection(collections.get(i)).flatMapMany(query).cast(MapLocation.class);
+              }
+              return Flux.mergeComparing(order, searches).take(limit);
+            })
+        .cast(MapLocation.class);
+  }
+
+  private Mono<MongoCollection<FoodTruck>> collection(String name) {
+    return reactiveMongoTemplate
+        .getCollection(name)
+        .map(
+            collection ->
+                collection
+                    .withDocumentClass(FoodTruck.class)
+                    .withCodecRegistry(
+                        fromRegistries(fromCodecs(CODEC), collection.getCodecRegistry())));
+  }
+}
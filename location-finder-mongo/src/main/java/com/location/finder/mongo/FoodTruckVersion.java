@@ -0,0 +1,92 @@
+package com.location.finder.mongo;
+
+import java.time.Duration;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * FoodTruckVersion is the data version of the food truck locations. The version is a generation
+ * counter stored in the data-versions collection next to the food truck collections, and the
+ * importer increments it after every import, so the version changes whenever the locations may have
+ * changed. The application derives the validators of the search responses from it.
+ *
+ * <p>The version is read from the database and cached for the refresh interval, so a search never
+ * waits for the database to know the version, and the validators change at most one interval after
+ * an import. Without a generation, e.g. before the first import that stamps it, there is no
+ * version.
+ */
+@Component
+public class FoodTruckVersion {
+
+  /** Name of the collection of the data versions. */
+  public static final String COLLECTION = "data-versions";
+
+  /** Field of the generation counter. */
+  private static final String GENERATION = "generation";
+
+  /** Reactive MongoDB template to read and increment the generation. */
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  /** The cached version. */
+  private final Mono<String> version;
+
+  /**
+   * The public constructor to be called by Spring CDI context.
+   *
+   * @param reactiveMongoTemplate Reactive MongoDB template to read and increment the generation.
+   * @param refreshInterval How long the version is cached.
+   */
+  public FoodTruckVersion(
+      ReactiveMongoTemplate reactiveMongoTemplate,
+      @Value("${location.finder.version.refresh-interval}") Duration refreshInterval) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.version =
+        Mono.defer(this::read)
+            .cache(value -> refreshInterval, error -> Duration.ZERO, () -> refreshInterval);
+  }
+
+  /**
+   * The cached version of the food truck locations.
+   *
+   * @return Mono<String> the version, or empty if the locations have no generation.
+   */
+  public Mono<String> current() {
+    return version;
+  }
+
+  /**
+   * Read the version from the database, without the cache.
+   *
+   * @return Mono<String> the version, or empty if the locations have no generation.
+   */
+  public Mono<String> read() {
+    return reactiveMongoTemplate
+        .findById(FoodTruckPartitions.COLLECTION, Document.class, COLLECTION)
+        .flatMap(document -> Mono.justOrEmpty(document.get(GENERATION, Number.class)))
+        .map(generation -> Long.toString(generation.longValue()));
+  }
+
+  /**
+   * Increment the generation after the locations were written. The first increment creates the
+   * generation.
+   *
+   * @return Mono<Long> the new generation.
+   */
+  public Mono<Long> increment() {
+    return reactiveMongoTemplate
+        .findAndModify(
+            Query.query(Criteria.where("_id").is(FoodTruckPartitions.COLLECTION)),
+            new Update().inc(GENERATION, 1L).currentDate("updatedAt"),
+            FindAndModifyOptions.options().upsert(true).returnNew(true),
+            Document.class,
+            COLLECTION)
+        .map(document -> document.get(GENERATION, Number.class).longValue());
+  }
+}
@@ -0,0 +1,34 @@
+package com.location.finder.mongo;
+
+import com.location.finder.model.LocationCoordinates;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Converter that reads a GeoJSON object into the primitive LocationCoordinates model. The values
+ * are read straight from the decoded document, without creating an intermediate list of boxed
+ * numbers for every location.
+ *
+ * <p>ReadingConverter annotation registers this converter for reading documents only.
+ */
+@ReadingConverter
+public class LocationCoordinatesReadConverter implements Converter<Document, LocationCoordinates> {
+
+  /**
+   * Convert a GeoJSON object into coordinates.
+   *
+   * @param source Document in GeoJSON format with longitude at index 0 and latitude at index 1.
+   * @return LocationCoordinates read from the document.
+   */
+  @Override
+  public LocationCoordinates convert(Document source) {
+    List<?> coordinates = source.get("coordinates", List.class);
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType(source.getString("type"));
+    locationCoordinates.setLongitude(((Number) coordinates.get(0)).doubleValue());
+    locationCoordinates.setLatitude(((Number) coordinates.get(1)).doubleValue());
+    return locationCoordinates;
+  }
+}
@@ -0,0 +1,29 @@
+package com.location.finder.mongo;
+
+import com.location.finder.model.LocationCoordinates;
+import java.util.List;
+import org.bson.Document;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+/**
+ * Converter that stores the primitive LocationCoordinates model as a GeoJSON object, so that the
+ * documents can be indexed by a 2dsphere index and queried with geospatial operators.
+ *
+ * <p>WritingConverter annotation registers this converter for writing documents only.
+ */
+@WritingConverter
+public class LocationCoordinatesWriteConverter implements Converter<LocationCoordinates, Document> {
+
+  /**
+   * Convert the coordinates into a GeoJSON object.
+   *
+   * @param source LocationCoordinates to be stored.
+   * @return Document in GeoJSON format with longitude at index 0 and latitude at index 1.
+   */
+  @Override
+  public Document convert(LocationCoordinates source) {
+    return new Document("type", source.getType())
+        .append("coordinates", List.of(source.getLongitude(), source.getLatitude()));
+  }
+}
@@ -0,0 +1,208 @@
+package com.location.finder.mongo;
+
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * A BSON codec that reads location documents straight into the MapLocation data model. The GeoJSON
+ * coordinates are read as primitive values from the wire, so that a search does not create an
+ * intermediate document, a list of boxed numbers, or go through the Spring conversion service for
+ * every location. The distance computed by a geo query is read into the distance of the location.
+ * Fields that are not part of the data model are skipped.
+ *
+ * @param <T> type of the location model.
+ */
+public class MapLocationCodec<T extends MapLocation> implements Codec<T> {
+
+  /** Type of the location model. */
+  private final Class<T> type;
+
+  /** Factory of new location model instances. */
+  private final Supplier<T> factory;
+
+  /**
+   * Create a codec for a location model.
+   *
+   * @param type type of the location model.
+   * @param factory factory of new location model instances.
+   */
+  public MapLocationCodec(Class<T> type, Supplier<T> factory) {
+    this.type = type;
+    this.factory = factory;
+  }
+
+  @Override
+  public T decode(BsonReader reader, DecoderContext decoderContext) {
+    T mapLocation = factory.get();
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      String name = reader.readName();
+      if ("_id".equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+        mapLocation.setId(reader.readString());
+      } else if ("_id".equals(name) && reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+        mapLocation.setId(reader.readObjectId().toHexString());
+      } else if ("name".equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+        mapLocation.setName(reader.readString());
+      } else if ("facilityType".equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+        mapLocation.setFacilityType(reader.readString());
+      } else if ("status".equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+        mapLocation.setStatus(reader.readString());
+      } else if ("foodItems".equals(name) && reader.getCurrentBsonType() == BsonType.ARRAY) {
+        mapLocation.setFoodItems(decodeStrings(reader));
+      } else if ("location".equals(name) && reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+        mapLocation.setLocation(decodeCoordinates(reader));
+      } else if ("distance".equals(name) && isNumber(reader.getCurrentBsonType())) {
+        mapLocation.setDistance(readNumber(reader));
+      } else if (!decodeField(name, reader, mapLocation)) {
+        reader.skipValue();
+      }
+    }
+    reader.readEndDocument();
+    return mapLocation;
+  }
+
+  @Override
+  public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+    writer.writeStartDocument();
+    if (value.getId() != null) {
+      writer.writeString("_id", value.getId());
+    }
+    if (value.getName() != null) {
+      writer.writeString("name", value.getName());
+    }
+    LocationCoordinates coordinates = value.getLocation();
+    if (coordinates != null) {
+      writer.writeStartDocument("location");
+      writer.writeString("type", coordinates.getType());
+      writer.writeStartArray("coordinates");
+      writer.writeDouble(coordinates.getLongitude());
+      writer.writeDouble(coordinates.getLatitude());
+      writer.writeEndArray();
+      writer.writeEndDocument();
+    }
+    if (value.getFacilityType() != null) {
+      writer.writeString("facilityType", value.getFacilityType());
+    }
+    if (value.getStatus() != null) {
+      writer.writeString("status", value.getStatus());
+    }
+    if (value.getFoodItems() != null) {
+      writer.writeStartArray("foodItems");
+      for (String foodItem : value.getFoodItems()) {
+        writer.writeString(foodItem);
+      }
+      writer.writeEndArray();
+    }
+    encodeFields(writer, value);
+    writer.writeEndDocument();
+  }
+
+  /**
+   * Read a field that is not a part of the MapLocation data model. Subclasses can override this
+   * method to read the fields of their location model.
+   *
+   * @param name name of the field.
+   * @param reader reader positioned at the value of the field.
+   * @param mapLocation the location being decoded.
+   * @return true if the value was read, false if it should be skipped.
+   */
+  protected boolean decodeField(String name, BsonReader reader, T mapLocation) {
+    return false;
+  }
+
+  /**
+   * Write the fields that are not a part of the MapLocation data model. Subclasses can override
+   * this method to write the fields of their location model.
+   *
+   * @param writer writer positioned in the location document.
+   * @param value the location being encoded.
+   */
+  protected void encodeFields(BsonWriter writer, T value) {}
+
+  @Override
+  public Class<T> getEncoderClass() {
+    return type;
+  }
+
+  /**
+   * Read a GeoJSON point into LocationCoordinates.
+   *
+   * @param reader reader positioned at the GeoJSON document.
+   * @return LocationCoordinates read from the document.
+   */
+  private static LocationCoordinates decodeCoordinates(BsonReader reader) {
+    LocationCoordinates coordinates = new LocationCoordinates();
+    reader.readStartDocument();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      String name = reader.readName();
+      if ("type".equals(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+        coordinates.setType(reader.readString());
+      } else if ("coordinates".equals(name) && reader.getCurrentBsonType() == BsonType.ARRAY) {
+        reader.readStartArray();
+        if (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          coordinates.setLongitude(readNumber(reader));
+          if (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            coordinates.setLatitude(readNumber(reader));
+          }
+        }
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          reader.skipValue();
+        }
+        reader.readEndArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.readEndDocument();
+    return coordinates;
+  }
+
+  /**
+   * Read an array into a list of its string values. Values of other types are skipped.
+   *
+   * @param reader reader positioned at the array.
+   * @return the string values of the array.
+   */
+  private static List<String> decodeStrings(BsonReader reader) {
+    List<String> values = new ArrayList<>();
+    reader.readStartArray();
+    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+      if (reader.getCurrentBsonType() == BsonType.STRING) {
+        values.add(reader.readString());
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.readEndArray();
+    return values;
+  }
+
+  private static boolean isNumber(BsonType bsonType) {
+    return bsonType == BsonType.DOUBLE
+        || bsonType == BsonType.INT32
+        || bsonType == BsonType.INT64
+        || bsonType == BsonType.DECIMAL128;
+  }
+
+  private static double readNumber(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case INT32:
+        return reader.readInt32();
+      case INT64:
+        return reader.readInt64();
+      case DECIMAL128:
+        return reader.readDecimal128().doubleValue();
+      default:
+        return reader.readDouble();
+    }
+  }
+}
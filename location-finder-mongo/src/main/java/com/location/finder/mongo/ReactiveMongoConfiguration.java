@@ -1,8 +1,11 @@
 package com.location.finder.mongo;
 
+import java.util.List;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
 /**
@@ -20,4 +23,27 @@ import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRep
 @Configuration
 @EnableAutoConfiguration(exclude = {MongoAutoConfiguration.class})
 @EnableReactiveMongoRepositories
-public class ReactiveMongoConfiguration {}
+public class ReactiveMongoConfiguration {
+
+  /**
+   * Custom conversions for storing the data model as GeoJSON. Spring Boot's MongoDB
+   * autoconfiguration picks up this bean instead of its default conversions.
+   *
+   * @return MongoCustomConversions with the GeoJSON coordinate converters.
+   */
+  @Bean
+  public MongoCustomConversions mongoCustomConversions() {
+    return customConversions();
+  }
+
+  /**
+   * Create the custom conversions for storing the data model as GeoJSON. This method is also used
+   * by the benchmarks to convert documents without an application context.
+   *
+   * @return MongoCustomConversions with the GeoJSON coordinate converters.
+   */
+  public static MongoCustomConversions customConversions() {
+    return new MongoCustomConversions(
+        List.of(new LocationCoordinatesWriteConverter(), new LocationCoordinatesReadConverter()));
+  }
+}
@@ -0,0 +1,66 @@
+package com.location.finder.mongo;
+
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+class FoodTruckIndexTests {
+
+  @Test
+  void testCopyIsReloadedWhenTheVersionChanges() {
+    FoodTruckIndex index = new FoodTruckIndex();
+    AtomicInteger loads = new AtomicInteger();
+    Sinks.Many<MapLocation> first = Sinks.many().unicast().onBackpressureBuffer();
+    Flux<MapLocation> loading = first.asFlux().doOnSubscribe(s -> loads.incrementAndGet());
+
+    // The searches are answered by the database until the first copy is loaded, once.
+    Assertions.assertFalse(index.update("1", loading));
+    Assertions.assertFalse(index.update("1", loading));
+    Assertions.assertEquals(1, loads.get());
+    first.tryEmitNext(foodTruck("a"));
+    first.tryEmitComplete();
+    Assertions.assertTrue(index.isLoaded());
+    Assertions.assertEquals(1, index.size());
+
+    // The same version is not loaded again, a new one is.
+    Flux<MapLocation> reload =
+        Flux.defer(
+            () -> {
+              loads.incrementAndGet();
+              return Flux.just(foodTruck("a"), foodTruck("b"));
+            });
+    Assertions.assertTrue(index.update("1", reload));
+    Assertions.assertEquals(1, loads.get());
+    Assertions.assertTrue(index.update("2", reload));
+    Assertions.assertEquals(2, loads.get());
+    Assertions.assertEquals(2, index.size());
+
+    // A failed load keeps the previous copy, and is retried by the next search.
+    Flux<MapLocation> failing =
+        Flux.defer(
+            () -> {
+              loads.incrementAndGet();
+              return Flux.error(new IllegalStateException("Connection refused"));
+            });
+    Assertions.assertTrue(index.update("3", failing));
+    Assertions.assertTrue(index.update("3", failing));
+    Assertions.assertEquals(4, loads.get());
+    Assertions.assertEquals(2, index.size());
+  }
+
+  private static FoodTruck foodTruck(String id) {
+    FoodTruck foodTruck = new FoodTruck();
+    foodTruck.setId(id);
+    foodTruck.setName(id);
+    LocationCoordinates coordinates = new LocationCoordinates();
+    coordinates.setType("Point");
+    coordinates.setLongitude(-122.4);
+    coordinates.setLatitude(37.8);
+    foodTruck.setLocation(coordinates);
+    return foodTruck;
+  }
+}
@@ -0,0 +1,80 @@
+package com.location.finder.mongo;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.location.finder.core.index.GeoMath;
+import com.location.finder.model.LocationCoordinates;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+class FoodTruckPartitionsTests {
+
+  @Test
+  void testCollectionsIntersectSearchCircle() {
+    Random random = new Random(42);
+    List<FoodTruck> foodTrucks = new ArrayList<>();
+    Set<String> names = new TreeSet<>();
+    FoodTruckPartitions partitions = new FoodTruckPartitions(null, 4, Duration.ofMinutes(1));
+    for (int i = 0; i < 2000; i++) {
+      FoodTruck foodTruck =
+          foodTruck(-122.9 + random.nextDouble() * 0.9, 37.3 + random.nextDouble() * 0.6);
+      foodTrucks.add(foodTruck);
+      names.add(partitions.collection(foodTruck));
+    }
+    ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+    List<String> all = new ArrayList<>(names);
+    all.add("food-trucks");
+    all.add("food-trucks-9q8");
+    all.add("restaurants");
+    doReturn(Flux.fromIterable(all)).when(reactiveMongoTemplate).getCollectionNames();
+    partitions = new FoodTruckPartitions(reactiveMongoTemplate, 4, Duration.ofMinutes(1));
+
+    Assertions.assertEquals(new ArrayList<>(names), partitions.collections().block());
+    for (int query = 0; query < 50; query++) {
+      double longitude = -122.9 + random.nextDouble() * 0.9;
+      double latitude = 37.3 + random.nextDouble() * 0.6;
+      double maxDistance = 200 + random.nextDouble() * 20000;
+      List<String> routed = partitions.collections(longitude, latitude, maxDistance).block();
+      Assertions.assertTrue(routed.size() < names.size() || maxDistance > 10000);
+      for (FoodTruck foodTruck : foodTrucks) {
+        LocationCoordinates coordinates = foodTruck.getLocation();
+        if (GeoMath.distance(
+                longitude, latitude, coordinates.getLongitude(), coordinates.getLatitude())
+            <= maxDistance) {
+          Assertions.assertTrue(routed.contains(partitions.collection(foodTruck)));
+        }
+      }
+    }
+  }
+
+  @Test
+  void testCollectionWithoutPartitions() {
+    FoodTruckPartitions partitions = new FoodTruckPartitions(null, 0, Duration.ofMinutes(1));
+    Assertions.assertEquals("food-trucks", partitions.collection(foodTruck(-122.41, 37.78)));
+    Assertions.assertEquals(
+        List.of("food-trucks"), partitions.collections(-122.41, 37.78, 1).block());
+    Assertions.assertEquals(
+        "food-trucks-9q8y",
+        new FoodTruckPartitions(null, 4, Duration.ofMinutes(1))
+            .collection(foodTruck(-122.414408, 37.784683)));
+  }
+
+  private static FoodTruck foodTruck(double longitude, double latitude) {
+    FoodTruck foodTruck = new FoodTruck();
+    LocationCoordinates coordinates = new LocationCoordinates();
+    coordinates.setType("Point");
+    coordinates.setLongitude(longitude);
+    coordinates.setLatitude(latitude);
+    foodTruck.setLocation(coordinates);
+    return foodTruck;
+  }
+}
@@ -0,0 +1,265 @@
+package com.location.finder.mongo;
+
+import com.location.finder.core.datasource.LocationFilter;
+import com.location.finder.core.dto.LocationCriteria;
+import com.location.finder.core.tile.TileKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDouble;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FoodTruckSearchRepositoryImplTests {
+
+  @Test
+  void testBoxFilterCoversLowZoomTiles() {
+    for (int zoom = 0; zoom <= 2; zoom++) {
+      for (int x = 0; x < 1 << zoom; x++) {
+        for (int y = 0; y < 1 << zoom; y++) {
+          TileKey tile = TileKey.of(List.of("FoodTruck"), zoom, x, y);
+          assertCovers(
+              tile.getMinLongitude(),
+              tile.getMinLatitude(),
+              tile.getMaxLongitude(),
+              tile.getMaxLatitude());
+        }
+      }
+    }
+    assertCovers(-122.5, -37.8, -122.4, -37.7);
+    assertCovers(-0.5, -0.5, 0.5, 0.5);
+  }
+
+  @Test
+  void testBoxFilterOfHighZoomTile() {
+    TileKey tile = TileKey.of(List.of("FoodTruck"), 16, 10482, 25328);
+    Document filter =
+        FoodTruckSearchRepositoryImpl.boxFilter(
+            tile.getMinLongitude(),
+            tile.getMinLatitude(),
+            tile.getMaxLongitude(),
+            tile.getMaxLatitude());
+
+    Assertions.assertEquals(1, polygons(filter).size());
+    Assertions.assertEquals(5, polygons(filter).get(0).size());
+  }
+
+  @Test
+  void testPipelineOfFilter() {
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setStatus(List.of("APPROVED"));
+    Document query = FoodTruckSearchRepositoryImpl.filterQuery(LocationFilter.of(locationCriteria));
+    List<Document> pipeline =
+        FoodTruckSearchRepositoryImpl.pipeline(-122.414408, 37.784683, 100, 5000, 5, query);
+
+    Assertions.assertEquals(3, pipeline.size());
+    Assertions.assertEquals(query, pipeline.get(0).get("$geoNear", Document.class).get("query"));
+    Assertions.assertEquals(
+        100.0, pipeline.get(0).get("$geoNear", Document.class).get("minDistance"));
+    Assertions.assertEquals(5, pipeline.get(1).get("$limit"));
+    Document projection = pipeline.get(2).get("$project", Document.class);
+    for (String field : List.of("name", "location", "facilityType", "status", "foodItems")) {
+      Assertions.assertTrue(projection.containsKey(field), field);
+    }
+  }
+
+  @Test
+  void testFilterQueryMatchesLikeFilter() {
+    LocationCriteria locationCriteria = new LocationCriteria();
+    locationCriteria.setName("cre");
+    locationCriteria.setStatus(List.of("approved"));
+    locationCriteria.setFoodItem(List.of("hot dogs", "taco"));
+    LocationFilter filter = LocationFilter.of(locationCriteria);
+    Document query = FoodTruckSearchRepositoryImpl.filterQuery(filter);
+
+    List<FoodTruck> foodTrucks =
+        List.of(
+            decode("Crème Brûlée Cart", "APPROVED", "Hot Dogs: Drinks"),
+            decode("Le Crêpe", "Approved", "Tacos; Taco Salad"),
+            decode("Acre Kitchen", "APPROVED", "Hot Dogs"),
+            decode("Cream Truck", "REQUESTED", "Hot Dogs"),
+            decode("Cream Truck", "APPROVED", "Hotdogs"),
+            decode("Cream Truck", "APPROVED", "Tacos"),
+            decode("Cream Truck", null, "Hot Dogs"));
+    for (FoodTruck foodTruck : foodTrucks) {
+      Assertions.assertEquals(
+          filter.matches(foodTruck), matches(query, foodTruck), foodTruck.getName());
+    }
+    Assertions.assertTrue(matches(query, foodTrucks.get(0)));
+    Assertions.assertTrue(matches(query, foodTrucks.get(1)));
+
+    locationCriteria.setName("(.*");
+    locationCriteria.setStatus(null);
+    locationCriteria.setFoodItem(null);
+    query = FoodTruckSearchRepositoryImpl.filterQuery(LocationFilter.of(locationCriteria));
+    Assertions.assertFalse(matches(query, decode("Any Truck", "APPROVED", "Tacos")));
+    Assertions.assertTrue(matches(query, decode("Truck (.*", "APPROVED", "Tacos")));
+
+    // The letters beyond the Latin ones are folded too, as the filter is not matched again.
+    locationCriteria.setName("ΚΡΕ");
+    filter = LocationFilter.of(locationCriteria);
+    query = FoodTruckSearchRepositoryImpl.filterQuery(filter);
+    FoodTruck greek = decode("Η Κρέπα", "APPROVED", "Crêpes");
+    Assertions.assertTrue(filter.matches(greek));
+    Assertions.assertTrue(matches(query, greek));
+
+    locationCriteria.setName(null);
+    locationCriteria.setStatus(List.of("--"));
+    Assertions.assertNull(
+        FoodTruckSearchRepositoryImpl.filterQuery(LocationFilter.of(locationCriteria)));
+  }
+
+  /** Decode a food truck with the fields of the $geoNear projection. */
+  private static FoodTruck decode(String name, String status, String foodItem) {
+    BsonDocument document =
+        new BsonDocument("name", new BsonString(name))
+            .append(
+                "location",
+                new BsonDocument("type", new BsonString("Point"))
+                    .append(
+                        "coordinates",
+                        new BsonArray(
+                            List.of(new BsonDouble(-122.414408), new BsonDouble(37.784683)))))
+            .append("facilityType", new BsonString("Truck"))
+            .append("foodItems", new BsonArray(List.of(new BsonString(foodItem))))
+            .append("distance", new BsonDouble(10));
+    if (status != null) {
+      document.append("status", new BsonString(status));
+    }
+    return new FoodTruckCodec()
+        .decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+  }
+
+  /**
+   * Evaluate a query of {@link FoodTruckSearchRepositoryImpl#filterQuery} the way the server does,
+   * with the Java regular expressions, which have the same syntax as the PCRE ones of the query.
+   */
+  private static boolean matches(Document query, FoodTruck foodTruck) {
+    for (Map.Entry<String, Object> clause : query.entrySet()) {
+      boolean match;
+      if ("$and".equals(clause.getKey())) {
+        match = true;
+        for (Object part : (List<?>) clause.getValue()) {
+          match &= matches((Document) part, foodTruck);
+        }
+      } else if ("$or".equals(clause.getKey())) {
+        match = false;
+        for (Object part : (List<?>) clause.getValue()) {
+          match |= matches((Document) part, foodTruck);
+        }
+      } else {
+        Pattern pattern = Pattern.compile(((BsonRegularExpression) clause.getValue()).getPattern());
+        List<String> values;
+        switch (clause.getKey()) {
+          case "name":
+            values = List.of(foodTruck.getName());
+            break;
+          case "status":
+            values = foodTruck.getStatus() == null ? List.of() : List.of(foodTruck.getStatus());
+            break;
+          case "facilityType":
+            values = List.of(foodTruck.getFacilityType());
+            break;
+          default:
+            values = foodTruck.getFoodItems();
+        }
+        match = values.stream().anyMatch(value -> pattern.matcher(value).find());
+      }
+      if (!match) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Assert that the filter matches the exact box, and that its polygons cover the box: they span
+   * its longitudes, are narrower than a hemisphere, and their parallel edges do not bow into it.
+   */
+  private static void assertCovers(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+    Document filter =
+        FoodTruckSearchRepositoryImpl.boxFilter(
+            minLongitude, minLatitude, maxLongitude, maxLatitude);
+    Document longitude = filter.get("location.coordinates.0", Document.class);
+    Document latitude = filter.get("location.coordinates.1", Document.class);
+    Assertions.assertEquals(minLongitude, longitude.getDouble("$gte"));
+    Assertions.assertEquals(maxLongitude, longitude.getDouble("$lte"));
+    Assertions.assertEquals(minLatitude, latitude.getDouble("$gte"));
+    Assertions.assertEquals(maxLatitude, latitude.getDouble("$lte"));
+
+    double west = minLongitude;
+    for (List<List<Double>> ring : polygons(filter)) {
+      Assertions.assertEquals(ring.get(0), ring.get(ring.size() - 1));
+      double ringWest = Double.MAX_VALUE;
+      double ringEast = -Double.MAX_VALUE;
+      for (int i = 0; i < ring.size() - 1; i++) {
+        List<Double> from = ring.get(i);
+        List<Double> to = ring.get(i + 1);
+        ringWest = Math.min(ringWest, from.get(0));
+        ringEast = Math.max(ringEast, from.get(0));
+        if (from.get(1).equals(to.get(1))) {
+          Assertions.assertTrue(Math.abs(to.get(0) - from.get(0)) <= 1 + 1e-9);
+          double middle = middleLatitude(from, to);
+          if (from.get(0) < to.get(0)) {
+            Assertions.assertTrue(middle <= minLatitude, () -> "South edge bows into " + ring);
+          } else {
+            Assertions.assertTrue(middle >= maxLatitude, () -> "North edge bows into " + ring);
+          }
+        } else {
+          Assertions.assertEquals(from.get(0), to.get(0));
+        }
+      }
+      Assertions.assertEquals(west, ringWest, 1e-9);
+      Assertions.assertTrue(ringEast - ringWest <= 90);
+      west = ringEast;
+    }
+    Assertions.assertEquals(maxLongitude, west, 1e-9);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<List<List<Double>>> polygons(Document filter) {
+    List<Document> within = new ArrayList<>();
+    if (filter.containsKey("$or")) {
+      for (Document piece : filter.getList("$or", Document.class)) {
+        within.add(piece.get("location", Document.class));
+      }
+    } else {
+      within.add(filter.get("location", Document.class));
+    }
+    List<List<List<Double>>> rings = new ArrayList<>();
+    for (Document piece : within) {
+      Document polygon = piece.get("$geoWithin", Document.class).get("$geometry", Document.class);
+      rings.add((List<List<Double>>) polygon.getList("coordinates", List.class).get(0));
+    }
+    return rings;
+  }
+
+  /** The latitude of the middle of the geodesic between two points. */
+  private static double middleLatitude(List<Double> from, List<Double> to) {
+    double[] a = vector(from);
+    double[] b = vector(to);
+    double x = a[0] + b[0];
+    double y = a[1] + b[1];
+    double z = a[2] + b[2];
+    return Math.toDegrees(Math.atan2(z, Math.hypot(x, y)));
+  }
+
+  private static double[] vector(List<Double> point) {
+    double longitude = Math.toRadians(point.get(0));
+    double latitude = Math.toRadians(point.get(1));
+    return new double[] {
+      Math.cos(latitude) * Math.cos(longitude),
+      Math.cos(latitude) * Math.sin(longitude),
+      Math.sin(latitude)
+    };
+  }
+}
@@ -0,0 +1,123 @@
+package com.location.finder.mongo;
+
+import static com.mongodb.MongoClientSettings.getDefaultCodecRegistry;
+
+import com.location.finder.model.LocationCoordinates;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+class LocationCoordinatesConverterTests {
+
+  @Test
+  void testWriteAsGeoJson() {
+    FoodTruck foodTruck = new FoodTruck();
+    foodTruck.setId("1569152");
+    foodTruck.setName("Food Truck 1");
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(-122.414408);
+    locationCoordinates.setLatitude(37.784683);
+    foodTruck.setLocation(locationCoordinates);
+
+    Document document = new Document();
+    converter().write(foodTruck, document);
+    new FoodTruckSaveCallback().onBeforeSave(foodTruck, document, "food-trucks");
+
+    Document location = document.get("location", Document.class);
+    Assertions.assertEquals("Point", location.getString("type"));
+    Assertions.assertEquals(List.of(-122.414408, 37.784683), location.get("coordinates"));
+    Assertions.assertFalse(document.containsKey("distance"));
+  }
+
+  @Test
+  void testReadGeoJson() {
+    Document document =
+        new Document("_id", "1569152")
+            .append("name", "Food Truck 1")
+            .append(
+                "location",
+                new Document("type", "Point").append("coordinates", List.of(-122.414408, 37)));
+
+    FoodTruck foodTruck = converter().read(FoodTruck.class, document);
+
+    Assertions.assertEquals("Point", foodTruck.getLocation().getType());
+    Assertions.assertEquals(-122.414408, foodTruck.getLocation().getLongitude());
+    Assertions.assertEquals(37, foodTruck.getLocation().getLatitude());
+  }
+
+  @Test
+  void testCodecRoundTrip() {
+    MapLocationCodec<FoodTruck> codec = new MapLocationCodec<>(FoodTruck.class, FoodTruck::new);
+    Document document =
+        new Document("_id", "1569152")
+            .append("name", "Food Truck 1")
+            .append("permit", "21MFF-00106")
+            .append("status", "APPROVED")
+            .append("foodItems", List.of("Tacos", "Burritos"))
+            .append("distance", 12.5)
+            .append(
+                "location",
+                new Document("type", "Point").append("coordinates", List.of(-122.414408, 37)));
+    BsonDocument bsonDocument = document.toBsonDocument(Document.class, getDefaultCodecRegistry());
+
+    FoodTruck foodTruck =
+        codec.decode(new BsonDocumentReader(bsonDocument), DecoderContext.builder().build());
+
+    Assertions.assertEquals("1569152", foodTruck.getId());
+    Assertions.assertEquals("Food Truck 1", foodTruck.getName());
+    Assertions.assertEquals("Point", foodTruck.getLocation().getType());
+    Assertions.assertEquals(-122.414408, foodTruck.getLocation().getLongitude());
+    Assertions.assertEquals(37, foodTruck.getLocation().getLatitude());
+    Assertions.assertEquals(12.5, foodTruck.getDistance());
+    Assertions.assertEquals("APPROVED", foodTruck.getStatus());
+    Assertions.assertEquals(List.of("Tacos", "Burritos"), foodTruck.getFoodItems());
+
+    BsonDocument encoded = new BsonDocument();
+    codec.encode(new BsonDocumentWriter(encoded), foodTruck, EncoderContext.builder().build());
+    Assertions.assertEquals(
+        BsonDocument.parse(
+            "{_id: '1569152', name: 'Food Truck 1',"
+                + " location: {type: 'Point', coordinates: [-122.414408, 37.0]},"
+                + " status: 'APPROVED', foodItems: ['Tacos', 'Burritos']}"),
+        encoded);
+  }
+
+  @Test
+  void testFoodTruckCodecHash() {
+    FoodTruck foodTruck = new FoodTruck();
+    foodTruck.setId("1569152");
+    foodTruck.setHash("hash");
+    FoodTruckCodec codec = new FoodTruckCodec();
+
+    BsonDocument encoded = new BsonDocument();
+    codec.encode(new BsonDocumentWriter(encoded), foodTruck, EncoderContext.builder().build());
+    FoodTruck decoded =
+        codec.decode(new BsonDocumentReader(encoded), DecoderContext.builder().build());
+
+    Assertions.assertEquals("hash", encoded.getString("hash").getValue());
+    Assertions.assertEquals("hash", decoded.getHash());
+  }
+
+  private static MappingMongoConverter converter() {
+    MongoCustomConversions conversions = ReactiveMongoConfiguration.customConversions();
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+}
@@ -0,0 +1,190 @@
+package com.location.finder.snapshot;
+
+import com.location.finder.core.index.GeoMath;
+import com.location.finder.core.index.KdTree;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * LocationSnapshot defines the binary file format of a location snapshot, and writes snapshots.
+ * Snapshots are read by {@link MappedLocationRepository}.
+ *
+ * <p>All values are little endian. The file starts with a 16 bytes header of four ints: the magic
+ * number, the format version, the number of locations and a reserved value. The header is followed
+ * by the fixed-width sections of longitudes, latitudes and the x, y and z components of the unit
+ * vectors as doubles, all in KdTree order. Then come five offset tables of count + 1 ints each, for
+ * the ids, the names, the facility types, the statuses and the food items, and finally the UTF-8
+ * bytes of the strings of every table in the same order. The string of the location at position i
+ * is the bytes between the offsets i and i + 1 of its table. The food items of a location are
+ * joined with line feeds.
+ *
+ * <p>Version 1 snapshots have only the tables of the ids and the names, and are still read.
+ */
+public final class LocationSnapshot {
+
+  /** Magic number of snapshot files, "LFSN" in ASCII. */
+  static final int MAGIC = 0x4C46534E;
+
+  /** The version of the format written by this class. */
+  static final int VERSION = 2;
+
+  /** The table of the ids. */
+  static final int IDS = 0;
+
+  /** The table of the names. */
+  static final int NAMES = 1;
+
+  /** The table of the facility types. */
+  static final int FACILITY_TYPES = 2;
+
+  /** The table of the statuses. */
+  static final int STATUSES = 3;
+
+  /** The table of the food items. */
+  static final int FOOD_ITEMS = 4;
+
+  /** Separator of the food items of a location. */
+  static final String FOOD_ITEM_SEPARATOR = "\n";
+
+  /** Size of the header in bytes. */
+  static final int HEADER_SIZE = 16;
+
+  private LocationSnapshot() {}
+
+  /**
+   * Write a snapshot of the given locations. The snapshot is written to a temporary file next to
+   * the target and moved into place, so that a process that mapped the previous snapshot keeps
+   * reading a complete file. Locations without coordinates are skipped, and missing strings are
+   * written as empty strings.
+   *
+   * @param path the snapshot file to write.
+   * @param locations the locations to write.
+   * @return number of locations written.
+   * @throws IOException if the file cannot be written.
+   */
+  public static int write(Path path, Collection<? extends MapLocation> locations)
+      throws IOException {
+    List<MapLocation> located = new ArrayList<>(locations.size());
+    for (MapLocation location : locations) {
+      if (location.getLocation() != null) {
+        located.add(location);
+      }
+    }
+    int count = located.size();
+    double[] longitudes = new double[count];
+    double[] latitudes = new double[count];
+    for (int i = 0; i < count; i++) {
+      LocationCoordinates coordinates = located.get(i).getLocation();
+      longitudes[i] = coordinates.getLongitude();
+      latitudes[i] = coordinates.getLatitude();
+    }
+    int[] order = KdTree.layout(longitudes, latitudes);
+    byte[][][] tables = new byte[tables(VERSION)][count][];
+    long size = HEADER_SIZE + 5L * Double.BYTES * count;
+    size += (long) tables.length * Integer.BYTES * (count + 1);
+    for (int i = 0; i < count; i++) {
+      MapLocation location = located.get(order[i]);
+      tables[IDS][i] = utf8(location.getId());
+      tables[NAMES][i] = utf8(location.getName());
+      tables[FACILITY_TYPES][i] = utf8(location.getFacilityType());
+      tables[STATUSES][i] = utf8(location.getStatus());
+      tables[FOOD_ITEMS][i] =
+          utf8(
+              location.getFoodItems() == null
+                  ? null
+                  : String.join(FOOD_ITEM_SEPARATOR, location.getFoodItems()));
+      for (byte[][] table : tables) {
+        size += table[i].length;
+      }
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException(String.format("Snapshot of %d bytes is too large", size));
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(longitudes[order[i]]);
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(latitudes[order[i]]);
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(GeoMath.x(longitudes[order[i]], latitudes[order[i]]));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(GeoMath.y(longitudes[order[i]], latitudes[order[i]]));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putDouble(GeoMath.z(latitudes[order[i]]));
+    }
+    for (byte[][] table : tables) {
+      putOffsets(buffer, table);
+    }
+    for (byte[][] table : tables) {
+      for (byte[] value : table) {
+        buffer.put(value);
+      }
+    }
+    buffer.flip();
+
+    Path absolute = path.toAbsolutePath();
+    Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(
+        temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /**
+   * The number of string tables of a format version.
+   *
+   * @param version the format version of a snapshot.
+   * @return number of string tables, or 0 if the version is not supported.
+   */
+  static int tables(int version) {
+    switch (version) {
+      case 1:
+        return NAMES + 1;
+      case 2:
+        return FOOD_ITEMS + 1;
+      default:
+        return 0;
+    }
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void putOffsets(ByteBuffer buffer, byte[][] values) {
+    int offset = 0;
+    buffer.putInt(offset);
+    for (byte[] value : values) {
+      offset += value.length;
+      buffer.putInt(offset);
+    }
+  }
+}
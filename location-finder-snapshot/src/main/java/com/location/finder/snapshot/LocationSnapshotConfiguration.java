@@ -0,0 +1,41 @@
+package com.location.finder.snapshot;
+
+import com.location.finder.core.datasource.LocationRepository;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for serving food truck searches from a memory-mapped snapshot written by the
+ * importer. The snapshot is exposed as a separate LocationRepository bean, so LocationService can
+ * look it up by the FoodTruckSnapshot location type.
+ *
+ * <p>ConditionalOnProperty annotation keeps the snapshot disabled unless
+ * location.finder.snapshot.enabled is set, as the snapshot file must exist on the instance.
+ */
+@Configuration
+@ConditionalOnProperty(name = "location.finder.snapshot.enabled", havingValue = "true")
+public class LocationSnapshotConfiguration {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocationSnapshotConfiguration.class);
+
+  /**
+   * Map the food truck snapshot.
+   *
+   * @param file path of the snapshot file.
+   * @return LocationRepository that searches the mapped snapshot.
+   * @throws IOException if the snapshot cannot be mapped.
+   */
+  @Bean("FoodTruckSnapshot")
+  public LocationRepository foodTruckSnapshot(@Value("${location.finder.snapshot.file}") Path file)
+      throws IOException {
+    MappedLocationRepository repository = new MappedLocationRepository(file);
+    logger.info("Mapped {} food truck locations from {}", repository.size(), file);
+    return repository;
+  }
+}
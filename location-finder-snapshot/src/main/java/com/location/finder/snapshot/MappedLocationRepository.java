@@ -0,0 +1,224 @@
+package com.location.finder.snapshot;
+
+import com.location.finder.core.datasource.LocationRepository;
+import com.location.finder.core.index.KdTree;
+import com.location.finder.core.index.PointSet;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import reactor.core.publisher.Flux;
+
+/**
+ * MappedLocationRepository is a LocationRepository that serves searches from a memory-mapped
+ * location snapshot, see {@link LocationSnapshot} for the file format. The KdTree searches the
+ * mapped coordinates directly, so opening a snapshot neither reads the file into the heap nor
+ * creates an object per location. A MapLocation is only created for a location that is emitted by a
+ * search. Searches filtered by name or attributes use the default filtering of the ring search of
+ * LocationRepository.
+ *
+ * <p>The mapped file is read-only and the repository is immutable, so it can be shared between
+ * threads. A new snapshot must be written to a new file, or moved into place, to keep the mapping
+ * of this repository valid.
+ */
+public class MappedLocationRepository implements LocationRepository, PointSet {
+
+  /** The mapped snapshot file. */
+  private final ByteBuffer buffer;
+
+  /** Number of locations in the snapshot. */
+  private final int size;
+
+  private final int longitudes;
+
+  private final int latitudes;
+
+  private final int x;
+
+  private final int y;
+
+  private final int z;
+
+  /** Positions of the offset tables of the strings. */
+  private final int[] offsets;
+
+  /** Positions of the bytes of the strings of every table. */
+  private final int[] values;
+
+  /** The KdTree over the mapped coordinates. */
+  private final KdTree tree;
+
+  /**
+   * Map a snapshot file.
+   *
+   * @param path the snapshot file.
+   * @throws IOException if the file cannot be read, or it is not a snapshot of a supported version.
+   */
+  public MappedLocationRepository(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      this.buffer =
+          channel
+              .map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+              .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    if (buffer.capacity() < LocationSnapshot.HEADER_SIZE
+        || buffer.getInt(0) != LocationSnapshot.MAGIC) {
+      throw new IOException(String.format("%s is not a location snapshot", path));
+    }
+    int tables = LocationSnapshot.tables(buffer.getInt(4));
+    if (tables == 0) {
+      throw new IOException(
+          String.format("%s has unsupported snapshot version %d", path, buffer.getInt(4)));
+    }
+    this.size = buffer.getInt(8);
+    int section = size * Double.BYTES;
+    this.longitudes = LocationSnapshot.HEADER_SIZE;
+    this.latitudes = longitudes + section;
+    this.x = latitudes + section;
+    this.y = x + section;
+    this.z = y + section;
+    this.offsets = new int[tables];
+    this.values = new int[tables];
+    for (int table = 0; table < tables; table++) {
+      offsets[table] = z + section + table * (size + 1) * Integer.BYTES;
+    }
+    values[0] = z + section + tables * (size + 1) * Integer.BYTES;
+    for (int table = 1; table < tables; table++) {
+      values[table] = values[table - 1] + buffer.getInt(offsets[table - 1] + size * Integer.BYTES);
+    }
+    if (values[tables - 1] + buffer.getInt(offsets[tables - 1] + size * Integer.BYTES)
+        != buffer.capacity()) {
+      throw new IOException(String.format("%s is a truncated location snapshot", path));
+    }
+    this.tree = new KdTree(this);
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance) {
+    return findByCoordinates(longitude, latitude, maxDistance, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double maxDistance, int limit) {
+    return findByCoordinates(longitude, latitude, 0, maxDistance, limit);
+  }
+
+  @Override
+  public Flux<MapLocation> findByCoordinates(
+      double longitude, double latitude, double minDistance, double maxDistance, int limit) {
+    return Flux.defer(
+        () -> {
+          int capacity = Math.min(limit, size);
+          int[] indexes = new int[capacity];
+          double[] distances = new double[capacity];
+          int count =
+              tree.nearest(
+                  longitude, latitude, minDistance, maxDistance, limit, indexes, distances);
+          return Flux.range(0, count).map(i -> location(indexes[i], distances[i]));
+        });
+  }
+
+  /**
+   * Scan the mapped coordinates for the box, so that a MapLocation is only created for a location
+   * within it. The locations are emitted in the order of the snapshot.
+   */
+  @Override
+  public Flux<MapLocation> findWithinBox(
+      double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, int limit) {
+    return Flux.defer(
+        () -> {
+          int[] indexes = new int[Math.min(limit, size)];
+          int count = 0;
+          for (int i = 0; i < size && count < indexes.length; i++) {
+            double longitude = buffer.getDouble(longitudes + i * Double.BYTES);
+            double latitude = buffer.getDouble(latitudes + i * Double.BYTES);
+            if (longitude >= minLongitude
+                && longitude <= maxLongitude
+                && latitude >= minLatitude
+                && latitude <= maxLatitude) {
+              indexes[count++] = i;
+            }
+          }
+          return Flux.range(0, count).map(i -> location(indexes[i], Double.NaN));
+        });
+  }
+
+  @Override
+  public Flux<MapLocation> findAllLocations() {
+    return Flux.range(0, size).map(i -> location(i, Double.NaN));
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public double x(int index) {
+    return buffer.getDouble(x + index * Double.BYTES);
+  }
+
+  @Override
+  public double y(int index) {
+    return buffer.getDouble(y + index * Double.BYTES);
+  }
+
+  @Override
+  public double z(int index) {
+    return buffer.getDouble(z + index * Double.BYTES);
+  }
+
+  /**
+   * Create the MapLocation of the location at the given position of the snapshot.
+   *
+   * @param index position of the location.
+   * @param distance distance of the location to the search center in meters, or NaN.
+   * @return MapLocation read from the snapshot.
+   */
+  private MapLocation location(int index, double distance) {
+    MapLocation mapLocation = new SnapshotLocation();
+    mapLocation.setId(string(LocationSnapshot.IDS, index));
+    mapLocation.setName(string(LocationSnapshot.NAMES, index));
+    mapLocation.setFacilityType(attribute(LocationSnapshot.FACILITY_TYPES, index));
+    mapLocation.setStatus(attribute(LocationSnapshot.STATUSES, index));
+    String foodItems = attribute(LocationSnapshot.FOOD_ITEMS, index);
+    mapLocation.setFoodItems(
+        foodItems == null
+            ? null
+            : Arrays.asList(foodItems.split(LocationSnapshot.FOOD_ITEM_SEPARATOR)));
+    LocationCoordinates coordinates = new LocationCoordinates();
+    coordinates.setType("Point");
+    coordinates.setLongitude(buffer.getDouble(longitudes + index * Double.BYTES));
+    coordinates.setLatitude(buffer.getDouble(latitudes + index * Double.BYTES));
+    mapLocation.setLocation(coordinates);
+    mapLocation.setDistance(distance);
+    return mapLocation;
+  }
+
+  /** The attribute of a location, or null if it is empty or the snapshot does not have it. */
+  private String attribute(int table, int index) {
+    if (table >= offsets.length) {
+      return null;
+    }
+    String value = string(table, index);
+    return value.isEmpty() ? null : value;
+  }
+
+  private String string(int table, int index) {
+    int start = buffer.getInt(offsets[table] + index * Integer.BYTES);
+    int end = buffer.getInt(offsets[table] + (index + 1) * Integer.BYTES);
+    byte[] bytes = new byte[end - start];
+    ByteBuffer value = buffer.duplicate();
+    value.position(values[table] + start);
+    value.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
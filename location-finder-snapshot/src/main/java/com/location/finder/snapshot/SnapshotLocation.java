@@ -0,0 +1,6 @@
+package com.location.finder.snapshot;
+
+import com.location.finder.model.MapLocation;
+
+/** A location read from a location snapshot. */
+public class SnapshotLocation extends MapLocation {}
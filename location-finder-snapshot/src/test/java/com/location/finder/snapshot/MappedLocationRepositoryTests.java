@@ -0,0 +1,143 @@
+package com.location.finder.snapshot;
+
+import com.location.finder.core.datasource.InMemoryLocationRepository;
+import com.location.finder.model.LocationCoordinates;
+import com.location.finder.model.MapLocation;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+class MappedLocationRepositoryTests {
+
+  @TempDir Path directory;
+
+  @Test
+  void testFindByCoordinatesMatchesInMemory() throws IOException {
+    Random random = new Random(42);
+    List<MapLocation> locations = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      locations.add(
+          location(
+              Integer.toString(i),
+              -122.52 + random.nextDouble() * 0.17,
+              37.70 + random.nextDouble() * 0.12));
+    }
+    Path file = directory.resolve("food-trucks.snapshot");
+    Assertions.assertEquals(2000, LocationSnapshot.write(file, locations));
+    MappedLocationRepository repository = new MappedLocationRepository(file);
+    InMemoryLocationRepository expected = new InMemoryLocationRepository(locations);
+
+    for (int query = 0; query < 50; query++) {
+      double longitude = -122.52 + random.nextDouble() * 0.17;
+      double latitude = 37.70 + random.nextDouble() * 0.12;
+      double maxDistance = 200 + random.nextDouble() * 3000;
+      Assertions.assertEquals(
+          expected
+              .findByCoordinates(longitude, latitude, maxDistance, 10)
+              .map(MapLocation::getId)
+              .collectList()
+              .block(),
+          repository
+              .findByCoordinates(longitude, latitude, maxDistance, 10)
+              .map(MapLocation::getId)
+              .collectList()
+              .block());
+    }
+    Assertions.assertEquals(2000, repository.findAllLocations().count().block());
+  }
+
+  @Test
+  void testFindWithinBoxMatchesInMemory() throws IOException {
+    Random random = new Random(42);
+    List<MapLocation> locations = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      locations.add(
+          location(
+              Integer.toString(i),
+              -122.52 + random.nextDouble() * 0.17,
+              37.70 + random.nextDouble() * 0.12));
+    }
+    Path file = directory.resolve("food-trucks.snapshot");
+    LocationSnapshot.write(file, locations);
+    MappedLocationRepository repository = new MappedLocationRepository(file);
+    InMemoryLocationRepository expected = new InMemoryLocationRepository(locations);
+
+    Assertions.assertEquals(
+        new TreeSet<>(
+            expected
+                .findWithinBox(-122.45, 37.75, -122.40, 37.78, Integer.MAX_VALUE)
+                .map(MapLocation::getId)
+                .collectList()
+                .block()),
+        new TreeSet<>(
+            repository
+                .findWithinBox(-122.45, 37.75, -122.40, 37.78, Integer.MAX_VALUE)
+                .map(MapLocation::getId)
+                .collectList()
+                .block()));
+    Assertions.assertEquals(
+        5, repository.findWithinBox(-122.45, 37.75, -122.40, 37.78, 5).count().block());
+  }
+
+  @Test
+  void testLocationFields() throws IOException {
+    Path file = directory.resolve("food-trucks.snapshot");
+    MapLocation first = location("1569152", -122.414408, 37.784683);
+    first.setFacilityType("Truck");
+    first.setStatus("APPROVED");
+    first.setFoodItems(List.of("Tacos", "Burritos"));
+    LocationSnapshot.write(file, List.of(first, location("1565593", -122.41594, 37.80588)));
+    MappedLocationRepository repository = new MappedLocationRepository(file);
+
+    StepVerifier.create(repository.findByCoordinates(-122.414408, 37.784683, 8046.7, 1))
+        .expectNextMatches(
+            next ->
+                next.getId().equals("1569152")
+                    && next.getName().equals("Café 1569152")
+                    && next.getLocation().getLongitude() == -122.414408
+                    && next.getLocation().getLatitude() == 37.784683
+                    && next.getDistance() == 0
+                    && next.getFacilityType().equals("Truck")
+                    && next.getStatus().equals("APPROVED")
+                    && next.getFoodItems().equals(List.of("Tacos", "Burritos")))
+        .expectComplete()
+        .verify();
+    StepVerifier.create(repository.findByCoordinates(-122.41594, 37.80588, 1, 1))
+        .expectNextMatches(
+            next ->
+                next.getFacilityType() == null
+                    && next.getStatus() == null
+                    && next.getFoodItems() == null)
+        .expectComplete()
+        .verify();
+  }
+
+  @Test
+  void testRejectsOtherFiles() throws IOException {
+    Path file = Files.write(directory.resolve("food-trucks.csv"), new byte[32]);
+    IOException exception =
+        Assertions.assertThrows(IOException.class, () -> new MappedLocationRepository(file));
+    Assertions.assertEquals(
+        String.format("%s is not a location snapshot", file), exception.getMessage());
+  }
+
+  private static MapLocation location(String id, double longitude, double latitude) {
+    MapLocation mapLocation = new SnapshotLocation();
+    mapLocation.setId(id);
+    mapLocation.setName(String.format("Café %s", id));
+    LocationCoordinates locationCoordinates = new LocationCoordinates();
+    locationCoordinates.setType("Point");
+    locationCoordinates.setLongitude(longitude);
+    locationCoordinates.setLatitude(latitude);
+    mapLocation.setLocation(locationCoordinates);
+    return mapLocation;
+  }
+}
@@ -2,11 +2,27 @@ package com.location.importer;
 
 import com.location.finder.model.LocationCoordinates;
 import com.location.finder.mongo.FoodTruck;
+import com.location.finder.mongo.FoodTruckPartitions;
 import com.location.finder.mongo.FoodTruckRepository;
+import com.location.finder.mongo.FoodTruckVersion;
+import com.location.finder.snapshot.LocationSnapshot;
 import com.opencsv.CSVReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +32,8 @@ import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
 import org.springframework.data.mongodb.core.index.GeospatialIndex;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * A data importer to convert CSV based location data to GeoJSON format for Food Truck locations. It
@@ -24,6 +42,15 @@ import reactor.core.publisher.Flux;
 @Service
 public class CSVToGeoJSONConverter {
 
+  /** Separator of the columns in the hash of a row, a character that does not appear in the CSV. */
+  private static final byte COLUMN_SEPARATOR = 0x1f;
+
+  /**
+   * Version of the mapping of a row, which is a part of the hash of the row. It must be changed
+   * when a row is mapped to different fields, so that the delta import rewrites every location.
+   */
+  private static final String MAPPING_VERSION = "2";
+
   /** Slf4j Logger to provide progress information to operator. */
   Logger logger = LoggerFactory.getLogger(CSVToGeoJSONConverter.class);
 
@@ -36,56 +63,281 @@ public class CSVToGeoJSONConverter {
   /** Reactive MongoDB template for creating GeoSpatial indexes. */
   private final ReactiveMongoTemplate reactiveMongoTemplate;
 
+  /** Bulk writer to populate location data to MongoDB in batches. */
+  private final FoodTruckBulkWriter foodTruckBulkWriter;
+
+  /** The partitions of the food truck collection. */
+  private final FoodTruckPartitions partitions;
+
+  /** The data version of the food truck locations, incremented after every import. */
+  private final FoodTruckVersion version;
+
+  /** The way of importing the CSV file. */
+  private final ImportMode mode;
+
+  /** Number of rows in a batch of the bulk import. */
+  private final int batchSize;
+
+  /** Max number of batches that are parsed or written at the same time in the bulk import. */
+  private final int concurrency;
+
+  /** Path of the location snapshot to write after the import, empty to skip the snapshot. */
+  private final String snapshot;
+
   /** Counter to keep track of insert progress. */
-  private int count = 0;
+  private final AtomicLong count = new AtomicLong();
 
   /**
    * The public constructor to be called by Spring CDI context.
    *
-   * @param resource Spring resource field to represent CSV file.
+   * @param resource Spring resource field to represent CSV file, either a classpath or a file
+   *     location.
    * @param foodTruckRepository Reactive food truck repository to populate location data to MongoDB.
-   * @param reactiveMongoTemplate Counter to keep track of insert progress.
+   * @param reactiveMongoTemplate Reactive MongoDB template for creating GeoSpatial indexes.
+   * @param foodTruckBulkWriter Bulk writer to populate location data to MongoDB in batches.
+   * @param partitions The partitions of the food truck collection. The save mode writes a single
+   *     collection, so it cannot be used with partitions.
+   * @param version The data version of the food truck locations, incremented after every import.
+   * @param mode The way of importing the CSV file.
+   * @param batchSize Number of rows in a batch of the bulk import.
+   * @param concurrency Max number of batches that are parsed or written at the same time.
+   * @param snapshot Path of the location snapshot to write after the import, empty to skip it.
    */
   public CSVToGeoJSONConverter(
-      @Value("classpath:Mobile_Food_Facility_Permit.csv") Resource resource,
+      @Value("${location.importer.file}") Resource resource,
       FoodTruckRepository foodTruckRepository,
-      ReactiveMongoTemplate reactiveMongoTemplate) {
+      ReactiveMongoTemplate reactiveMongoTemplate,
+      FoodTruckBulkWriter foodTruckBulkWriter,
+      FoodTruckPartitions partitions,
+      FoodTruckVersion version,
+      @Value("${location.importer.mode}") ImportMode mode,
+      @Value("${location.importer.batch-size}") int batchSize,
+      @Value("${location.importer.concurrency}") int concurrency,
+      @Value("${location.importer.snapshot}") String snapshot) {
     this.resource = resource;
     this.foodTruckRepository = foodTruckRepository;
     this.reactiveMongoTemplate = reactiveMongoTemplate;
+    if (mode == ImportMode.SAVE && partitions.getPrecision() > 0) {
+      throw new IllegalArgumentException("The save mode does not support partitions");
+    }
+    this.foodTruckBulkWriter = foodTruckBulkWriter;
+    this.partitions = partitions;
+    this.version = version;
+    this.mode = mode;
+    this.batchSize = batchSize;
+    this.concurrency = concurrency;
+    this.snapshot = snapshot;
   }
 
   /**
    * This method runs the end-to-end flow for reading, transforming and inserting Truck location
    * data. The main thread waits for stream to be completed as this is a temporary command line
-   * application.
+   * application. The GeoSpatial index is created once, after all the locations are written. The
+   * data version is incremented last, so that the application stops validating the responses of the
+   * previous locations. A delta import that changed no location keeps the data version, so that the
+   * cached responses, the in-memory indexes and the clusters of the application stay valid.
    */
   public void importFromCsv() {
-    try (CSVReader reader = new CSVReader(Files.newBufferedReader(resource.getFile().toPath()))) {
+    try (CSVReader reader =
+        new CSVReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
       reader.skip(1); // skip for header
-      Flux<FoodTruck> truckFlux = Flux.fromIterable(reader).distinct().map(this::mapToLocation);
-      this.foodTruckRepository.saveAll(truckFlux).blockLast();
-      logger.info("Inserted {} records", count);
+      boolean changed = true;
+      if (mode == ImportMode.DELTA) {
+        changed = deltaImport(reader);
+      } else if (mode == ImportMode.BULK) {
+        bulkImport(reader, UnaryOperator.identity());
+        logger.info("Inserted {} records", count.get());
+      } else {
+        Flux<FoodTruck> truckFlux = Flux.fromIterable(reader).map(this::mapToLocation);
+        this.foodTruckRepository.saveAll(truckFlux).doOnNext(saved -> progress(1)).blockLast();
+        logger.info("Inserted {} records", count.get());
+      }
       GeospatialIndex geospatialIndex = new GeospatialIndex("location");
       geospatialIndex.typed(GeoSpatialIndexType.GEO_2DSPHERE);
-      this.reactiveMongoTemplate.indexOps("food-trucks").ensureIndex(geospatialIndex).block();
-      logger.info("Created {} index", GeoSpatialIndexType.GEO_2DSPHERE);
+      List<String> collections = partitions.list().block();
+      Flux.fromIterable(collections)
+          .concatMap(
+              collection ->
+                  this.reactiveMongoTemplate.indexOps(collection).ensureIndex(geospatialIndex))
+          .blockLast();
+      logger.info(
+          "Created {} index on {} collections",
+          GeoSpatialIndexType.GEO_2DSPHERE,
+          collections.size());
+      if (changed) {
+        logger.info("Stamped data version {}", version.increment().block());
+      } else {
+        logger.info("No record changed, kept the data version");
+      }
     } catch (IOException exception) {
-      logger.info("Cannot read the CSV file {} under resources", resource.getFilename());
+      logger.info("Cannot read the CSV file {}", resource.getDescription());
+      return;
+    }
+    if (!snapshot.isBlank()) {
+      writeSnapshot(Path.of(snapshot));
+    }
+  }
+
+  /**
+   * Write a location snapshot of the collection, so that application instances can serve searches
+   * from a local file. The snapshot is written from the stored locations rather than from the CSV
+   * file, as the collection may have locations that are not in the file.
+   *
+   * @param path path of the snapshot file.
+   */
+  private void writeSnapshot(Path path) {
+    try {
+      int written =
+          LocationSnapshot.write(
+              path, foodTruckRepository.findAllLocations().collectList().block());
+      logger.info("Wrote a snapshot of {} records to {}", written, path);
+    } catch (IOException exception) {
+      logger.info("Cannot write the snapshot file {}", path);
+    }
+  }
+
+  /**
+   * Read the rows in batches on the calling thread, and map every batch to locations on the
+   * parallel scheduler. The CSV reader tokenizes the rows sequentially, only the mapping and the
+   * hashing of the rows run in parallel. A batch is written as soon as it is mapped, and at most
+   * concurrency batches are in flight, so the memory of the import does not depend on the size of
+   * the file.
+   *
+   * @param rows the rows of the file, e.g. a CSVReader positioned at the first data row.
+   * @param selector selects the locations of a batch to be written.
+   * @return number of rows read from the file.
+   */
+  private long bulkImport(Iterable<String[]> rows, UnaryOperator<List<FoodTruck>> selector) {
+    AtomicLong read = new AtomicLong();
+    Flux.fromIterable(rows)
+        .buffer(batchSize)
+        .flatMap(
+            batch ->
+                Mono.fromCallable(() -> selector.apply(mapToLocations(batch)))
+                    .subscribeOn(Schedulers.parallel())
+                    .doOnNext(foodTrucks -> read.addAndGet(batch.size()))
+                    .filter(foodTrucks -> !foodTrucks.isEmpty())
+                    .flatMapMany(
+                        foodTrucks ->
+                            foodTruckBulkWriter
+                                .upsert(foodTrucks)
+                                .doOnComplete(() -> progress(foodTrucks.size()))),
+            concurrency)
+        .blockLast();
+    return read.get();
+  }
+
+  /**
+   * Import only the difference between the file and the stored locations. The id and the hash of
+   * the stored locations are loaded first, then every row is compared with them. New and changed
+   * rows are upserted in bulk, unchanged rows are not written at all. The stored locations that are
+   * not in the file, and the stored copies of the locations that moved to another partition, are
+   * deleted at the end.
+   *
+   * <p>The rows are deduplicated by permit id before the comparison, the last row of an id wins, so
+   * that a permit listed twice is written once and counted once.
+   *
+   * <p>If the file has no rows, nothing is deleted, so that an empty or truncated export cannot
+   * wipe the collection.
+   *
+   * <p>The delta import holds every row of the file, and the id, the hash and the coordinates of
+   * every stored location, in memory for the whole import, so its memory grows with the size of the
+   * file and of the collection, unlike the bulk import. A file or a collection that does not fit in
+   * the memory of the importer must be imported in bulk mode.
+   *
+   * @param reader CSVReader positioned at the first data row.
+   * @return whether any location was inserted, updated or deleted.
+   */
+  private boolean deltaImport(CSVReader reader) {
+    Map<String, FoodTruck> stored = foodTruckBulkWriter.stored().block();
+    logger.info("Loaded {} stored records", stored.size());
+    Map<String, String[]> rows = new LinkedHashMap<>();
+    long duplicates = 0;
+    for (String[] row : reader) {
+      if (rows.put(row[0], row) != null) {
+        duplicates++;
+      }
+    }
+    if (duplicates > 0) {
+      logger.warn("The CSV file has {} duplicate permit ids, kept the last rows", duplicates);
+    }
+    AtomicLong inserted = new AtomicLong();
+    AtomicLong updated = new AtomicLong();
+    Queue<FoodTruck> moved = new ConcurrentLinkedQueue<>();
+    long read =
+        bulkImport(
+            rows.values(),
+            foodTrucks -> {
+              List<FoodTruck> changed = new ArrayList<>();
+              for (FoodTruck foodTruck : foodTrucks) {
+                FoodTruck storedTruck = stored.remove(foodTruck.getId());
+                if (storedTruck == null) {
+                  inserted.incrementAndGet();
+                  changed.add(foodTruck);
+                } else if (!Objects.toString(storedTruck.getHash(), "")
+                    .equals(foodTruck.getHash())) {
+                  updated.incrementAndGet();
+                  changed.add(foodTruck);
+                  if (!partitions
+                      .collection(storedTruck)
+                      .equals(partitions.collection(foodTruck))) {
+                    moved.add(storedTruck);
+                  }
+                }
+              }
+              return changed;
+            });
+    long relocated =
+        Flux.fromIterable(moved)
+            .buffer(batchSize)
+            .flatMap(foodTruckBulkWriter::delete, concurrency)
+            .reduce(0L, Long::sum)
+            .block();
+    long deleted = 0;
+    if (read > 0) {
+      deleted =
+          Flux.fromIterable(stored.values())
+              .buffer(batchSize)
+              .flatMap(foodTruckBulkWriter::delete, concurrency)
+              .reduce(0L, Long::sum)
+              .block();
+    } else {
+      logger.warn("The CSV file has no records, skipped deleting {} records", stored.size());
+    }
+    logger.info(
+        "Inserted {}, updated {} ({} moved to another partition), deleted {} records, {} records"
+            + " were unchanged",
+        inserted.get(),
+        updated.get(),
+        relocated,
+        deleted,
+        read - inserted.get() - updated.get());
+    return inserted.get() > 0 || updated.get() > 0 || deleted > 0;
+  }
+
+  private List<FoodTruck> mapToLocations(List<String[]> rows) {
+    List<FoodTruck> foodTrucks = new ArrayList<>(rows.size());
+    for (String[] row : rows) {
+      foodTrucks.add(mapToLocation(row));
+    }
+    return foodTrucks;
+  }
+
+  private void progress(int written) {
+    long total = count.addAndGet(written);
+    if (total / batchSize != (total - written) / batchSize) {
+      logger.info("Inserted {} records", total);
     }
   }
 
   /**
-   * Map a csv row into Location document.
+   * Map a csv row into Location document. The food items column is a colon separated list. The
+   * method is package-private to be measured by the benchmarks.
    *
    * @param csvRow an array of Strings representing a csv row.
    * @return FoodTruck location instance.
    */
-  private FoodTruck mapToLocation(String[] csvRow) {
-    count++;
-    if (count % 10 == 0) {
-      logger.info("Inserted {} records", count);
-    }
+  FoodTruck mapToLocation(String[] csvRow) {
     FoodTruck foodTruck = new FoodTruck();
     foodTruck.setName(csvRow[1]);
     LocationCoordinates locationCoordinates = new LocationCoordinates();
@@ -97,10 +349,47 @@ public class CSVToGeoJSONConverter {
             .replace(')', Character.MIN_VALUE)
             .trim()
             .split(",");
-    locationCoordinates.setCoordinates(
-        List.of(Double.parseDouble(coordinateValues[1]), Double.parseDouble(coordinateValues[0])));
+    locationCoordinates.setLongitude(Double.parseDouble(coordinateValues[1]));
+    locationCoordinates.setLatitude(Double.parseDouble(coordinateValues[0]));
     foodTruck.setLocation(locationCoordinates);
     foodTruck.setId(csvRow[0]);
+    foodTruck.setFacilityType(blankToNull(csvRow[2]));
+    foodTruck.setStatus(blankToNull(csvRow[10]));
+    List<String> foodItems = new ArrayList<>();
+    for (String foodItem : csvRow[11].split(":")) {
+      if (!foodItem.isBlank()) {
+        foodItems.add(foodItem.trim());
+      }
+    }
+    foodTruck.setFoodItems(foodItems.isEmpty() ? null : foodItems);
+    foodTruck.setHash(hash(csvRow));
     return foodTruck;
   }
+
+  private static String blankToNull(String value) {
+    return value.isBlank() ? null : value.trim();
+  }
+
+  /**
+   * Hash the mapping version and all the columns of a csv row, so that a change in any column of
+   * the permit is detected by the delta import.
+   *
+   * @param csvRow an array of Strings representing a csv row.
+   * @return Base64 encoded SHA-256 hash of the row.
+   */
+  static String hash(String[] csvRow) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    }
+    digest.update(MAPPING_VERSION.getBytes(StandardCharsets.UTF_8));
+    digest.update(COLUMN_SEPARATOR);
+    for (String column : csvRow) {
+      digest.update(column.getBytes(StandardCharsets.UTF_8));
+      digest.update(COLUMN_SEPARATOR);
+    }
+    return Base64.getEncoder().encodeToString(digest.digest());
+  }
 }
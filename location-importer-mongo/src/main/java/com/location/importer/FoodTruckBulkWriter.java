@@ -0,0 +1,145 @@
+package com.location.importer;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+import com.location.finder.mongo.FoodTruck;
+import com.location.finder.mongo.FoodTruckCodec;
+import com.location.finder.mongo.FoodTruckPartitions;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A writer that stores batches of food truck locations with a single unordered bulk write per
+ * batch. Every location is upserted by its id, so that running an import again replaces the stored
+ * locations instead of failing on duplicate ids. The locations are encoded with MapLocationCodec,
+ * which writes the GeoJSON document directly without the MappingMongoConverter.
+ *
+ * <p>If the locations are split into partitions, see {@link FoodTruckPartitions}, a batch is
+ * grouped by partition and every partition gets its own bulk write.
+ */
+@Component
+public class FoodTruckBulkWriter {
+
+  /** Codec to encode food truck documents. */
+  private static final FoodTruckCodec CODEC = new FoodTruckCodec();
+
+  /** Upsert option of the replace operations. */
+  private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+  /** Unordered bulk writes let the server apply the operations of a batch in parallel. */
+  private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+  /** Reactive MongoDB template to access the food truck collection. */
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  /** The partitions of the food truck collection. */
+  private final FoodTruckPartitions partitions;
+
+  /**
+   * The public constructor to be called by Spring CDI context.
+   *
+   * @param reactiveMongoTemplate Reactive MongoDB template to access the food truck collection.
+   * @param partitions The partitions of the food truck collection.
+   */
+  public FoodTruckBulkWriter(
+      ReactiveMongoTemplate reactiveMongoTemplate, FoodTruckPartitions partitions) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.partitions = partitions;
+  }
+
+  /**
+   * Upsert a batch of food truck locations with a single unordered bulk write per partition.
+   *
+   * @param foodTrucks the batch of locations to store.
+   * @return Flux<BulkWriteResult> the result of the bulk write of every partition.
+   */
+  public Flux<BulkWriteResult> upsert(List<FoodTruck> foodTrucks) {
+    Map<String, List<WriteModel<FoodTruck>>> writes = new HashMap<>();
+    for (FoodTruck foodTruck : foodTrucks) {
+      writes
+          .computeIfAbsent(partitions.collection(foodTruck), name -> new ArrayList<>())
+          .add(new ReplaceOneModel<>(Filters.eq("_id", foodTruck.getId()), foodTruck, UPSERT));
+    }
+    return Flux.fromIterable(writes.entrySet())
+        .flatMap(
+            partition ->
+                collection(partition.getKey())
+                    .flatMap(
+                        collection ->
+                            Mono.from(collection.bulkWrite(partition.getValue(), UNORDERED))));
+  }
+
+  /**
+   * Load the source hash and the coordinates of every stored food truck location, to compare them
+   * with the incoming data. Only the id, the hash and the coordinates of the documents are sent by
+   * the server. The returned map is safe for concurrent use.
+   *
+   * @return Mono<Map<String, FoodTruck>> every stored location by id.
+   */
+  public Mono<Map<String, FoodTruck>> stored() {
+    return partitions
+        .list()
+        .flatMapMany(Flux::fromIterable)
+        .concatMap(
+            name ->
+                collection(name)
+                    .flatMapMany(
+                        collection ->
+                            collection.find().projection(Projections.include("hash", "location"))))
+        .<Map<String, FoodTruck>>collect(
+            ConcurrentHashMap::new,
+            (stored, foodTruck) -> stored.put(foodTruck.getId(), foodTruck));
+  }
+
+  /**
+   * Delete a batch of stored food truck locations from their partitions.
+   *
+   * @param foodTrucks the stored locations to delete, with their coordinates.
+   * @return Mono<Long> number of deleted locations.
+   */
+  public Mono<Long> delete(List<FoodTruck> foodTrucks) {
+    Map<String, List<String>> ids = new HashMap<>();
+    for (FoodTruck foodTruck : foodTrucks) {
+      ids.computeIfAbsent(partitions.collection(foodTruck), name -> new ArrayList<>())
+          .add(foodTruck.getId());
+    }
+    return Flux.fromIterable(ids.entrySet())
+        .flatMap(
+            partition ->
+                collection(partition.getKey())
+                    .flatMap(
+                        collection ->
+                            Mono.from(
+                                collection.deleteMany(Filters.in("_id", partition.getValue())))))
+        .map(DeleteResult::getDeletedCount)
+        .reduce(0L, Long::sum);
+  }
+
+  private Mono<MongoCollection<FoodTruck>> collection(String name) {
+    return reactiveMongoTemplate
+        .getCollection(name)
+        .map(
+            collection ->
+                collection
+                    .withDocumentClass(FoodTruck.class)
+                    .withCodecRegistry(
+                        fromRegistries(fromCodecs(CODEC), collection.getCodecRegistry())));
+  }
+}
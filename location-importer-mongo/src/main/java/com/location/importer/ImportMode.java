@@ -0,0 +1,21 @@
+package com.location.importer;
+
+/** The ways of importing a CSV file into the food truck collection. */
+public enum ImportMode {
+
+  /** Parse the rows on one thread and save every location individually with the repository. */
+  SAVE,
+
+  /**
+   * Read the rows on one thread, map batches of rows to locations in parallel and upsert every
+   * batch with an unordered bulk write, with a bounded number of concurrent writes. The CSV is
+   * tokenized sequentially, as a quoted column may span lines.
+   */
+  BULK,
+
+  /**
+   * Compare the rows with the stored locations by id and content hash, upsert only the new and the
+   * changed rows in bulk, and delete the stored locations that are missing from the file.
+   */
+  DELTA
+}